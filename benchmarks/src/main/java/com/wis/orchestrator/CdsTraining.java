@@ -0,0 +1,32 @@
+package com.wis.orchestrator;
+
+import com.wis.orchestrator.service.StartupWarmup;
+
+/**
+ * Training run for the class data sharing archive built by this module's cds profile.
+ * Loads what a cold start loads: the startup warmup, then the invocations measured by
+ * {@link ColdStartBenchmark}. The JVM writes the classes it loaded to the archive named by
+ * -XX:ArchiveClassesAtExit when this returns.
+ *
+ * Usage: java -XX:ArchiveClassesAtExit=target/cold-start.jsa -cp target/benchmarks.jar com.wis.orchestrator.CdsTraining
+ */
+public final class CdsTraining {
+
+    private static final int ROUNDS = 20;
+
+    private CdsTraining() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LogOutput.discard();
+        StartupWarmup.start();
+        if (!StartupWarmup.awaitCompletion(60_000)) {
+            System.out.println("Startup warmup did not finish; the archive may miss some of its classes");
+        }
+        int sent = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            sent += ColdStartBenchmark.invokeOnce();
+        }
+        System.out.printf("Training run sent %d messages in %d rounds%n", sent, ROUNDS);
+    }
+}
@@ -0,0 +1,113 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import com.wis.orchestrator.service.StartupWarmup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start: the time a new JVM takes for its first invocations, which is creating the
+ * functions, handling one SubscriptionActivated event and running one MessageScheduler
+ * tick over one due customer, against {@link InMemoryOrchestratorStore}. Every fork is a
+ * fresh JVM that runs the invocations once, so the score is class loading, static
+ * initialization and interpreted code, the costs a cold-started instance pays while its
+ * first messages wait. Inputs are string constants, so no orchestrator or Jackson class
+ * is loaded before the measurement; seeding the store with the customer is measured.
+ *
+ * startupWarmup=true runs {@link StartupWarmup} in setup and waits for it, as when the host
+ * creates the function instance injector a while before the first trigger arrives. The
+ * store is in memory, so only the JSON and Sentry tasks run. To measure class data
+ * sharing, build the archive with the cds profile and pass it to the forks:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar ColdStart
+ * java -jar target/benchmarks.jar ColdStart -jvmArgsAppend -XX:SharedArchiveFile=target/cold-start.jsa
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+    private static final String CUSTOMER_ID = "cus_9f2c41d7e0b84a6c";
+
+    private static final String SUBSCRIPTION_ACTIVATED = "{\"eventId\":\"c3a9e1f4-0d2b-4b8e-8f61-7e5d2a9c4b13\","
+            + "\"eventType\":\"SubscriptionActivated\",\"eventTime\":1741611900.000000000,"
+            + "\"subject\":\"subscriptions/sub_1OqXyZ2eZvKYlo2C8h3kQm4T\",\"data\":{\"customerId\":\"" + CUSTOMER_ID + "\","
+            + "\"phoneNumber\":\"+15555550142\",\"subscriptionId\":\"sub_1OqXyZ2eZvKYlo2C8h3kQm4T\","
+            + "\"stripePriceId\":\"price_1OqXw12eZvKYlo2CkB9aLr7N\",\"status\":\"active\",\"activatedAt\":1741611900.000000000}}";
+
+    // Due for a devotional and a check-in whenever the benchmark runs
+    private static final String CUSTOMER = "{\"id\":\"" + CUSTOMER_ID + "\",\"currentPhone\":\"+15555550142\","
+            + "\"status\":\"active\",\"profile\":{\"firstName\":\"Grace\",\"lastName\":\"Okafor\","
+            + "\"preferences\":{\"preferredTimeOfDay\":\"morning\",\"devotionalIntervalDays\":1,"
+            + "\"checkInIntervalDays\":14,\"timezone\":\"America/Chicago\"}},"
+            + "\"messagingState\":{\"conversationState\":\"active\",\"currentLifeSeason\":\"waiting\","
+            + "\"extractedThemes\":[\"patience\",\"trust\"],\"nextCheckInScheduledFor\":\"2025-03-10T13:05:00Z\","
+            + "\"nextDevotionalScheduledFor\":\"2025-03-10T09:05:00Z\",\"timezone\":\"America/Chicago\","
+            + "\"preferredTimeOfDay\":\"morning\"},\"outbox\":[],\"_rid\":\"q0Z9AKr3HQEBAAAAAAAAAA==\","
+            + "\"_etag\":\"\\\"0a00c3d1-0000-0200-0000-65edb2a40000\\\"\",\"_ts\":1741611900}";
+
+    @Param({"false", "true"})
+    public boolean startupWarmup;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        LogOutput.discard();
+        if (startupWarmup) {
+            StartupWarmup.start();
+            StartupWarmup.awaitCompletion(30_000);
+        }
+    }
+
+    @Benchmark
+    public int firstInvocations() throws Exception {
+        return invokeOnce();
+    }
+
+    /**
+     * The measured work, shared with {@link CdsTraining}; returns the messages sent.
+     */
+    static int invokeOnce() throws Exception {
+        InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+        store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, CUSTOMER_ID, new ObjectMapper().readTree(CUSTOMER));
+        InMemoryMessageSender sender = new InMemoryMessageSender();
+        MessageDispatcher dispatcher = new MessageDispatcher(() -> sender, false, false);
+
+        SubscriptionActivatedFunction subscriptionActivated = new SubscriptionActivatedFunction(() -> store, dispatcher,
+                AdaptiveConcurrencyLimiter.getInstance(), new ProcessedEventRegistry(() -> store),
+                new CustomerOutbox(() -> store, false));
+        subscriptionActivated.processSubscriptionActivated(SUBSCRIPTION_ACTIVATED, "msg-1", "2025-03-10T13:05:00Z", null);
+
+        SchedulerFunction scheduler = new SchedulerFunction(dispatcher);
+        DiscardingBinding<String[]> scheduled = new DiscardingBinding<>();
+        scheduler.messageScheduler("{}", new String[]{CUSTOMER}, scheduled, null);
+
+        return (int) sender.getSentCount() + sent(scheduled);
+    }
+
+    private static int sent(DiscardingBinding<String[]> binding) {
+        return binding.getValue() == null ? 0 : binding.getValue().length;
+    }
+}
@@ -0,0 +1,72 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.entity.CustomerEntity;
+import com.wis.orchestrator.entity.DevotionalPlanEntity;
+import com.wis.orchestrator.entity.PlanDayProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the Cosmos DB customer and plan documents. The customer document is read by
+ * the timer functions once per due customer, into their own slim view, and by the store
+ * into the full entity. Plans are read whole by the compaction and check-in paths, and as
+ * the single-day projection by the plan day run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class DocumentDeserializationBenchmark {
+
+    @Param({"600", "2400"})
+    public int reflectionChars;
+
+    private ObjectMapper functionMapper;
+    private ObjectMapper storeMapper;
+    private String customerJson;
+    private String planJson;
+    private String planDayJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        functionMapper = Payloads.functionMapper();
+        storeMapper = Payloads.storeMapper();
+        customerJson = storeMapper.writeValueAsString(Payloads.customerDocument());
+        planJson = storeMapper.writeValueAsString(Payloads.plan(reflectionChars));
+        planDayJson = storeMapper.writeValueAsString(Payloads.planDayDocument(reflectionChars));
+    }
+
+    @Benchmark
+    public DevotionalPlanFunction.CustomerPlanData readCustomerForPlanDay() throws Exception {
+        return functionMapper.readValue(customerJson, DevotionalPlanFunction.CustomerPlanData.class);
+    }
+
+    @Benchmark
+    public CustomerEntity readCustomerEntity() throws Exception {
+        return storeMapper.readValue(customerJson, CustomerEntity.class);
+    }
+
+    @Benchmark
+    public DevotionalPlanEntity readPlan() throws Exception {
+        return storeMapper.readValue(planJson, DevotionalPlanEntity.class);
+    }
+
+    @Benchmark
+    public PlanDayProjection readPlanDay() throws Exception {
+        return storeMapper.readValue(planDayJson, PlanDayProjection.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.CustomerRegisteredEvent;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the topic events that start onboarding, as done once per delivered message
+ * by ProcessCustomerRegistered and ProcessSubscriptionActivated.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class EventDeserializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private String customerRegisteredJson;
+    private String subscriptionActivatedJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Payloads.functionMapper();
+        // Publishers write timestamps as ISO-8601 strings
+        ObjectMapper publisher = Payloads.storeMapper();
+        customerRegisteredJson = publisher.writeValueAsString(Payloads.customerRegisteredEvent());
+        subscriptionActivatedJson = publisher.writeValueAsString(Payloads.subscriptionActivatedEvent());
+    }
+
+    @Benchmark
+    public CustomerRegisteredEvent readCustomerRegistered() throws Exception {
+        return objectMapper.readValue(customerRegisteredJson, CustomerRegisteredEvent.class);
+    }
+
+    @Benchmark
+    public SubscriptionActivatedEvent readSubscriptionActivated() throws Exception {
+        return objectMapper.readValue(subscriptionActivatedJson, SubscriptionActivatedEvent.class);
+    }
+}
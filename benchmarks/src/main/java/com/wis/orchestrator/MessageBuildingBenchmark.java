@@ -0,0 +1,73 @@
+package com.wis.orchestrator;
+
+import com.wis.orchestrator.model.DailyDevotion;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the text and body of a single outgoing message: the plan day text, the
+ * welcome text, and the complete welcome message including its JSON body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class MessageBuildingBenchmark {
+
+    @Param({"600", "2400"})
+    public int reflectionChars;
+
+    private DevotionalPlanFunction planFunction;
+    private SubscriptionActivatedFunction subscriptionFunction;
+    private DailyDevotion devotion;
+    private SubscriptionActivatedEvent event;
+
+    @Setup
+    public void setUp() {
+        InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+        MessageDispatcher dispatcher = new MessageDispatcher(InMemoryMessageSender::new, false, false);
+        planFunction = new DevotionalPlanFunction(() -> store, dispatcher, new CustomerOutbox(() -> store, false));
+        subscriptionFunction = new SubscriptionActivatedFunction(() -> store, dispatcher,
+                AdaptiveConcurrencyLimiter.getInstance(), new ProcessedEventRegistry(() -> store),
+                new CustomerOutbox(() -> store, false));
+        devotion = Payloads.day(3, reflectionChars);
+        event = Payloads.subscriptionActivatedEvent();
+    }
+
+    @Benchmark
+    public String formatDailyDevotionMessage() {
+        return planFunction.formatDailyDevotionMessage(devotion.getVerseReference(), devotion.getVerseText(),
+                devotion.getReflection(), devotion.getJournalPrompt(), devotion.getDayNumber());
+    }
+
+    @Benchmark
+    public String buildWelcomeMessageText() {
+        return subscriptionFunction.buildWelcomeMessageText("Grace");
+    }
+
+    @Benchmark
+    public OutboundMessage buildWelcomeMessage() throws Exception {
+        return subscriptionFunction.buildWelcomeMessage(event, "Grace");
+    }
+}
@@ -0,0 +1,75 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.ScheduledMessageRequest;
+import com.wis.orchestrator.model.WelcomeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the message bodies the functions put on message-send-queue.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class MessageSerializationBenchmark {
+
+    @Param({"600", "2400"})
+    public int reflectionChars;
+
+    private ObjectMapper objectMapper;
+    private WelcomeMessage welcomeMessage;
+    private ScheduledMessageRequest scheduledDevotional;
+    private DevotionalPlanFunction.DevotionalPlanMessage planDayMessage;
+    private DevotionalPlanFunction.WeeklyCheckInRequest weeklyCheckIn;
+    private DevotionalPlanFunction.Day7SurveyMessage day7Survey;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Payloads.functionMapper();
+        welcomeMessage = Payloads.welcomeMessage();
+        scheduledDevotional = Payloads.scheduledDevotional();
+        planDayMessage = Payloads.planDayMessage(reflectionChars);
+        weeklyCheckIn = Payloads.weeklyCheckIn();
+        day7Survey = Payloads.day7Survey();
+    }
+
+    @Benchmark
+    public String writeWelcomeMessage() throws Exception {
+        return objectMapper.writeValueAsString(welcomeMessage);
+    }
+
+    @Benchmark
+    public String writeScheduledDevotional() throws Exception {
+        return objectMapper.writeValueAsString(scheduledDevotional);
+    }
+
+    @Benchmark
+    public String writePlanDayMessage() throws Exception {
+        return objectMapper.writeValueAsString(planDayMessage);
+    }
+
+    @Benchmark
+    public String writeWeeklyCheckIn() throws Exception {
+        return objectMapper.writeValueAsString(weeklyCheckIn);
+    }
+
+    @Benchmark
+    public String writeDay7Survey() throws Exception {
+        return objectMapper.writeValueAsString(day7Survey);
+    }
+}
@@ -0,0 +1,511 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.entity.DevotionalPlanEntity;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.PlanCompletionCursor;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Capacity simulator for the timer functions.
+ *
+ * Generates a synthetic customer population into an {@link InMemoryOrchestratorStore}
+ * and runs the MessageScheduler, ProcessDevotionalPlanDay and ProcessPlanCompletion
+ * loops every five simulated minutes. Between ticks it plays message-handler's part,
+ * so the population evolves: sent devotionals and check-ins are rescheduled at the
+ * customer's preferred local time, plans advance a day per message, completed plans
+ * are checked in and followed by a new plan.
+ *
+ * For each function the report gives the tick duration, customers and messages per
+ * tick, allocation per tick and an RU-equivalent cost, followed by a linear projection
+ * to 100k, 1M and 10M customers. Tick durations are this JVM's CPU time for the
+ * orchestrator's own work; the input query and message-handler's writes are not timed.
+ *
+ * Usage: java -cp target/benchmarks.jar com.wis.orchestrator.SchedulerLoadSimulator
+ *        [customers=10000] [days=3] [reflectionChars=600] [seed=1] [start=2025-03-10T00:00:00Z]
+ */
+public final class SchedulerLoadSimulator {
+
+    private static final StructuredLogger log = StructuredLogger.getLogger(SchedulerLoadSimulator.class);
+
+    private static final Duration TICK = Duration.ofMinutes(5);
+    private static final int MAX_COMPLETIONS_PER_TICK = 1000;
+    private static final long[] PROJECTED_CUSTOMERS = {100_000, 1_000_000, 10_000_000};
+
+    // Rough Cosmos DB charges for 1-2 KB customer documents with default indexing
+    private static final double READ_RU = 1.0;
+    private static final double WRITE_RU = 10.0;
+    private static final double QUERY_RU = 2.5;
+    private static final double QUERY_RU_PER_DOCUMENT = 1.0;
+
+    private static final String[] ZONES = {
+            "America/New_York", "America/Chicago", "America/Denver", "America/Phoenix",
+            "America/Los_Angeles", "Europe/London", "Africa/Lagos", "Australia/Sydney"};
+    private static final double[] ZONE_WEIGHTS = {0.30, 0.22, 0.07, 0.03, 0.25, 0.05, 0.04, 0.04};
+
+    private static final String[] TIMES_OF_DAY = {
+            "morning", "morning", "morning", "morning", "morning", "afternoon", "evening", "evening", "evening"};
+    private static final LocalTime[] SEND_TIMES = {
+            LocalTime.of(6, 0), LocalTime.of(6, 30), LocalTime.of(7, 0), LocalTime.of(7, 30), LocalTime.of(8, 0),
+            LocalTime.of(12, 0), LocalTime.of(19, 0), LocalTime.of(20, 0), LocalTime.of(21, 0)};
+    private static final double[] SEND_TIME_WEIGHTS = {0.12, 0.10, 0.20, 0.08, 0.08, 0.10, 0.12, 0.12, 0.08};
+
+    private static final int[] CHECK_IN_INTERVAL_DAYS = {7, 14, 30};
+    private static final double[] CHECK_IN_INTERVAL_WEIGHTS = {0.3, 0.5, 0.2};
+
+    private static final double ACTIVE_CONVERSATION_SHARE = 0.92;
+    private static final double ACTIVE_PLAN_SHARE = 0.6;
+    private static final double BETA_SHARE = 0.15;
+
+    private final int customerCount;
+    private final int days;
+    private final int reflectionChars;
+    private final Instant start;
+    private final Random random;
+
+    private final ObjectMapper objectMapper = Payloads.storeMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final MessageDispatcher dispatcher;
+    private final SchedulerFunction scheduler;
+    private final DevotionalPlanFunction planFunction;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, SimulatedCustomer> customers = new HashMap<>();
+    private final FunctionStats schedulerStats = new FunctionStats("MessageScheduler");
+    private final FunctionStats planDayStats = new FunctionStats("ProcessDevotionalPlanDay");
+    private final FunctionStats completionStats = new FunctionStats("ProcessPlanCompletion");
+    private long peakHeapBytes;
+
+    SchedulerLoadSimulator(int customerCount, int days, int reflectionChars, long seed, Instant start) {
+        this.customerCount = customerCount;
+        this.days = days;
+        this.reflectionChars = reflectionChars;
+        this.start = start;
+        this.random = new Random(seed);
+
+        InMemoryMessageSender sender = new InMemoryMessageSender();
+        this.dispatcher = new MessageDispatcher(() -> sender, false, false);
+        this.scheduler = new SchedulerFunction(dispatcher);
+        this.planFunction = new DevotionalPlanFunction(() -> store, dispatcher, new CustomerOutbox(() -> store, false));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        LogOutput.discard();
+        SchedulerLoadSimulator simulator = new SchedulerLoadSimulator(
+                Integer.parseInt(options.getOrDefault("customers", "10000")),
+                Integer.parseInt(options.getOrDefault("days", "3")),
+                Integer.parseInt(options.getOrDefault("reflectionChars", "600")),
+                Long.parseLong(options.getOrDefault("seed", "1")),
+                Instant.parse(options.getOrDefault("start", "2025-03-10T00:00:00Z")));
+        simulator.populate();
+        long started = System.nanoTime();
+        simulator.run();
+        simulator.report(System.nanoTime() - started);
+    }
+
+    // ---- Population ----
+
+    void populate() throws Exception {
+        for (int i = 0; i < customerCount; i++) {
+            SimulatedCustomer customer = new SimulatedCustomer(String.format("sim_%08d", i));
+            customer.zone = ZoneId.of(ZONES[pick(ZONE_WEIGHTS)]);
+            int sendTime = pick(SEND_TIME_WEIGHTS);
+            customer.sendTime = SEND_TIMES[sendTime];
+            customer.timeOfDay = TIMES_OF_DAY[sendTime];
+            customer.checkInIntervalDays = CHECK_IN_INTERVAL_DAYS[pick(CHECK_IN_INTERVAL_WEIGHTS)];
+            customers.put(customer.id, customer);
+
+            boolean hasPlan = random.nextDouble() < ACTIVE_PLAN_SHARE;
+            String planId = hasPlan ? customer.nextPlanId() : null;
+
+            Map<String, Object> document = Payloads.customerDocument(customer.id, planId);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> profile = (Map<String, Object>) document.get("profile");
+            profile.put("preferences", Map.of(
+                    "timezone", customer.zone.getId(),
+                    "preferredTimeOfDay", customer.timeOfDay,
+                    "checkInIntervalDays", customer.checkInIntervalDays,
+                    "devotionalIntervalDays", 1));
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> messagingState = (Map<String, Object>) document.get("messagingState");
+            messagingState.put("conversationState",
+                    random.nextDouble() < ACTIVE_CONVERSATION_SHARE ? "active" : "paused");
+            messagingState.put("timezone", customer.zone.getId());
+            messagingState.put("preferredTimeOfDay", customer.timeOfDay);
+            messagingState.put("nextDevotionalScheduledFor", customer.nextSendAfter(start).toString());
+            messagingState.put("nextCheckInScheduledFor", customer.nextSendAfter(
+                    start.plus(random.nextInt(customer.checkInIntervalDays), ChronoUnit.DAYS)).toString());
+            if (hasPlan) {
+                messagingState.put("nextPlanMessageScheduledFor", customer.nextSendAfter(start).toString());
+            } else {
+                messagingState.remove("nextPlanMessageScheduledFor");
+            }
+
+            if (random.nextDouble() >= BETA_SHARE) {
+                document.remove("betaProgram");
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> betaProgram = (Map<String, Object>) document.get("betaProgram");
+                betaProgram.remove("day7SurveySentAt");
+            }
+
+            store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customer.id, objectMapper.valueToTree(document));
+            if (hasPlan) {
+                createPlan(customer, planId, 1 + random.nextInt(7), start);
+            }
+        }
+    }
+
+    private void createPlan(SimulatedCustomer customer, String planId, int currentDay, Instant now) {
+        DevotionalPlanEntity plan = Payloads.plan(customer.id, planId, currentDay, reflectionChars);
+        plan.setPlanNumber(customer.planNumber);
+        plan.setStartedAt(now.minus(currentDay - 1, ChronoUnit.DAYS));
+        plan.setCreatedAt(now.minus(currentDay, ChronoUnit.DAYS));
+        plan.setTimezone(customer.zone.getId());
+        plan.setPreferredTimeOfDay(customer.timeOfDay);
+        store.createDocument(OrchestratorStore.PLANS_CONTAINER, customer.id, objectMapper.valueToTree(plan));
+    }
+
+    private int pick(double[] weights) {
+        double value = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    // ---- Simulation ----
+
+    void run() throws Exception {
+        Instant end = start.plus(days, ChronoUnit.DAYS);
+        for (Instant now = start; now.isBefore(end); now = now.plus(TICK)) {
+            deliver(tick(now), now);
+            peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+        }
+    }
+
+    private List<OutboundMessage> tick(Instant now) throws Exception {
+        List<OutboundMessage> sent = new ArrayList<>();
+
+        List<String> due = store.queryCustomersWithDueMessages(now);
+        sent.addAll(runTick(schedulerStats, due.size(), now, (messages, tick) -> {
+            for (String customerJson : due) {
+                scheduler.processCustomerSchedule(customerJson, now, messages, tick);
+            }
+        }));
+
+        List<String> duePlans = store.queryCustomersWithDuePlanMessages(now);
+        sent.addAll(runTick(planDayStats, duePlans.size(), now, (messages, tick) -> {
+            for (String customerJson : duePlans) {
+                planFunction.processCustomerPlan(customerJson, now, messages, tick);
+            }
+        }));
+
+        sent.addAll(runTick(completionStats, -1, now, (messages, tick) -> {
+            PlanCompletionCursor cursor = new PlanCompletionCursor(store, objectMapper);
+            PlanCompletionCursor.Batch batch = cursor.poll(MAX_COMPLETIONS_PER_TICK);
+            for (JsonNode planJson : batch.getCompletedPlans()) {
+                planFunction.sendWeeklyCheckIn(planJson, messages, tick);
+            }
+            tick.count("customers", batch.getCompletedPlans().size());
+            cursor.markSent(batch.getCompletedPlans());
+            cursor.commit(batch);
+        }));
+        return sent;
+    }
+
+    /**
+     * Runs one function's tick and records its cost.
+     *
+     * @param queried Documents returned by the function's input query, or -1 if it has none
+     */
+    private List<OutboundMessage> runTick(FunctionStats stats, int queried, Instant now, TickBody body)
+            throws Exception {
+        long reads = store.getReadCount();
+        long writes = store.getWriteCount();
+        long queries = store.getQueryCount();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+
+        TickLog tick = new TickLog(log, stats.name);
+        List<OutboundMessage> messages = new ArrayList<>();
+        body.run(messages, tick);
+        dispatcher.dispatch(messages, new DiscardingBinding<>());
+        tick.finish();
+
+        long elapsed = System.nanoTime() - started;
+        double ru = (store.getReadCount() - reads) * READ_RU
+                + (store.getWriteCount() - writes) * WRITE_RU
+                + (store.getQueryCount() - queries) * QUERY_RU;
+        int customers = queried;
+        if (queried >= 0) {
+            ru += QUERY_RU + queried * QUERY_RU_PER_DOCUMENT;
+        } else {
+            customers = messages.size();
+        }
+        stats.record(now, elapsed, customers, messages.size(),
+                threads.getCurrentThreadAllocatedBytes() - allocated, ru);
+        return messages;
+    }
+
+    private interface TickBody {
+        void run(List<OutboundMessage> messages, TickLog tick) throws Exception;
+    }
+
+    /**
+     * Plays message-handler: reschedules what was sent and moves plans along.
+     */
+    private void deliver(List<OutboundMessage> messages, Instant now) throws Exception {
+        for (OutboundMessage message : messages) {
+            JsonNode body = objectMapper.readTree(message.getBody());
+            SimulatedCustomer customer = customers.get(body.path("customerId").asText());
+            if (customer == null) {
+                continue;
+            }
+            switch (body.path("messageType").asText()) {
+                case "daily_devotional":
+                    patchCustomer(customer, Map.of(
+                            "/messagingState/lastDevotionalSentAt", now.toString(),
+                            "/messagingState/nextDevotionalScheduledFor", customer.nextSendAfter(now).toString()));
+                    break;
+                case "season_check_in":
+                    patchCustomer(customer, Map.of("/messagingState/nextCheckInScheduledFor", customer.nextSendAfter(
+                            now.plus(customer.checkInIntervalDays - 1, ChronoUnit.DAYS)).toString()));
+                    break;
+                case "daily_plan_devotion":
+                    advancePlan(customer, body.path("metadata"), now);
+                    break;
+                case "weekly_check_in":
+                    // The customer answers and message-handler starts the next plan the following day
+                    String planId = customer.nextPlanId();
+                    createPlan(customer, planId, 1, now);
+                    Map<String, Object> patch = new LinkedHashMap<>();
+                    patch.put("/activePlanId", planId);
+                    patch.put("/messagingState/nextPlanMessageScheduledFor", customer.nextSendAfter(now).toString());
+                    patchCustomer(customer, patch);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void advancePlan(SimulatedCustomer customer, JsonNode metadata, Instant now) {
+        String planId = metadata.path("planId").asText();
+        int day = metadata.path("dayNumber").asInt();
+        Map<String, Object> patch = new LinkedHashMap<>();
+        if (day >= 7) {
+            patch.put("/status", "completed");
+            patch.put("/completedAt", now.toString());
+            Map<String, Object> customerPatch = new LinkedHashMap<>();
+            customerPatch.put("/activePlanId", null);
+            patchCustomer(customer, customerPatch);
+        } else {
+            patch.put("/currentDay", day + 1);
+        }
+        store.patchDocument(OrchestratorStore.PLANS_CONTAINER, planId, customer.id, patch);
+    }
+
+    private void patchCustomer(SimulatedCustomer customer, Map<String, Object> setOperations) {
+        store.patchDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customer.id, customer.id, setOperations);
+    }
+
+    // ---- Report ----
+
+    void report(long elapsedNanos) {
+        System.gc();
+        long liveHeap = memory.getHeapMemoryUsage().getUsed();
+        long ticks = Duration.ofDays(days).dividedBy(TICK);
+
+        System.out.printf("Simulated %,d customers for %d days (%,d ticks of %d min) in %.1f s%n%n",
+                customerCount, days, ticks, TICK.toMinutes(), elapsedNanos / 1e9);
+        System.out.printf("%-26s %8s %10s %10s %12s %20s %12s %12s %12s%n", "Function", "Busy",
+                "Cust p50", "Cust max", "Messages/day", "Tick ms p50/p99/max", "Alloc MB max", "RU/day", "Peak RU");
+        for (FunctionStats stats : List.of(schedulerStats, planDayStats, completionStats)) {
+            System.out.printf("%-26s %8d %10d %10d %,12d %20s %12.1f %,12.0f %,12.0f%n",
+                    stats.name, stats.busyTicks(), stats.customersPercentile(0.5), stats.maxCustomers(),
+                    stats.totalMessages() / days,
+                    String.format("%.1f/%.1f/%.1f", stats.millisPercentile(0.5), stats.millisPercentile(0.99),
+                            stats.millisPercentile(1.0)),
+                    stats.maxAllocatedBytes() / 1e6, stats.totalRu() / days, stats.maxRu());
+        }
+        System.out.printf("%nPeak heap %.0f MB, of which the in-memory store and population hold about %.0f MB%n",
+                peakHeapBytes / 1e6, liveHeap / 1e6);
+        for (FunctionStats stats : List.of(schedulerStats, planDayStats, completionStats)) {
+            if (stats.busyTicks() > 0) {
+                System.out.printf("%s busiest tick: %s (%,d customers)%n",
+                        stats.name, stats.busiestTick(), stats.maxCustomers());
+            }
+        }
+
+        System.out.printf("%nLinear projection from this run (one instance, in-process CPU only)%n");
+        System.out.printf("%12s %14s %18s %16s %14s %12s%n",
+                "Customers", "Messages/day", "Peak tick cust", "Peak tick s", "RU/day", "Peak RU");
+        for (long projected : PROJECTED_CUSTOMERS) {
+            double scale = (double) projected / customerCount;
+            long messages = 0;
+            double peakCustomers = 0;
+            double peakSeconds = 0;
+            double ru = 0;
+            double peakRu = 0;
+            for (FunctionStats stats : List.of(schedulerStats, planDayStats, completionStats)) {
+                messages += stats.totalMessages() / days;
+                peakCustomers = Math.max(peakCustomers, stats.maxCustomers() * scale);
+                peakSeconds = Math.max(peakSeconds, stats.nanosPerCustomer() * stats.maxCustomers() * scale / 1e9);
+                ru += stats.totalRu() / days;
+                peakRu = Math.max(peakRu, stats.maxRu() * scale);
+            }
+            System.out.printf("%,12d %,14.0f %,18.0f %16.1f %,14.0f %,12.0f%n",
+                    projected, messages * scale, peakCustomers, peakSeconds, ru * scale, peakRu);
+        }
+        System.out.printf("%nRU model: read %.1f, write %.1f, query %.1f + %.1f per returned document%n",
+                READ_RU, WRITE_RU, QUERY_RU, QUERY_RU_PER_DOCUMENT);
+    }
+
+    // ---- Model ----
+
+    private static final class SimulatedCustomer {
+        private final String id;
+        private ZoneId zone;
+        private LocalTime sendTime;
+        private String timeOfDay;
+        private int checkInIntervalDays;
+        private int planNumber;
+
+        SimulatedCustomer(String id) {
+            this.id = id;
+        }
+
+        String nextPlanId() {
+            planNumber++;
+            return "plan-" + id + "-" + planNumber;
+        }
+
+        /**
+         * The first preferred send time strictly after the given instant, in the customer's zone.
+         */
+        Instant nextSendAfter(Instant after) {
+            ZonedDateTime candidate = after.atZone(zone).with(sendTime);
+            if (!candidate.toInstant().isAfter(after)) {
+                candidate = candidate.plusDays(1).with(sendTime);
+            }
+            return candidate.toInstant();
+        }
+    }
+
+    private static final class FunctionStats {
+        private final String name;
+        private final List<Instant> tickTimes = new ArrayList<>();
+        private final List<long[]> ticks = new ArrayList<>(); // nanos, customers, messages, allocated bytes
+        private final List<Double> ru = new ArrayList<>();
+
+        FunctionStats(String name) {
+            this.name = name;
+        }
+
+        void record(Instant at, long nanos, int customers, int messages, long allocatedBytes, double requestUnits) {
+            tickTimes.add(at);
+            ticks.add(new long[]{nanos, customers, messages, allocatedBytes});
+            ru.add(requestUnits);
+        }
+
+        long busyTicks() {
+            return ticks.stream().filter(tick -> tick[1] > 0).count();
+        }
+
+        long totalMessages() {
+            return ticks.stream().mapToLong(tick -> tick[2]).sum();
+        }
+
+        long maxCustomers() {
+            return ticks.stream().mapToLong(tick -> tick[1]).max().orElse(0);
+        }
+
+        long maxAllocatedBytes() {
+            return ticks.stream().mapToLong(tick -> tick[3]).max().orElse(0);
+        }
+
+        double totalRu() {
+            return ru.stream().mapToDouble(Double::doubleValue).sum();
+        }
+
+        double maxRu() {
+            return ru.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        }
+
+        // Mean over the whole run, so the first ticks' JIT warm-up does not dominate projections
+        double nanosPerCustomer() {
+            long customers = ticks.stream().mapToLong(tick -> tick[1]).sum();
+            return customers == 0 ? 0 : (double) ticks.stream().mapToLong(tick -> tick[0]).sum() / customers;
+        }
+
+        Instant busiestTick() {
+            int busiest = 0;
+            for (int i = 1; i < ticks.size(); i++) {
+                if (ticks.get(i)[1] > ticks.get(busiest)[1]) {
+                    busiest = i;
+                }
+            }
+            return tickTimes.get(busiest);
+        }
+
+        // Percentiles are over busy ticks only; idle ticks would pull every value to zero
+        long customersPercentile(double quantile) {
+            return percentile(busy(1), quantile);
+        }
+
+        double millisPercentile(double quantile) {
+            return percentile(busy(0), quantile) / 1e6;
+        }
+
+        private long[] busy(int field) {
+            return ticks.stream().filter(tick -> tick[1] > 0).mapToLong(tick -> tick[field]).toArray();
+        }
+
+        private static long percentile(long[] values, double quantile) {
+            if (values.length == 0) {
+                return 0;
+            }
+            Arrays.sort(values);
+            return values[(int) Math.min(values.length - 1, Math.ceil(quantile * values.length) - 1)];
+        }
+    }
+}
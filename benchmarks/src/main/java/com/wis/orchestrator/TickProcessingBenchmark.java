@@ -0,0 +1,145 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.entity.DevotionalPlanEntity;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timer tick of the scheduler, plan day and plan completion loops over a batch of
+ * customers, from parsing the input documents to handing the messages to the output
+ * binding. The store is an {@link InMemoryOrchestratorStore} without injected latency,
+ * so the score is the orchestrator's own CPU time per tick; divide by batchSize for the
+ * cost per customer.
+ *
+ * Every customer has a devotional due, every fifth a check-in as well. Plans cycle
+ * through days 1 to 7, so one in seven customers takes the Day 7 survey path; the survey
+ * is marked sent on the first tick and only checked after that, as in production. Log
+ * output is discarded, but the tick logging itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TickProcessingBenchmark {
+
+    private static final StructuredLogger log = StructuredLogger.getLogger(TickProcessingBenchmark.class);
+
+    @Param({"1", "100", "10000", "100000"})
+    public int batchSize;
+
+    @Param({"600"})
+    public int reflectionChars;
+
+    private Instant now;
+    private MessageDispatcher dispatcher;
+    private SchedulerFunction scheduler;
+    private DevotionalPlanFunction planFunction;
+    private String[] customersDue;
+    private String[] customersWithPlans;
+    private List<JsonNode> completedPlans;
+
+    @Setup
+    public void setUp() throws Exception {
+        LogOutput.discard();
+
+        now = Payloads.NOW;
+        ObjectMapper storeMapper = Payloads.storeMapper();
+        InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+        InMemoryMessageSender sender = new InMemoryMessageSender();
+        dispatcher = new MessageDispatcher(() -> sender, false, false);
+        scheduler = new SchedulerFunction(dispatcher);
+        planFunction = new DevotionalPlanFunction(() -> store, dispatcher, new CustomerOutbox(() -> store, false));
+
+        customersDue = new String[batchSize];
+        customersWithPlans = new String[batchSize];
+        completedPlans = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String customerId = String.format("cus_%016x", i);
+            String planId = "plan-" + customerId + "-3";
+
+            Map<String, Object> customer = Payloads.customerDocument(customerId, planId);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> messagingState = (Map<String, Object>) customer.get("messagingState");
+            messagingState.put("nextDevotionalScheduledFor", now.minus(Duration.ofMinutes(4)).toString());
+            if (i % 5 == 0) {
+                messagingState.put("nextCheckInScheduledFor", now.minus(Duration.ofMinutes(2)).toString());
+            }
+            String customerJson = storeMapper.writeValueAsString(customer);
+            customersDue[i] = customerJson;
+            customersWithPlans[i] = customerJson;
+            store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId, storeMapper.readTree(customerJson));
+
+            DevotionalPlanEntity plan = Payloads.plan(customerId, planId, 1 + i % 7, reflectionChars);
+            store.createDocument(OrchestratorStore.PLANS_CONTAINER, customerId, storeMapper.valueToTree(plan));
+
+            plan.setStatus("completed");
+            plan.setCurrentDay(7);
+            plan.setCompletedAt(now.minus(Duration.ofMinutes(1)));
+            completedPlans.add(storeMapper.valueToTree(plan));
+        }
+    }
+
+    @Benchmark
+    public int schedulerTick() {
+        TickLog tick = new TickLog(log, "MessageScheduler");
+        List<OutboundMessage> messages = new ArrayList<>();
+        for (String customerJson : customersDue) {
+            scheduler.processCustomerSchedule(customerJson, now, messages, tick);
+        }
+        dispatcher.dispatch(messages, new DiscardingBinding<>());
+        tick.finish();
+        return messages.size();
+    }
+
+    @Benchmark
+    public int planDayTick() {
+        TickLog tick = new TickLog(log, "ProcessDevotionalPlanDay");
+        List<OutboundMessage> messages = new ArrayList<>();
+        for (String customerJson : customersWithPlans) {
+            planFunction.processCustomerPlan(customerJson, now, messages, tick);
+        }
+        dispatcher.dispatch(messages, new DiscardingBinding<>());
+        tick.finish();
+        return messages.size();
+    }
+
+    @Benchmark
+    public int planCompletionTick() {
+        TickLog tick = new TickLog(log, "ProcessPlanCompletion");
+        List<OutboundMessage> messages = new ArrayList<>(completedPlans.size());
+        for (JsonNode planJson : completedPlans) {
+            planFunction.sendWeeklyCheckIn(planJson, messages, tick);
+        }
+        dispatcher.dispatch(messages, new DiscardingBinding<>());
+        tick.finish();
+        return messages.size();
+    }
+}
@@ -0,0 +1,373 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.functions.OutputBinding;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.Histogram;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Feeds traffic captured with TRAFFIC_CAPTURE_DIR back into the function handlers.
+ *
+ * Invocations are started at their captured times, compressed by the speed factor, on a
+ * pool of worker threads standing in for the host's concurrency. The functions run against
+ * an {@link InMemoryOrchestratorStore}, with discarding output bindings and SDK sender. Before the replay
+ * the store is seeded with every customer document seen in a Cosmos DB input snapshot, and
+ * with a stand-in document for every other customer an event refers to, so the handlers'
+ * reads and patches find a document as they would in production.
+ *
+ * The report lists, per function, the invocations, events, output messages, failures and
+ * handler duration, and how far the replay fell behind the captured timeline. If it fell
+ * behind, the handlers could not keep up at that speed with that many threads.
+ *
+ * Usage: java -cp target/benchmarks.jar com.wis.orchestrator.TrafficReplayer
+ *        capture-dir-or-files... [speed=1] [threads=16]
+ * speed=max starts every invocation as soon as a worker is free.
+ */
+public final class TrafficReplayer {
+
+    private static final String[] FUNCTIONS = {
+            "ProcessCustomerRegistered", "ProcessCustomerRegisteredSession", "ProcessCustomerRegisteredBatch",
+            "ProcessSubscriptionActivated", "ProcessSubscriptionActivatedSession", "ProcessSubscriptionActivatedBatch",
+            "MessageScheduler", "ProcessDevotionalPlanDay"};
+
+    private final ObjectMapper objectMapper = Payloads.storeMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final DiscardingSender sender = new DiscardingSender();
+    private final ConversationOrchestratorFunction conversationFunction;
+    private final SubscriptionActivatedFunction subscriptionFunction;
+    private final SchedulerFunction schedulerFunction;
+    private final DevotionalPlanFunction planFunction;
+    private final Map<String, FunctionStats> stats = new LinkedHashMap<>();
+    private final Histogram lagMillis = new Histogram();
+
+    TrafficReplayer() {
+        MessageDispatcher dispatcher = new MessageDispatcher(() -> sender, false, false);
+        CustomerOutbox outbox = new CustomerOutbox(() -> store, false);
+        this.conversationFunction = new ConversationOrchestratorFunction(new ProcessedEventRegistry(() -> store));
+        this.subscriptionFunction = new SubscriptionActivatedFunction(() -> store, dispatcher,
+                AdaptiveConcurrencyLimiter.getInstance(), new ProcessedEventRegistry(() -> store), outbox);
+        this.schedulerFunction = new SchedulerFunction(dispatcher);
+        this.planFunction = new DevotionalPlanFunction(() -> store, dispatcher, outbox);
+        for (String function : FUNCTIONS) {
+            stats.put(function, new FunctionStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Path> files = new ArrayList<>();
+        double speed = 1;
+        int threads = 16;
+        for (String arg : args) {
+            if (arg.startsWith("speed=")) {
+                String value = arg.substring("speed=".length());
+                speed = "max".equals(value) ? Double.POSITIVE_INFINITY : Double.parseDouble(value);
+            } else if (arg.startsWith("threads=")) {
+                threads = Integer.parseInt(arg.substring("threads=".length()));
+            } else {
+                files.addAll(captureFiles(Paths.get(arg)));
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No capture files given");
+        }
+
+        LogOutput.discard();
+        TrafficReplayer replayer = new TrafficReplayer();
+        List<CapturedInvocation> invocations = replayer.read(files);
+        replayer.seed(invocations);
+        long elapsedNanos = replayer.replay(invocations, speed, threads);
+        replayer.report(invocations, speed, threads, elapsedNanos);
+    }
+
+    private static List<Path> captureFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> entries = Files.list(path)) {
+            return entries.filter(entry -> entry.getFileName().toString().endsWith(".ndjson.gz"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // ---- Reading and seeding ----
+
+    List<CapturedInvocation> read(List<Path> files) throws IOException {
+        List<CapturedInvocation> invocations = new ArrayList<>();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        invocations.add(CapturedInvocation.parse(objectMapper.readTree(line)));
+                    }
+                }
+            } catch (EOFException e) {
+                // File of an instance that stopped mid-capture; everything up to its last flush is usable
+                System.err.println("Capture file " + file + " is truncated; using the invocations read so far");
+            }
+        }
+        invocations.sort(Comparator.comparing(invocation -> invocation.at));
+        return invocations;
+    }
+
+    void seed(List<CapturedInvocation> invocations) throws IOException {
+        Set<String> seeded = new HashSet<>();
+        for (CapturedInvocation invocation : invocations) {
+            if (!"customers".equals(invocation.source)) {
+                continue;
+            }
+            for (String document : invocation.payloads) {
+                JsonNode customer = objectMapper.readTree(document);
+                String customerId = customer.path("id").asText();
+                if (seeded.add(customerId)) {
+                    store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId, customer);
+                }
+            }
+        }
+        for (CapturedInvocation invocation : invocations) {
+            if (!"subscription-events".equals(invocation.source)) {
+                continue;
+            }
+            for (String payload : invocation.payloads) {
+                JsonNode data = parseOrMissing(payload).path("data");
+                String customerId = data.path("customerId").asText(null);
+                if (customerId != null && seeded.add(customerId)) {
+                    Map<String, Object> customer = Payloads.customerDocument(customerId, null);
+                    customer.put("currentPhone", data.path("phoneNumber").asText(Payloads.PHONE));
+                    store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId,
+                            objectMapper.valueToTree(customer));
+                }
+            }
+        }
+    }
+
+    // ---- Replay ----
+
+    long replay(List<CapturedInvocation> invocations, double speed, int threads) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Instant first = invocations.isEmpty() ? Instant.EPOCH : invocations.get(0).at;
+        long started = System.nanoTime();
+        for (CapturedInvocation invocation : invocations) {
+            long due = started;
+            if (!Double.isInfinite(speed)) {
+                due += (long) (Duration.between(first, invocation.at).toNanos() / speed);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            long scheduled = due;
+            workers.execute(() -> run(invocation, scheduled));
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+        return System.nanoTime() - started;
+    }
+
+    private void run(CapturedInvocation invocation, long scheduled) {
+        FunctionStats functionStats = stats.get(invocation.function);
+        if (functionStats == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        lagMillis.record(TimeUnit.NANOSECONDS.toMillis(started - scheduled));
+
+        DiscardingBinding<String[]> output = new DiscardingBinding<>();
+        DiscardingBinding<String[]> retries = new DiscardingBinding<>();
+        sender.takeSent();
+        sender.takeRetries();
+        try {
+            invoke(invocation, output, retries);
+        } catch (RuntimeException e) {
+            functionStats.failures.incrementAndGet();
+            functionStats.firstFailure.compareAndSet(null, e);
+        }
+        functionStats.micros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        functionStats.events.addAndGet(invocation.payloads.length);
+        functionStats.messages.addAndGet((output.getValue() == null ? 0 : output.getValue().length) + sender.takeSent());
+        functionStats.retries.addAndGet((retries.getValue() == null ? 0 : retries.getValue().length) + sender.takeRetries());
+    }
+
+    // The handlers do not use the execution context, so none is passed
+    private void invoke(CapturedInvocation invocation, OutputBinding<String[]> output,
+                        OutputBinding<String[]> retries) {
+        String at = invocation.at.toString();
+        String payload = invocation.payloads.length > 0 ? invocation.payloads[0] : null;
+        String messageId = invocation.messageIds.length > 0 ? invocation.messageIds[0] : null;
+        switch (invocation.function) {
+            case "ProcessCustomerRegistered":
+                conversationFunction.processCustomerRegistered(payload, messageId, at,
+                        new DiscardingBinding<>(), null);
+                break;
+            case "ProcessCustomerRegisteredSession":
+                conversationFunction.processCustomerRegisteredSession(payload, messageId,
+                        sessionId(payload), null);
+                break;
+            case "ProcessCustomerRegisteredBatch":
+                conversationFunction.processCustomerRegisteredBatch(invocation.payloads, invocation.messageIds,
+                        enqueuedTimes(invocation), retries, null);
+                break;
+            case "ProcessSubscriptionActivated":
+                subscriptionFunction.processSubscriptionActivated(payload, messageId, at, null);
+                break;
+            case "ProcessSubscriptionActivatedSession":
+                subscriptionFunction.processSubscriptionActivatedSession(payload, messageId,
+                        sessionId(payload), null);
+                break;
+            case "ProcessSubscriptionActivatedBatch":
+                subscriptionFunction.processSubscriptionActivatedBatch(invocation.payloads, invocation.messageIds,
+                        enqueuedTimes(invocation), retries, null);
+                break;
+            case "MessageScheduler":
+                schedulerFunction.messageScheduler(null, invocation.payloads, output, null);
+                break;
+            case "ProcessDevotionalPlanDay":
+                planFunction.processDevotionalPlanDay(null, invocation.payloads, output, null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Publishers use the customer id as the session id
+    private String sessionId(String payload) {
+        return parseOrMissing(payload).path("data").path("customerId").asText(null);
+    }
+
+    // Malformed events are replayed as captured; only the seeding and session lookup skip them
+    private JsonNode parseOrMissing(String payload) {
+        try {
+            return payload == null ? objectMapper.missingNode() : objectMapper.readTree(payload);
+        } catch (IOException e) {
+            return objectMapper.missingNode();
+        }
+    }
+
+    private static String[] enqueuedTimes(CapturedInvocation invocation) {
+        String[] times = new String[invocation.payloads.length];
+        Arrays.fill(times, invocation.at.toString());
+        return times;
+    }
+
+    // ---- Report ----
+
+    void report(List<CapturedInvocation> invocations, double speed, int threads, long elapsedNanos) {
+        Duration captured = invocations.isEmpty() ? Duration.ZERO
+                : Duration.between(invocations.get(0).at, invocations.get(invocations.size() - 1).at);
+        long events = invocations.stream().mapToLong(invocation -> invocation.payloads.length).sum();
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.printf("Replayed %,d invocations (%,d events) spanning %s at %s speed on %d threads in %.1f s%n",
+                invocations.size(), events, captured, Double.isInfinite(speed) ? "max" : speed + "x",
+                threads, seconds);
+        System.out.printf("Achieved %.1fx real time, %,.0f events/s%n%n",
+                seconds > 0 ? captured.toNanos() / 1e9 / seconds : 0, seconds > 0 ? events / seconds : 0);
+
+        System.out.printf("%-36s %12s %10s %10s %8s %8s %22s%n",
+                "Function", "Invocations", "Events", "Messages", "Retries", "Failed", "Duration ms p50/p99/max");
+        for (Map.Entry<String, FunctionStats> entry : stats.entrySet()) {
+            FunctionStats functionStats = entry.getValue();
+            Histogram.Snapshot micros = functionStats.micros.snapshot();
+            if (micros.getTotal() == 0) {
+                continue;
+            }
+            System.out.printf("%-36s %,12d %,10d %,10d %,8d %,8d %22s%n", entry.getKey(), micros.getTotal(),
+                    functionStats.events.get(), functionStats.messages.get(), functionStats.retries.get(),
+                    functionStats.failures.get(), String.format("%.1f/%.1f/%.1f",
+                            micros.valueAtQuantile(0.5) / 1e3, micros.valueAtQuantile(0.99) / 1e3,
+                            micros.getMax() / 1e3));
+        }
+
+        for (Map.Entry<String, FunctionStats> entry : stats.entrySet()) {
+            RuntimeException failure = entry.getValue().firstFailure.get();
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                System.out.printf("%s first failure: %s%n", entry.getKey(), cause);
+            }
+        }
+
+        Histogram.Snapshot lag = lagMillis.snapshot();
+        System.out.printf("%nStart lag behind the captured timeline: p50 %d ms, p99 %d ms, max %d ms%n",
+                lag.valueAtQuantile(0.5), lag.valueAtQuantile(0.99), lag.getMax());
+        System.out.printf("Store: %,d reads, %,d writes, %,d queries%n",
+                store.getReadCount(), store.getWriteCount(), store.getQueryCount());
+    }
+
+    // ---- Model ----
+
+    static final class CapturedInvocation {
+        private final Instant at;
+        private final String function;
+        private final String source;
+        private final String[] messageIds;
+        private final String[] payloads;
+
+        private CapturedInvocation(Instant at, String function, String source, String[] messageIds,
+                                   String[] payloads) {
+            this.at = at;
+            this.function = function;
+            this.source = source;
+            this.messageIds = messageIds;
+            this.payloads = payloads;
+        }
+
+        static CapturedInvocation parse(JsonNode line) {
+            return new CapturedInvocation(Instant.parse(line.path("at").asText()),
+                    line.path("function").asText(), line.path("source").asText(),
+                    strings(line.path("messageIds")), strings(line.path("payloads")));
+        }
+
+        private static String[] strings(JsonNode array) {
+            String[] values = new String[array.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = array.get(i).isNull() ? null : array.get(i).asText();
+            }
+            return values;
+        }
+    }
+
+    private static final class FunctionStats {
+        private final Histogram micros = new Histogram();
+        private final AtomicLong events = new AtomicLong();
+        private final AtomicLong messages = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+    }
+}
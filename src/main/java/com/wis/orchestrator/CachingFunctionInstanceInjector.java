@@ -0,0 +1,40 @@
+package com.wis.orchestrator;
+
+import com.microsoft.azure.functions.spi.inject.FunctionInstanceInjector;
+import com.wis.orchestrator.service.StartupWarmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates each function class once per process and hands the same instance to every
+ * invocation, instead of the Java worker's default of a new instance per invocation.
+ * The functions keep only thread-safe collaborators in final fields, so an instance can
+ * serve concurrent invocations, and per-instance setup (mappers, services) is no longer
+ * repeated on every trigger.
+ *
+ * The worker finds this class through META-INF/services and creates it before the first
+ * invocation, which also starts the {@link StartupWarmup}.
+ */
+public class CachingFunctionInstanceInjector implements FunctionInstanceInjector {
+
+    private final Map<Class<?>, Object> instances = new ConcurrentHashMap<>();
+
+    public CachingFunctionInstanceInjector() {
+        StartupWarmup.start();
+    }
+
+    @Override
+    public <T> T getInstance(Class<T> functionClass) throws Exception {
+        Object instance = instances.get(functionClass);
+        if (instance == null) {
+            // Constructors are cheap and side-effect free, so a lost race only discards an instance
+            instance = functionClass.getDeclaredConstructor().newInstance();
+            Object existing = instances.putIfAbsent(functionClass, instance);
+            if (existing != null) {
+                instance = existing;
+            }
+        }
+        return functionClass.cast(instance);
+    }
+}
@@ -1,14 +1,24 @@
 package com.wis.orchestrator;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
 import com.wis.orchestrator.model.CustomerRegisteredEvent;
+import com.wis.orchestrator.model.HealthReport;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
 import com.wis.orchestrator.model.WelcomeMessage;
 import com.wis.orchestrator.service.ConversationService;
+import com.wis.orchestrator.service.HealthMonitor;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.JsonMappers;
 import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.TracedJson;
+import com.wis.orchestrator.util.TrafficCapture;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,11 +31,34 @@ public class ConversationOrchestratorFunction {
     private static final Logger logger = Logger.getLogger(ConversationOrchestratorFunction.class.getName());
     private final ObjectMapper objectMapper;
     private final ConversationService conversationService;
+    private final ProcessedEventRegistry processedEvents;
+    private final HealthMonitor healthMonitor;
 
     public ConversationOrchestratorFunction() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this(ProcessedEventRegistry.getInstance(), HealthMonitor.getInstance());
+    }
+
+    /**
+     * Creates the function with a specific duplicate-event registry.
+     *
+     * @param processedEvents Drops redelivered events that were already handled
+     */
+    public ConversationOrchestratorFunction(ProcessedEventRegistry processedEvents) {
+        this(processedEvents, HealthMonitor.getInstance());
+    }
+
+    /**
+     * Creates the function with a specific duplicate-event registry and health monitor.
+     *
+     * @param processedEvents Drops redelivered events that were already handled
+     * @param healthMonitor Probes dependencies for the readiness check
+     */
+    public ConversationOrchestratorFunction(ProcessedEventRegistry processedEvents,
+                                            HealthMonitor healthMonitor) {
+        this.objectMapper = JsonMappers.javaTime();
         this.conversationService = new ConversationService();
+        this.processedEvents = processedEvents;
+        this.healthMonitor = healthMonitor;
     }
 
     /**
@@ -55,40 +88,201 @@ public class ConversationOrchestratorFunction {
             OutputBinding<String> outputMessage,
             final ExecutionContext context) {
 
-        logger.log(Level.INFO, "Processing CustomerRegistered event. MessageId: {0}, EnqueuedTime: {1}",
-                new Object[]{messageId, enqueuedTime});
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessCustomerRegistered");
+        TrafficCapture.getInstance().recordMessage("ProcessCustomerRegistered", "customer-events", messageId, message);
+        try {
+            logger.log(Level.INFO, "Processing CustomerRegistered event. MessageId: {0}, EnqueuedTime: {1}",
+                    new Object[]{messageId, enqueuedTime});
+
+            try {
+                handleEvent(message);
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error processing CustomerRegistered event: " + e.getMessage(), e);
 
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                // Throw exception to trigger Service Bus retry logic
+                throw new RuntimeException("Failed to process CustomerRegistered event", e);
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+
+    /**
+     * Session-aware variant of ProcessCustomerRegistered.
+     * Reads from a session-enabled subscription where publishers set the customer id as
+     * the session id, so different customers are processed in parallel while one
+     * customer's events are handled in order. A failed event is retried within its
+     * session, so later events for that customer wait behind it.
+     * Disabled by default (AzureWebJobs.ProcessCustomerRegisteredSession.Disabled); enable
+     * this instead of ProcessCustomerRegistered and ProcessCustomerRegisteredBatch when
+     * running with SERVICE_BUS_SESSIONS_ENABLED=true.
+     *
+     * @param message Service Bus message containing CustomerRegistered event
+     * @param messageId Message ID from Service Bus
+     * @param sessionId Session ID from Service Bus (the customer id)
+     * @param context Function execution context
+     */
+    @FunctionName("ProcessCustomerRegisteredSession")
+    public void processCustomerRegisteredSession(
+            @ServiceBusTopicTrigger(
+                    name = "message",
+                    topicName = "customer-events",
+                    subscriptionName = "orchestration-session-subscription",
+                    connection = "ServiceBusConnection",
+                    isSessionsEnabled = true)
+            String message,
+            @BindingName("MessageId") String messageId,
+            @BindingName("SessionId") String sessionId,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessCustomerRegisteredSession");
+        TrafficCapture.getInstance().recordMessage("ProcessCustomerRegisteredSession", "customer-events", messageId, message);
         try {
-            // Deserialize event
-            CustomerRegisteredEvent event = objectMapper.readValue(message, CustomerRegisteredEvent.class);
-
-            logger.log(Level.INFO, "CustomerRegistered event received for customer: {0}, phone: {1}",
-                    new Object[]{event.getData().getCustomerId(), event.getData().getPhone()});
-
-            // Validate event data
-            if (event.getData() == null ||
-                    event.getData().getCustomerId() == null ||
-                    event.getData().getPhone() == null) {
-                logger.log(Level.WARNING, "Invalid event data. Skipping processing.");
-                return;
+            logger.log(Level.INFO, "Processing CustomerRegistered event. MessageId: {0}, SessionId: {1}",
+                    new Object[]{messageId, sessionId});
+
+            try {
+                handleEvent(message);
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error processing CustomerRegistered event: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                // Throw exception to trigger Service Bus retry logic within the session
+                throw new RuntimeException("Failed to process CustomerRegistered event", e);
             }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
 
-            // NOTE: Welcome message is NOW sent after subscription activation, not after registration
-            // This function just logs the registration for analytics/tracking purposes
-            logger.log(Level.INFO, "Customer registered successfully: {0}, phone: {1}. " +
-                    "Welcome message will be sent after subscription activation.",
-                    new Object[]{event.getData().getCustomerId(), event.getData().getPhone()});
+    /**
+     * Batch variant of ProcessCustomerRegistered for high-volume periods.
+     * Each event is handled independently; one that fails is forwarded on its own to
+     * orchestration-retry-queue instead of causing the whole batch to be redelivered.
+     * Enable either this or ProcessCustomerRegistered, not both (AzureWebJobs.<name>.Disabled);
+     * this one is disabled by default.
+     *
+     * @param messages Service Bus message bodies containing CustomerRegistered events
+     * @param messageIds Message IDs from Service Bus, aligned with messages
+     * @param enqueuedTimes Enqueue times from Service Bus, aligned with messages
+     * @param retryMessages Output binding for orchestration-retry-queue
+     * @param context Function execution context
+     */
+    @FunctionName("ProcessCustomerRegisteredBatch")
+    public void processCustomerRegisteredBatch(
+            @ServiceBusTopicTrigger(
+                    name = "messages",
+                    topicName = "customer-events",
+                    subscriptionName = "orchestration-subscription",
+                    connection = "ServiceBusConnection",
+                    cardinality = Cardinality.MANY)
+            String[] messages,
+            @BindingName("MessageIdArray") String[] messageIds,
+            @BindingName("EnqueuedTimeUtcArray") String[] enqueuedTimes,
+            @ServiceBusQueueOutput(
+                    name = "retryMessages",
+                    queueName = "orchestration-retry-queue",
+                    connection = "ServiceBusConnection")
+            OutputBinding<String[]> retryMessages,
+            final ExecutionContext context) {
 
-            // Could optionally track registration event in analytics or Cosmos DB here
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessCustomerRegisteredBatch");
+        TrafficCapture.getInstance().recordMessages("ProcessCustomerRegisteredBatch", "customer-events", messageIds, messages);
+        try {
+            logger.log(Level.INFO, "Processing batch of {0} CustomerRegistered events", messages.length);
+            invocation.recordItems(messages.length);
 
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing CustomerRegistered event: " + e.getMessage(), e);
+            List<String> retries = new ArrayList<>();
+            for (int i = 0; i < messages.length; i++) {
+                String messageId = messageIds != null && i < messageIds.length ? messageIds[i] : null;
+                try {
+                    handleEvent(messages[i]);
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "CustomerRegistered event " + messageId + " failed in batch: " + e.getMessage(), e);
+                    SentryHelper.captureException(e);
+                    retries.add(buildRetryMessage(messages[i], messageId, e));
+                }
+            }
+
+            if (!retries.isEmpty()) {
+                logger.log(Level.WARNING, "{0} of {1} CustomerRegistered events forwarded to orchestration-retry-queue",
+                        new Object[]{retries.size(), messages.length});
+                retryMessages.setValue(retries.toArray(new String[0]));
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+
+    /**
+     * Handles one CustomerRegistered event. Shared by the single-message trigger,
+     * the batch trigger and the retry queue.
+     *
+     * @param message Service Bus message body
+     * @throws Exception if the event cannot be deserialized
+     */
+    void handleEvent(String message) throws Exception {
+        // Deserialize event
+        CustomerRegisteredEvent event = TracedJson.read(objectMapper, message, CustomerRegisteredEvent.class);
+
+        // Validate event data
+        if (event.getData() == null ||
+                event.getData().getCustomerId() == null ||
+                event.getData().getPhone() == null) {
+            logger.log(Level.WARNING, "Invalid event data. Skipping processing.");
+            return;
+        }
+
+        // Registration has no store side effects yet, so the in-memory check is enough;
+        // switch to isProcessed/markProcessed once it writes to Cosmos DB
+        if (processedEvents.isRecentlyProcessed(OrchestrationRetryMessage.CUSTOMER_REGISTERED, event.getEventId())) {
+            logger.log(Level.INFO, "CustomerRegistered event {0} already processed. Skipping duplicate.",
+                    event.getEventId());
+            return;
+        }
+
+        logger.log(Level.INFO, "CustomerRegistered event received for customer: {0}, phone: {1}",
+                new Object[]{event.getData().getCustomerId(), event.getData().getPhone()});
+
+        // NOTE: Welcome message is NOW sent after subscription activation, not after registration
+        // This function just logs the registration for analytics/tracking purposes
+        logger.log(Level.INFO, "Customer registered successfully: {0}, phone: {1}. " +
+                "Welcome message will be sent after subscription activation.",
+                new Object[]{event.getData().getCustomerId(), event.getData().getPhone()});
 
-            // Capture exception in Sentry
-            SentryHelper.captureException(e);
+        // Could optionally track registration event in analytics or Cosmos DB here
 
-            // Throw exception to trigger Service Bus retry logic
-            throw new RuntimeException("Failed to process CustomerRegistered event", e);
+        processedEvents.rememberProcessed(OrchestrationRetryMessage.CUSTOMER_REGISTERED, event.getEventId());
+    }
+
+    private String buildRetryMessage(String payload, String messageId, Exception error) {
+        try {
+            return objectMapper.writeValueAsString(OrchestrationRetryMessage.builder()
+                    .eventType(OrchestrationRetryMessage.CUSTOMER_REGISTERED)
+                    .originalMessageId(messageId)
+                    .payload(payload)
+                    .failedAt(Instant.now())
+                    .error(error.getMessage())
+                    .build());
+        } catch (Exception e) {
+            // Cannot forward the event on its own - fail the batch so Service Bus redelivers it
+            throw new RuntimeException("Failed to build retry message for " + messageId, e);
         }
     }
 
@@ -107,6 +301,9 @@ public class ConversationOrchestratorFunction {
 
     /**
      * HTTP trigger function for manual testing and health checks.
+     * By default this is a liveness check that touches no dependency. With mode=ready it
+     * returns the cached {@link HealthReport}: 200 when healthy or degraded (scheduler
+     * lagging), 503 when Cosmos DB or Service Bus cannot be reached.
      *
      * @param request HTTP request
      * @param context Function execution context
@@ -122,9 +319,27 @@ public class ConversationOrchestratorFunction {
             HttpRequestMessage<String> request,
             final ExecutionContext context) {
 
-        return request.createResponseBuilder(HttpStatus.OK)
-                .header("Content-Type", "application/json")
-                .body("{\"status\":\"healthy\",\"service\":\"wis-conversation-orchestrator\"}")
-                .build();
+        if (!"ready".equals(request.getQueryParameters().get("mode"))) {
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body("{\"status\":\"healthy\",\"service\":\"wis-conversation-orchestrator\"}")
+                    .build();
+        }
+
+        try {
+            HealthReport report = healthMonitor.check();
+            return request.createResponseBuilder(HealthReport.UNHEALTHY.equals(report.getStatus())
+                            ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .header("Cache-Control", "no-store")
+                    .body(TracedJson.write(objectMapper, report))
+                    .build();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Readiness check failed: " + e.getMessage(), e);
+            return request.createResponseBuilder(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Content-Type", "application/json")
+                    .body("{\"status\":\"unhealthy\",\"service\":\"wis-conversation-orchestrator\"}")
+                    .build();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.model.DeadLetterReplayReport;
+import com.wis.orchestrator.service.CosmosDBService;
+import com.wis.orchestrator.service.DeadLetterQueue;
+import com.wis.orchestrator.service.DeadLetterReplayService;
+import com.wis.orchestrator.service.DeadLetterSource;
+import com.wis.orchestrator.service.MessageSender;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.ServiceBusDeadLetterQueue;
+import com.wis.orchestrator.service.ServiceBusMessageSender;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.JsonMappers;
+import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admin HTTP function that triages and replays dead-lettered messages.
+ * Drains the dead-letter queue of orchestration-subscription (per topic),
+ * orchestration-retry-queue or message-send-queue in batches; recoverable messages
+ * are replayed at a capped rate and the rest are archived with their reasons.
+ */
+public class DeadLetterReplayFunction {
+
+    private static final Logger logger = Logger.getLogger(DeadLetterReplayFunction.class.getName());
+
+    private static final int DEFAULT_MAX_MESSAGES = 10000;
+    private static final int DEFAULT_RATE_PER_SECOND = 200;
+
+    // Leave headroom under the 10 minute functionTimeout in host.json
+    private static final Duration MAX_RUN_DURATION = Duration.ofMinutes(8);
+
+    private final ObjectMapper objectMapper;
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final Supplier<? extends MessageSender> senderSupplier;
+    private final Function<DeadLetterSource, ? extends DeadLetterQueue> queueFactory;
+
+    public DeadLetterReplayFunction() {
+        this(CosmosDBService::getInstance, ServiceBusMessageSender::getInstance, ServiceBusDeadLetterQueue::new);
+    }
+
+    /**
+     * Creates the function against specific stores and queues, e.g. in-memory stand-ins for local runs.
+     *
+     * @param storeSupplier Supplies the store holding replay markers and archive records
+     * @param senderSupplier Supplies the sender used for replays
+     * @param queueFactory Opens the dead-letter queue for a source
+     */
+    public DeadLetterReplayFunction(Supplier<? extends OrchestratorStore> storeSupplier,
+                                    Supplier<? extends MessageSender> senderSupplier,
+                                    Function<DeadLetterSource, ? extends DeadLetterQueue> queueFactory) {
+        this.objectMapper = JsonMappers.javaTime();
+        this.storeSupplier = storeSupplier;
+        this.senderSupplier = senderSupplier;
+        this.queueFactory = queueFactory;
+    }
+
+    /**
+     * HTTP trigger that drains one dead-letter queue.
+     * Query parameters: maxMessages (default 10000), ratePerSecond (default
+     * DLQ_REPLAY_RATE_PER_SECOND or 200) and dryRun (classify only, default false).
+     *
+     * @param request HTTP request
+     * @param sourceName Route name of the source: subscription-events, customer-events,
+     *                   orchestration-retry, message-send or message-send-high
+     * @param context Function execution context
+     * @return JSON report with counts per outcome and per failure category
+     */
+    @FunctionName("ReplayDeadLetters")
+    public HttpResponseMessage replayDeadLetters(
+            @HttpTrigger(
+                    name = "req",
+                    methods = {HttpMethod.POST},
+                    authLevel = AuthorizationLevel.FUNCTION,
+                    route = "admin/dead-letters/{source}/replay")
+            HttpRequestMessage<String> request,
+            @BindingName("source") String sourceName,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("ReplayDeadLetters");
+        try {
+            DeadLetterSource source = DeadLetterSource.fromRouteName(sourceName);
+            if (source == null) {
+                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                        .header("Content-Type", "application/json")
+                        .body("{\"error\":\"Unknown dead-letter source\"}")
+                        .build();
+            }
+
+            int maxMessages = Settings.parseInt(request.getQueryParameters().get("maxMessages"), DEFAULT_MAX_MESSAGES);
+            int ratePerSecond = Settings.parseInt(request.getQueryParameters().get("ratePerSecond"),
+                    Settings.readInt("DLQ_REPLAY_RATE_PER_SECOND", DEFAULT_RATE_PER_SECOND));
+            boolean dryRun = Boolean.parseBoolean(request.getQueryParameters().get("dryRun"));
+
+            logger.log(Level.INFO, "Draining dead letters from {0}: maxMessages {1}, ratePerSecond {2}, dryRun {3}",
+                    new Object[]{source.getEntityPath(), maxMessages, ratePerSecond, dryRun});
+
+            DeadLetterQueue queue = null;
+            try {
+                queue = queueFactory.apply(source);
+                DeadLetterReplayService replayService = new DeadLetterReplayService(
+                        storeSupplier.get(), senderSupplier.get(), objectMapper, ratePerSecond);
+
+                DeadLetterReplayReport report = replayService.drain(source, queue, maxMessages, MAX_RUN_DURATION, dryRun);
+
+                return request.createResponseBuilder(HttpStatus.OK)
+                        .header("Content-Type", "application/json")
+                        .body(objectMapper.writeValueAsString(report))
+                        .build();
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error replaying dead letters: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .header("Content-Type", "application/json")
+                        .body("{\"error\":\"Dead-letter replay failed; see logs\"}")
+                        .build();
+            } finally {
+                if (queue instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) queue).close();
+                    } catch (Exception e) {
+                        logger.log(Level.WARNING, "Failed to close dead-letter receiver: {0}", e.getMessage());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+}
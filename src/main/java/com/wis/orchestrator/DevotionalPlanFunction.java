@@ -1,21 +1,38 @@
 package com.wis.orchestrator;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
-import com.wis.orchestrator.entity.DevotionalPlanEntity;
 import com.wis.orchestrator.entity.CustomerEntity;
+import com.wis.orchestrator.entity.PlanDayProjection;
 import com.wis.orchestrator.model.DailyDevotion;
+import com.wis.orchestrator.model.OutboundMessage;
 import com.wis.orchestrator.service.CosmosDBService;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.PlanCompletionCursor;
+import com.wis.orchestrator.service.StoreException;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.JsonMappers;
 import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+import com.wis.orchestrator.util.TracedJson;
+import com.wis.orchestrator.util.TrafficCapture;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,11 +43,41 @@ import java.util.logging.Logger;
 public class DevotionalPlanFunction {
 
     private static final Logger logger = Logger.getLogger(DevotionalPlanFunction.class.getName());
+    private static final StructuredLogger log = StructuredLogger.getLogger(DevotionalPlanFunction.class);
+    private static final int MAX_COMPLETIONS_PER_TICK = 1000;
+    private static final int DEFAULT_COMPLETION_MAX_ATTEMPTS = 5;
     private final ObjectMapper objectMapper;
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final MessageDispatcher messageDispatcher;
+    private final CustomerOutbox customerOutbox;
 
     public DevotionalPlanFunction() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this(CosmosDBService::getInstance);
+    }
+
+    /**
+     * Creates the function against a specific data store, e.g. an in-memory stand-in for load tests.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
+     */
+    public DevotionalPlanFunction(Supplier<? extends OrchestratorStore> storeSupplier) {
+        this(storeSupplier, MessageDispatcher.fromEnvironment(), CustomerOutbox.fromEnvironment(storeSupplier));
+    }
+
+    /**
+     * Creates the function against a specific data store, message dispatcher and outbox.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
+     * @param messageDispatcher Routes outgoing messages to message-send-queue
+     * @param customerOutbox Writes the Day 7 survey with the customer update when enabled
+     */
+    public DevotionalPlanFunction(Supplier<? extends OrchestratorStore> storeSupplier,
+                                  MessageDispatcher messageDispatcher,
+                                  CustomerOutbox customerOutbox) {
+        this.objectMapper = JsonMappers.javaTime();
+        this.storeSupplier = storeSupplier;
+        this.messageDispatcher = messageDispatcher;
+        this.customerOutbox = customerOutbox;
     }
 
     /**
@@ -66,38 +113,55 @@ public class DevotionalPlanFunction {
             OutputBinding<String[]> outputMessages,
             final ExecutionContext context) {
 
-        Instant now = Instant.now();
-        logger.log(Level.INFO, "ProcessDevotionalPlanDay triggered at: {0}", now);
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessDevotionalPlanDay");
+        TrafficCapture.getInstance().recordDocuments("ProcessDevotionalPlanDay", "customers", customersWithPlans);
+        try {
+            Instant now = Instant.now();
+            logger.log(Level.INFO, "ProcessDevotionalPlanDay triggered at: {0}", now);
+
+            // DISABLED: Message-handler now handles all devotional scheduling via Service Bus native scheduling.
+            // This function was causing duplicate messages because both systems were sending the same days.
+            // See: https://github.com/your-org/wis-conversation-orchestrator/issues/XXX
+            logger.log(Level.INFO, "ProcessDevotionalPlanDay is DISABLED - message-handler handles scheduling via Service Bus");
+            if (true) {
+                return;
+            }
 
-        // DISABLED: Message-handler now handles all devotional scheduling via Service Bus native scheduling.
-        // This function was causing duplicate messages because both systems were sending the same days.
-        // See: https://github.com/your-org/wis-conversation-orchestrator/issues/XXX
-        logger.log(Level.INFO, "ProcessDevotionalPlanDay is DISABLED - message-handler handles scheduling via Service Bus");
-        if (true) {
-            return;
-        }
+            if (customersWithPlans == null || customersWithPlans.length == 0) {
+                logger.log(Level.INFO, "No customers with active plans due for messages");
+                return;
+            }
 
-        if (customersWithPlans == null || customersWithPlans.length == 0) {
-            logger.log(Level.INFO, "No customers with active plans due for messages");
-            return;
-        }
+            logger.log(Level.INFO, "Found {0} customers with active plans due for messages",
+                    new Object[]{customersWithPlans.length});
+            invocation.recordItems(customersWithPlans.length);
 
-        logger.log(Level.INFO, "Found {0} customers with active plans due for messages",
-                new Object[]{customersWithPlans.length});
+            TickLog tick = new TickLog(log, "ProcessDevotionalPlanDay");
+            try {
+                // Process each customer's plan, collecting every message so they are queued together
+                List<OutboundMessage> messages = new ArrayList<>();
+                for (String customerJson : customersWithPlans) {
+                    processCustomerPlan(customerJson, now, messages, tick);
+                }
 
-        try {
-            // Process each customer's plan
-            for (String customerJson : customersWithPlans) {
-                processCustomerPlan(customerJson, now, outputMessages);
-            }
+                messageDispatcher.dispatch(messages, outputMessages);
+                tick.count("dispatched", messages.size());
 
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing devotional plan messages: " + e.getMessage(), e);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error processing devotional plan messages: " + e.getMessage(), e);
 
-            // Capture exception in Sentry
-            SentryHelper.captureException(e);
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
 
-            throw new RuntimeException("Failed to process devotional plan messages", e);
+                throw new RuntimeException("Failed to process devotional plan messages", e);
+            } finally {
+                tick.finish();
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
         }
     }
 
@@ -106,56 +170,53 @@ public class DevotionalPlanFunction {
      *
      * @param customerJson JSON string of customer data
      * @param now Current timestamp
-     * @param outputMessages Output binding for message queue
+     * @param messages Messages collected for message-send-queue
+     * @param tick Counts and samples the per-customer logging for this run
      */
-    private void processCustomerPlan(String customerJson, Instant now, OutputBinding<String[]> outputMessages) {
+    void processCustomerPlan(String customerJson, Instant now, List<OutboundMessage> messages,
+                             TickLog tick) {
+        String customerId = null;
         try {
             // Parse customer data
-            CustomerPlanData customer = objectMapper.readValue(customerJson, CustomerPlanData.class);
+            CustomerPlanData customer = TracedJson.read(objectMapper, customerJson, CustomerPlanData.class);
+            customerId = customer.id;
 
             if (customer.activePlanId == null || customer.activePlanId.isEmpty()) {
-                logger.log(Level.WARNING, "Customer {0} has null activePlanId, skipping",
-                        new Object[]{customer.id});
+                tick.problem(customer.id).log("Customer has null activePlanId, skipping");
                 return;
             }
 
-            logger.log(Level.INFO, "Processing plan {0} for customer: {1}",
-                    new Object[]{customer.activePlanId, customer.id});
-
-            // Load DevotionalPlanEntity from Cosmos DB
-            CosmosDBService cosmosDB = CosmosDBService.getInstance();
-            Optional<DevotionalPlanEntity> planOpt = cosmosDB.findPlanByIdAndCustomerId(
-                    customer.activePlanId, customer.id);
+            // Load only the current day of the plan from Cosmos DB
+            OrchestratorStore store = storeSupplier.get();
+            Optional<PlanDayProjection> planOpt = store.findPlanDay(customer.activePlanId, customer.id);
 
             if (planOpt.isEmpty()) {
-                logger.log(Level.WARNING, "Plan {0} not found for customer {1}",
-                        new Object[]{customer.activePlanId, customer.id});
+                tick.problem(customer.id).with("planId", customer.activePlanId).log("Plan not found");
                 return;
             }
 
-            DevotionalPlanEntity plan = planOpt.get();
+            PlanDayProjection plan = planOpt.get();
 
             if (!"active".equals(plan.getStatus())) {
-                logger.log(Level.WARNING, "Plan {0} is not active (status: {1})",
-                        new Object[]{plan.getId(), plan.getStatus()});
+                tick.problem(customer.id).with("planId", plan.getId()).with("status", plan.getStatus())
+                        .log("Plan is not active");
                 return;
             }
 
-            if (plan.getCurrentDay() == null || plan.getDays() == null || plan.getDays().isEmpty()) {
-                logger.log(Level.WARNING, "Plan {0} has invalid data (currentDay or days missing)",
-                        plan.getId());
+            if (plan.getCurrentDay() == null) {
+                tick.problem(customer.id).with("planId", plan.getId())
+                        .log("Plan has invalid data (currentDay missing)");
                 return;
             }
 
             int currentDay = plan.getCurrentDay();
-            if (currentDay < 1 || currentDay > plan.getDays().size()) {
-                logger.log(Level.WARNING, "Plan {0} has invalid currentDay: {1}",
-                        new Object[]{plan.getId(), currentDay});
+            DailyDevotion dailyDevotion = plan.getCurrentDevotion();
+            if (currentDay < 1 || dailyDevotion == null) {
+                tick.problem(customer.id).with("planId", plan.getId()).with("currentDay", currentDay)
+                        .log("Plan has invalid currentDay");
                 return;
             }
 
-            DailyDevotion dailyDevotion = plan.getDays().get(currentDay - 1);
-
             // Format the message with day counter
             String messageText = formatDailyDevotionMessage(
                     dailyDevotion.getVerseReference(),
@@ -182,23 +243,30 @@ public class DevotionalPlanFunction {
                     .build();
 
             // Queue the message
-            String messageJson = objectMapper.writeValueAsString(message);
-            String[] messages = {messageJson};
-            outputMessages.setValue(messages);
-
-            logger.log(Level.INFO, "Queued Day {0} message for plan {1}, customer {2}",
-                    new Object[]{currentDay, plan.getId(), customer.id});
+            messages.add(OutboundMessage.builder()
+                    .body(TracedJson.write(objectMapper, message))
+                    .messageId(message.messageId)
+                    .sessionId(customer.id)
+                    .priority(message.priority)
+                    .schedule(message.messageType,
+                            customer.messagingState != null ? customer.messagingState.nextPlanMessageScheduledFor : null,
+                            now)
+                    .build());
+
+            tick.count("dayQueued");
+            tick.detail(customer.id).with("planId", plan.getId()).with("day", currentDay)
+                    .log("Queued day message");
 
             // Check if this is Day 7 and customer is in beta program - send survey
             if (currentDay == 7) {
-                sendDay7SurveyIfBetaUser(customer.id, customer.currentPhone, outputMessages);
+                sendDay7SurveyIfBetaUser(customer.id, customer.currentPhone, messages, tick);
             }
 
             // Update next message time (24 hours later, respecting timezone)
-            updateNextMessageTime(customer, currentDay);
+            updateNextMessageTime(customer, now, tick);
 
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing customer plan: " + e.getMessage(), e);
+            tick.problem(customerId).cause(e).log("Error processing customer plan");
         }
     }
 
@@ -213,8 +281,8 @@ public class DevotionalPlanFunction {
      * @param dayNumber Current day (1-7)
      * @return Formatted message text
      */
-    private String formatDailyDevotionMessage(String verseReference, String verseText,
-                                              String reflection, String journalPrompt, int dayNumber) {
+    String formatDailyDevotionMessage(String verseReference, String verseText,
+                                      String reflection, String journalPrompt, int dayNumber) {
         return String.format("📖 Day %d of 7\n\n", dayNumber) +
                 "\"" + verseText + "\"\n" +
                 "— " + verseReference + "\n\n" +
@@ -227,53 +295,46 @@ public class DevotionalPlanFunction {
      * Calculates 24 hours from now, respecting the user's timezone and preferred time.
      *
      * @param customer Customer data with messaging state
-     * @param currentDay Current day that was just sent
+     * @param now Time of this run
+     * @param tick Counts and samples the per-customer logging for this run
      */
-    private void updateNextMessageTime(CustomerPlanData customer, int currentDay) {
+    private void updateNextMessageTime(CustomerPlanData customer, Instant now, TickLog tick) {
         try {
-            // Load full customer entity to update
-            CosmosDBService cosmosDB = CosmosDBService.getInstance();
-            Optional<CustomerEntity> customerOpt = cosmosDB.findCustomerById(customer.id);
-
-            if (customerOpt.isEmpty()) {
-                logger.log(Level.WARNING, "Customer {0} not found when updating next message time",
-                        customer.id);
-                return;
-            }
-
-            CustomerEntity customerEntity = customerOpt.get();
-
             // Schedule next message for 24 hours from now
             // TODO: Add timezone-aware scheduling logic here
             // For now, simple 24-hour increment
-            Instant nextMessageTime = Instant.now().plus(24, ChronoUnit.HOURS);
-
-            if (customerEntity.getMessagingState() == null) {
-                customerEntity.setMessagingState(new CustomerEntity.MessagingState());
-            }
-
-            customerEntity.getMessagingState().setNextPlanMessageScheduledFor(nextMessageTime);
+            Instant nextMessageTime = now.plus(24, ChronoUnit.HOURS);
 
-            cosmosDB.updateCustomer(customerEntity);
+            // Patch just this field: CustomerEntity does not map the whole document, so
+            // writing it back would drop the devotional and check-in schedule
+            storeSupplier.get().patchDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customer.id, customer.id,
+                    Map.of("/messagingState/nextPlanMessageScheduledFor", nextMessageTime.toString()));
 
-            logger.log(Level.INFO, "Scheduled next message for customer {0} at {1}",
-                    new Object[]{customer.id, nextMessageTime});
+            tick.detail(customer.id).with("nextMessageAt", nextMessageTime).log("Scheduled next message");
 
+        } catch (StoreException e) {
+            if (e.getStatusCode() == StoreException.NOT_FOUND) {
+                tick.problem(customer.id).log("Customer not found when updating next message time");
+            } else {
+                tick.problem(customer.id).cause(e).log("Error updating next message time");
+            }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error updating next message time for customer {0}: {1}",
-                    new Object[]{customer.id, e.getMessage()});
+            tick.problem(customer.id).cause(e).log("Error updating next message time");
             // Don't throw - message was already queued successfully
         }
     }
 
     /**
      * Timer function that checks for completed 7-day plans and sends weekly check-in prompts.
-     * Runs every 5 minutes to find customers whose Day 7 was sent in the last 24 hours
-     * and don't yet have a check-in scheduled.
+     * Runs every 5 minutes and reads only plans changed since the last run from the
+     * devotionalPlans change feed, so each completion is picked up once and the per-tick
+     * cost tracks new completions rather than the total number of completed plans.
+     * Check-ins are sent with the Service Bus SDK before the completions are marked and
+     * the checkpoint advances, so a failed run picks the same completions up again.
+     * A check-in that cannot be built holds the checkpoint for PLAN_COMPLETION_MAX_ATTEMPTS
+     * runs (default 5), after which it is reported to Sentry and skipped.
      *
      * @param timerInfo Timer trigger info
-     * @param completedPlans Input binding from Cosmos DB - recently completed plans
-     * @param outputMessages Output binding to message-send-queue
      * @param context Function execution context
      */
     @FunctionName("ProcessPlanCompletion")
@@ -282,45 +343,74 @@ public class DevotionalPlanFunction {
                     name = "timerInfo",
                     schedule = "0 */5 * * * *") // Every 5 minutes
             String timerInfo,
-            @CosmosDBInput(
-                    name = "completedPlans",
-                    databaseName = "WIS-Platform",
-                    containerName = "devotionalPlans",
-                    connection = "CosmosDBConnection",
-                    sqlQuery = "SELECT * FROM c WHERE " +
-                            "c.status = 'completed' " +
-                            "AND (NOT IS_DEFINED(c.checkInSent) OR c.checkInSent = false OR IS_NULL(c.checkInSent))")
-            String[] completedPlans,
-            @ServiceBusQueueOutput(
-                    name = "outputMessages",
-                    queueName = "message-send-queue",
-                    connection = "ServiceBusConnection")
-            OutputBinding<String[]> outputMessages,
             final ExecutionContext context) {
 
-        Instant now = Instant.now();
-        logger.log(Level.INFO, "ProcessPlanCompletion triggered at: {0}", now);
-
-        if (completedPlans == null || completedPlans.length == 0) {
-            logger.log(Level.INFO, "No completed plans needing check-in messages");
-            return;
-        }
-
-        logger.log(Level.INFO, "Found {0} completed plans needing check-in messages",
-                new Object[]{completedPlans.length});
-
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessPlanCompletion");
         try {
-            for (String planJson : completedPlans) {
-                sendWeeklyCheckIn(planJson, outputMessages);
-            }
-
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing plan completions: " + e.getMessage(), e);
-
-            // Capture exception in Sentry
-            SentryHelper.captureException(e);
-
-            throw new RuntimeException("Failed to process plan completions", e);
+            Instant now = Instant.now();
+            logger.log(Level.INFO, "ProcessPlanCompletion triggered at: {0}", now);
+
+            try {
+                PlanCompletionCursor cursor = new PlanCompletionCursor(storeSupplier.get(), objectMapper);
+                PlanCompletionCursor.Batch batch = cursor.poll(MAX_COMPLETIONS_PER_TICK);
+
+                if (batch.getCompletedPlans().isEmpty()) {
+                    logger.log(Level.INFO, "No completed plans needing check-in messages");
+                    cursor.commit(batch);
+                    return;
+                }
+
+                logger.log(Level.INFO, "Found {0} completed plans needing check-in messages",
+                        new Object[]{batch.getCompletedPlans().size()});
+                invocation.recordItems(batch.getCompletedPlans().size());
+
+                TickLog tick = new TickLog(log, "ProcessPlanCompletion");
+                List<OutboundMessage> messages = new ArrayList<>(batch.getCompletedPlans().size());
+                List<JsonNode> queuedPlans = new ArrayList<>(batch.getCompletedPlans().size());
+                List<JsonNode> failedPlans = new ArrayList<>();
+                for (JsonNode planJson : batch.getCompletedPlans()) {
+                    if (sendWeeklyCheckIn(planJson, messages, tick)) {
+                        queuedPlans.add(planJson);
+                    } else {
+                        failedPlans.add(planJson);
+                    }
+                }
+                messageDispatcher.send(messages);
+                cursor.markSent(queuedPlans);
+                tick.finish();
+
+                if (!failedPlans.isEmpty()) {
+                    int maxAttempts = Settings.readInt("PLAN_COMPLETION_MAX_ATTEMPTS", DEFAULT_COMPLETION_MAX_ATTEMPTS);
+                    List<JsonNode> givenUp = cursor.recordFailures(failedPlans, maxAttempts);
+                    for (JsonNode plan : givenUp) {
+                        logger.log(Level.SEVERE, "Giving up on weekly check-in for plan {0} after {1} attempts",
+                                new Object[]{plan.path("id").asText(), maxAttempts});
+                        SentryHelper.captureMessage("Weekly check-in for plan " + plan.path("id").asText()
+                                + " could not be queued after " + maxAttempts + " attempts");
+                    }
+                    if (givenUp.size() < failedPlans.size()) {
+                        // Keep the checkpoint so the failed completions are read again next run;
+                        // the sent ones are skipped by their markers
+                        logger.log(Level.WARNING, "{0} weekly check-ins could not be queued; plan completion checkpoint not advanced",
+                                failedPlans.size() - givenUp.size());
+                        return;
+                    }
+                }
+                cursor.commit(batch);
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error processing plan completions: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                throw new RuntimeException("Failed to process plan completions", e);
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
         }
     }
 
@@ -328,23 +418,24 @@ public class DevotionalPlanFunction {
      * Queues a weekly check-in request after a 7-day plan completes.
      * The message-handler will load customer data, format the message, and send it.
      *
-     * @param planJson Completed plan JSON
-     * @param outputMessages Output binding for message queue
+     * @param planJson Completed plan document
+     * @param messages Messages collected for message-send-queue
+     * @param tick Counts and samples the per-customer logging for this run
+     * @return true if the check-in was added to messages, false if it could not be built
      */
-    private void sendWeeklyCheckIn(String planJson, OutputBinding<String[]> outputMessages) {
+    boolean sendWeeklyCheckIn(JsonNode planJson, List<OutboundMessage> messages, TickLog tick) {
+        String customerId = planJson.path("customerId").asText(null);
         try {
-            CompletedPlanData plan = objectMapper.readValue(planJson, CompletedPlanData.class);
-
-            logger.log(Level.INFO, "Queueing weekly check-in request for customer {0}, plan {1}",
-                    new Object[]{plan.customerId, plan.id});
+            CompletedPlanData plan = objectMapper.treeToValue(planJson, CompletedPlanData.class);
 
             // Create simple check-in request - message-handler will handle formatting and sending
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("completedPlanId", plan.id);
             metadata.put("expectsResponse", true);
 
+            // Deterministic id lets message-handler drop a re-queued check-in for the same plan
             WeeklyCheckInRequest request = WeeklyCheckInRequest.builder()
-                    .messageId(java.util.UUID.randomUUID().toString())
+                    .messageId("weekly_check_in-" + plan.id)
                     .customerId(plan.customerId)
                     .messageType("weekly_check_in")
                     .priority("NORMAL")
@@ -352,17 +443,23 @@ public class DevotionalPlanFunction {
                     .build();
 
             // Queue the request
-            String requestJson = objectMapper.writeValueAsString(request);
-            String[] messages = {requestJson};
-            outputMessages.setValue(messages);
+            messages.add(OutboundMessage.builder()
+                    .body(TracedJson.write(objectMapper, request))
+                    .messageId(request.messageId)
+                    .sessionId(plan.customerId)
+                    .priority(request.priority)
+                    .build());
 
-            logger.log(Level.INFO, "Queued weekly check-in request for customer {0}", plan.customerId);
+            tick.count("checkInQueued");
+            tick.detail(plan.customerId).with("planId", plan.id).log("Queued weekly check-in request");
 
             // Note: checkInSent flag will be marked by message-handler when it actually sends the message
             // This prevents marking it sent if the message fails to deliver
+            return true;
 
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error queueing weekly check-in: " + e.getMessage(), e);
+            tick.problem(customerId).cause(e).log("Error queueing weekly check-in");
+            return false;
         }
     }
 
@@ -371,17 +468,23 @@ public class DevotionalPlanFunction {
      *
      * @param customerId Customer ID
      * @param phoneNumber Customer phone number
-     * @param outputMessages Output binding for message queue
+     * @param messages Messages collected for message-send-queue
+     * @param tick Counts and samples the per-customer logging for this run
      */
     private void sendDay7SurveyIfBetaUser(String customerId, String phoneNumber,
-                                          OutputBinding<String[]> outputMessages) {
+                                          List<OutboundMessage> messages, TickLog tick) {
+        if (customerOutbox.isEnabled()) {
+            commitDay7SurveyThroughOutbox(customerId, phoneNumber, tick);
+            return;
+        }
+
         try {
             // Load full customer entity to check beta program status
-            CosmosDBService cosmosDB = CosmosDBService.getInstance();
-            Optional<CustomerEntity> customerOpt = cosmosDB.findCustomerById(customerId);
+            OrchestratorStore store = storeSupplier.get();
+            Optional<CustomerEntity> customerOpt = store.findCustomerById(customerId);
 
             if (customerOpt.isEmpty()) {
-                logger.log(Level.WARNING, "Customer {0} not found when checking for Day 7 survey", customerId);
+                tick.problem(customerId).log("Customer not found when checking for Day 7 survey");
                 return;
             }
 
@@ -389,67 +492,113 @@ public class DevotionalPlanFunction {
 
             // Check if customer has beta program
             if (customer.getBetaProgram() == null) {
-                logger.log(Level.INFO, "Customer {0} is not in beta program - skipping Day 7 survey", customerId);
+                tick.detail(customerId).log("Customer is not in beta program - skipping Day 7 survey");
                 return;
             }
 
             // Check if Day 7 survey already sent
             if (customer.getBetaProgram().getDay7SurveySentAt() != null) {
-                logger.log(Level.INFO, "Day 7 survey already sent to beta user {0}", customerId);
+                tick.detail(customerId).log("Day 7 survey already sent to beta user");
                 return;
             }
 
             // Get survey URL
             String surveyUrl = customer.getBetaProgram().getDay7SurveyUrl();
             if (surveyUrl == null || surveyUrl.isEmpty()) {
-                logger.log(Level.WARNING, "No Day 7 survey URL configured for beta user {0}", customerId);
+                tick.problem(customerId).log("No Day 7 survey URL configured for beta user");
                 return;
             }
 
-            // Create survey message
-            String message = String.format(
-                "🙏 You completed 7 days of devotionals! We hope they've been meaningful. " +
-                "Share your experience to help us improve: %s",
-                surveyUrl
-            );
-
             // Queue message to message-send-queue
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("messageType", "day_7_survey");
-            metadata.put("betaCode", customer.getBetaProgram().getBetaCode());
-
-            Day7SurveyMessage surveyMessage = Day7SurveyMessage.builder()
-                .messageId(java.util.UUID.randomUUID().toString())
-                .customerId(customerId)
-                .phoneNumber(phoneNumber)
-                .messageType("day_7_survey")
-                .priority("NORMAL")
-                .message(message)
-                .metadata(metadata)
-                .build();
+            messages.add(buildDay7SurveyMessage(customerId, phoneNumber, surveyUrl,
+                    customer.getBetaProgram().getBetaCode()));
 
-            String messageJson = objectMapper.writeValueAsString(surveyMessage);
-            String[] messages = {messageJson};
-            outputMessages.setValue(messages);
+            // Mark the survey as sent, patching rather than writing back the partial entity
+            store.patchDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId, customerId,
+                    Map.of("/betaProgram/day7SurveySentAt", Instant.now().toString()));
 
-            // Update customer record to mark survey as sent
-            customer.getBetaProgram().setDay7SurveySentAt(java.time.Instant.now());
-            cosmosDB.updateCustomer(customer);
+            tick.count("day7SurveyQueued");
+            tick.detail(customerId).log("Day 7 survey queued for beta user");
+
+        } catch (Exception e) {
+            tick.problem(customerId).cause(e).log("Error sending Day 7 survey");
+            // Don't throw - devotional message was already queued successfully
+        }
+    }
 
-            logger.log(Level.INFO, "Day 7 survey queued for beta user {0}", customerId);
+    /**
+     * Outbox mode: marks the Day 7 survey sent and appends it to the customer's outbox in one
+     * write, so the flag can never be set without the message (or the message sent twice).
+     *
+     * @param customerId Customer ID
+     * @param phoneNumber Customer phone number
+     * @param tick Counts and samples the per-customer logging for this run
+     */
+    private void commitDay7SurveyThroughOutbox(String customerId, String phoneNumber, TickLog tick) {
+        try {
+            boolean committed = customerOutbox.commit(customerId, customer -> {
+                JsonNode betaProgram = customer.path("betaProgram");
+                String surveyUrl = betaProgram.path("day7SurveyUrl").asText(null);
+                if (!betaProgram.isObject() ||
+                        betaProgram.hasNonNull("day7SurveySentAt") ||
+                        surveyUrl == null || surveyUrl.isEmpty()) {
+                    return null;
+                }
+
+                ((ObjectNode) betaProgram).put("day7SurveySentAt", Instant.now().toString());
+                return List.of(buildDay7SurveyMessage(customerId, phoneNumber, surveyUrl,
+                        betaProgram.path("betaCode").asText(null)));
+            });
+
+            if (committed) {
+                tick.count("day7SurveyQueued");
+                tick.detail(customerId).log("Day 7 survey written to outbox for beta user");
+            } else {
+                tick.detail(customerId).log("No Day 7 survey due for customer");
+            }
 
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error sending Day 7 survey to customer {0}: {1}",
-                new Object[]{customerId, e.getMessage()});
+            tick.problem(customerId).cause(e).log("Error sending Day 7 survey");
             // Don't throw - devotional message was already queued successfully
         }
     }
 
+    private OutboundMessage buildDay7SurveyMessage(String customerId, String phoneNumber,
+                                                   String surveyUrl, String betaCode) throws Exception {
+        // Create survey message
+        String message = String.format(
+            "🙏 You completed 7 days of devotionals! We hope they've been meaningful. " +
+            "Share your experience to help us improve: %s",
+            surveyUrl
+        );
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("messageType", "day_7_survey");
+        metadata.put("betaCode", betaCode);
+
+        Day7SurveyMessage surveyMessage = Day7SurveyMessage.builder()
+            .messageId(java.util.UUID.randomUUID().toString())
+            .customerId(customerId)
+            .phoneNumber(phoneNumber)
+            .messageType("day_7_survey")
+            .priority("NORMAL")
+            .message(message)
+            .metadata(metadata)
+            .build();
+
+        return OutboundMessage.builder()
+                .body(TracedJson.write(objectMapper, surveyMessage))
+                .messageId(surveyMessage.messageId)
+                .sessionId(customerId)
+                .priority(surveyMessage.priority)
+                .build();
+    }
+
     /**
      * Simple DTO for customer data with active plan info.
      */
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class CustomerPlanData {
+    static class CustomerPlanData {
         public String id;
         public String currentPhone;
         public String activePlanId;
@@ -478,7 +627,7 @@ public class DevotionalPlanFunction {
     /**
      * Message structure for devotional plan messages.
      */
-    private static class DevotionalPlanMessage {
+    static class DevotionalPlanMessage {
         public String messageId;
         public String customerId;
         public String phoneNumber;
@@ -539,7 +688,7 @@ public class DevotionalPlanFunction {
      * Request structure for weekly check-in messages.
      * Message-handler will load customer data, format the message, and send it.
      */
-    private static class WeeklyCheckInRequest {
+    static class WeeklyCheckInRequest {
         public String messageId;
         public String customerId;
         public String messageType;  // "weekly_check_in"
@@ -587,7 +736,7 @@ public class DevotionalPlanFunction {
     /**
      * Message structure for Day 7 survey messages.
      */
-    private static class Day7SurveyMessage {
+    static class Day7SurveyMessage {
         public String messageId;
         public String customerId;
         public String phoneNumber;
@@ -0,0 +1,156 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.util.FlightRecordings;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admin HTTP function that starts, dumps and stops a Java Flight Recorder recording on
+ * the instance that serves the request.
+ *
+ * While a recording runs, the orchestrator's own events (function invocations, Cosmos DB
+ * operations, message flushes and JSON serialization) are recorded alongside the JDK's
+ * CPU and allocation samples, so the profile can be read per business operation. With no
+ * recording running the events are not emitted at all.
+ */
+public class FlightRecorderFunction {
+
+    private static final Logger logger = Logger.getLogger(FlightRecorderFunction.class.getName());
+
+    private static final String DEFAULT_SETTINGS = "profile";
+    private static final int DEFAULT_MAX_AGE_MINUTES = 15;
+    // Persistent storage shared by the app's instances, downloadable through Kudu
+    private static final String DEFAULT_DUMP_DIRECTORY = "/home/LogFiles/jfr";
+
+    private final ObjectMapper objectMapper;
+    private final FlightRecordings recordings;
+    private final Path dumpDirectory;
+    private final String instanceId;
+
+    public FlightRecorderFunction() {
+        this(FlightRecordings.getInstance(), Paths.get(Optional.ofNullable(System.getenv("FLIGHT_RECORDING_DIR"))
+                        .orElse(DEFAULT_DUMP_DIRECTORY)),
+                Optional.ofNullable(System.getenv("WEBSITE_INSTANCE_ID")).map(id -> id.substring(0, Math.min(12, id.length())))
+                        .orElse("local"));
+    }
+
+    /**
+     * Creates the function over a specific recording holder and dump directory.
+     *
+     * @param recordings Holder of this instance's recording
+     * @param dumpDirectory Directory dumps are written to
+     * @param instanceId Identifies this instance in dump file names
+     */
+    public FlightRecorderFunction(FlightRecordings recordings, Path dumpDirectory, String instanceId) {
+        this.objectMapper = new ObjectMapper();
+        this.recordings = recordings;
+        this.dumpDirectory = dumpDirectory;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * HTTP trigger that controls the recording.
+     * Query parameters: action (start, dump, stop or status; default status), and for
+     * start settings (default or profile; default profile) and maxAgeMinutes (default 15).
+     * Every action but status changes state and needs a POST. A dump is written to a file
+     * in FLIGHT_RECORDING_DIR (default /home/LogFiles/jfr) instead of the response, which
+     * returns its path. Each instance has its own recording, so with several instances
+     * running repeat the calls until the one of interest answers, or pin the request to it.
+     *
+     * @param request HTTP request
+     * @param context Function execution context
+     * @return The recording status as JSON, with dumpPath after a dump
+     */
+    @FunctionName("FlightRecorder")
+    public HttpResponseMessage flightRecorder(
+            @HttpTrigger(
+                    name = "req",
+                    methods = {HttpMethod.GET, HttpMethod.POST},
+                    authLevel = AuthorizationLevel.FUNCTION,
+                    route = "admin/jfr")
+            HttpRequestMessage<String> request,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("FlightRecorder");
+        try {
+            String action = request.getQueryParameters().getOrDefault("action", "status");
+            if (!"status".equals(action) && request.getHttpMethod() != HttpMethod.POST) {
+                return request.createResponseBuilder(HttpStatus.METHOD_NOT_ALLOWED)
+                        .header("Content-Type", "application/json")
+                        .header("Allow", "POST")
+                        .body("{\"error\":\"Use POST for " + action + "\"}")
+                        .build();
+            }
+            try {
+                switch (action) {
+                    case "start":
+                        String settings = request.getQueryParameters().getOrDefault("settings", DEFAULT_SETTINGS);
+                        int maxAgeMinutes = Settings.parseInt(request.getQueryParameters().get("maxAgeMinutes"),
+                                DEFAULT_MAX_AGE_MINUTES);
+                        boolean started = recordings.start(settings, Duration.ofMinutes(maxAgeMinutes));
+                        return status(request, started ? HttpStatus.OK : HttpStatus.CONFLICT);
+
+                    case "dump":
+                        Path dump = recordings.dump(dumpDirectory, instanceId);
+                        if (dump == null) {
+                            return status(request, HttpStatus.NOT_FOUND);
+                        }
+                        Map<String, Object> dumped = recordings.status();
+                        dumped.put("dumpPath", dump.toString());
+                        return request.createResponseBuilder(HttpStatus.OK)
+                                .header("Content-Type", "application/json")
+                                .body(objectMapper.writeValueAsString(dumped))
+                                .build();
+
+                    case "stop":
+                        recordings.stop();
+                        return status(request, HttpStatus.OK);
+
+                    case "status":
+                        return status(request, HttpStatus.OK);
+
+                    default:
+                        return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                                .header("Content-Type", "application/json")
+                                .body("{\"error\":\"Unknown action\"}")
+                                .build();
+                }
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error handling flight recorder action " + action + ": " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .header("Content-Type", "application/json")
+                        .body("{\"error\":\"Flight recorder action failed; see logs\"}")
+                        .build();
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+
+    private HttpResponseMessage status(HttpRequestMessage<String> request, HttpStatus httpStatus) throws Exception {
+        Map<String, Object> status = recordings.status();
+        return request.createResponseBuilder(httpStatus)
+                .header("Content-Type", "application/json")
+                .body(objectMapper.writeValueAsString(status))
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.wis.orchestrator;
+
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.MessagePriority;
+import com.wis.orchestrator.service.MetricsRegistry;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import com.wis.orchestrator.util.StructuredLogger;
+
+/**
+ * HTTP-triggered Azure Function that exposes this instance's metrics for Prometheus.
+ *
+ * Function latency, failures and items per invocation, Cosmos DB request units and
+ * errors, and queue depths are recorded where they happen; the counters the shared
+ * components already keep (dispatch counts, concurrency limiter, duplicate drops) are
+ * read at scrape time.
+ */
+public class MetricsFunction {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static boolean componentsRegistered;
+
+    private final MetricsRegistry metrics;
+
+    public MetricsFunction() {
+        this(MetricsRegistry.getInstance());
+    }
+
+    /**
+     * Creates the function over a specific registry.
+     *
+     * @param metrics Registry to render
+     */
+    public MetricsFunction(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Renders every metric in the Prometheus text format. Summary quantiles cover the
+     * time since the previous scrape, so point a single scraper at each instance.
+     *
+     * @param request HTTP request
+     * @param context Function execution context
+     * @return HTTP response
+     */
+    @FunctionName("Metrics")
+    public HttpResponseMessage metrics(
+            @HttpTrigger(
+                    name = "req",
+                    methods = {HttpMethod.GET},
+                    authLevel = AuthorizationLevel.FUNCTION,
+                    route = "metrics")
+            HttpRequestMessage<String> request,
+            final ExecutionContext context) {
+
+        registerComponents(metrics);
+
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", CONTENT_TYPE)
+                .body(metrics.scrape())
+                .build();
+    }
+
+    private static synchronized void registerComponents(MetricsRegistry metrics) {
+        if (componentsRegistered) {
+            return;
+        }
+
+        for (MessagePriority priority : MessagePriority.values()) {
+            metrics.registerCounter("orchestrator_messages_dispatched_total", "Messages queued on the send queues",
+                    () -> MessageDispatcher.getDispatchedCount(priority), "priority", priority.name());
+        }
+
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.getInstance();
+        metrics.registerGauge("orchestrator_concurrency_limit", "Current adaptive concurrency limit",
+                limiter::getLimit);
+        metrics.registerGauge("orchestrator_concurrency_in_flight", "Events being processed under the limiter",
+                limiter::getInFlight);
+        metrics.registerCounter("orchestrator_concurrency_throttled_total", "Throttled store calls seen by the limiter",
+                limiter::getThrottledCount);
+        metrics.registerCounter("orchestrator_concurrency_rejected_total", "Events deferred because the limiter was full",
+                limiter::getRejectedCount);
+
+        ProcessedEventRegistry processedEvents = ProcessedEventRegistry.getInstance();
+        metrics.registerCounter("orchestrator_duplicate_events_total", "Redelivered events dropped",
+                processedEvents::getLocalHitCount, "source", "memory");
+        metrics.registerCounter("orchestrator_duplicate_events_total", "Redelivered events dropped",
+                processedEvents::getDurableHitCount, "source", "store");
+
+        metrics.registerCounter("orchestrator_log_events_dropped_total", "Structured log events dropped on a full queue",
+                StructuredLogger::getDroppedCount);
+
+        componentsRegistered = true;
+    }
+}
@@ -0,0 +1,108 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.service.ConcurrencyLimitExceededException;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.JsonMappers;
+import com.wis.orchestrator.util.SentryHelper;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Azure Function that retries individual events which failed inside a batch-triggered function.
+ * Each event is reprocessed through the same single-event path as the one-message triggers;
+ * failures here fall back to normal Service Bus retry and dead-lettering. The queue also
+ * carries SubscriptionActivated events deferred by the concurrency limiter, so those go
+ * through the limiter again and are deferred again while the store is saturated.
+ */
+public class OrchestrationRetryFunction {
+
+    private static final Logger logger = Logger.getLogger(OrchestrationRetryFunction.class.getName());
+    private final ObjectMapper objectMapper;
+    private final SubscriptionActivatedFunction subscriptionActivatedFunction;
+    private final ConversationOrchestratorFunction customerRegisteredFunction;
+    private final MessageDispatcher messageDispatcher;
+
+    public OrchestrationRetryFunction() {
+        this(new SubscriptionActivatedFunction(), new ConversationOrchestratorFunction(),
+                MessageDispatcher.fromEnvironment());
+    }
+
+    public OrchestrationRetryFunction(SubscriptionActivatedFunction subscriptionActivatedFunction,
+                                      ConversationOrchestratorFunction customerRegisteredFunction,
+                                      MessageDispatcher messageDispatcher) {
+        this.objectMapper = JsonMappers.javaTime();
+        this.subscriptionActivatedFunction = subscriptionActivatedFunction;
+        this.customerRegisteredFunction = customerRegisteredFunction;
+        this.messageDispatcher = messageDispatcher;
+    }
+
+    /**
+     * Service Bus trigger function that reprocesses one failed event from orchestration-retry-queue.
+     *
+     * @param message Retry envelope wrapping the original event
+     * @param messageId Message ID from Service Bus
+     * @param context Function execution context
+     */
+    @FunctionName("ProcessOrchestrationRetry")
+    public void processOrchestrationRetry(
+            @ServiceBusQueueTrigger(
+                    name = "message",
+                    queueName = "orchestration-retry-queue",
+                    connection = "ServiceBusConnection")
+            String message,
+            @BindingName("MessageId") String messageId,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessOrchestrationRetry");
+        try {
+            try {
+                OrchestrationRetryMessage retry = objectMapper.readValue(message, OrchestrationRetryMessage.class);
+
+                logger.log(Level.INFO, "Retrying {0} event. Original MessageId: {1}, first failure: {2}",
+                        new Object[]{retry.getEventType(), retry.getOriginalMessageId(), retry.getError()});
+
+                if (OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED.equals(retry.getEventType())) {
+                    OutboundMessage welcomeMessage;
+                    try {
+                        welcomeMessage = subscriptionActivatedFunction.handleEventWithinLimit(retry.getPayload());
+                    } catch (ConcurrencyLimitExceededException e) {
+                        subscriptionActivatedFunction.deferEvent(retry.getPayload(), retry.getOriginalMessageId(), e);
+                        invocation.deferred();
+                        return;
+                    }
+                    if (welcomeMessage != null) {
+                        messageDispatcher.send(List.of(welcomeMessage));
+                        subscriptionActivatedFunction.markProcessed(welcomeMessage);
+                    }
+                } else if (OrchestrationRetryMessage.CUSTOMER_REGISTERED.equals(retry.getEventType())) {
+                    customerRegisteredFunction.handleEvent(retry.getPayload());
+                } else {
+                    logger.log(Level.WARNING, "Unknown event type in retry message {0}: {1}. Skipping.",
+                            new Object[]{messageId, retry.getEventType()});
+                }
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error retrying orchestration event: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                // Throw exception to trigger Service Bus retry logic (and eventually dead-lettering)
+                throw new RuntimeException("Failed to retry orchestration event", e);
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+}
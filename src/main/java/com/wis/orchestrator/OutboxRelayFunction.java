@@ -0,0 +1,90 @@
+package com.wis.orchestrator;
+
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.service.CosmosDBService;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.OutboxRelay;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timer-triggered Azure Function that relays customer outbox entries to the send queues.
+ * Only does work when OUTBOX_ENABLED=true.
+ */
+public class OutboxRelayFunction {
+
+    private static final Logger logger = Logger.getLogger(OutboxRelayFunction.class.getName());
+
+    private static final int DEFAULT_MAX_MESSAGES_PER_RUN = 1000;
+
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final MessageDispatcher messageDispatcher;
+
+    public OutboxRelayFunction() {
+        this(CosmosDBService::getInstance, MessageDispatcher.fromEnvironment());
+    }
+
+    /**
+     * Creates the function against a specific data store and message dispatcher.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
+     * @param messageDispatcher Sends relayed messages to the send queues
+     */
+    public OutboxRelayFunction(Supplier<? extends OrchestratorStore> storeSupplier,
+                               MessageDispatcher messageDispatcher) {
+        this.storeSupplier = storeSupplier;
+        this.messageDispatcher = messageDispatcher;
+    }
+
+    /**
+     * Timer function that sends outbox entries written since the last run.
+     * Runs every 10 seconds so outbox latency stays close to a direct send;
+     * an idle run costs one checkpoint read and one empty change feed page.
+     *
+     * @param timerInfo Timer trigger info
+     * @param context Function execution context
+     */
+    @FunctionName("RelayOutbox")
+    public void relayOutbox(
+            @TimerTrigger(
+                    name = "timerInfo",
+                    schedule = "*/10 * * * * *") // Every 10 seconds
+            String timerInfo,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("RelayOutbox");
+        try {
+            if (!Boolean.parseBoolean(System.getenv("OUTBOX_ENABLED"))) {
+                return;
+            }
+
+            try {
+                int maxMessages = Settings.readInt("OUTBOX_RELAY_MAX_PER_RUN", DEFAULT_MAX_MESSAGES_PER_RUN);
+                OutboxRelay relay = new OutboxRelay(
+                        storeSupplier.get(), new CustomerOutbox(storeSupplier, true), messageDispatcher);
+                invocation.recordItems(relay.relay(maxMessages));
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error relaying outbox: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                throw new RuntimeException("Failed to relay outbox", e);
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.wis.orchestrator;
+
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.service.CosmosDBService;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.PlanCompactionService;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timer-triggered Azure Function that compacts completed devotional plans.
+ * Runs hourly, moving the full content of plans past their grace period to the
+ * archive container and leaving a small summary in devotionalPlans.
+ */
+public class PlanCompactionFunction {
+
+    private static final Logger logger = Logger.getLogger(PlanCompactionFunction.class.getName());
+
+    private static final int DEFAULT_GRACE_DAYS = 30;
+    private static final int DEFAULT_MAX_PLANS_PER_RUN = 500;
+
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+
+    public PlanCompactionFunction() {
+        this(CosmosDBService::getInstance);
+    }
+
+    /**
+     * Creates the function against a specific data store, e.g. an in-memory stand-in for load tests.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
+     */
+    public PlanCompactionFunction(Supplier<? extends OrchestratorStore> storeSupplier) {
+        this.storeSupplier = storeSupplier;
+    }
+
+    /**
+     * Timer function that compacts completed plans older than the configured grace period.
+     * Grace period, batch size and summary TTL come from PLAN_COMPACTION_GRACE_DAYS,
+     * PLAN_COMPACTION_MAX_PER_RUN and PLAN_SUMMARY_TTL_DAYS.
+     *
+     * @param timerInfo Timer trigger info
+     * @param context Function execution context
+     */
+    @FunctionName("CompactCompletedPlans")
+    public void compactCompletedPlans(
+            @TimerTrigger(
+                    name = "timerInfo",
+                    schedule = "0 15 * * * *") // Hourly, off the 5-minute delivery ticks
+            String timerInfo,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("CompactCompletedPlans");
+        try {
+            Instant now = Instant.now();
+            logger.log(Level.INFO, "CompactCompletedPlans triggered at: {0}", now);
+
+            try {
+                int graceDays = Settings.readInt("PLAN_COMPACTION_GRACE_DAYS", DEFAULT_GRACE_DAYS);
+                int maxPlans = Settings.readInt("PLAN_COMPACTION_MAX_PER_RUN", DEFAULT_MAX_PLANS_PER_RUN);
+                int summaryTtlDays = Settings.readInt("PLAN_SUMMARY_TTL_DAYS", 0);
+
+                PlanCompactionService compactionService = new PlanCompactionService(
+                        storeSupplier.get(),
+                        Duration.ofDays(graceDays),
+                        summaryTtlDays > 0 ? (int) Duration.ofDays(summaryTtlDays).toSeconds() : null);
+
+                int compacted = compactionService.compact(now, maxPlans);
+                invocation.recordItems(compacted);
+                logger.log(Level.INFO, "CompactCompletedPlans finished: {0} plans compacted", compacted);
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error compacting completed plans: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                throw new RuntimeException("Failed to compact completed plans", e);
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+}
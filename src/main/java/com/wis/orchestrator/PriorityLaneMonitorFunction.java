@@ -0,0 +1,103 @@
+package com.wis.orchestrator;
+
+import com.microsoft.azure.functions.*;
+import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.MessagePriority;
+import com.wis.orchestrator.service.MetricsRegistry;
+import com.wis.orchestrator.service.QueueDepthProbe;
+import com.wis.orchestrator.service.ServiceBusQueueDepthProbe;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timer-triggered Azure Function that reports the depth of each send lane.
+ * A HIGH lane that keeps growing means message-handler is not draining it ahead of
+ * NORMAL traffic, so onboarding and day-1 messages are waiting behind bulk sends.
+ * Only registered work when PRIORITY_LANES_ENABLED=true.
+ */
+public class PriorityLaneMonitorFunction {
+
+    private static final Logger logger = Logger.getLogger(PriorityLaneMonitorFunction.class.getName());
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private static final long DEFAULT_HIGH_LANE_DEPTH_WARNING = 500;
+
+    private final Supplier<? extends QueueDepthProbe> probeSupplier;
+
+    public PriorityLaneMonitorFunction() {
+        this(ServiceBusQueueDepthProbe::getInstance);
+    }
+
+    /**
+     * Creates the function against a specific depth probe, e.g. an in-memory sender in load tests.
+     *
+     * @param probeSupplier Supplies the probe lazily on first use
+     */
+    public PriorityLaneMonitorFunction(Supplier<? extends QueueDepthProbe> probeSupplier) {
+        this.probeSupplier = probeSupplier;
+    }
+
+    /**
+     * Timer function that logs lane depths and dispatch counts every minute, and warns
+     * when the HIGH lane is deeper than PRIORITY_LANE_HIGH_DEPTH_WARNING (default 500).
+     *
+     * @param timerInfo Timer trigger info
+     * @param context Function execution context
+     */
+    @FunctionName("MonitorPriorityLanes")
+    public void monitorPriorityLanes(
+            @TimerTrigger(
+                    name = "timerInfo",
+                    schedule = "30 * * * * *") // Every minute
+            String timerInfo,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("MonitorPriorityLanes");
+        try {
+            if (!Boolean.parseBoolean(System.getenv("PRIORITY_LANES_ENABLED"))) {
+                return;
+            }
+
+            try {
+                QueueDepthProbe probe = probeSupplier.get();
+                long highDepth = 0;
+
+                for (MessagePriority lane : MessagePriority.values()) {
+                    long depth = probe.getActiveMessageCount(lane.getQueueName());
+                    metrics.gauge("orchestrator_queue_active_messages", "Active messages on a queue when last probed",
+                            "queue", lane.getQueueName()).set(depth);
+                    if (lane == MessagePriority.HIGH) {
+                        highDepth = depth;
+                    }
+                    logger.log(Level.INFO, "Priority lane {0}: depth={1}, dispatched={2}",
+                            new Object[]{lane, depth, MessageDispatcher.getDispatchedCount(lane)});
+                }
+
+                long warning = Settings.readLong("PRIORITY_LANE_HIGH_DEPTH_WARNING", DEFAULT_HIGH_LANE_DEPTH_WARNING);
+                if (highDepth > warning) {
+                    logger.log(Level.WARNING, "HIGH priority lane backlog {0} exceeds {1}; check message-handler lane weights",
+                            new Object[]{highDepth, warning});
+                }
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error reading priority lane depths: " + e.getMessage(), e);
+
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
+
+                throw new RuntimeException("Failed to monitor priority lanes", e);
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+}
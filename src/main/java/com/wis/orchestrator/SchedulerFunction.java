@@ -1,18 +1,25 @@
 package com.wis.orchestrator;
 
-import com.azure.messaging.servicebus.ServiceBusClientBuilder;
-import com.azure.messaging.servicebus.ServiceBusMessage;
-import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.model.OutboundMessage;
 import com.wis.orchestrator.model.ScheduledMessageRequest;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.JsonMappers;
 import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+import com.wis.orchestrator.util.TracedJson;
+import com.wis.orchestrator.util.TrafficCapture;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,11 +30,22 @@ import java.util.logging.Logger;
 public class SchedulerFunction {
 
     private static final Logger logger = Logger.getLogger(SchedulerFunction.class.getName());
+    private static final StructuredLogger log = StructuredLogger.getLogger(SchedulerFunction.class);
     private final ObjectMapper objectMapper;
+    private final MessageDispatcher messageDispatcher;
 
     public SchedulerFunction() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this(MessageDispatcher.fromEnvironment());
+    }
+
+    /**
+     * Creates the function with a specific message dispatcher, e.g. one backed by an in-memory sender.
+     *
+     * @param messageDispatcher Routes outgoing messages to message-send-queue
+     */
+    public SchedulerFunction(MessageDispatcher messageDispatcher) {
+        this.objectMapper = JsonMappers.javaTime();
+        this.messageDispatcher = messageDispatcher;
     }
 
     /**
@@ -63,29 +81,46 @@ public class SchedulerFunction {
             OutputBinding<String[]> outputMessages,
             final ExecutionContext context) {
 
-        Instant now = Instant.now();
-        logger.log(Level.INFO, "MessageScheduler triggered at: {0}", now);
+        FunctionInvocation invocation = FunctionInvocation.start("MessageScheduler");
+        TrafficCapture.getInstance().recordDocuments("MessageScheduler", "customers", cosmosDbCustomers);
+        try {
+            Instant now = Instant.now();
+            logger.log(Level.INFO, "MessageScheduler triggered at: {0}", now);
 
-        if (cosmosDbCustomers == null || cosmosDbCustomers.length == 0) {
-            logger.log(Level.INFO, "No customers with scheduled messages found.");
-            return;
-        }
+            if (cosmosDbCustomers == null || cosmosDbCustomers.length == 0) {
+                logger.log(Level.INFO, "No customers with scheduled messages found.");
+                return;
+            }
 
-        logger.log(Level.INFO, "Found {0} customers with scheduled messages", cosmosDbCustomers.length);
+            logger.log(Level.INFO, "Found {0} customers with scheduled messages", cosmosDbCustomers.length);
+            invocation.recordItems(cosmosDbCustomers.length);
 
-        try {
-            // Process each customer
-            for (String customerJson : cosmosDbCustomers) {
-                processCustomerSchedule(customerJson, now, outputMessages);
-            }
+            TickLog tick = new TickLog(log, "MessageScheduler");
+            try {
+                // Process each customer, collecting every due message so they are queued together
+                List<OutboundMessage> messages = new ArrayList<>();
+                for (String customerJson : cosmosDbCustomers) {
+                    processCustomerSchedule(customerJson, now, messages, tick);
+                }
 
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing scheduled messages: " + e.getMessage(), e);
+                messageDispatcher.dispatch(messages, outputMessages);
+                tick.count("dispatched", messages.size());
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error processing scheduled messages: " + e.getMessage(), e);
 
-            // Capture exception in Sentry
-            SentryHelper.captureException(e);
+                // Capture exception in Sentry
+                SentryHelper.captureException(e);
 
-            throw new RuntimeException("Failed to process scheduled messages", e);
+                throw new RuntimeException("Failed to process scheduled messages", e);
+            } finally {
+                tick.finish();
+            }
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
         }
     }
 
@@ -94,40 +129,43 @@ public class SchedulerFunction {
      *
      * @param customerJson JSON string of customer data
      * @param now Current timestamp
-     * @param outputMessages Output binding for message queue
+     * @param messages Messages collected for message-send-queue
+     * @param tick Counts and samples the per-customer logging for this run
      */
-    private void processCustomerSchedule(String customerJson, Instant now, OutputBinding<String[]> outputMessages) {
+    void processCustomerSchedule(String customerJson, Instant now, List<OutboundMessage> messages,
+                                 TickLog tick) {
+        String customerId = null;
         try {
             // Parse customer data
-            CustomerScheduleData customer = objectMapper.readValue(customerJson, CustomerScheduleData.class);
+            CustomerScheduleData customer = TracedJson.read(objectMapper, customerJson, CustomerScheduleData.class);
+            customerId = customer.id;
 
-            // Check if devotional is due
+            // Check if devotional is due; due at exactly now counts, as in the input query
             if (customer.messagingState != null &&
                     customer.messagingState.nextDevotionalScheduledFor != null &&
-                    customer.messagingState.nextDevotionalScheduledFor.isBefore(now)) {
-
-                logger.log(Level.INFO, "Queueing devotional for customer: {0}", customer.id);
-                queueDevotionalMessage(customer, outputMessages);
+                    !customer.messagingState.nextDevotionalScheduledFor.isAfter(now)) {
+                queueDevotionalMessage(customer, now, messages, tick);
             }
 
             // Check if check-in is due
             if (customer.messagingState != null &&
                     customer.messagingState.nextCheckInScheduledFor != null &&
-                    customer.messagingState.nextCheckInScheduledFor.isBefore(now)) {
-
-                logger.log(Level.INFO, "Queueing check-in for customer: {0}", customer.id);
-                queueCheckInMessage(customer, outputMessages);
+                    !customer.messagingState.nextCheckInScheduledFor.isAfter(now)) {
+                queueCheckInMessage(customer, now, messages, tick);
             }
 
         } catch (Exception e) {
-            logger.log(Level.WARNING, "Error processing customer schedule: " + e.getMessage(), e);
+            tick.problem(customerId).cause(e).log("Error processing customer schedule");
         }
     }
 
     /**
      * Queues a devotional message for the customer.
+     *
+     * @param pickedUpAt Time this run found the message due
      */
-    private void queueDevotionalMessage(CustomerScheduleData customer, OutputBinding<String[]> outputMessages) {
+    private void queueDevotionalMessage(CustomerScheduleData customer, Instant pickedUpAt,
+                                        List<OutboundMessage> messages, TickLog tick) {
         try {
             ScheduledMessageRequest message = ScheduledMessageRequest.builder()
                     .messageId(java.util.UUID.randomUUID().toString())
@@ -139,23 +177,30 @@ public class SchedulerFunction {
                     .lifeSeason(customer.messagingState.currentLifeSeason)
                     .build();
 
-            String messageJson = objectMapper.writeValueAsString(message);
-
-            // Add to output binding
-            String[] messages = {messageJson};
-            outputMessages.setValue(messages);
+            // Add to the batch for message-send-queue
+            messages.add(OutboundMessage.builder()
+                    .body(TracedJson.write(objectMapper, message))
+                    .messageId(message.getMessageId())
+                    .sessionId(customer.id)
+                    .priority(message.getPriority())
+                    .schedule(message.getMessageType(), customer.messagingState.nextDevotionalScheduledFor, pickedUpAt)
+                    .build());
 
-            logger.log(Level.INFO, "Devotional message queued for customer: {0}", customer.id);
+            tick.count("devotionalQueued");
+            tick.detail(customer.id).with("messageId", message.getMessageId()).log("Devotional message queued");
 
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to queue devotional message: " + e.getMessage(), e);
+            tick.problem(customer.id).cause(e).log("Failed to queue devotional message");
         }
     }
 
     /**
      * Queues a check-in message asking about the user's current season.
+     *
+     * @param pickedUpAt Time this run found the message due
      */
-    private void queueCheckInMessage(CustomerScheduleData customer, OutputBinding<String[]> outputMessages) {
+    private void queueCheckInMessage(CustomerScheduleData customer, Instant pickedUpAt,
+                                     List<OutboundMessage> messages, TickLog tick) {
         try {
             ScheduledMessageRequest message = ScheduledMessageRequest.builder()
                     .messageId(java.util.UUID.randomUUID().toString())
@@ -168,32 +213,39 @@ public class SchedulerFunction {
                           "Feel free to share what's on your heart.")
                     .build();
 
-            String messageJson = objectMapper.writeValueAsString(message);
-
-            // Add to output binding
-            String[] messages = {messageJson};
-            outputMessages.setValue(messages);
+            // Add to the batch for message-send-queue
+            messages.add(OutboundMessage.builder()
+                    .body(TracedJson.write(objectMapper, message))
+                    .messageId(message.getMessageId())
+                    .sessionId(customer.id)
+                    .priority(message.getPriority())
+                    .schedule(message.getMessageType(), customer.messagingState.nextCheckInScheduledFor, pickedUpAt)
+                    .build());
 
-            logger.log(Level.INFO, "Check-in message queued for customer: {0}", customer.id);
+            tick.count("checkInQueued");
+            tick.detail(customer.id).with("messageId", message.getMessageId()).log("Check-in message queued");
 
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to queue check-in message: " + e.getMessage(), e);
+            tick.problem(customer.id).cause(e).log("Failed to queue check-in message");
         }
     }
 
     /**
      * Simple DTO for customer schedule data from Cosmos DB.
      */
+    @JsonIgnoreProperties(ignoreUnknown = true)
     private static class CustomerScheduleData {
         public String id;
         public String currentPhone;
         public ProfileData profile;
         public MessagingStateData messagingState;
 
+        @JsonIgnoreProperties(ignoreUnknown = true)
         private static class ProfileData {
             public PreferencesData preferences;
         }
 
+        @JsonIgnoreProperties(ignoreUnknown = true)
         private static class PreferencesData {
             public String timezone;
             public String preferredTimeOfDay;
@@ -201,6 +253,7 @@ public class SchedulerFunction {
             public Integer devotionalIntervalDays;
         }
 
+        @JsonIgnoreProperties(ignoreUnknown = true)
         private static class MessagingStateData {
             public String currentLifeSeason;
             public java.util.List<String> extractedThemes;
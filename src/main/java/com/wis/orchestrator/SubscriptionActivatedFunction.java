@@ -1,20 +1,43 @@
 package com.wis.orchestrator;
 
-import com.azure.cosmos.CosmosClient;
-import com.azure.cosmos.CosmosClientBuilder;
-import com.azure.cosmos.CosmosContainer;
-import com.azure.cosmos.models.CosmosItemRequestOptions;
-import com.azure.cosmos.models.PartitionKey;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
 import com.wis.orchestrator.model.SubscriptionActivatedEvent;
 import com.wis.orchestrator.model.WelcomeMessage;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.ConcurrencyLimitExceededException;
 import com.wis.orchestrator.service.ConversationService;
+import com.wis.orchestrator.service.CosmosDBService;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import com.wis.orchestrator.service.StoreException;
+import com.wis.orchestrator.service.VersionedDocument;
+import com.wis.orchestrator.util.FunctionInvocation;
+import com.wis.orchestrator.util.JsonMappers;
 import com.wis.orchestrator.util.SentryHelper;
+import com.wis.orchestrator.util.Settings;
+import com.wis.orchestrator.util.TracedJson;
+import com.wis.orchestrator.util.TrafficCapture;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,39 +48,57 @@ import java.util.logging.Logger;
 public class SubscriptionActivatedFunction {
 
     private static final Logger logger = Logger.getLogger(SubscriptionActivatedFunction.class.getName());
+
+    // Application property carrying the source event id on each welcome message
+    static final String EVENT_ID_PROPERTY = "eventId";
+
     private final ObjectMapper objectMapper;
     private final ConversationService conversationService;
-    private CosmosContainer customerContainer;
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final MessageDispatcher messageDispatcher;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ProcessedEventRegistry processedEvents;
+    private final CustomerOutbox customerOutbox;
+    private final Duration deferDelay;
 
     public SubscriptionActivatedFunction() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.conversationService = new ConversationService();
+        this(CosmosDBService::getInstance, MessageDispatcher.fromEnvironment(),
+                AdaptiveConcurrencyLimiter.getInstance(), ProcessedEventRegistry.getInstance(),
+                CustomerOutbox.fromEnvironment(CosmosDBService::getInstance));
     }
 
     /**
-     * Lazily initialize Cosmos DB container.
+     * Creates the function against a specific data store, e.g. an in-memory stand-in for load tests.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
      */
-    private CosmosContainer getCustomerContainer() {
-        if (customerContainer == null) {
-            String cosmosUri = System.getenv("COSMOS_DB_URI");
-            String cosmosKey = System.getenv("COSMOS_DB_KEY");
-
-            if (cosmosUri == null || cosmosKey == null) {
-                logger.log(Level.SEVERE, "COSMOS_DB_URI or COSMOS_DB_KEY environment variables not set");
-                throw new IllegalStateException("Cosmos DB configuration missing");
-            }
-
-            CosmosClient cosmosClient = new CosmosClientBuilder()
-                    .endpoint(cosmosUri)
-                    .key(cosmosKey)
-                    .buildClient();
+    public SubscriptionActivatedFunction(Supplier<? extends OrchestratorStore> storeSupplier) {
+        this(storeSupplier, MessageDispatcher.fromEnvironment(), AdaptiveConcurrencyLimiter.getInstance(),
+                new ProcessedEventRegistry(storeSupplier), CustomerOutbox.fromEnvironment(storeSupplier));
+    }
 
-            customerContainer = cosmosClient
-                    .getDatabase("WIS-Platform")
-                    .getContainer("customers");
-        }
-        return customerContainer;
+    /**
+     * Creates the function against a specific data store, message dispatcher and concurrency limiter.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
+     * @param messageDispatcher Routes outgoing messages to message-send-queue
+     * @param concurrencyLimiter Limits in-flight single-message events based on store latency and throttling
+     * @param processedEvents Drops redelivered events that were already handled
+     * @param customerOutbox Writes the welcome message with the onboarding update when enabled
+     */
+    public SubscriptionActivatedFunction(Supplier<? extends OrchestratorStore> storeSupplier,
+                                         MessageDispatcher messageDispatcher,
+                                         AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                         ProcessedEventRegistry processedEvents,
+                                         CustomerOutbox customerOutbox) {
+        this.objectMapper = JsonMappers.javaTime();
+        this.conversationService = new ConversationService(storeSupplier);
+        this.storeSupplier = storeSupplier;
+        this.messageDispatcher = messageDispatcher;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.processedEvents = processedEvents;
+        this.customerOutbox = customerOutbox;
+        this.deferDelay = Duration.ofSeconds(Settings.readInt("CONCURRENCY_LIMIT_DEFER_SECONDS", 60));
     }
 
     /**
@@ -67,7 +108,6 @@ public class SubscriptionActivatedFunction {
      * @param message Service Bus message containing SubscriptionActivated event
      * @param messageId Message ID from Service Bus
      * @param enqueuedTime Time the message was enqueued
-     * @param outputMessage Output binding for message-send-queue
      * @param context Function execution context
      */
     @FunctionName("ProcessSubscriptionActivated")
@@ -80,113 +120,609 @@ public class SubscriptionActivatedFunction {
             String message,
             @BindingName("MessageId") String messageId,
             @BindingName("EnqueuedTimeUtc") String enqueuedTime,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessSubscriptionActivated");
+        TrafficCapture.getInstance().recordMessage("ProcessSubscriptionActivated", "subscription-events", messageId, message);
+        try {
+            logger.log(Level.INFO, "Processing SubscriptionActivated event. MessageId: {0}, EnqueuedTime: {1}",
+                    new Object[]{messageId, enqueuedTime});
+
+            processSingleEvent(message, messageId, invocation);
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+
+    /**
+     * Session-aware variant of ProcessSubscriptionActivated.
+     * Reads from a session-enabled subscription where publishers set the customer id as
+     * the session id, so the host processes different customers in parallel while events
+     * for the same customer are handled one at a time, in order. Disabled by default
+     * (AzureWebJobs.ProcessSubscriptionActivatedSession.Disabled); enable this instead of
+     * ProcessSubscriptionActivated and ProcessSubscriptionActivatedBatch when running with
+     * SERVICE_BUS_SESSIONS_ENABLED=true. A failed event is retried within its session
+     * rather than through orchestration-retry-queue, so ordering is kept. An event deferred
+     * by the concurrency limiter does go through orchestration-retry-queue, as on the
+     * non-session trigger.
+     *
+     * @param message Service Bus message containing SubscriptionActivated event
+     * @param messageId Message ID from Service Bus
+     * @param sessionId Session ID from Service Bus (the customer id)
+     * @param context Function execution context
+     */
+    @FunctionName("ProcessSubscriptionActivatedSession")
+    public void processSubscriptionActivatedSession(
+            @ServiceBusTopicTrigger(
+                    name = "message",
+                    topicName = "subscription-events",
+                    subscriptionName = "orchestration-session-subscription",
+                    connection = "ServiceBusConnection",
+                    isSessionsEnabled = true)
+            String message,
+            @BindingName("MessageId") String messageId,
+            @BindingName("SessionId") String sessionId,
+            final ExecutionContext context) {
+
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessSubscriptionActivatedSession");
+        TrafficCapture.getInstance().recordMessage("ProcessSubscriptionActivatedSession", "subscription-events", messageId, message);
+        try {
+            logger.log(Level.INFO, "Processing SubscriptionActivated event. MessageId: {0}, SessionId: {1}",
+                    new Object[]{messageId, sessionId});
+
+            processSingleEvent(message, messageId, invocation);
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+
+    private void processSingleEvent(String message, String messageId, FunctionInvocation invocation) {
+        try {
+            OutboundMessage welcomeMessage = handleEventWithinLimit(message);
+            if (welcomeMessage != null) {
+                // Sent before returning, so the event is marked only once its welcome message is queued
+                messageDispatcher.send(List.of(welcomeMessage));
+                markProcessed(welcomeMessage);
+            }
+
+        } catch (ConcurrencyLimitExceededException e) {
+            // Saturated - reschedule instead of abandoning, which would use up a delivery attempt
+            // with no backoff; not an error worth reporting
+            deferEvent(message, messageId, e);
+            invocation.deferred();
+
+        } catch (StoreException e) {
+            if (!e.isThrottled()) {
+                SentryHelper.captureException(e);
+            }
+            logger.log(Level.WARNING, "Store error processing SubscriptionActivated event: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to process SubscriptionActivated event", e);
+
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error processing SubscriptionActivated event: " + e.getMessage(), e);
+
+            // Capture exception in Sentry
+            SentryHelper.captureException(e);
+
+            // Throw exception to trigger Service Bus retry logic
+            throw new RuntimeException("Failed to process SubscriptionActivated event", e);
+        }
+    }
+
+    /**
+     * Batch variant of ProcessSubscriptionActivated for high-volume periods.
+     * Customer reads are grouped into one readMany call and onboarding updates into one
+     * bulk patch, and all welcome messages are sent in a single batch.
+     * An event that fails is forwarded on its own to orchestration-retry-queue, so it
+     * does not cause the rest of the batch to be redelivered.
+     * Enable either this or ProcessSubscriptionActivated, not both (AzureWebJobs.<name>.Disabled);
+     * this one is disabled by default.
+     *
+     * @param messages Service Bus message bodies containing SubscriptionActivated events
+     * @param messageIds Message IDs from Service Bus, aligned with messages
+     * @param enqueuedTimes Enqueue times from Service Bus, aligned with messages
+     * @param retryMessages Output binding for orchestration-retry-queue
+     * @param context Function execution context
+     */
+    @FunctionName("ProcessSubscriptionActivatedBatch")
+    public void processSubscriptionActivatedBatch(
+            @ServiceBusTopicTrigger(
+                    name = "messages",
+                    topicName = "subscription-events",
+                    subscriptionName = "orchestration-subscription",
+                    connection = "ServiceBusConnection",
+                    cardinality = Cardinality.MANY)
+            String[] messages,
+            @BindingName("MessageIdArray") String[] messageIds,
+            @BindingName("EnqueuedTimeUtcArray") String[] enqueuedTimes,
             @ServiceBusQueueOutput(
-                    name = "outputMessage",
-                    queueName = "message-send-queue",
+                    name = "retryMessages",
+                    queueName = "orchestration-retry-queue",
                     connection = "ServiceBusConnection")
-            OutputBinding<String> outputMessage,
+            OutputBinding<String[]> retryMessages,
             final ExecutionContext context) {
 
-        logger.log(Level.INFO, "Processing SubscriptionActivated event. MessageId: {0}, EnqueuedTime: {1}",
-                new Object[]{messageId, enqueuedTime});
-
+        FunctionInvocation invocation = FunctionInvocation.start("ProcessSubscriptionActivatedBatch");
+        TrafficCapture.getInstance().recordMessages("ProcessSubscriptionActivatedBatch", "subscription-events", messageIds, messages);
         try {
-            // Deserialize event
-            SubscriptionActivatedEvent event = objectMapper.readValue(message, SubscriptionActivatedEvent.class);
-
-            logger.log(Level.INFO, "SubscriptionActivated event received for customer: {0}, phone: {1}, subscription: {2}",
-                    new Object[]{
-                            event.getData().getCustomerId(),
-                            event.getData().getPhoneNumber(),
-                            event.getData().getSubscriptionId()
-                    });
-
-            // Validate event data
-            if (event.getData() == null ||
-                    event.getData().getCustomerId() == null ||
-                    event.getData().getPhoneNumber() == null) {
-                logger.log(Level.WARNING, "Invalid event data. Skipping processing.");
+            logger.log(Level.INFO, "Processing batch of {0} SubscriptionActivated events", messages.length);
+            invocation.recordItems(messages.length);
+
+            if (customerOutbox.isEnabled()) {
+                processBatchThroughOutbox(messages, messageIds, retryMessages);
                 return;
             }
 
-            // Fetch customer to get firstName and set onboarding step
-            String firstName = null;
+            List<OutboundMessage> welcomeMessages = new ArrayList<>(messages.length);
+            List<String> retries = new ArrayList<>();
+
+            // Deserialize and validate each event independently
+            List<SubscriptionActivatedEvent> events = new ArrayList<>(messages.length);
+            List<Integer> eventIndexes = new ArrayList<>(messages.length);
+            for (int i = 0; i < messages.length; i++) {
+                try {
+                    SubscriptionActivatedEvent event = TracedJson.read(objectMapper, messages[i], SubscriptionActivatedEvent.class);
+                    if (!isValid(event)) {
+                        logger.log(Level.WARNING, "Invalid event data in message {0}. Skipping processing.", messageIdAt(messageIds, i));
+                        continue;
+                    }
+                    events.add(event);
+                    eventIndexes.add(i);
+                } catch (Exception e) {
+                    retries.add(buildRetryMessage(messages[i], messageIdAt(messageIds, i), e));
+                }
+            }
+
+            dropDuplicates(events, eventIndexes);
+
+            // One readMany and one bulk patch for every customer in the batch; an event whose
+            // customer could not be read or updated is retried on its own instead of being welcomed now
+            Map<String, String> firstNames = new HashMap<>();
+            Map<String, Exception> customerFailures = new HashMap<>();
+            if (!events.isEmpty()) {
+                Set<String> customerIds = new HashSet<>();
+                for (SubscriptionActivatedEvent event : events) {
+                    customerIds.add(event.getData().getCustomerId());
+                }
+                updateOnboarding(customerIds, firstNames, customerFailures);
+            }
+
+            // One bulk create for every conversation state; an event whose record could not be
+            // created is retried on its own instead of being welcomed now
+            Map<String, String> phoneNumbers = new HashMap<>();
+            for (SubscriptionActivatedEvent event : events) {
+                if (!customerFailures.containsKey(event.getData().getCustomerId())) {
+                    phoneNumbers.put(event.getData().getCustomerId(), event.getData().getPhoneNumber());
+                }
+            }
+            Map<String, Exception> failures = new HashMap<>(customerFailures);
             try {
+                failures.putAll(conversationService.initializeConversationStates(phoneNumbers));
+            } catch (Exception e) {
+                for (String customerId : phoneNumbers.keySet()) {
+                    failures.put(customerId, e);
+                }
+            }
+
+            for (int j = 0; j < events.size(); j++) {
+                SubscriptionActivatedEvent event = events.get(j);
+                int index = eventIndexes.get(j);
                 String customerId = event.getData().getCustomerId();
-                JsonNode customerJson = getCustomerContainer().readItem(
-                        customerId,
-                        new PartitionKey(customerId),
-                        JsonNode.class
-                ).getItem();
-
-                if (customerJson != null) {
-                    // Get firstName if available
-                    if (customerJson.has("profile")) {
-                        JsonNode profile = customerJson.get("profile");
-                        if (profile.has("firstName")) {
-                            firstName = profile.get("firstName").asText();
-                            logger.log(Level.INFO, "Retrieved firstName for customer: {0}", customerId);
-                        }
-                    }
+                Exception failure = failures.get(customerId);
+                if (failure != null) {
+                    retries.add(buildRetryMessage(messages[index], messageIdAt(messageIds, index), failure));
+                    continue;
+                }
+                try {
+                    welcomeMessages.add(buildWelcomeMessage(event, firstNames.get(customerId)));
+                } catch (Exception e) {
+                    retries.add(buildRetryMessage(messages[index], messageIdAt(messageIds, index), e));
+                }
+            }
+
+            messageDispatcher.send(welcomeMessages);
+
+            List<String> handledEventIds = new ArrayList<>(welcomeMessages.size());
+            for (OutboundMessage welcomeMessage : welcomeMessages) {
+                handledEventIds.add((String) welcomeMessage.getApplicationProperties().get(EVENT_ID_PROPERTY));
+            }
+            processedEvents.markProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, handledEventIds);
+
+            if (!retries.isEmpty()) {
+                logger.log(Level.WARNING, "{0} of {1} SubscriptionActivated events forwarded to orchestration-retry-queue",
+                        new Object[]{retries.size(), messages.length});
+                retryMessages.setValue(retries.toArray(new String[0]));
+            }
+
+            logger.log(Level.INFO, "SubscriptionActivated batch complete: {0} welcome messages queued",
+                    welcomeMessages.size());
+        } catch (RuntimeException e) {
+            invocation.failed(e);
+            throw e;
+        } finally {
+            invocation.finish();
+        }
+    }
+
+    /**
+     * Reads the batch's customers with one readMany and moves each one found to
+     * awaiting_background with one bulk patch. A customer that does not exist is welcomed
+     * without a name, as in {@link #handleEvent}; a failed read or patch is recorded so its
+     * event goes to orchestration-retry-queue instead of being welcomed and marked processed.
+     *
+     * @param customerIds Customers in the batch
+     * @param firstNames Receives the first name of each customer read
+     * @param failures Receives the error for each customer that could not be read or updated
+     */
+    private void updateOnboarding(Set<String> customerIds, Map<String, String> firstNames,
+                                  Map<String, Exception> failures) {
+        OrchestratorStore store = storeSupplier.get();
+        Map<String, VersionedDocument> customers;
+        try {
+            customers = store.readDocumentsById(OrchestratorStore.CUSTOMERS_CONTAINER, customerIds);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not fetch customer profiles for batch. Error: " + e.getMessage(), e);
+            for (String customerId : customerIds) {
+                failures.put(customerId, e);
+            }
+            return;
+        }
+
+        Map<String, Map<String, Object>> onboardingUpdates = new HashMap<>();
+        for (Map.Entry<String, VersionedDocument> customer : customers.entrySet()) {
+            firstNames.put(customer.getKey(), extractFirstName(customer.getValue().getDocument()));
+            onboardingUpdates.put(customer.getKey(), onboardingFields());
+        }
+
+        try {
+            Map<String, StoreException> patchFailures =
+                    store.patchDocumentsById(OrchestratorStore.CUSTOMERS_CONTAINER, onboardingUpdates);
+            for (Map.Entry<String, StoreException> failure : patchFailures.entrySet()) {
+                logger.log(Level.WARNING, "Could not set onboardingStep for customer {0}: {1}",
+                        new Object[]{failure.getKey(), failure.getValue().getMessage()});
+                failures.put(failure.getKey(), failure.getValue());
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not update customer profiles for batch. Error: " + e.getMessage(), e);
+            for (String customerId : onboardingUpdates.keySet()) {
+                failures.put(customerId, e);
+            }
+        }
+    }
 
-                    // Set onboarding step to "awaiting_background"
-                    // This initiates the two-step onboarding flow
-                    com.fasterxml.jackson.databind.node.ObjectNode customerObject = (com.fasterxml.jackson.databind.node.ObjectNode) customerJson;
-                    customerObject.put("onboardingStep", "awaiting_background");
-                    customerObject.put("onboardingStepUpdatedAt", java.time.Instant.now().toString());
-
-                    // Update the customer record
-                    getCustomerContainer().replaceItem(
-                            customerObject,
-                            customerId,
-                            new PartitionKey(customerId),
-                            null
-                    );
-                    logger.log(Level.INFO, "Set onboardingStep to 'awaiting_background' for customer: {0}", customerId);
+    /**
+     * Outbox mode for the batch trigger. Each event needs its own conditional write to its
+     * customer document, so events go through the single-event path one by one; bulk
+     * reads and patches would reintroduce the gap between state and message.
+     */
+    private void processBatchThroughOutbox(String[] messages, String[] messageIds,
+                                           OutputBinding<String[]> retryMessages) {
+        List<OutboundMessage> directMessages = new ArrayList<>();
+        List<String> retries = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            try {
+                OutboundMessage welcomeMessage = handleEvent(messages[i]);
+                if (welcomeMessage != null) {
+                    directMessages.add(welcomeMessage);
                 }
             } catch (Exception e) {
-                logger.log(Level.WARNING, "Could not fetch/update customer profile. Error: " + e.getMessage(), e);
-            }
-
-            // Create welcome message
-            WelcomeMessage welcomeMessage = WelcomeMessage.builder()
-                    .messageId(java.util.UUID.randomUUID().toString())
-                    .customerId(event.getData().getCustomerId())
-                    .conversationId("conv-" + event.getData().getCustomerId())
-                    .phoneNumber(event.getData().getPhoneNumber())
-                    .messageType("onboarding_welcome")
-                    .priority("HIGH")
-                    .message(buildWelcomeMessageText(firstName))
-                    .metadata(WelcomeMessage.Metadata.builder()
-                            .registrationEventId(event.getEventId())
-                            .registrationStage("subscription_activated")
-                            .attempt(1)
-                            .maxRetries(3)
-                            .build())
-                    .build();
+                retries.add(buildRetryMessage(messages[i], messageIdAt(messageIds, i), e));
+            }
+        }
 
-            // Serialize and send to message queue
-            String welcomeMessageJson = objectMapper.writeValueAsString(welcomeMessage);
-            outputMessage.setValue(welcomeMessageJson);
+        messageDispatcher.send(directMessages);
+        for (OutboundMessage welcomeMessage : directMessages) {
+            markProcessed(welcomeMessage);
+        }
 
-            logger.log(Level.INFO, "Welcome message queued successfully for customer: {0} after subscription activation",
-                    event.getData().getCustomerId());
+        if (!retries.isEmpty()) {
+            logger.log(Level.WARNING, "{0} of {1} SubscriptionActivated events forwarded to orchestration-retry-queue",
+                    new Object[]{retries.size(), messages.length});
+            retryMessages.setValue(retries.toArray(new String[0]));
+        }
+    }
 
-            // Initialize conversation state
-            conversationService.initializeConversationState(
-                    event.getData().getCustomerId(),
-                    event.getData().getPhoneNumber()
+    /**
+     * Handles one SubscriptionActivated event: reads the customer's first name, moves
+     * onboarding to awaiting_background and builds the welcome message. In outbox mode
+     * the onboarding update and the welcome message are committed together instead.
+     * Shared by the single-message trigger and the retry queue. Callers must send the
+     * returned message with {@link MessageDispatcher#send} and only then pass it to
+     * {@link #markProcessed}; an output binding sends after the function returns, too late
+     * to mark the event.
+     *
+     * @param message Service Bus message body
+     * @return Welcome message to queue, or null if the event was skipped (invalid or a duplicate)
+     *         or its welcome message was written to the outbox
+     * @throws Exception if the event cannot be deserialized or the welcome message cannot be built
+     */
+    OutboundMessage handleEvent(String message) throws Exception {
+        // Deserialize event
+        SubscriptionActivatedEvent event = TracedJson.read(objectMapper, message, SubscriptionActivatedEvent.class);
+
+        // Validate event data
+        if (!isValid(event)) {
+            logger.log(Level.WARNING, "Invalid event data. Skipping processing.");
+            return null;
+        }
+
+        // Redelivered event whose welcome message was already queued
+        if (processedEvents.isProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, event.getEventId())) {
+            logger.log(Level.INFO, "SubscriptionActivated event {0} already processed. Skipping duplicate.",
+                    event.getEventId());
+            return null;
+        }
+
+        if (customerOutbox.isEnabled() && commitThroughOutbox(event)) {
+            return null;
+        }
+
+        logger.log(Level.INFO, "SubscriptionActivated event received for customer: {0}, phone: {1}, subscription: {2}",
+                new Object[]{
+                        event.getData().getCustomerId(),
+                        event.getData().getPhoneNumber(),
+                        event.getData().getSubscriptionId()
+                });
+
+        // Fetch customer to get firstName and set onboarding step
+        String firstName = null;
+        try {
+            String customerId = event.getData().getCustomerId();
+            OrchestratorStore store = storeSupplier.get();
+            Optional<VersionedDocument> customerDoc = store.readDocument(
+                    OrchestratorStore.CUSTOMERS_CONTAINER,
+                    customerId,
+                    customerId
             );
 
+            if (customerDoc.isPresent()) {
+                firstName = extractFirstName(customerDoc.get().getDocument());
+
+                // Set onboarding step to "awaiting_background"
+                // This initiates the two-step onboarding flow.
+                // Patch only the onboarding fields rather than replacing the whole record
+                store.patchDocument(
+                        OrchestratorStore.CUSTOMERS_CONTAINER,
+                        customerId,
+                        customerId,
+                        onboardingFields()
+                );
+                logger.log(Level.INFO, "Set onboardingStep to 'awaiting_background' for customer: {0}", customerId);
+            }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing SubscriptionActivated event: " + e.getMessage(), e);
+            if (e instanceof StoreException && ((StoreException) e).isThrottled()) {
+                // Surface throttling so the concurrency limiter backs off and the event is redelivered
+                throw e;
+            }
+            logger.log(Level.WARNING, "Could not fetch/update customer profile. Error: " + e.getMessage(), e);
+        }
 
-            // Capture exception in Sentry
-            SentryHelper.captureException(e);
+        OutboundMessage welcomeMessage = buildWelcomeMessage(event, firstName);
 
-            // Throw exception to trigger Service Bus retry logic
-            throw new RuntimeException("Failed to process SubscriptionActivated event", e);
+        logger.log(Level.INFO, "Welcome message queued successfully for customer: {0} after subscription activation",
+                event.getData().getCustomerId());
+
+        // Initialize conversation state
+        conversationService.initializeConversationState(
+                event.getData().getCustomerId(),
+                event.getData().getPhoneNumber()
+        );
+
+        return welcomeMessage;
+    }
+
+    /**
+     * Outbox mode: sets the onboarding step and appends the welcome message to the customer's
+     * outbox in one write; {@link OutboxRelayFunction} sends it.
+     *
+     * @return false if the customer does not exist, so there is no document to commit to
+     */
+    private boolean commitThroughOutbox(SubscriptionActivatedEvent event) throws Exception {
+        String customerId = event.getData().getCustomerId();
+
+        // Idempotent, so it goes first: once the outbox write lands a redelivery is a no-op
+        conversationService.initializeConversationState(customerId, event.getData().getPhoneNumber());
+
+        boolean committed = customerOutbox.commit(customerId, customer -> {
+            for (Map.Entry<String, Object> field : onboardingFields().entrySet()) {
+                customer.put(field.getKey().substring(1), field.getValue().toString());
+            }
+            return List.of(buildWelcomeMessage(event, extractFirstName(customer)));
+        });
+        if (!committed) {
+            return false;
+        }
+
+        logger.log(Level.INFO, "Welcome message written to outbox for customer: {0} after subscription activation",
+                customerId);
+
+        processedEvents.markProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, event.getEventId());
+        return true;
+    }
+
+    /**
+     * Handles one SubscriptionActivated event within the concurrency limit; see {@link #handleEvent}.
+     *
+     * @throws ConcurrencyLimitExceededException if no slot became free within the limiter's maximum wait
+     */
+    OutboundMessage handleEventWithinLimit(String message) throws Exception {
+        return concurrencyLimiter.execute(() -> handleEvent(message));
+    }
+
+    /**
+     * Schedules an event the concurrency limiter turned away on orchestration-retry-queue,
+     * CONCURRENCY_LIMIT_DEFER_SECONDS (default 60) from now plus up to as much again, so a
+     * burst of deferred events does not come back all at once.
+     *
+     * @param payload Original Service Bus message body
+     * @param messageId Original message ID
+     * @param cause Rejection from the limiter
+     * @throws RuntimeException if the event could not be scheduled; the caller's message is then redelivered
+     */
+    void deferEvent(String payload, String messageId, ConcurrencyLimitExceededException cause) {
+        long delayMillis = deferDelay.toMillis() + ThreadLocalRandom.current().nextLong(deferDelay.toMillis() + 1);
+        Instant retryAt = Instant.now().plusMillis(delayMillis);
+        try {
+            OutboundMessage retry = OutboundMessage.builder()
+                    .body(objectMapper.writeValueAsString(OrchestrationRetryMessage.builder()
+                            .eventType(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED)
+                            .originalMessageId(messageId)
+                            .payload(payload)
+                            .failedAt(Instant.now())
+                            .error(cause.getMessage())
+                            .build()))
+                    .scheduledEnqueueTime(retryAt)
+                    .build();
+            messageDispatcher.sendTo(OrchestrationRetryMessage.QUEUE_NAME, List.of(retry));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to defer SubscriptionActivated event " + messageId, e);
+        }
+        logger.log(Level.WARNING, "Deferred SubscriptionActivated event {0} until {1}: {2}",
+                new Object[]{messageId, retryAt, cause.getMessage()});
+    }
+
+    /**
+     * Records the event behind a sent welcome message as processed, so redeliveries are dropped.
+     *
+     * @param welcomeMessage Message returned by {@link #handleEvent}
+     */
+    void markProcessed(OutboundMessage welcomeMessage) {
+        processedEvents.markProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED,
+                (String) welcomeMessage.getApplicationProperties().get(EVENT_ID_PROPERTY));
+    }
+
+    /**
+     * Removes events that repeat an earlier event in the same batch or were already processed.
+     * A failed marker lookup is not fatal; the batch is then processed as if nothing were a duplicate.
+     */
+    private void dropDuplicates(List<SubscriptionActivatedEvent> events, List<Integer> eventIndexes) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Set<String> eventIds = new HashSet<>();
+        for (SubscriptionActivatedEvent event : events) {
+            if (event.getEventId() != null) {
+                eventIds.add(event.getEventId());
+            }
+        }
+
+        Set<String> processed;
+        try {
+            processed = processedEvents.findProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, eventIds);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not check batch for duplicate events. Error: " + e.getMessage(), e);
+            processed = new HashSet<>();
+        }
+
+        // Compact both lists in place, keeping the first occurrence of each event id
+        Set<String> seen = new HashSet<>();
+        int kept = 0;
+        for (int j = 0; j < events.size(); j++) {
+            String eventId = events.get(j).getEventId();
+            if (eventId != null && (processed.contains(eventId) || !seen.add(eventId))) {
+                continue;
+            }
+            events.set(kept, events.get(j));
+            eventIndexes.set(kept, eventIndexes.get(j));
+            kept++;
         }
+
+        int dropped = events.size() - kept;
+        events.subList(kept, events.size()).clear();
+        eventIndexes.subList(kept, eventIndexes.size()).clear();
+        if (dropped > 0) {
+            logger.log(Level.INFO, "Skipped {0} duplicate SubscriptionActivated events in batch", dropped);
+        }
+    }
+
+    private static boolean isValid(SubscriptionActivatedEvent event) {
+        return event.getData() != null &&
+                event.getData().getCustomerId() != null &&
+                event.getData().getPhoneNumber() != null;
+    }
+
+    private static String extractFirstName(JsonNode customerJson) {
+        JsonNode firstName = customerJson.path("profile").get("firstName");
+        return firstName != null && !firstName.isNull() ? firstName.asText() : null;
+    }
+
+    private static Map<String, Object> onboardingFields() {
+        Map<String, Object> onboardingFields = new HashMap<>();
+        onboardingFields.put("/onboardingStep", "awaiting_background");
+        onboardingFields.put("/onboardingStepUpdatedAt", Instant.now().toString());
+        return onboardingFields;
+    }
+
+    /**
+     * Creates and serializes the welcome message for a validated event, keyed to the customer's session.
+     */
+    OutboundMessage buildWelcomeMessage(SubscriptionActivatedEvent event, String firstName) throws Exception {
+        WelcomeMessage welcomeMessage = WelcomeMessage.builder()
+                .messageId(welcomeMessageId(event))
+                .customerId(event.getData().getCustomerId())
+                .conversationId("conv-" + event.getData().getCustomerId())
+                .phoneNumber(event.getData().getPhoneNumber())
+                .messageType("onboarding_welcome")
+                .priority("HIGH")
+                .message(buildWelcomeMessageText(firstName))
+                .metadata(WelcomeMessage.Metadata.builder()
+                        .registrationEventId(event.getEventId())
+                        .registrationStage("subscription_activated")
+                        .attempt(1)
+                        .maxRetries(3)
+                        .build())
+                .build();
+
+        OutboundMessage outbound = OutboundMessage.builder()
+                .body(TracedJson.write(objectMapper, welcomeMessage))
+                .messageId(welcomeMessage.getMessageId())
+                .sessionId(event.getData().getCustomerId())
+                .priority(welcomeMessage.getPriority())
+                .build();
+        if (event.getEventId() != null) {
+            outbound.getApplicationProperties().put(EVENT_ID_PROPERTY, event.getEventId());
+        }
+        return outbound;
+    }
+
+    /**
+     * Welcome message id derived from the event id, so a duplicate that still gets through
+     * (two instances racing on the same redelivery) carries the same id downstream.
+     */
+    private static String welcomeMessageId(SubscriptionActivatedEvent event) {
+        if (event.getEventId() == null) {
+            return UUID.randomUUID().toString();
+        }
+        return UUID.nameUUIDFromBytes(("onboarding_welcome:" + event.getEventId())
+                .getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private String buildRetryMessage(String payload, String messageId, Exception error) {
+        logger.log(Level.WARNING, "SubscriptionActivated event " + messageId + " failed in batch: " + error.getMessage(), error);
+        SentryHelper.captureException(error);
+        try {
+            return objectMapper.writeValueAsString(OrchestrationRetryMessage.builder()
+                    .eventType(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED)
+                    .originalMessageId(messageId)
+                    .payload(payload)
+                    .failedAt(Instant.now())
+                    .error(error.getMessage())
+                    .build());
+        } catch (Exception e) {
+            // Cannot forward the event on its own - fail the batch so Service Bus redelivers it
+            throw new RuntimeException("Failed to build retry message for " + messageId, e);
+        }
+    }
+
+    private static String messageIdAt(String[] messageIds, int index) {
+        return messageIds != null && index < messageIds.length ? messageIds[index] : null;
     }
 
     /**
@@ -197,7 +733,7 @@ public class SubscriptionActivatedFunction {
      * @param firstName User's first name for personalization (can be null)
      * @return Welcome message body
      */
-    private String buildWelcomeMessageText(String firstName) {
+    String buildWelcomeMessageText(String firstName) {
         String greeting = (firstName != null && !firstName.isEmpty())
                 ? "Hey " + firstName + "! 🌿"
                 : "Hey! 🌿";
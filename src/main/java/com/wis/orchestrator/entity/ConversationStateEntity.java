@@ -0,0 +1,69 @@
+package com.wis.orchestrator.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Conversation state for one customer, id "conv-{customerId}".
+ * Kept compact because one is written per subscription activation: the state is its
+ * {@link com.wis.orchestrator.model.ConversationState} code and timestamps are epoch seconds.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ConversationStateEntity {
+
+    private String id; // Conversation states use id as partition key
+
+    private String customerId;
+    private String phoneNumber;
+    private int state;
+    private long createdAt; // Epoch seconds
+    private long updatedAt; // Epoch seconds
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int state) {
+        this.state = state;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,20 +1,15 @@
 package com.wis.orchestrator.entity;
 
-import com.azure.spring.data.cosmos.core.mapping.Container;
-import com.azure.spring.data.cosmos.core.mapping.PartitionKey;
-import org.springframework.data.annotation.Id;
-
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Minimal customer entity for orchestrator.
  * Full version managed in message-handler.
  */
-@Container(containerName = "customers")
 public class CustomerEntity {
 
-    @Id
-    @PartitionKey
     private String id; // Customers use id as partition key
 
     private String currentPhone;
@@ -23,6 +18,7 @@ public class CustomerEntity {
     private Profile profile;
     private MessagingState messagingState;
     private BetaProgram betaProgram;
+    private List<OutboxEntry> outbox; // Messages committed with the last state change, awaiting relay
 
     public static class Profile {
         private String firstName;
@@ -132,6 +128,75 @@ public class CustomerEntity {
         this.betaProgram = betaProgram;
     }
 
+    public List<OutboxEntry> getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(List<OutboxEntry> outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * Outgoing message written together with a customer update and sent later by the outbox relay.
+     * Modelled here so typed read-modify-write updates keep entries that have not been relayed yet.
+     */
+    public static class OutboxEntry {
+        private String messageId;
+        private String body;
+        private String sessionId;
+        private String priority;
+        private Map<String, Object> applicationProperties;
+        private Instant createdAt;
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public void setMessageId(String messageId) {
+            this.messageId = messageId;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public void setBody(String body) {
+            this.body = body;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+
+        public void setPriority(String priority) {
+            this.priority = priority;
+        }
+
+        public Map<String, Object> getApplicationProperties() {
+            return applicationProperties;
+        }
+
+        public void setApplicationProperties(Map<String, Object> applicationProperties) {
+            this.applicationProperties = applicationProperties;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(Instant createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
     /**
      * Beta program enrollment information.
      */
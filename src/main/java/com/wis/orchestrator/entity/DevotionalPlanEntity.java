@@ -1,9 +1,6 @@
 package com.wis.orchestrator.entity;
 
-import com.azure.spring.data.cosmos.core.mapping.Container;
-import com.azure.spring.data.cosmos.core.mapping.PartitionKey;
 import com.wis.orchestrator.model.DailyDevotion;
-import org.springframework.data.annotation.Id;
 
 import java.time.Instant;
 import java.util.List;
@@ -12,14 +9,11 @@ import java.util.List;
  * Entity representing a 7-day devotional plan stored in Cosmos DB.
  * Read-only for orchestrator - managed by message-handler.
  */
-@Container(containerName = "devotionalPlans")
 public class DevotionalPlanEntity {
 
-    @Id
     private String id;
 
-    @PartitionKey
-    private String customerId;
+    private String customerId; // Partition key
 
     private Integer planNumber;
     private String status;
@@ -0,0 +1,77 @@
+package com.wis.orchestrator.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.wis.orchestrator.model.DailyDevotion;
+
+import java.util.List;
+
+/**
+ * Lightweight projection of a devotional plan containing only the fields needed
+ * to deliver the current day: status, currentDay and the matching day element.
+ * Populated by a server-side projection so the other six days are never transferred.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PlanDayProjection {
+
+    private String id;
+    private String customerId;
+    private String status;
+    private Integer currentDay;
+
+    // Server-side ARRAY() subquery result - holds at most the single current day
+    private List<DailyDevotion> currentDays;
+
+    /**
+     * Returns the devotion for the plan's current day, or null if the plan
+     * document has no day matching currentDay.
+     */
+    @JsonIgnore
+    public DailyDevotion getCurrentDevotion() {
+        if (currentDays == null || currentDays.isEmpty()) {
+            return null;
+        }
+        return currentDays.get(0);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getCurrentDay() {
+        return currentDay;
+    }
+
+    public void setCurrentDay(Integer currentDay) {
+        this.currentDay = currentDay;
+    }
+
+    public List<DailyDevotion> getCurrentDays() {
+        return currentDays;
+    }
+
+    public void setCurrentDays(List<DailyDevotion> currentDays) {
+        this.currentDays = currentDays;
+    }
+}
@@ -0,0 +1,45 @@
+package com.wis.orchestrator.model;
+
+/**
+ * Conversation states, stored as their numeric code in conversationStates documents.
+ * Codes are persisted: never renumber or reuse one, only add new ones.
+ */
+public enum ConversationState {
+
+    AWAITING_BACKGROUND(1, "onboarding"),
+    AWAITING_LIFE_SEASON(2, "onboarding"),
+    ACTIVE(3, "devotional");
+
+    private final int code;
+    private final String stage;
+
+    ConversationState(int code, String stage) {
+        this.code = code;
+        this.stage = stage;
+    }
+
+    /**
+     * Looks a state up by its stored code.
+     *
+     * @return the state, or null if the code is unknown (e.g. written by a newer release)
+     */
+    public static ConversationState fromCode(int code) {
+        for (ConversationState state : values()) {
+            if (state.code == code) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Conversation stage the state belongs to; derived, so it is not stored.
+     */
+    public String getStage() {
+        return stage;
+    }
+}
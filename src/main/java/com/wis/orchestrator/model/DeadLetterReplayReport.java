@@ -0,0 +1,137 @@
+package com.wis.orchestrator.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of one dead-letter drain run, returned by the ReplayDeadLetters admin endpoint.
+ */
+public class DeadLetterReplayReport {
+
+    @JsonProperty("source")
+    private String source; // Service Bus entity path of the drained queue
+
+    @JsonProperty("dryRun")
+    private boolean dryRun;
+
+    @JsonProperty("received")
+    private int received;
+
+    @JsonProperty("replayed")
+    private int replayed;
+
+    @JsonProperty("archived")
+    private int archived;
+
+    @JsonProperty("duplicates")
+    private int duplicates; // Already replayed by an earlier run; removed without replaying
+
+    @JsonProperty("failed")
+    private int failed; // Left in the dead-letter queue for the next run
+
+    @JsonProperty("categories")
+    private Map<String, Integer> categories = new TreeMap<>();
+
+    @JsonProperty("startedAt")
+    private Instant startedAt;
+
+    @JsonProperty("finishedAt")
+    private Instant finishedAt;
+
+    public DeadLetterReplayReport() {
+    }
+
+    public DeadLetterReplayReport(String source, boolean dryRun, Instant startedAt) {
+        this.source = source;
+        this.dryRun = dryRun;
+        this.startedAt = startedAt;
+    }
+
+    public void countCategory(String category) {
+        categories.merge(category, 1, Integer::sum);
+    }
+
+    // Getters and Setters
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getReplayed() {
+        return replayed;
+    }
+
+    public void setReplayed(int replayed) {
+        this.replayed = replayed;
+    }
+
+    public int getArchived() {
+        return archived;
+    }
+
+    public void setArchived(int archived) {
+        this.archived = archived;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public Map<String, Integer> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<String, Integer> categories) {
+        this.categories = categories;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
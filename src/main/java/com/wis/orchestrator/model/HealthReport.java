@@ -0,0 +1,141 @@
+package com.wis.orchestrator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of the readiness check, returned by the HealthCheck endpoint with mode=ready.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HealthReport {
+
+    public static final String HEALTHY = "healthy";
+    public static final String DEGRADED = "degraded"; // Dependencies reachable, but scheduled messages are late or the lag is unknown
+    public static final String UNHEALTHY = "unhealthy"; // A dependency could not be reached
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("service")
+    private String service;
+
+    @JsonProperty("checkedAt")
+    private String checkedAt; // ISO-8601; results are cached, so this can be a few seconds old
+
+    @JsonProperty("probes")
+    private Map<String, Probe> probes = new TreeMap<>();
+
+    @JsonProperty("oldestOverdueAt")
+    private String oldestOverdueAt; // ISO-8601 due time of the oldest overdue message, if any
+
+    @JsonProperty("schedulerLagSeconds")
+    private Long schedulerLagSeconds;
+
+    public HealthReport() {
+    }
+
+    public HealthReport(String service, String checkedAt) {
+        this.service = service;
+        this.checkedAt = checkedAt;
+    }
+
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public void setService(String service) {
+        this.service = service;
+    }
+
+    public String getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(String checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
+    public Map<String, Probe> getProbes() {
+        return probes;
+    }
+
+    public void setProbes(Map<String, Probe> probes) {
+        this.probes = probes;
+    }
+
+    public String getOldestOverdueAt() {
+        return oldestOverdueAt;
+    }
+
+    public void setOldestOverdueAt(String oldestOverdueAt) {
+        this.oldestOverdueAt = oldestOverdueAt;
+    }
+
+    public Long getSchedulerLagSeconds() {
+        return schedulerLagSeconds;
+    }
+
+    public void setSchedulerLagSeconds(Long schedulerLagSeconds) {
+        this.schedulerLagSeconds = schedulerLagSeconds;
+    }
+
+    /**
+     * Outcome of one dependency probe. The endpoint is anonymous, so error details are
+     * logged rather than reported.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Probe {
+
+        public static final String UP = "up";
+        public static final String DOWN = "down";
+        public static final String TIMEOUT = "timeout";
+
+        @JsonProperty("status")
+        private String status;
+
+        @JsonProperty("latencyMs")
+        private long latencyMs;
+
+        public Probe() {
+        }
+
+        public Probe(String status, long latencyMs) {
+            this.status = status;
+            this.latencyMs = latencyMs;
+        }
+
+        @JsonIgnore
+        public boolean isUp() {
+            return UP.equals(status);
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public long getLatencyMs() {
+            return latencyMs;
+        }
+
+        public void setLatencyMs(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+    }
+}
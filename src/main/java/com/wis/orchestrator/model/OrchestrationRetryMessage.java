@@ -0,0 +1,114 @@
+package com.wis.orchestrator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * Envelope for a single event that failed inside a batch-triggered function.
+ * Sent to orchestration-retry-queue so the event is retried on its own
+ * instead of redelivering the whole batch.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OrchestrationRetryMessage {
+
+    public static final String SUBSCRIPTION_ACTIVATED = "SubscriptionActivated";
+    public static final String CUSTOMER_REGISTERED = "CustomerRegistered";
+
+    public static final String QUEUE_NAME = "orchestration-retry-queue";
+
+    @JsonProperty("eventType")
+    private String eventType; // "SubscriptionActivated", "CustomerRegistered"
+
+    @JsonProperty("originalMessageId")
+    private String originalMessageId;
+
+    @JsonProperty("payload")
+    private String payload; // Original Service Bus message body, unchanged
+
+    @JsonProperty("failedAt")
+    private Instant failedAt;
+
+    @JsonProperty("error")
+    private String error;
+
+    // Builder pattern
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private OrchestrationRetryMessage message = new OrchestrationRetryMessage();
+
+        public Builder eventType(String eventType) {
+            message.eventType = eventType;
+            return this;
+        }
+
+        public Builder originalMessageId(String originalMessageId) {
+            message.originalMessageId = originalMessageId;
+            return this;
+        }
+
+        public Builder payload(String payload) {
+            message.payload = payload;
+            return this;
+        }
+
+        public Builder failedAt(Instant failedAt) {
+            message.failedAt = failedAt;
+            return this;
+        }
+
+        public Builder error(String error) {
+            message.error = error;
+            return this;
+        }
+
+        public OrchestrationRetryMessage build() {
+            return message;
+        }
+    }
+
+    // Getters and Setters
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getOriginalMessageId() {
+        return originalMessageId;
+    }
+
+    public void setOriginalMessageId(String originalMessageId) {
+        this.originalMessageId = originalMessageId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(Instant failedAt) {
+        this.failedAt = failedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
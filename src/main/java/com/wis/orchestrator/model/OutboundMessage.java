@@ -0,0 +1,134 @@
+package com.wis.orchestrator.model;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A message to be sent to a Service Bus queue, together with the broker-level
+ * properties that an output binding cannot set (message id, session id,
+ * scheduled enqueue time, application properties).
+ */
+public class OutboundMessage {
+
+    // Application properties tracing a scheduled message, as ISO-8601 strings
+    public static final String MESSAGE_TYPE_PROPERTY = "messageType";
+    public static final String SCHEDULED_FOR_PROPERTY = "scheduledFor"; // When the customer should get it
+    public static final String PICKED_UP_AT_PROPERTY = "pickedUpAt"; // When the orchestrator found it due
+    public static final String ENQUEUED_AT_PROPERTY = "enqueuedAt"; // When it was handed to Service Bus
+
+    private String body; // Serialized JSON payload
+    private String messageId;
+    private String sessionId; // Customer id, so one customer's messages are delivered in order
+    private String priority; // "HIGH", "NORMAL" - selects the send lane
+    private Instant scheduledEnqueueTime; // Broker holds the message back until then; null for immediate
+    private Map<String, Object> applicationProperties = new HashMap<>();
+
+    // Builder pattern
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private OutboundMessage message = new OutboundMessage();
+
+        public Builder body(String body) {
+            message.body = body;
+            return this;
+        }
+
+        public Builder messageId(String messageId) {
+            message.messageId = messageId;
+            return this;
+        }
+
+        public Builder sessionId(String sessionId) {
+            message.sessionId = sessionId;
+            return this;
+        }
+
+        public Builder priority(String priority) {
+            message.priority = priority;
+            return this;
+        }
+
+        public Builder scheduledEnqueueTime(Instant scheduledEnqueueTime) {
+            message.scheduledEnqueueTime = scheduledEnqueueTime;
+            return this;
+        }
+
+        public Builder applicationProperty(String name, Object value) {
+            message.applicationProperties.put(name, value);
+            return this;
+        }
+
+        /**
+         * Stamps the message type, intended delivery time and the time the orchestrator
+         * picked the message up, so lateness can be measured downstream.
+         * See {@link com.wis.orchestrator.service.SchedulingLateness}.
+         */
+        public Builder schedule(String messageType, Instant scheduledFor, Instant pickedUpAt) {
+            message.applicationProperties.put(MESSAGE_TYPE_PROPERTY, messageType);
+            if (scheduledFor != null) {
+                message.applicationProperties.put(SCHEDULED_FOR_PROPERTY, scheduledFor.toString());
+            }
+            if (pickedUpAt != null) {
+                message.applicationProperties.put(PICKED_UP_AT_PROPERTY, pickedUpAt.toString());
+            }
+            return this;
+        }
+
+        public OutboundMessage build() {
+            return message;
+        }
+    }
+
+    // Getters and Setters
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+
+    public Instant getScheduledEnqueueTime() {
+        return scheduledEnqueueTime;
+    }
+
+    public void setScheduledEnqueueTime(Instant scheduledEnqueueTime) {
+        this.scheduledEnqueueTime = scheduledEnqueueTime;
+    }
+
+    public Map<String, Object> getApplicationProperties() {
+        return applicationProperties;
+    }
+
+    public void setApplicationProperties(Map<String, Object> applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+}
@@ -0,0 +1,242 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.util.Settings;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process AIMD concurrency limiter for event handlers that write to Cosmos DB.
+ *
+ * The number of events allowed in flight grows by roughly one per limit's worth of
+ * fast completions and shrinks multiplicatively when latency rises well above its
+ * long-run average (the SDK's own 429 retries show up here first) or when a throttle
+ * reaches the handler. After a throttle, new work is paused for the store's
+ * retry-after hint. Callers that cannot get a slot within the maximum wait get a
+ * {@link ConcurrencyLimitExceededException}, and the trigger reschedules the event
+ * for later rather than piling onto an already throttled store.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = Logger.getLogger(AdaptiveConcurrencyLimiter.class.getName());
+
+    private static final double LATENCY_DECREASE_RATIO = 0.9;
+    private static final double THROTTLE_DECREASE_RATIO = 0.5;
+    private static final double LATENCY_SMOOTHING = 0.05;
+    private static final Duration DEFAULT_THROTTLE_PAUSE = Duration.ofSeconds(1);
+
+    private static AdaptiveConcurrencyLimiter instance;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final long maxWaitNanos;
+
+    private final Object lock = new Object();
+    private double limit;
+    private int inFlight;
+    private double averageLatencyNanos;
+    private long pausedUntilNanos;
+    private long throttledCount;
+    private long rejectedCount;
+
+    private AdaptiveConcurrencyLimiter(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.maxWaitNanos = builder.maxWait.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, builder.initialLimit));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Limiter shared by every Service Bus-triggered handler in this instance, configured from
+     * CONCURRENCY_LIMIT_INITIAL, CONCURRENCY_LIMIT_MIN, CONCURRENCY_LIMIT_MAX and
+     * CONCURRENCY_LIMIT_MAX_WAIT_SECONDS.
+     */
+    public static synchronized AdaptiveConcurrencyLimiter getInstance() {
+        if (instance == null) {
+            instance = builder()
+                    .initialLimit(Settings.readInt("CONCURRENCY_LIMIT_INITIAL", 8))
+                    .minLimit(Settings.readInt("CONCURRENCY_LIMIT_MIN", 1))
+                    .maxLimit(Settings.readInt("CONCURRENCY_LIMIT_MAX", 64))
+                    .maxWait(Duration.ofSeconds(Settings.readInt("CONCURRENCY_LIMIT_MAX_WAIT_SECONDS", 30)))
+                    .build();
+        }
+        return instance;
+    }
+
+    /**
+     * Runs the work once a slot is free, and feeds its latency or throttling back into the limit.
+     *
+     * @param work Handler logic to run
+     * @return The work's result
+     * @throws ConcurrencyLimitExceededException if no slot became free within the maximum wait
+     * @throws Exception whatever the work throws
+     */
+    public <T> T execute(Callable<T> work) throws Exception {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            T result = work.call();
+            onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (StoreException e) {
+            if (e.isThrottled()) {
+                onThrottle(e.getRetryAfter());
+            } else {
+                release();
+            }
+            throw e;
+        } catch (Exception | Error e) {
+            release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        synchronized (lock) {
+            while (true) {
+                long now = System.nanoTime();
+                boolean paused = now < pausedUntilNanos;
+                if (!paused && inFlight < (int) limit) {
+                    inFlight++;
+                    return;
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    rejectedCount++;
+                    throw new ConcurrencyLimitExceededException(String.format(
+                            "No handler slot free after %d ms (limit %d, in flight %d%s)",
+                            Duration.ofNanos(maxWaitNanos).toMillis(), (int) limit, inFlight,
+                            paused ? ", paused after throttling" : ""));
+                }
+
+                // Sleep until the pause ends or a slot is released, whichever comes first
+                long waitNanos = paused ? Math.min(remaining, pausedUntilNanos - now) : remaining;
+                lock.wait(Math.max(1L, waitNanos / 1_000_000L));
+            }
+        }
+    }
+
+    private void onSuccess(long latencyNanos) {
+        synchronized (lock) {
+            inFlight--;
+
+            if (averageLatencyNanos == 0) {
+                averageLatencyNanos = latencyNanos;
+            } else if (latencyNanos > averageLatencyNanos * latencyTolerance) {
+                limit = Math.max(minLimit, limit * LATENCY_DECREASE_RATIO);
+            } else if (inFlight + 1 >= (int) limit / 2) {
+                // Only grow when the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            averageLatencyNanos += (latencyNanos - averageLatencyNanos) * LATENCY_SMOOTHING;
+
+            lock.notifyAll();
+        }
+    }
+
+    private void onThrottle(Duration retryAfter) {
+        Duration pause = retryAfter != null && !retryAfter.isZero() ? retryAfter : DEFAULT_THROTTLE_PAUSE;
+        synchronized (lock) {
+            inFlight--;
+            throttledCount++;
+            limit = Math.max(minLimit, limit * THROTTLE_DECREASE_RATIO);
+            pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + pause.toNanos());
+            lock.notifyAll();
+        }
+        logger.log(Level.WARNING, "Store throttled; concurrency limit reduced to {0}, pausing {1} ms",
+                new Object[]{getLimit(), pause.toMillis()});
+    }
+
+    private void release() {
+        synchronized (lock) {
+            inFlight--;
+            lock.notifyAll();
+        }
+    }
+
+    public int getLimit() {
+        synchronized (lock) {
+            return (int) limit;
+        }
+    }
+
+    public int getInFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    public long getThrottledCount() {
+        synchronized (lock) {
+            return throttledCount;
+        }
+    }
+
+    public long getRejectedCount() {
+        synchronized (lock) {
+            return rejectedCount;
+        }
+    }
+
+    public static class Builder {
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private double latencyTolerance = 2.0;
+        private Duration maxWait = Duration.ofSeconds(30);
+
+        /**
+         * Slots available before any latency has been observed.
+         */
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder minLimit(int minLimit) {
+            this.minLimit = Math.max(1, minLimit);
+            return this;
+        }
+
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * How many times the average latency a completion may take before the limit is reduced.
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * How long an event waits for a slot (including throttle pauses) before
+         * {@link ConcurrencyLimitExceededException} is thrown; the trigger then defers the
+         * event to orchestration-retry-queue with SubscriptionActivatedFunction.deferEvent.
+         * Keep this well below the Service Bus lock duration.
+         */
+        public Builder maxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public AdaptiveConcurrencyLimiter build() {
+            if (maxLimit < minLimit) {
+                throw new IllegalArgumentException("maxLimit must be at least minLimit");
+            }
+            return new AdaptiveConcurrencyLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * One page of a container's change feed (latest version of each changed document)
+ * plus the continuation token to resume from on the next read.
+ */
+public class ChangeFeedPage {
+
+    private final List<JsonNode> documents;
+    private final String continuationToken;
+
+    public ChangeFeedPage(List<JsonNode> documents, String continuationToken) {
+        this.documents = documents;
+        this.continuationToken = continuationToken;
+    }
+
+    public List<JsonNode> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Token to pass to the next read. Never null once the feed has been read at least once,
+     * even when this page is empty.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+}
@@ -0,0 +1,16 @@
+package com.wis.orchestrator.service;
+
+/**
+ * Thrown when an event could not get a slot from the {@link AdaptiveConcurrencyLimiter}
+ * within its maximum wait. Triggers catch it and reschedule the event on
+ * orchestration-retry-queue instead of adding load to a throttled store; letting it
+ * escape would abandon the message and use up one of its delivery attempts.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
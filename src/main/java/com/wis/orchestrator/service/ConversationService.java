@@ -1,42 +1,117 @@
 package com.wis.orchestrator.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.entity.ConversationStateEntity;
+import com.wis.orchestrator.model.ConversationState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Service for managing conversation state in Cosmos DB.
- * Initializes conversation records when customers register.
+ * Initializes conversation records when customers subscribe.
+ *
+ * Creation is create-if-absent without a prior read: a 409 means the record already
+ * exists (a redelivered event, or message-handler got there first) and counts as
+ * success, so an existing conversation is never reset. Batches are created with one
+ * bulk call.
  */
 public class ConversationService {
 
     private static final Logger logger = Logger.getLogger(ConversationService.class.getName());
 
+    private static final String ID_PREFIX = "conv-";
+
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final ObjectMapper objectMapper;
+
     public ConversationService() {
-        // Constructor for future Cosmos DB client initialization
+        this(CosmosDBService::getInstance);
+    }
+
+    /**
+     * Creates the service against a specific data store, e.g. an in-memory stand-in for load tests.
+     *
+     * @param storeSupplier Supplies the store lazily on first use
+     */
+    public ConversationService(Supplier<? extends OrchestratorStore> storeSupplier) {
+        this.storeSupplier = storeSupplier;
+        this.objectMapper = new ObjectMapper();
     }
 
     /**
      * Initializes conversation state for a new customer.
-     * Creates a conversationState record in Cosmos DB.
+     * Creates a conversationState record in Cosmos DB unless one already exists.
      *
      * @param customerId Customer UUID
      * @param phoneNumber Customer phone number (E.164)
+     * @throws StoreException if the record cannot be created
      */
     public void initializeConversationState(String customerId, String phoneNumber) {
-        logger.log(Level.INFO, "Initializing conversation state for customer: {0}", customerId);
-
-        // TODO: Implement Cosmos DB conversation state creation
-        // ConversationStateEntity entity = ConversationStateEntity.builder()
-        //     .id("conv-" + customerId)
-        //     .customerId(customerId)
-        //     .state("awaiting_life_season")
-        //     .currentStage("onboarding")
-        //     .phoneNumber(phoneNumber)
-        //     .createdAt(Instant.now())
-        //     .build();
-        //
-        // cosmosContainer.createItem(entity);
-
-        logger.log(Level.INFO, "Conversation state initialized for customer: {0}", customerId);
+        try {
+            storeSupplier.get().createDocument(OrchestratorStore.CONVERSATIONS_CONTAINER, conversationId(customerId),
+                    newConversation(customerId, phoneNumber, Instant.now()));
+            logger.log(Level.INFO, "Conversation state initialized for customer: {0}", customerId);
+
+        } catch (StoreException e) {
+            if (!e.isConflict()) {
+                throw e;
+            }
+            logger.log(Level.INFO, "Conversation state already exists for customer: {0}", customerId);
+        }
+    }
+
+    /**
+     * Batch form of {@link #initializeConversationState}, written with one bulk create.
+     *
+     * @param phoneNumbersByCustomerId Phone number (E.164) keyed by customer UUID
+     * @return Failures keyed by customer id; records that already existed are not failures
+     */
+    public Map<String, StoreException> initializeConversationStates(Map<String, String> phoneNumbersByCustomerId) {
+        Map<String, StoreException> failures = new HashMap<>();
+        if (phoneNumbersByCustomerId.isEmpty()) {
+            return failures;
+        }
+
+        Instant now = Instant.now();
+        List<JsonNode> conversations = new ArrayList<>(phoneNumbersByCustomerId.size());
+        for (Map.Entry<String, String> customer : phoneNumbersByCustomerId.entrySet()) {
+            conversations.add(newConversation(customer.getKey(), customer.getValue(), now));
+        }
+
+        Map<String, StoreException> results =
+                storeSupplier.get().createDocumentsById(OrchestratorStore.CONVERSATIONS_CONTAINER, conversations);
+        for (Map.Entry<String, StoreException> result : results.entrySet()) {
+            if (!result.getValue().isConflict()) {
+                failures.put(result.getKey().substring(ID_PREFIX.length()), result.getValue());
+            }
+        }
+
+        logger.log(Level.INFO, "Conversation state initialized for {0} customers ({1} failed)",
+                new Object[]{phoneNumbersByCustomerId.size() - failures.size(), failures.size()});
+        return failures;
+    }
+
+    private JsonNode newConversation(String customerId, String phoneNumber, Instant now) {
+        ConversationStateEntity conversation = new ConversationStateEntity();
+        conversation.setId(conversationId(customerId));
+        conversation.setCustomerId(customerId);
+        conversation.setPhoneNumber(phoneNumber);
+        // Matches the onboardingStep set on the customer when the welcome message is sent
+        conversation.setState(ConversationState.AWAITING_BACKGROUND.getCode());
+        conversation.setCreatedAt(now.getEpochSecond());
+        conversation.setUpdatedAt(now.getEpochSecond());
+        return objectMapper.valueToTree(conversation);
+    }
+
+    private static String conversationId(String customerId) {
+        return ID_PREFIX + customerId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.util.CosmosOperationEvent;
+import com.wis.orchestrator.util.SentryHelper;
+import io.sentry.ISpan;
+
+/**
+ * Instrumentation for one {@link CosmosDBService} call: a Sentry span, the request charge
+ * counter, and a {@link CosmosOperationEvent} while a flight recording is running.
+ *
+ * <pre>
+ * CosmosCall call = CosmosCall.start("read", container);
+ * try {
+ *     call.charge(response.getRequestCharge());
+ * } finally {
+ *     call.finish();
+ * }
+ * </pre>
+ */
+final class CosmosCall {
+
+    static final String REQUEST_CHARGE_METRIC = "orchestrator_cosmos_request_charge_total";
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private final String operation;
+    private final String container;
+    private final ISpan span;
+    private final CosmosOperationEvent event = new CosmosOperationEvent();
+    private double requestCharge;
+
+    private CosmosCall(String operation, String container) {
+        this.operation = operation;
+        this.container = container;
+        this.span = SentryHelper.startSpan("db.cosmos." + operation, container);
+        event.begin();
+    }
+
+    /**
+     * @param operation Operation name, e.g. "read" or "bulk.patch"
+     * @param container Container the call goes to
+     */
+    static CosmosCall start(String operation, String container) {
+        return new CosmosCall(operation, container);
+    }
+
+    /**
+     * Counts request units from a response or query page.
+     */
+    void charge(double requestUnits) {
+        requestCharge += requestUnits;
+        metrics.counter(REQUEST_CHARGE_METRIC, "Cosmos DB request units consumed",
+                "container", container, "operation", operation.replace('.', '_')).add(requestUnits);
+    }
+
+    void finish() {
+        span.finish();
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.container = container;
+            event.requestCharge = requestCharge;
+            event.commit();
+        }
+    }
+}
@@ -3,30 +3,114 @@ package com.wis.orchestrator.service;
 import com.azure.cosmos.CosmosClient;
 import com.azure.cosmos.CosmosClientBuilder;
 import com.azure.cosmos.CosmosContainer;
+import com.azure.cosmos.CosmosContainerProactiveInitConfigBuilder;
 import com.azure.cosmos.CosmosDatabase;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosChangeFeedRequestOptions;
+import com.azure.cosmos.models.CosmosContainerIdentity;
+import com.azure.cosmos.models.CosmosItemIdentity;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosPatchItemRequestOptions;
+import com.azure.cosmos.models.CosmosPatchOperations;
 import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
 import com.azure.cosmos.util.CosmosPagedIterable;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.wis.orchestrator.entity.CustomerEntity;
-import com.wis.orchestrator.entity.DevotionalPlanEntity;
+import com.wis.orchestrator.entity.PlanDayProjection;
+import com.wis.orchestrator.util.JsonMappers;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Service for accessing Cosmos DB.
  * Singleton pattern for use in Azure Functions.
+ *
+ * Request units are read from every response and counted per container and operation;
+ * failed requests are counted per status code. Each call runs in a Sentry span under
+ * the invocation's transaction when that transaction is sampled, and is a JFR event
+ * while a flight recording is running (see {@link CosmosCall}).
  */
-public class CosmosDBService {
+public class CosmosDBService implements OrchestratorStore {
+
+    private static final String ERRORS_METRIC = "orchestrator_cosmos_errors_total";
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
 
     private static CosmosDBService instance;
     private final CosmosClient cosmosClient;
     private final CosmosDatabase database;
     private final ObjectMapper objectMapper;
 
-    private static final String DATABASE_NAME = "WIS-Platform";
-    private static final String PLANS_CONTAINER = "devotionalPlans";
-    private static final String CUSTOMERS_CONTAINER = "customers";
+    // Projects only the day matching currentDay so the remaining plan days are never read off the wire
+    private static final String PLAN_DAY_QUERY =
+            "SELECT c.id, c.customerId, c.status, c.currentDay, " +
+            "ARRAY(SELECT VALUE d FROM d IN c.days WHERE d.dayNumber = c.currentDay) AS currentDays " +
+            "FROM c WHERE c.id = @planId";
+
+    // Parameterized equivalents of the timer functions' input binding queries
+    private static final String DUE_MESSAGES_QUERY =
+            "SELECT * FROM c WHERE " +
+            "(c.messagingState.nextDevotionalScheduledFor <= @now " +
+            "OR c.messagingState.nextCheckInScheduledFor <= @now) " +
+            "AND c.messagingState.conversationState = 'active'";
+
+    private static final String DUE_PLAN_MESSAGES_QUERY =
+            "SELECT * FROM c WHERE " +
+            "c.activePlanId != null " +
+            "AND c.messagingState.nextPlanMessageScheduledFor <= @now " +
+            "AND c.status = 'active'";
+
+    private static final String PLANS_TO_COMPACT_QUERY =
+            "SELECT TOP @maxItems * FROM c WHERE " +
+            "c.status = 'completed' " +
+            "AND c.completedAt < @completedBefore " +
+            "AND NOT IS_DEFINED(c.compactedAt)";
+
+    // Earliest overdue time per schedule; MIN over an empty result returns no row
+    // One aggregate for all three schedules; each MIN only sees values due under its timer's predicate
+    private static final String OLDEST_DUE_QUERY =
+            "SELECT " +
+            "MIN(c.messagingState.conversationState = 'active' " +
+            "AND c.messagingState.nextDevotionalScheduledFor <= @now " +
+            "? c.messagingState.nextDevotionalScheduledFor : undefined) AS devotional, " +
+            "MIN(c.messagingState.conversationState = 'active' " +
+            "AND c.messagingState.nextCheckInScheduledFor <= @now " +
+            "? c.messagingState.nextCheckInScheduledFor : undefined) AS checkIn, " +
+            "MIN(c.activePlanId != null AND c.status = 'active' " +
+            "AND c.messagingState.nextPlanMessageScheduledFor <= @now " +
+            "? c.messagingState.nextPlanMessageScheduledFor : undefined) AS planMessage " +
+            "FROM c WHERE " +
+            "(c.messagingState.conversationState = 'active' " +
+            "AND (c.messagingState.nextDevotionalScheduledFor <= @now " +
+            "OR c.messagingState.nextCheckInScheduledFor <= @now)) " +
+            "OR (c.activePlanId != null AND c.status = 'active' " +
+            "AND c.messagingState.nextPlanMessageScheduledFor <= @now)";
+
+    // Containers whose connections and address caches are opened while the client is built
+    private static final List<String> WARM_CONTAINERS = List.of(
+            CUSTOMERS_CONTAINER, PLANS_CONTAINER, CONVERSATIONS_CONTAINER, STATE_CONTAINER);
+
+    // How long building the client may block opening them; the rest open in the background
+    private static final Duration WARMUP_DURATION = Duration.ofSeconds(5);
 
     private CosmosDBService() {
         String uri = System.getenv("COSMOS_DB_URI");
@@ -37,15 +121,28 @@ public class CosmosDBService {
                     "COSMOS_DB_URI and COSMOS_DB_KEY environment variables must be set");
         }
 
-        this.cosmosClient = new CosmosClientBuilder()
+        CosmosClientBuilder builder = new CosmosClientBuilder()
                 .endpoint(uri)
-                .key(key)
-                .buildClient();
+                .key(key);
+        List<String> preferredRegions = preferredRegions();
+        if (!preferredRegions.isEmpty()) {
+            // Proactive init needs the regions to open connections in; without one the
+            // first request to each container opens its own
+            List<CosmosContainerIdentity> containers = new ArrayList<>(WARM_CONTAINERS.size());
+            for (String container : WARM_CONTAINERS) {
+                containers.add(new CosmosContainerIdentity(DATABASE_NAME, container));
+            }
+            builder.preferredRegions(preferredRegions)
+                    .openConnectionsAndInitCaches(new CosmosContainerProactiveInitConfigBuilder(containers)
+                            .setProactiveConnectionRegionsCount(1)
+                            .setAggressiveWarmupDuration(WARMUP_DURATION)
+                            .build());
+        }
+        this.cosmosClient = builder.buildClient();
 
         this.database = cosmosClient.getDatabase(DATABASE_NAME);
 
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper = JsonMappers.javaTime();
     }
 
     public static synchronized CosmosDBService getInstance() {
@@ -56,29 +153,56 @@ public class CosmosDBService {
     }
 
     /**
-     * Find a devotional plan by ID and customer ID.
+     * Regions to prefer, from COSMOS_DB_PREFERRED_REGIONS (comma-separated) or else the
+     * function app's own region (REGION_NAME, set by App Service); empty when neither is set.
+     */
+    private static List<String> preferredRegions() {
+        String regions = System.getenv("COSMOS_DB_PREFERRED_REGIONS");
+        if (regions == null || regions.isBlank()) {
+            regions = System.getenv("REGION_NAME");
+        }
+        List<String> preferred = new ArrayList<>();
+        if (regions != null) {
+            for (String region : regions.split(",")) {
+                if (!region.isBlank()) {
+                    preferred.add(region.trim());
+                }
+            }
+        }
+        return preferred;
+    }
+
+    /**
+     * Fetch only the delivery-relevant slice of a devotional plan: id, status,
+     * currentDay and the single day element matching currentDay.
+     * Scoped to the customer's partition, so this is a single-partition query.
      *
      * @param planId Plan ID
      * @param customerId Customer ID (partition key)
-     * @return Optional containing the plan if found
+     * @return Optional containing the projection if the plan exists
      */
-    public Optional<DevotionalPlanEntity> findPlanByIdAndCustomerId(String planId, String customerId) {
+    @Override
+    public Optional<PlanDayProjection> findPlanDay(String planId, String customerId) {
+        CosmosCall call = CosmosCall.start("query", PLANS_CONTAINER);
         try {
             CosmosContainer container = database.getContainer(PLANS_CONTAINER);
 
-            String query = "SELECT * FROM c WHERE c.id = @planId AND c.customerId = @customerId";
-            CosmosQueryRequestOptions options = new CosmosQueryRequestOptions();
+            SqlQuerySpec query = new SqlQuerySpec(PLAN_DAY_QUERY, new SqlParameter("@planId", planId));
+            CosmosQueryRequestOptions options = new CosmosQueryRequestOptions()
+                    .setPartitionKey(new PartitionKey(customerId));
 
-            CosmosPagedIterable<DevotionalPlanEntity> results = container.queryItems(
+            CosmosPagedIterable<PlanDayProjection> results = container.queryItems(
                     query,
                     options,
-                    DevotionalPlanEntity.class
+                    PlanDayProjection.class
             );
 
-            return results.stream().findFirst();
+            return collectPages(call, results).stream().findFirst();
 
         } catch (Exception e) {
-            throw new RuntimeException("Failed to query devotional plan: " + e.getMessage(), e);
+            throw translate("Failed to query devotional plan day", e);
+        } finally {
+            call.finish();
         }
     }
 
@@ -88,23 +212,28 @@ public class CosmosDBService {
      * @param customerId Customer ID
      * @return Optional containing the customer if found
      */
+    @Override
     public Optional<CustomerEntity> findCustomerById(String customerId) {
+        CosmosCall call = CosmosCall.start("read", CUSTOMERS_CONTAINER);
         try {
             CosmosContainer container = database.getContainer(CUSTOMERS_CONTAINER);
 
-            CustomerEntity customer = container.readItem(
+            CosmosItemResponse<CustomerEntity> response = container.readItem(
                     customerId,
-                    new com.azure.cosmos.models.PartitionKey(customerId),
+                    new PartitionKey(customerId),
                     CustomerEntity.class
-            ).getItem();
+            );
+            call.charge(response.getRequestCharge());
 
-            return Optional.ofNullable(customer);
+            return Optional.ofNullable(response.getItem());
 
-        } catch (com.azure.cosmos.CosmosException e) {
-            if (e.getStatusCode() == 404) {
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == StoreException.NOT_FOUND) {
                 return Optional.empty();
             }
-            throw new RuntimeException("Failed to query customer: " + e.getMessage(), e);
+            throw translate("Failed to query customer", e);
+        } finally {
+            call.finish();
         }
     }
 
@@ -113,18 +242,383 @@ public class CosmosDBService {
      *
      * @param customer Customer entity to update
      */
+    @Override
     public void updateCustomer(CustomerEntity customer) {
+        CosmosCall call = CosmosCall.start("upsert", CUSTOMERS_CONTAINER);
         try {
             CosmosContainer container = database.getContainer(CUSTOMERS_CONTAINER);
 
-            container.upsertItem(
+            CosmosItemResponse<CustomerEntity> response = container.upsertItem(
                     customer,
-                    new com.azure.cosmos.models.PartitionKey(customer.getId()),
-                    new com.azure.cosmos.models.CosmosItemRequestOptions()
+                    new PartitionKey(customer.getId()),
+                    new CosmosItemRequestOptions()
             );
+            call.charge(response.getRequestCharge());
 
         } catch (Exception e) {
-            throw new RuntimeException("Failed to update customer: " + e.getMessage(), e);
+            throw translate("Failed to update customer", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public List<String> queryCustomersWithDueMessages(Instant now) {
+        return queryAsJson(CUSTOMERS_CONTAINER, DUE_MESSAGES_QUERY, new SqlParameter("@now", now.toString()));
+    }
+
+    @Override
+    public List<String> queryCustomersWithDuePlanMessages(Instant now) {
+        return queryAsJson(CUSTOMERS_CONTAINER, DUE_PLAN_MESSAGES_QUERY, new SqlParameter("@now", now.toString()));
+    }
+
+    @Override
+    public List<JsonNode> queryPlansToCompact(Instant completedBefore, int maxItems) {
+        CosmosCall call = CosmosCall.start("query", PLANS_CONTAINER);
+        try {
+            SqlQuerySpec query = new SqlQuerySpec(PLANS_TO_COMPACT_QUERY,
+                    new SqlParameter("@maxItems", maxItems),
+                    new SqlParameter("@completedBefore", completedBefore.toString()));
+
+            return collectPages(call,
+                    database.getContainer(PLANS_CONTAINER).queryItems(query, new CosmosQueryRequestOptions(), JsonNode.class));
+
+        } catch (Exception e) {
+            throw translate("Failed to query plans to compact", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public void probeContainer(String container) {
+        CosmosCall call = CosmosCall.start("read_container", container);
+        try {
+            call.charge(database.getContainer(container).read().getRequestCharge());
+        } catch (Exception e) {
+            throw translate("Failed to read container " + container, e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public Optional<Instant> findOldestDueSchedule(Instant now) {
+        CosmosCall call = CosmosCall.start("query", CUSTOMERS_CONTAINER);
+        try {
+            CosmosContainer container = database.getContainer(CUSTOMERS_CONTAINER);
+            SqlQuerySpec querySpec = new SqlQuerySpec(OLDEST_DUE_QUERY, new SqlParameter("@now", now.toString()));
+            Instant oldest = null;
+            for (JsonNode row : collectPages(call,
+                    container.queryItems(querySpec, new CosmosQueryRequestOptions(), JsonNode.class))) {
+                for (JsonNode value : row) {
+                    if (value.isTextual()) {
+                        Instant due = Instant.parse(value.asText());
+                        if (oldest == null || due.isBefore(oldest)) {
+                            oldest = due;
+                        }
+                    }
+                }
+            }
+            return Optional.ofNullable(oldest);
+
+        } catch (Exception e) {
+            throw translate("Failed to find oldest due schedule", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public Optional<VersionedDocument> readDocument(String container, String id, String partitionKey) {
+        CosmosCall call = CosmosCall.start("read", container);
+        try {
+            CosmosItemResponse<JsonNode> response = database.getContainer(container).readItem(
+                    id,
+                    new PartitionKey(partitionKey),
+                    JsonNode.class
+            );
+            call.charge(response.getRequestCharge());
+            return Optional.of(new VersionedDocument(response.getItem(), response.getETag()));
+
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == StoreException.NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw translate("Failed to read " + container + " document", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public Map<String, VersionedDocument> readDocumentsById(String container, Collection<String> ids) {
+        Map<String, VersionedDocument> documents = new HashMap<>();
+        if (ids.isEmpty()) {
+            return documents;
+        }
+        CosmosCall call = CosmosCall.start("readMany", container);
+        try {
+            List<CosmosItemIdentity> identities = ids.stream()
+                    .distinct()
+                    .map(id -> new CosmosItemIdentity(new PartitionKey(id), id))
+                    .collect(Collectors.toList());
+
+            FeedResponse<JsonNode> response = database.getContainer(container).readMany(identities, JsonNode.class);
+            call.charge(response.getRequestCharge());
+            for (JsonNode document : response.getResults()) {
+                documents.put(document.path("id").asText(),
+                        new VersionedDocument(document, document.path("_etag").asText(null)));
+            }
+            return documents;
+
+        } catch (Exception e) {
+            throw translate("Failed to read many " + container + " documents", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public String createDocument(String container, String partitionKey, JsonNode document) {
+        CosmosCall call = CosmosCall.start("create", container);
+        try {
+            CosmosItemResponse<JsonNode> response = database.getContainer(container).createItem(
+                    document,
+                    new PartitionKey(partitionKey),
+                    writeOptions()
+            );
+            call.charge(response.getRequestCharge());
+            return response.getETag();
+
+        } catch (Exception e) {
+            throw translate("Failed to create " + container + " document", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public String upsertDocument(String container, String partitionKey, JsonNode document) {
+        CosmosCall call = CosmosCall.start("upsert", container);
+        try {
+            CosmosItemResponse<JsonNode> response = database.getContainer(container).upsertItem(
+                    document,
+                    new PartitionKey(partitionKey),
+                    writeOptions()
+            );
+            call.charge(response.getRequestCharge());
+            return response.getETag();
+
+        } catch (Exception e) {
+            throw translate("Failed to upsert " + container + " document", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public String replaceDocument(String container, String partitionKey, JsonNode document, String ifMatchETag) {
+        CosmosCall call = CosmosCall.start("replace", container);
+        try {
+            CosmosItemRequestOptions options = writeOptions();
+            if (ifMatchETag != null) {
+                options.setIfMatchETag(ifMatchETag);
+            }
+            CosmosItemResponse<JsonNode> response = database.getContainer(container).replaceItem(
+                    document,
+                    document.get("id").asText(),
+                    new PartitionKey(partitionKey),
+                    options
+            );
+            call.charge(response.getRequestCharge());
+            return response.getETag();
+
+        } catch (Exception e) {
+            throw translate("Failed to replace " + container + " document", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public void patchDocument(String container, String id, String partitionKey, Map<String, Object> setOperations) {
+        CosmosCall call = CosmosCall.start("patch", container);
+        try {
+            CosmosPatchOperations operations = CosmosPatchOperations.create();
+            setOperations.forEach(operations::set);
+
+            CosmosPatchItemRequestOptions options = new CosmosPatchItemRequestOptions();
+            options.setContentResponseOnWriteEnabled(false);
+
+            CosmosItemResponse<JsonNode> response = database.getContainer(container).patchItem(
+                    id,
+                    new PartitionKey(partitionKey),
+                    operations,
+                    options,
+                    JsonNode.class
+            );
+            call.charge(response.getRequestCharge());
+
+        } catch (Exception e) {
+            throw translate("Failed to patch " + container + " document", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public Map<String, StoreException> patchDocumentsById(String container,
+                                                          Map<String, Map<String, Object>> setOperationsById) {
+        List<CosmosItemOperation> operations = new ArrayList<>(setOperationsById.size());
+        for (Map.Entry<String, Map<String, Object>> entry : setOperationsById.entrySet()) {
+            CosmosPatchOperations patch = CosmosPatchOperations.create();
+            entry.getValue().forEach(patch::set);
+            operations.add(CosmosBulkOperations.getPatchItemOperation(
+                    entry.getKey(), new PartitionKey(entry.getKey()), patch));
+        }
+        return executeBulk(container, "patch", operations);
+    }
+
+    @Override
+    public Map<String, StoreException> createDocumentsById(String container, Collection<JsonNode> documents) {
+        List<CosmosItemOperation> operations = new ArrayList<>(documents.size());
+        for (JsonNode document : documents) {
+            String id = document.get("id").asText();
+            operations.add(CosmosBulkOperations.getCreateItemOperation(document, new PartitionKey(id)));
+        }
+        return executeBulk(container, "create", operations);
+    }
+
+    @Override
+    public Map<String, StoreException> upsertDocumentsById(String container, Collection<JsonNode> documents) {
+        List<CosmosItemOperation> operations = new ArrayList<>(documents.size());
+        for (JsonNode document : documents) {
+            String id = document.get("id").asText();
+            operations.add(CosmosBulkOperations.getUpsertItemOperation(document, new PartitionKey(id)));
+        }
+        return executeBulk(container, "upsert", operations);
+    }
+
+    private Map<String, StoreException> executeBulk(String container, String action, List<CosmosItemOperation> operations) {
+        Map<String, StoreException> failures = new HashMap<>();
+        if (operations.isEmpty()) {
+            return failures;
+        }
+        CosmosCall call = CosmosCall.start("bulk." + action, container);
+        try {
+            double charge = 0;
+            for (CosmosBulkOperationResponse<Object> result :
+                    database.getContainer(container).<Object>executeBulkOperations(operations)) {
+                String id = result.getOperation().getId();
+                if (result.getResponse() != null) {
+                    charge += result.getResponse().getRequestCharge();
+                }
+                if (result.getException() != null) {
+                    failures.put(id, translate("Failed to " + action + " " + container + " document " + id,
+                            result.getException()));
+                } else if (result.getResponse() != null && !result.getResponse().isSuccessStatusCode()) {
+                    recordError(result.getResponse().getStatusCode());
+                    failures.put(id, new StoreException("Failed to " + action + " " + container + " document " + id,
+                            result.getResponse().getStatusCode()));
+                }
+            }
+            call.charge(charge);
+            return failures;
+
+        } catch (Exception e) {
+            throw translate("Failed to bulk " + action + " " + container + " documents", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    @Override
+    public ChangeFeedPage readChangeFeed(String container, String continuationToken, int maxItems) {
+        CosmosCall call = CosmosCall.start("changeFeed", container);
+        try {
+            CosmosChangeFeedRequestOptions options = continuationToken == null
+                    ? CosmosChangeFeedRequestOptions.createForProcessingFromBeginning(FeedRange.forFullRange())
+                    : CosmosChangeFeedRequestOptions.createForProcessingFromContinuation(continuationToken);
+            options.setMaxItemCount(maxItems);
+
+            Iterator<FeedResponse<JsonNode>> pages = database.getContainer(container)
+                    .queryChangeFeed(options, JsonNode.class)
+                    .iterableByPage()
+                    .iterator();
+
+            if (!pages.hasNext()) {
+                return new ChangeFeedPage(List.of(), continuationToken);
+            }
+
+            FeedResponse<JsonNode> page = pages.next();
+            call.charge(page.getRequestCharge());
+            return new ChangeFeedPage(new ArrayList<>(page.getResults()), page.getContinuationToken());
+
+        } catch (Exception e) {
+            throw translate("Failed to read " + container + " change feed", e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    private List<String> queryAsJson(String container, String query, SqlParameter... parameters) {
+        CosmosCall call = CosmosCall.start("query", container);
+        try {
+            return collectPages(call, database.getContainer(container)
+                    .queryItems(new SqlQuerySpec(query, parameters), new CosmosQueryRequestOptions(), JsonNode.class))
+                    .stream()
+                    .map(JsonNode::toString)
+                    .collect(Collectors.toList());
+
+        } catch (Exception e) {
+            throw translate("Failed to query " + container, e);
+        } finally {
+            call.finish();
+        }
+    }
+
+    /**
+     * Drains a query page by page so each page's request charge is counted.
+     */
+    private static <T> List<T> collectPages(CosmosCall call, CosmosPagedIterable<T> results) {
+        List<T> items = new ArrayList<>();
+        for (FeedResponse<T> page : results.iterableByPage()) {
+            items.addAll(page.getResults());
+            call.charge(page.getRequestCharge());
+        }
+        return items;
+    }
+
+    private static void recordError(int statusCode) {
+        metrics.counter(ERRORS_METRIC, "Failed Cosmos DB requests", "status", Integer.toString(statusCode)).increment();
+    }
+
+    /**
+     * Write options that skip echoing the written document back - callers only need the ETag.
+     */
+    private static CosmosItemRequestOptions writeOptions() {
+        CosmosItemRequestOptions options = new CosmosItemRequestOptions();
+        options.setContentResponseOnWriteEnabled(false);
+        return options;
+    }
+
+    /**
+     * Wraps an SDK failure in a StoreException, preserving the status code and retry-after hint.
+     */
+    private static StoreException translate(String action, Exception e) {
+        if (e instanceof StoreException) {
+            return (StoreException) e;
+        }
+        if (e instanceof CosmosException) {
+            CosmosException cosmosException = (CosmosException) e;
+            recordError(cosmosException.getStatusCode());
+            return new StoreException(action + ": " + e.getMessage(),
+                    cosmosException.getStatusCode(),
+                    cosmosException.getRetryAfterDuration(),
+                    e);
         }
+        recordError(500);
+        return new StoreException(action + ": " + e.getMessage(), 500, null, e);
     }
 }
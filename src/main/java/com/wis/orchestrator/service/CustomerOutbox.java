@@ -0,0 +1,197 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.model.OutboundMessage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Transactional outbox for customer updates that also queue messages.
+ *
+ * The customers container is partitioned by /id, so each logical partition holds a single
+ * customer document. Outgoing messages are therefore stored in that document's "outbox"
+ * array and written in the same ETag-conditioned replace as the state change: either both
+ * land or neither does. {@link OutboxRelay} later sends the entries and removes them.
+ * A relay that crashes between the two steps sends an entry again with the same message
+ * id, which Service Bus duplicate detection (or the consumer) drops.
+ */
+public class CustomerOutbox {
+
+    public static final String OUTBOX_FIELD = "outbox";
+
+    // Optimistic-concurrency attempts before giving up on a contended customer document
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    /**
+     * @param storeSupplier Supplies the store holding the customer documents
+     * @param enabled Whether callers should write through the outbox instead of dispatching directly
+     */
+    public CustomerOutbox(Supplier<? extends OrchestratorStore> storeSupplier, boolean enabled) {
+        this.storeSupplier = storeSupplier;
+        this.objectMapper = new ObjectMapper();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates an outbox enabled by the OUTBOX_ENABLED app setting.
+     *
+     * @param storeSupplier Supplies the store holding the customer documents
+     */
+    public static CustomerOutbox fromEnvironment(Supplier<? extends OrchestratorStore> storeSupplier) {
+        return new CustomerOutbox(storeSupplier, Boolean.parseBoolean(System.getenv("OUTBOX_ENABLED")));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Applies a state change to a customer document and appends the messages it produces to the
+     * document's outbox, in one conditional replace. On an ETag conflict the document is re-read
+     * and the change applied again, so the change must be safe to re-run against fresh state.
+     *
+     * @param customerId Customer id (also the partition key)
+     * @param change Mutates the document and returns the messages to queue, or null to write nothing
+     * @return true if the document was written, false if it does not exist or the change declined
+     * @throws StoreException if the write fails or stays contended
+     * @throws Exception whatever the change throws
+     */
+    public boolean commit(String customerId, Change change) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            Optional<VersionedDocument> current = storeSupplier.get().readDocument(
+                    OrchestratorStore.CUSTOMERS_CONTAINER, customerId, customerId);
+            if (current.isEmpty()) {
+                return false;
+            }
+
+            ObjectNode customer = current.get().getDocument().deepCopy();
+            List<OutboundMessage> messages = change.apply(customer);
+            if (messages == null) {
+                return false;
+            }
+
+            ArrayNode outbox = outboxOf(customer);
+            Instant now = Instant.now();
+            for (OutboundMessage message : messages) {
+                outbox.add(toEntry(message, now));
+            }
+
+            try {
+                storeSupplier.get().replaceDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId,
+                        customer, current.get().getETag());
+                return true;
+            } catch (StoreException e) {
+                if (!e.isPreconditionFailed() || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the pending entries of a customer document as messages ready to send.
+     */
+    public List<OutboundMessage> pendingMessages(JsonNode customer) {
+        List<OutboundMessage> messages = new ArrayList<>();
+        for (JsonNode entry : customer.path(OUTBOX_FIELD)) {
+            OutboundMessage message = OutboundMessage.builder()
+                    .body(entry.path("body").asText(null))
+                    .messageId(entry.path("messageId").asText(null))
+                    .sessionId(entry.path("sessionId").asText(null))
+                    .priority(entry.path("priority").asText(null))
+                    .build();
+            Iterator<Map.Entry<String, JsonNode>> properties = entry.path("applicationProperties").fields();
+            while (properties.hasNext()) {
+                Map.Entry<String, JsonNode> property = properties.next();
+                message.getApplicationProperties().put(property.getKey(),
+                        objectMapper.convertValue(property.getValue(), Object.class));
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Removes relayed entries from a customer's outbox, leaving any added since they were read.
+     *
+     * @param customerId Customer id (also the partition key)
+     * @param messageIds Ids of the entries that were sent
+     * @throws StoreException if the write fails or stays contended
+     */
+    public void acknowledge(String customerId, Collection<String> messageIds) {
+        for (int attempt = 1; ; attempt++) {
+            Optional<VersionedDocument> current = storeSupplier.get().readDocument(
+                    OrchestratorStore.CUSTOMERS_CONTAINER, customerId, customerId);
+            if (current.isEmpty()) {
+                return;
+            }
+
+            ObjectNode customer = current.get().getDocument().deepCopy();
+            ArrayNode outbox = outboxOf(customer);
+            int before = outbox.size();
+            for (int i = outbox.size() - 1; i >= 0; i--) {
+                if (messageIds.contains(outbox.get(i).path("messageId").asText(null))) {
+                    outbox.remove(i);
+                }
+            }
+            if (outbox.size() == before) {
+                return;
+            }
+
+            try {
+                storeSupplier.get().replaceDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId,
+                        customer, current.get().getETag());
+                return;
+            } catch (StoreException e) {
+                if (!e.isPreconditionFailed() || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private ObjectNode toEntry(OutboundMessage message, Instant createdAt) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("messageId", message.getMessageId());
+        entry.put("body", message.getBody());
+        entry.put("sessionId", message.getSessionId());
+        entry.put("priority", message.getPriority());
+        if (!message.getApplicationProperties().isEmpty()) {
+            entry.set("applicationProperties", objectMapper.valueToTree(message.getApplicationProperties()));
+        }
+        entry.put("createdAt", createdAt.toString());
+        return entry;
+    }
+
+    private static ArrayNode outboxOf(ObjectNode customer) {
+        JsonNode outbox = customer.get(OUTBOX_FIELD);
+        return outbox instanceof ArrayNode ? (ArrayNode) outbox : customer.putArray(OUTBOX_FIELD);
+    }
+
+    /**
+     * State change applied to a customer document inside {@link #commit}.
+     */
+    @FunctionalInterface
+    public interface Change {
+
+        /**
+         * @param customer Fresh copy of the customer document, to mutate in place
+         * @return Messages to append to the outbox, or null to abandon the write
+         */
+        List<OutboundMessage> apply(ObjectNode customer) throws Exception;
+    }
+}
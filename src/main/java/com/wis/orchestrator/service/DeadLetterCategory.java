@@ -0,0 +1,35 @@
+package com.wis.orchestrator.service;
+
+/**
+ * Why a message ended up in a dead-letter queue, as determined by {@link DeadLetterClassifier}.
+ */
+public enum DeadLetterCategory {
+
+    /** Body is not valid JSON or does not map to the expected event type. */
+    DESERIALIZATION(false),
+
+    /** Body parses but is missing required fields; replaying would fail the same way. */
+    VALIDATION(false),
+
+    /** Valid message that ran out of delivery attempts or expired, e.g. during an outage. */
+    TRANSIENT(true),
+
+    /** Valid message whose failure was caused by Cosmos DB or Service Bus throttling. */
+    THROTTLING(true),
+
+    /** Valid message dead-lettered explicitly for a reason the classifier does not recognize. */
+    UNKNOWN(false);
+
+    private final boolean recoverable;
+
+    DeadLetterCategory(boolean recoverable) {
+        this.recoverable = recoverable;
+    }
+
+    /**
+     * Whether messages in this category are replayed; all others are archived.
+     */
+    public boolean isRecoverable() {
+        return recoverable;
+    }
+}
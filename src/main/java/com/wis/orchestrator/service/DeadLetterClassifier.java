@@ -0,0 +1,159 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.CustomerRegisteredEvent;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Classifies dead-lettered messages so the replay engine knows what is worth replaying.
+ *
+ * The body is checked first, with the same deserialization and validation the handlers
+ * apply, because a bad payload fails the same way on every replay. A valid payload is
+ * then classified from the broker's dead-letter reason and description. Function retry
+ * exhaustion ("MaxDeliveryCountExceeded") carries no exception text, so a valid message
+ * that simply ran out of attempts counts as transient.
+ */
+public class DeadLetterClassifier {
+
+    private static final List<String> THROTTLING_MARKERS = List.of(
+            "429", "toomanyrequests", "requestratetoolarge", "throttl", "servicebusy", "quotaexceeded");
+
+    private static final List<String> TRANSIENT_MARKERS = List.of(
+            "maxdeliverycountexceeded", "ttlexpired", "timeout", "timed out", "serviceunavailable", "503",
+            "lock", "connection");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param objectMapper Mapper configured like the handlers' mapper, so deserialization outcomes match
+     */
+    public DeadLetterClassifier(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Classifies one dead-lettered message.
+     *
+     * @param source Queue the message was dead-lettered from
+     * @param message The dead-lettered message
+     * @return Category and a short human-readable detail
+     */
+    public Classification classify(DeadLetterSource source, DeadLetteredMessage message) {
+        if (message.getBody() == null || message.getBody().isEmpty()) {
+            return new Classification(DeadLetterCategory.DESERIALIZATION, "Empty message body");
+        }
+
+        Classification payload;
+        try {
+            payload = checkPayload(source, message.getBody());
+        } catch (Exception e) {
+            return new Classification(DeadLetterCategory.DESERIALIZATION, e.getMessage());
+        }
+        if (payload != null) {
+            return payload;
+        }
+
+        String reason = (message.getDeadLetterReason() + " " + message.getDeadLetterErrorDescription())
+                .toLowerCase(Locale.ROOT);
+        if (containsAny(reason, THROTTLING_MARKERS)) {
+            return new Classification(DeadLetterCategory.THROTTLING, message.getDeadLetterReason());
+        }
+        if (containsAny(reason, TRANSIENT_MARKERS)) {
+            return new Classification(DeadLetterCategory.TRANSIENT, message.getDeadLetterReason());
+        }
+        return new Classification(DeadLetterCategory.UNKNOWN, message.getDeadLetterReason());
+    }
+
+    /**
+     * Deserializes and validates the body for the source's message type.
+     *
+     * @return a VALIDATION classification, or null if the payload is valid
+     * @throws Exception if the body cannot be deserialized
+     */
+    private Classification checkPayload(DeadLetterSource source, String body) throws Exception {
+        switch (source) {
+            case SUBSCRIPTION_EVENTS:
+                return checkEvent(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, body);
+
+            case CUSTOMER_EVENTS:
+                return checkEvent(OrchestrationRetryMessage.CUSTOMER_REGISTERED, body);
+
+            case ORCHESTRATION_RETRY:
+                OrchestrationRetryMessage retry = objectMapper.readValue(body, OrchestrationRetryMessage.class);
+                if (retry.getPayload() == null) {
+                    return new Classification(DeadLetterCategory.VALIDATION, "Retry envelope has no payload");
+                }
+                return checkEvent(retry.getEventType(), retry.getPayload());
+
+            case MESSAGE_SEND:
+            case MESSAGE_SEND_HIGH:
+                JsonNode request = objectMapper.readTree(body);
+                if (!request.hasNonNull("customerId") || !request.hasNonNull("messageType")) {
+                    return new Classification(DeadLetterCategory.VALIDATION, "Missing customerId or messageType");
+                }
+                return null;
+
+            default:
+                throw new IllegalArgumentException("Unsupported dead-letter source: " + source);
+        }
+    }
+
+    private Classification checkEvent(String eventType, String body) throws Exception {
+        if (OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED.equals(eventType)) {
+            SubscriptionActivatedEvent event = objectMapper.readValue(body, SubscriptionActivatedEvent.class);
+            if (event.getData() == null ||
+                    event.getData().getCustomerId() == null ||
+                    event.getData().getPhoneNumber() == null) {
+                return new Classification(DeadLetterCategory.VALIDATION, "Missing customerId or phoneNumber");
+            }
+            return null;
+        }
+
+        if (OrchestrationRetryMessage.CUSTOMER_REGISTERED.equals(eventType)) {
+            CustomerRegisteredEvent event = objectMapper.readValue(body, CustomerRegisteredEvent.class);
+            if (event.getData() == null ||
+                    event.getData().getCustomerId() == null ||
+                    event.getData().getPhone() == null) {
+                return new Classification(DeadLetterCategory.VALIDATION, "Missing customerId or phone");
+            }
+            return null;
+        }
+
+        return new Classification(DeadLetterCategory.VALIDATION, "Unknown event type: " + eventType);
+    }
+
+    private static boolean containsAny(String text, List<String> markers) {
+        for (String marker : markers) {
+            if (text.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Result of classifying one message.
+     */
+    public static class Classification {
+        private final DeadLetterCategory category;
+        private final String detail;
+
+        public Classification(DeadLetterCategory category, String detail) {
+            this.category = category;
+            this.detail = detail;
+        }
+
+        public DeadLetterCategory getCategory() {
+            return category;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wis.orchestrator.service;
+
+import java.util.List;
+
+/**
+ * A dead-letter sub-queue that can be drained in peek-lock batches.
+ * Implemented by {@link ServiceBusDeadLetterQueue} and, for local runs, {@link InMemoryDeadLetterQueue}.
+ */
+public interface DeadLetterQueue {
+
+    /**
+     * Receives and locks up to maxMessages messages.
+     *
+     * @return Locked messages; empty when the queue is drained
+     */
+    List<DeadLetteredMessage> receive(int maxMessages);
+
+    /**
+     * Removes a message from the dead-letter queue.
+     */
+    void complete(DeadLetteredMessage message);
+
+    /**
+     * Releases the lock so the message stays in the dead-letter queue.
+     */
+    void abandon(DeadLetteredMessage message);
+}
@@ -0,0 +1,320 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.model.DeadLetterReplayReport;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains a dead-letter queue in batches, replaying recoverable messages and archiving the rest.
+ *
+ * Each batch is classified with {@link DeadLetterClassifier}. Recoverable messages are
+ * replayed to the source's replay queue at a capped rate; a replay marker in the
+ * orchestrator state container keeps a message from being replayed twice across runs.
+ * Everything else is written to the state container as an archive record with its
+ * category and dead-letter reason. A message is completed (removed from the dead-letter
+ * queue) only after it has been replayed or archived, so a failed run loses nothing.
+ */
+public class DeadLetterReplayService {
+
+    private static final Logger logger = Logger.getLogger(DeadLetterReplayService.class.getName());
+
+    private static final String MARKER_PREFIX = "dlq-replay-";
+    private static final String ARCHIVE_PREFIX = "dlq-archive-";
+    private static final int RECEIVE_BATCH_SIZE = 100;
+
+    // Markers only need to outlive any realistic re-run of the same backlog
+    private static final int MARKER_TTL_SECONDS = 7 * 24 * 60 * 60;
+    private static final int ARCHIVE_TTL_SECONDS = 90 * 24 * 60 * 60;
+
+    private final OrchestratorStore store;
+    private final MessageSender sender;
+    private final ObjectMapper objectMapper;
+    private final DeadLetterClassifier classifier;
+    private final int maxReplaysPerSecond;
+
+    /**
+     * @param store Store holding replay markers and archive records
+     * @param sender Sender used to replay messages
+     * @param objectMapper Mapper configured like the handlers' mapper
+     * @param maxReplaysPerSecond Replay rate cap, so a large backlog does not swamp the handlers
+     */
+    public DeadLetterReplayService(OrchestratorStore store, MessageSender sender,
+                                   ObjectMapper objectMapper, int maxReplaysPerSecond) {
+        this.store = store;
+        this.sender = sender;
+        this.objectMapper = objectMapper;
+        this.classifier = new DeadLetterClassifier(objectMapper);
+        this.maxReplaysPerSecond = Math.max(1, maxReplaysPerSecond);
+    }
+
+    /**
+     * Drains up to maxMessages messages from the queue.
+     *
+     * @param source Which dead-letter queue is being drained
+     * @param queue The dead-letter queue
+     * @param maxMessages Maximum number of messages to receive in this run
+     * @param maxDuration Stop receiving new batches after this long
+     * @param dryRun Classify and report only; every message is left in the dead-letter queue
+     * @return Counts per outcome and per category
+     */
+    public DeadLetterReplayReport drain(DeadLetterSource source, DeadLetterQueue queue,
+                                        int maxMessages, Duration maxDuration, boolean dryRun) {
+        Instant startedAt = Instant.now();
+        DeadLetterReplayReport report = new DeadLetterReplayReport(source.getEntityPath(), dryRun, startedAt);
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        Set<Long> seen = new HashSet<>();
+
+        // Messages left in the dead-letter queue keep their lock until the run ends, so an
+        // abandoned message is not received again by this run
+        List<DeadLetteredMessage> released = new ArrayList<>();
+
+        try {
+            while (report.getReceived() < maxMessages && System.nanoTime() < deadline) {
+                int batchSize = Math.min(RECEIVE_BATCH_SIZE, maxMessages - report.getReceived());
+                List<DeadLetteredMessage> batch = queue.receive(batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                // A lock can expire during a long run and the message come back; skip it
+                List<DeadLetteredMessage> fresh = new ArrayList<>(batch.size());
+                for (DeadLetteredMessage message : batch) {
+                    if (seen.add(message.getSequenceNumber())) {
+                        fresh.add(message);
+                    } else {
+                        released.add(message);
+                    }
+                }
+                if (fresh.isEmpty()) {
+                    break;
+                }
+                report.setReceived(report.getReceived() + fresh.size());
+
+                processBatch(source, queue, fresh, report, start, dryRun, released);
+            }
+        } finally {
+            for (DeadLetteredMessage message : released) {
+                settle(queue, message, false);
+            }
+        }
+
+        report.setFinishedAt(Instant.now());
+        logger.log(Level.INFO, "Dead-letter drain of {0} finished: received {1}, replayed {2}, archived {3}, " +
+                        "duplicates {4}, failed {5}, dryRun {6}",
+                new Object[]{source.getEntityPath(), report.getReceived(), report.getReplayed(), report.getArchived(),
+                        report.getDuplicates(), report.getFailed(), dryRun});
+        return report;
+    }
+
+    private void processBatch(DeadLetterSource source, DeadLetterQueue queue, List<DeadLetteredMessage> batch,
+                              DeadLetterReplayReport report, long start, boolean dryRun,
+                              List<DeadLetteredMessage> released) {
+        Map<String, DeadLetteredMessage> recoverable = new LinkedHashMap<>();
+        List<DeadLetteredMessage> duplicates = new ArrayList<>();
+        Map<DeadLetteredMessage, DeadLetterClassifier.Classification> unrecoverable = new LinkedHashMap<>();
+
+        for (DeadLetteredMessage message : batch) {
+            DeadLetterClassifier.Classification classification = classifier.classify(source, message);
+            report.countCategory(classification.getCategory().name());
+
+            if (dryRun) {
+                released.add(message);
+            } else if (!classification.getCategory().isRecoverable()) {
+                unrecoverable.put(message, classification);
+            } else if (recoverable.putIfAbsent(markerId(source, message), message) != null) {
+                // Same message dead-lettered twice - replay it once
+                duplicates.add(message);
+            }
+        }
+
+        if (dryRun) {
+            return;
+        }
+
+        // Drop messages an earlier run already replayed
+        if (!recoverable.isEmpty()) {
+            Map<String, VersionedDocument> replayed =
+                    store.readDocumentsById(OrchestratorStore.STATE_CONTAINER, recoverable.keySet());
+            for (String markerId : replayed.keySet()) {
+                duplicates.add(recoverable.remove(markerId));
+            }
+        }
+
+        for (DeadLetteredMessage duplicate : duplicates) {
+            settle(queue, duplicate, true);
+            report.setDuplicates(report.getDuplicates() + 1);
+        }
+
+        replay(source, queue, recoverable, report, start, released);
+
+        for (Map.Entry<DeadLetteredMessage, DeadLetterClassifier.Classification> entry : unrecoverable.entrySet()) {
+            archive(source, queue, entry.getKey(), entry.getValue(), report, released);
+        }
+    }
+
+    private void replay(DeadLetterSource source, DeadLetterQueue queue, Map<String, DeadLetteredMessage> recoverable,
+                        DeadLetterReplayReport report, long start, List<DeadLetteredMessage> released) {
+        if (recoverable.isEmpty()) {
+            return;
+        }
+
+        List<OutboundMessage> replays = new ArrayList<>(recoverable.size());
+        try {
+            for (DeadLetteredMessage message : recoverable.values()) {
+                replays.add(toReplayMessage(source, message));
+            }
+
+            pace(start, report.getReplayed() + replays.size());
+            sender.send(source.getReplayQueueName(), replays);
+
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to replay " + recoverable.size() + " messages from " +
+                    source.getEntityPath() + ": " + e.getMessage(), e);
+            released.addAll(recoverable.values());
+            report.setFailed(report.getFailed() + recoverable.size());
+            return;
+        }
+
+        Instant now = Instant.now();
+        for (Map.Entry<String, DeadLetteredMessage> entry : recoverable.entrySet()) {
+            try {
+                ObjectNode marker = objectMapper.createObjectNode();
+                marker.put("id", entry.getKey());
+                marker.put("source", source.getEntityPath());
+                marker.put("messageId", entry.getValue().getMessageId());
+                marker.put("replayedAt", now.toString());
+                marker.put("ttl", MARKER_TTL_SECONDS);
+                store.upsertDocument(OrchestratorStore.STATE_CONTAINER, entry.getKey(), marker);
+            } catch (Exception e) {
+                // Only risk is a second replay on a later run; downstream message ids stay the same
+                logger.log(Level.WARNING, "Could not record replay marker {0}: {1}",
+                        new Object[]{entry.getKey(), e.getMessage()});
+            }
+            settle(queue, entry.getValue(), true);
+        }
+        report.setReplayed(report.getReplayed() + recoverable.size());
+    }
+
+    private void archive(DeadLetterSource source, DeadLetterQueue queue, DeadLetteredMessage message,
+                         DeadLetterClassifier.Classification classification, DeadLetterReplayReport report,
+                         List<DeadLetteredMessage> released) {
+        String archiveId = ARCHIVE_PREFIX + source.getRouteName() + "-" + dedupKey(message);
+        try {
+            ObjectNode record = objectMapper.createObjectNode();
+            record.put("id", archiveId);
+            record.put("source", source.getEntityPath());
+            record.put("messageId", message.getMessageId());
+            record.put("sessionId", message.getSessionId());
+            record.put("category", classification.getCategory().name());
+            record.put("detail", classification.getDetail());
+            record.put("deadLetterReason", message.getDeadLetterReason());
+            record.put("deadLetterErrorDescription", message.getDeadLetterErrorDescription());
+            record.put("deliveryCount", message.getDeliveryCount());
+            record.put("enqueuedTime", message.getEnqueuedTime() != null ? message.getEnqueuedTime().toString() : null);
+            record.put("archivedAt", Instant.now().toString());
+            record.put("body", message.getBody());
+            record.put("ttl", ARCHIVE_TTL_SECONDS);
+            store.upsertDocument(OrchestratorStore.STATE_CONTAINER, archiveId, record);
+
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to archive dead-lettered message " + message.getMessageId() +
+                    ": " + e.getMessage(), e);
+            released.add(message);
+            report.setFailed(report.getFailed() + 1);
+            return;
+        }
+
+        settle(queue, message, true);
+        report.setArchived(report.getArchived() + 1);
+    }
+
+    /**
+     * Builds the replay message: topic events are wrapped in a retry envelope, queue
+     * messages are resent unchanged with their original id and session.
+     */
+    private OutboundMessage toReplayMessage(DeadLetterSource source, DeadLetteredMessage message) throws Exception {
+        if (source.getRetryEventType() == null) {
+            OutboundMessage.Builder builder = OutboundMessage.builder()
+                    .body(message.getBody())
+                    .messageId(message.getMessageId())
+                    .sessionId(message.getSessionId());
+            for (Map.Entry<String, Object> property : message.getApplicationProperties().entrySet()) {
+                builder.applicationProperty(property.getKey(), property.getValue());
+            }
+            return builder
+                    .applicationProperty("dlqReplayedAt", Instant.now().toString())
+                    .build();
+        }
+
+        OrchestrationRetryMessage retry = OrchestrationRetryMessage.builder()
+                .eventType(source.getRetryEventType())
+                .originalMessageId(message.getMessageId())
+                .payload(message.getBody())
+                .failedAt(Instant.now())
+                .error("Dead-lettered: " + message.getDeadLetterReason() + " - " + message.getDeadLetterErrorDescription())
+                .build();
+
+        return OutboundMessage.builder()
+                .body(objectMapper.writeValueAsString(retry))
+                .messageId("dlq-" + dedupKey(message))
+                .build();
+    }
+
+    /**
+     * Sleeps until sending the given cumulative number of replays stays within the rate cap.
+     */
+    private void pace(long start, int cumulativeReplays) throws InterruptedException {
+        long earliest = start + TimeUnit.SECONDS.toNanos(cumulativeReplays) / maxReplaysPerSecond;
+        long wait = earliest - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void settle(DeadLetterQueue queue, DeadLetteredMessage message, boolean complete) {
+        try {
+            if (complete) {
+                queue.complete(message);
+            } else {
+                queue.abandon(message);
+            }
+        } catch (Exception e) {
+            // Lock lost - the message stays dead-lettered and is deduplicated on the next run
+            logger.log(Level.WARNING, "Could not settle dead-lettered message {0}: {1}",
+                    new Object[]{message.getMessageId(), e.getMessage()});
+        }
+    }
+
+    private static String markerId(DeadLetterSource source, DeadLetteredMessage message) {
+        return MARKER_PREFIX + source.getRouteName() + "-" + dedupKey(message);
+    }
+
+    /**
+     * Stable key for a message: its message id, or a hash of the body when it has none.
+     */
+    private static String dedupKey(DeadLetteredMessage message) {
+        if (message.getMessageId() != null && !message.getMessageId().isEmpty()) {
+            return message.getMessageId();
+        }
+        String body = message.getBody() != null ? message.getBody() : "";
+        return UUID.nameUUIDFromBytes(body.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
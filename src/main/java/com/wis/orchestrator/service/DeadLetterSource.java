@@ -0,0 +1,96 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+
+/**
+ * Dead-letter queues the replay engine knows how to drain, and where each one's
+ * recoverable messages are replayed to.
+ *
+ * Topic events are not re-published to their topic, which would fan them out to every
+ * other subscriber again; they are wrapped in a retry envelope and sent to
+ * orchestration-retry-queue instead. Queue messages go back to their own queue.
+ */
+public enum DeadLetterSource {
+
+    SUBSCRIPTION_EVENTS("subscription-events", "orchestration-subscription", null,
+            "orchestration-retry-queue", OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED),
+
+    CUSTOMER_EVENTS("customer-events", "orchestration-subscription", null,
+            "orchestration-retry-queue", OrchestrationRetryMessage.CUSTOMER_REGISTERED),
+
+    ORCHESTRATION_RETRY(null, null, "orchestration-retry-queue",
+            "orchestration-retry-queue", null),
+
+    MESSAGE_SEND(null, null, MessageDispatcher.MESSAGE_SEND_QUEUE,
+            MessageDispatcher.MESSAGE_SEND_QUEUE, null),
+
+    MESSAGE_SEND_HIGH(null, null, MessagePriority.HIGH.getQueueName(),
+            MessagePriority.HIGH.getQueueName(), null);
+
+    private final String topicName;
+    private final String subscriptionName;
+    private final String queueName;
+    private final String replayQueueName;
+    private final String retryEventType;
+
+    DeadLetterSource(String topicName, String subscriptionName, String queueName,
+                     String replayQueueName, String retryEventType) {
+        this.topicName = topicName;
+        this.subscriptionName = subscriptionName;
+        this.queueName = queueName;
+        this.replayQueueName = replayQueueName;
+        this.retryEventType = retryEventType;
+    }
+
+    /**
+     * Looks a source up by its route name, e.g. "subscription-events" or "message-send".
+     *
+     * @return the source, or null if the name is unknown
+     */
+    public static DeadLetterSource fromRouteName(String name) {
+        for (DeadLetterSource source : values()) {
+            if (source.getRouteName().equalsIgnoreCase(name)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    public String getRouteName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    public boolean isSubscription() {
+        return topicName != null;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public String getSubscriptionName() {
+        return subscriptionName;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    public String getReplayQueueName() {
+        return replayQueueName;
+    }
+
+    /**
+     * Event type to stamp on the retry envelope, or null if messages are replayed unchanged.
+     */
+    public String getRetryEventType() {
+        return retryEventType;
+    }
+
+    /**
+     * Service Bus entity path, for logs and archive records.
+     */
+    public String getEntityPath() {
+        return isSubscription() ? topicName + "/subscriptions/" + subscriptionName : queueName;
+    }
+}
@@ -0,0 +1,82 @@
+package com.wis.orchestrator.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A message received (peek-locked) from a dead-letter queue, with the broker's
+ * dead-letter reason. The handle is owned by the {@link DeadLetterQueue} that
+ * produced the message and is used to settle it.
+ */
+public class DeadLetteredMessage {
+
+    private final long sequenceNumber;
+    private final String messageId;
+    private final String sessionId;
+    private final String body;
+    private final String deadLetterReason;
+    private final String deadLetterErrorDescription;
+    private final long deliveryCount;
+    private final Instant enqueuedTime;
+    private final Map<String, Object> applicationProperties;
+    private final Object handle;
+
+    public DeadLetteredMessage(long sequenceNumber, String messageId, String sessionId, String body,
+                               String deadLetterReason, String deadLetterErrorDescription,
+                               long deliveryCount, Instant enqueuedTime,
+                               Map<String, Object> applicationProperties, Object handle) {
+        this.sequenceNumber = sequenceNumber;
+        this.messageId = messageId;
+        this.sessionId = sessionId;
+        this.body = body;
+        this.deadLetterReason = deadLetterReason;
+        this.deadLetterErrorDescription = deadLetterErrorDescription;
+        this.deliveryCount = deliveryCount;
+        this.enqueuedTime = enqueuedTime;
+        this.applicationProperties = applicationProperties != null ? applicationProperties : Map.of();
+        this.handle = handle;
+    }
+
+    /**
+     * Broker-assigned sequence number; unique within the queue, unlike the message id.
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getDeadLetterReason() {
+        return deadLetterReason;
+    }
+
+    public String getDeadLetterErrorDescription() {
+        return deadLetterErrorDescription;
+    }
+
+    public long getDeliveryCount() {
+        return deliveryCount;
+    }
+
+    public Instant getEnqueuedTime() {
+        return enqueuedTime;
+    }
+
+    public Map<String, Object> getApplicationProperties() {
+        return applicationProperties;
+    }
+
+    Object getHandle() {
+        return handle;
+    }
+}
@@ -0,0 +1,232 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.model.HealthReport;
+import com.wis.orchestrator.util.Settings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Readiness check for the orchestrator's dependencies.
+ *
+ * Each Cosmos DB container gets a metadata read and each send queue a send-link check.
+ * The oldest overdue scheduled message gives the scheduler's lag. The probes run in
+ * parallel, and any that has not answered within the probe timeout is reported as timed
+ * out. Only the container and queue probes decide reachability; the lag query scans
+ * customers and can be slow under load, so a late or failed answer there makes the
+ * service degraded, never unhealthy. The result is cached for a short TTL, and concurrent callers wait for one refresh
+ * rather than starting their own, so frequent load-balancer and alert probes add almost
+ * no load on Cosmos DB or Service Bus.
+ */
+public class HealthMonitor {
+
+    private static final Logger logger = Logger.getLogger(HealthMonitor.class.getName());
+
+    private static final String SERVICE_NAME = "wis-conversation-orchestrator";
+    private static final String SCHEDULER_PROBE = "scheduler";
+
+    private static final int DEFAULT_CACHE_TTL_SECONDS = 10;
+    private static final int DEFAULT_PROBE_TIMEOUT_MS = 2000;
+    private static final int DEFAULT_SCHEDULER_LAG_WARNING_SECONDS = 900; // Three missed timer ticks
+
+    private static final List<String> CONTAINERS = List.of(
+            OrchestratorStore.CUSTOMERS_CONTAINER,
+            OrchestratorStore.PLANS_CONTAINER,
+            OrchestratorStore.CONVERSATIONS_CONTAINER,
+            OrchestratorStore.STATE_CONTAINER);
+
+    private static HealthMonitor instance;
+
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final Supplier<? extends MessageSender> senderSupplier;
+    private final List<String> queues;
+    private final long cacheTtlNanos;
+    private final long probeTimeoutMillis;
+    private final Duration lagWarning;
+    private final ExecutorService probes = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "health-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HealthReport cached;
+    private long cachedAt;
+
+    /**
+     * @param storeSupplier Supplies the store whose containers are probed
+     * @param senderSupplier Supplies the sender whose queues are probed
+     * @param queues Send queues to probe
+     * @param cacheTtl How long a result is served before the dependencies are probed again
+     * @param probeTimeout How long to wait for the probes before reporting the slow ones as timed out
+     * @param lagWarning Scheduler lag above which the service is reported as degraded
+     */
+    public HealthMonitor(Supplier<? extends OrchestratorStore> storeSupplier,
+                         Supplier<? extends MessageSender> senderSupplier,
+                         List<String> queues, Duration cacheTtl, Duration probeTimeout, Duration lagWarning) {
+        this.storeSupplier = storeSupplier;
+        this.senderSupplier = senderSupplier;
+        this.queues = List.copyOf(queues);
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.probeTimeoutMillis = Math.max(1, probeTimeout.toMillis());
+        this.lagWarning = lagWarning;
+    }
+
+    /**
+     * Monitor for this instance, backed by Cosmos DB and the Service Bus sender and configured
+     * from HEALTH_CACHE_TTL_SECONDS, HEALTH_PROBE_TIMEOUT_MS and SCHEDULER_LAG_WARNING_SECONDS.
+     * Probes every priority lane when PRIORITY_LANES_ENABLED=true, otherwise message-send-queue.
+     */
+    public static synchronized HealthMonitor getInstance() {
+        if (instance == null) {
+            List<String> queues = new ArrayList<>();
+            if (Boolean.parseBoolean(System.getenv("PRIORITY_LANES_ENABLED"))) {
+                for (MessagePriority lane : MessagePriority.values()) {
+                    queues.add(lane.getQueueName());
+                }
+            } else {
+                queues.add(MessageDispatcher.MESSAGE_SEND_QUEUE);
+            }
+            instance = new HealthMonitor(
+                    CosmosDBService::getInstance,
+                    ServiceBusMessageSender::getInstance,
+                    queues,
+                    Duration.ofSeconds(Settings.readInt("HEALTH_CACHE_TTL_SECONDS", DEFAULT_CACHE_TTL_SECONDS)),
+                    Duration.ofMillis(Settings.readInt("HEALTH_PROBE_TIMEOUT_MS", DEFAULT_PROBE_TIMEOUT_MS)),
+                    Duration.ofSeconds(Settings.readInt("SCHEDULER_LAG_WARNING_SECONDS",
+                            DEFAULT_SCHEDULER_LAG_WARNING_SECONDS)));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached report, probing the dependencies first if it has expired.
+     */
+    public synchronized HealthReport check() {
+        if (cached == null || System.nanoTime() - cachedAt >= cacheTtlNanos) {
+            cached = probe();
+            cachedAt = System.nanoTime();
+        }
+        return cached;
+    }
+
+    private HealthReport probe() {
+        Instant now = Instant.now();
+        Map<String, Future<Probed<Object>>> pending = new LinkedHashMap<>();
+        for (String container : CONTAINERS) {
+            pending.put("cosmos:" + container, submit("cosmos:" + container, () -> {
+                storeSupplier.get().probeContainer(container);
+                return null;
+            }));
+        }
+        for (String queue : queues) {
+            pending.put("servicebus:" + queue, submit("servicebus:" + queue, () -> {
+                senderSupplier.get().probe(queue);
+                return null;
+            }));
+        }
+        pending.put(SCHEDULER_PROBE, submit(SCHEDULER_PROBE,
+                () -> storeSupplier.get().findOldestDueSchedule(now).orElse(null)));
+
+        HealthReport report = new HealthReport(SERVICE_NAME, now.toString());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(probeTimeoutMillis);
+        Instant oldestOverdue = null;
+        for (Map.Entry<String, Future<Probed<Object>>> entry : pending.entrySet()) {
+            Future<Probed<Object>> future = entry.getValue();
+            HealthReport.Probe result;
+            try {
+                Probed<Object> probed = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                result = probed.result;
+                if (SCHEDULER_PROBE.equals(entry.getKey()) && probed.value != null) {
+                    oldestOverdue = (Instant) probed.value;
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                result = new HealthReport.Probe(HealthReport.Probe.TIMEOUT, probeTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result = new HealthReport.Probe(HealthReport.Probe.TIMEOUT, probeTimeoutMillis);
+            } catch (ExecutionException e) {
+                logger.log(Level.WARNING, "Readiness probe " + entry.getKey() + " failed", e.getCause());
+                result = new HealthReport.Probe(HealthReport.Probe.DOWN, 0);
+            }
+            report.getProbes().put(entry.getKey(), result);
+        }
+
+        boolean reachable = report.getProbes().entrySet().stream()
+                .filter(entry -> !SCHEDULER_PROBE.equals(entry.getKey()))
+                .allMatch(entry -> entry.getValue().isUp());
+        boolean lagKnown = report.getProbes().get(SCHEDULER_PROBE).isUp();
+        boolean lagging = false;
+        if (oldestOverdue != null) {
+            Duration lag = Duration.between(oldestOverdue, now);
+            report.setOldestOverdueAt(oldestOverdue.toString());
+            report.setSchedulerLagSeconds(lag.getSeconds());
+            lagging = lag.compareTo(lagWarning) > 0;
+        } else if (lagKnown) {
+            report.setSchedulerLagSeconds(0L);
+        }
+        report.setStatus(!reachable ? HealthReport.UNHEALTHY
+                : lagging || !lagKnown ? HealthReport.DEGRADED : HealthReport.HEALTHY);
+
+        if (!HealthReport.HEALTHY.equals(report.getStatus())) {
+            logger.log(Level.WARNING, "Readiness check {0}: {1}", new Object[]{report.getStatus(), describe(report)});
+        }
+        return report;
+    }
+
+    private Future<Probed<Object>> submit(String name, Callable<Object> probe) {
+        return probes.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                Object value = probe.call();
+                return new Probed<>(value, new HealthReport.Probe(HealthReport.Probe.UP, elapsedMillis(start)));
+            } catch (Exception e) {
+                // Details go to the log only; the report is served on an anonymous route
+                logger.log(Level.WARNING, "Readiness probe " + name + " failed: " + e.getMessage(), e);
+                return new Probed<>(null, new HealthReport.Probe(HealthReport.Probe.DOWN, elapsedMillis(start)));
+            }
+        });
+    }
+
+    private static String describe(HealthReport report) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, HealthReport.Probe> entry : report.getProbes().entrySet()) {
+            if (!entry.getValue().isUp()) {
+                text.append(entry.getKey()).append('=').append(entry.getValue().getStatus()).append(' ');
+            }
+        }
+        if (report.getSchedulerLagSeconds() != null) {
+            text.append("schedulerLagSeconds=").append(report.getSchedulerLagSeconds());
+        }
+        return text.toString().trim();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static class Probed<T> {
+        private final T value;
+        private final HealthReport.Probe result;
+
+        Probed(T value, HealthReport.Probe result) {
+            this.value = value;
+            this.result = result;
+        }
+    }
+}
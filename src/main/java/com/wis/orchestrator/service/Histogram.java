@@ -0,0 +1,151 @@
+package com.wis.orchestrator.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram for latencies and sizes, in the style of HdrHistogram.
+ *
+ * Values below 16 get a bucket each; above that every power of two is split into 16
+ * linear sub-buckets, so a recorded value is off by at most 1/16 (6.25%) across the
+ * whole long range in a fixed 960-slot array. Recording is three atomic adds and never
+ * allocates. Everything is cumulative since startup; {@link #snapshot()} reads the
+ * buckets without changing them, so any number of readers see the same counts.
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value; negative values are recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Values recorded since startup.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Sum of the values recorded since startup.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Copies the bucket counts of every value recorded since startup.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Highest value that falls into a bucket.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * Bucket counts copied from a histogram.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long total;
+        private final long max;
+
+        Snapshot(long[] counts, long total, long max) {
+            this.counts = counts;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Values in the snapshot.
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * Largest value in the snapshot, exactly.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Values whose bucket lies entirely at or below a bound. A value up to 6.25% below
+         * the bound may share a bucket that extends past it and is then not counted, so
+         * counts err towards slower, never faster.
+         */
+        public long countAtOrBelow(long bound) {
+            long counted = 0;
+            for (int i = 0; i < counts.length && upperBoundOf(i) <= bound; i++) {
+                counted += counts[i];
+            }
+            return counted;
+        }
+
+        /**
+         * Value at a quantile, e.g. 0.99, as the upper bound of its bucket; 0 if the snapshot is empty.
+         */
+        public long valueAtQuantile(double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
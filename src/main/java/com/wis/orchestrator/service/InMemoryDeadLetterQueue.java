@@ -0,0 +1,77 @@
+package com.wis.orchestrator.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for a Service Bus dead-letter sub-queue, so triage and replay
+ * can be exercised locally against {@link InMemoryMessageSender} and
+ * {@link InMemoryOrchestratorStore}. Abandoned messages return to the front of the
+ * queue with their delivery count incremented, as with peek-lock on the broker.
+ */
+public class InMemoryDeadLetterQueue implements DeadLetterQueue {
+
+    private final Deque<DeadLetteredMessage> available = new ConcurrentLinkedDeque<>();
+    private final Map<Long, DeadLetteredMessage> locked = new ConcurrentHashMap<>();
+    private final AtomicLong sequenceNumbers = new AtomicLong();
+    private final AtomicLong lockTokens = new AtomicLong();
+
+    /**
+     * Dead-letters a message, as the broker does after the delivery limit is reached.
+     *
+     * @param messageId Message id
+     * @param body Message body
+     * @param reason Dead-letter reason, e.g. "MaxDeliveryCountExceeded"
+     * @param errorDescription Dead-letter error description
+     * @return this queue
+     */
+    public InMemoryDeadLetterQueue add(String messageId, String body, String reason, String errorDescription) {
+        available.addLast(new DeadLetteredMessage(sequenceNumbers.incrementAndGet(),
+                messageId, null, body, reason, errorDescription, 10, Instant.now(), Map.of(), null));
+        return this;
+    }
+
+    @Override
+    public List<DeadLetteredMessage> receive(int maxMessages) {
+        List<DeadLetteredMessage> messages = new ArrayList<>(maxMessages);
+        DeadLetteredMessage next;
+        while (messages.size() < maxMessages && (next = available.pollFirst()) != null) {
+            long lockToken = lockTokens.incrementAndGet();
+            DeadLetteredMessage lockedMessage = withHandle(next, next.getDeliveryCount(), lockToken);
+            locked.put(lockToken, lockedMessage);
+            messages.add(lockedMessage);
+        }
+        return messages;
+    }
+
+    @Override
+    public void complete(DeadLetteredMessage message) {
+        if (locked.remove((Long) message.getHandle()) == null) {
+            throw new IllegalStateException("Lock lost for message " + message.getMessageId());
+        }
+    }
+
+    @Override
+    public void abandon(DeadLetteredMessage message) {
+        DeadLetteredMessage released = locked.remove((Long) message.getHandle());
+        if (released != null) {
+            available.addFirst(withHandle(released, released.getDeliveryCount() + 1, null));
+        }
+    }
+
+    public int depth() {
+        return available.size() + locked.size();
+    }
+
+    private static DeadLetteredMessage withHandle(DeadLetteredMessage message, long deliveryCount, Object handle) {
+        return new DeadLetteredMessage(message.getSequenceNumber(), message.getMessageId(), message.getSessionId(), message.getBody(),
+                message.getDeadLetterReason(), message.getDeadLetterErrorDescription(), deliveryCount,
+                message.getEnqueuedTime(), message.getApplicationProperties(), handle);
+    }
+}
@@ -0,0 +1,88 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.model.OutboundMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for {@link ServiceBusMessageSender}, used with
+ * {@link InMemoryOrchestratorStore} in load tests. Sent messages are kept per queue
+ * until drained. Queues registered with {@link #requireSessions(String)} reject
+ * messages without a session id, as a session-enabled Service Bus queue does.
+ */
+public class InMemoryMessageSender implements MessageSender, QueueDepthProbe {
+
+    private final ConcurrentMap<String, Queue<OutboundMessage>> queues = new ConcurrentHashMap<>();
+    private final Set<String> sessionQueues = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * Marks a queue as session-enabled.
+     *
+     * @param queueName Queue name
+     * @return this sender
+     */
+    public InMemoryMessageSender requireSessions(String queueName) {
+        sessionQueues.add(queueName);
+        return this;
+    }
+
+    @Override
+    public void send(String queueName, List<OutboundMessage> messages) {
+        if (sessionQueues.contains(queueName)) {
+            for (OutboundMessage message : messages) {
+                if (message.getSessionId() == null) {
+                    throw new IllegalArgumentException(
+                            "Message " + message.getMessageId() + " has no session id but " + queueName + " requires sessions");
+                }
+            }
+        }
+
+        queues.computeIfAbsent(queueName, name -> new ConcurrentLinkedQueue<>()).addAll(messages);
+        sent.addAndGet(messages.size());
+    }
+
+    @Override
+    public void probe(String queueName) {
+        // Always reachable
+    }
+
+    /**
+     * Removes and returns every message currently held for a queue.
+     *
+     * @param queueName Queue name
+     * @return Messages in send order
+     */
+    public List<OutboundMessage> drain(String queueName) {
+        List<OutboundMessage> drained = new ArrayList<>();
+        Queue<OutboundMessage> queue = queues.get(queueName);
+        if (queue != null) {
+            OutboundMessage message;
+            while ((message = queue.poll()) != null) {
+                drained.add(message);
+            }
+        }
+        return drained;
+    }
+
+    public int depth(String queueName) {
+        Queue<OutboundMessage> queue = queues.get(queueName);
+        return queue != null ? queue.size() : 0;
+    }
+
+    @Override
+    public long getActiveMessageCount(String queueName) {
+        return depth(queueName);
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+}
@@ -0,0 +1,621 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wis.orchestrator.entity.CustomerEntity;
+import com.wis.orchestrator.entity.PlanDayProjection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-process, thread-safe stand-in for Cosmos DB implementing {@link OrchestratorStore}.
+ * Intended for load tests and benchmarks that need millions of synthetic documents
+ * without a Cosmos account or the emulator.
+ *
+ * Documents are held as serialized JSON bytes (with Cosmos-style id, _etag and _ts system
+ * properties), so every read pays a deserialization just like the real SDK and the
+ * footprint per document stays close to its wire size. Latency and 429 throttling can
+ * be injected to exercise retry and backpressure paths.
+ */
+public class InMemoryOrchestratorStore implements OrchestratorStore {
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, ContainerData> containers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final long latencyNanos;
+    private final long latencyJitterNanos;
+    private final double throttleProbability;
+    private final int maxOperationsPerSecond;
+    private final AtomicReference<RateWindow> rateWindow = new AtomicReference<>(new RateWindow(0L));
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private InMemoryOrchestratorStore(Builder builder) {
+        this.latencyNanos = builder.latency.toNanos();
+        this.latencyJitterNanos = builder.latencyJitter.toNanos();
+        this.throttleProbability = builder.throttleProbability;
+        this.maxOperationsPerSecond = builder.maxOperationsPerSecond;
+
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ---- Typed customer and plan access ----
+
+    @Override
+    public Optional<CustomerEntity> findCustomerById(String customerId) {
+        return readDocument(CUSTOMERS_CONTAINER, customerId, customerId)
+                .map(document -> convert(document.getDocument(), CustomerEntity.class));
+    }
+
+    @Override
+    public void updateCustomer(CustomerEntity customer) {
+        upsertDocument(CUSTOMERS_CONTAINER, customer.getId(), objectMapper.valueToTree(customer));
+    }
+
+    @Override
+    public Optional<PlanDayProjection> findPlanDay(String planId, String customerId) {
+        return readDocument(PLANS_CONTAINER, planId, customerId).map(versioned -> {
+            JsonNode plan = versioned.getDocument();
+
+            // Mirror the server-side projection: only the day whose dayNumber equals currentDay
+            ObjectNode projection = objectMapper.createObjectNode();
+            projection.set("id", plan.get("id"));
+            projection.set("customerId", plan.get("customerId"));
+            projection.set("status", plan.get("status"));
+            projection.set("currentDay", plan.get("currentDay"));
+
+            ArrayNode currentDays = projection.putArray("currentDays");
+            JsonNode currentDay = plan.get("currentDay");
+            JsonNode days = plan.get("days");
+            if (currentDay != null && currentDay.isNumber() && days != null && days.isArray()) {
+                for (JsonNode day : days) {
+                    JsonNode dayNumber = day.get("dayNumber");
+                    if (dayNumber != null && dayNumber.isNumber() && dayNumber.asInt() == currentDay.asInt()) {
+                        currentDays.add(day);
+                    }
+                }
+            }
+            return convert(projection, PlanDayProjection.class);
+        });
+    }
+
+    // ---- Query subset ----
+
+    @Override
+    public List<String> queryCustomersWithDueMessages(Instant now) {
+        return query(CUSTOMERS_CONTAINER, customer -> {
+            JsonNode state = customer.path("messagingState");
+            return (isDue(state.get("nextDevotionalScheduledFor"), now) || isDue(state.get("nextCheckInScheduledFor"), now))
+                    && "active".equals(state.path("conversationState").asText(null));
+        });
+    }
+
+    @Override
+    public List<String> queryCustomersWithDuePlanMessages(Instant now) {
+        return query(CUSTOMERS_CONTAINER, customer ->
+                isPresent(customer.get("activePlanId"))
+                        && isDue(customer.path("messagingState").get("nextPlanMessageScheduledFor"), now)
+                        && "active".equals(customer.path("status").asText(null)));
+    }
+
+    @Override
+    public void probeContainer(String container) {
+        simulateRoundTrip();
+        reads.incrementAndGet();
+    }
+
+    @Override
+    public Optional<Instant> findOldestDueSchedule(Instant now) {
+        simulateRoundTrip();
+        queries.incrementAndGet();
+
+        Instant oldest = null;
+        for (StoredItem item : container(CUSTOMERS_CONTAINER).items.values()) {
+            JsonNode customer = parse(item.json);
+            JsonNode state = customer.path("messagingState");
+            List<JsonNode> due = new ArrayList<>(3);
+            if ("active".equals(state.path("conversationState").asText(null))) {
+                due.add(state.get("nextDevotionalScheduledFor"));
+                due.add(state.get("nextCheckInScheduledFor"));
+            }
+            if (isPresent(customer.get("activePlanId")) && "active".equals(customer.path("status").asText(null))) {
+                due.add(state.get("nextPlanMessageScheduledFor"));
+            }
+            for (JsonNode timestamp : due) {
+                Instant scheduled = toInstant(timestamp);
+                if (scheduled != null && !scheduled.isAfter(now) && (oldest == null || scheduled.isBefore(oldest))) {
+                    oldest = scheduled;
+                }
+            }
+        }
+        return Optional.ofNullable(oldest);
+    }
+
+    @Override
+    public List<JsonNode> queryPlansToCompact(Instant completedBefore, int maxItems) {
+        simulateRoundTrip();
+        queries.incrementAndGet();
+
+        List<JsonNode> results = new ArrayList<>();
+        for (StoredItem item : container(PLANS_CONTAINER).items.values()) {
+            if (results.size() >= maxItems) {
+                break;
+            }
+            JsonNode plan = parse(item.json);
+            if ("completed".equals(plan.path("status").asText(null))
+                    && isBefore(plan.get("completedAt"), completedBefore)
+                    && !plan.has("compactedAt")) {
+                results.add(plan);
+            }
+        }
+        return results;
+    }
+
+    // ---- Raw document access ----
+
+    @Override
+    public Optional<VersionedDocument> readDocument(String container, String id, String partitionKey) {
+        simulateRoundTrip();
+        reads.incrementAndGet();
+
+        StoredItem item = container(container).items.get(key(partitionKey, id));
+        if (item == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new VersionedDocument(parse(item.json), item.eTag));
+    }
+
+    @Override
+    public Map<String, VersionedDocument> readDocumentsById(String container, Collection<String> ids) {
+        simulateRoundTrip();
+        reads.incrementAndGet();
+
+        ContainerData data = container(container);
+        Map<String, VersionedDocument> documents = new HashMap<>();
+        for (String id : ids) {
+            StoredItem item = data.items.get(key(id, id));
+            if (item != null) {
+                documents.put(id, new VersionedDocument(parse(item.json), item.eTag));
+            }
+        }
+        return documents;
+    }
+
+    @Override
+    public String createDocument(String container, String partitionKey, JsonNode document) {
+        return write(container, partitionKey, document, existing -> {
+            if (existing != null) {
+                throw new StoreException("Document already exists: " + document.path("id").asText(), StoreException.CONFLICT);
+            }
+            return document;
+        });
+    }
+
+    @Override
+    public String upsertDocument(String container, String partitionKey, JsonNode document) {
+        return write(container, partitionKey, document, existing -> document);
+    }
+
+    @Override
+    public String replaceDocument(String container, String partitionKey, JsonNode document, String ifMatchETag) {
+        return write(container, partitionKey, document, existing -> {
+            if (existing == null) {
+                throw new StoreException("Document not found: " + document.path("id").asText(), StoreException.NOT_FOUND);
+            }
+            if (ifMatchETag != null && !ifMatchETag.equals(existing.eTag)) {
+                throw new StoreException("ETag mismatch for document: " + document.path("id").asText(),
+                        StoreException.PRECONDITION_FAILED);
+            }
+            return document;
+        });
+    }
+
+    @Override
+    public void patchDocument(String container, String id, String partitionKey, Map<String, Object> setOperations) {
+        simulateRoundTrip();
+        applyPatch(container, id, partitionKey, setOperations);
+    }
+
+    @Override
+    public Map<String, StoreException> patchDocumentsById(String container,
+                                                          Map<String, Map<String, Object>> setOperationsById) {
+        simulateRoundTrip();
+
+        Map<String, StoreException> failures = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : setOperationsById.entrySet()) {
+            try {
+                applyPatch(container, entry.getKey(), entry.getKey(), entry.getValue());
+            } catch (StoreException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Map<String, StoreException> createDocumentsById(String container, Collection<JsonNode> documents) {
+        simulateRoundTrip();
+
+        Map<String, StoreException> failures = new HashMap<>();
+        for (JsonNode document : documents) {
+            String id = document.get("id").asText();
+            try {
+                applyWrite(container, id, document, existing -> {
+                    if (existing != null) {
+                        throw new StoreException("Document already exists: " + id, StoreException.CONFLICT);
+                    }
+                    return document;
+                });
+            } catch (StoreException e) {
+                failures.put(id, e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Map<String, StoreException> upsertDocumentsById(String container, Collection<JsonNode> documents) {
+        simulateRoundTrip();
+
+        Map<String, StoreException> failures = new HashMap<>();
+        for (JsonNode document : documents) {
+            String id = document.get("id").asText();
+            try {
+                applyWrite(container, id, document, existing -> document);
+            } catch (StoreException e) {
+                failures.put(id, e);
+            }
+        }
+        return failures;
+    }
+
+    private void applyPatch(String container, String id, String partitionKey, Map<String, Object> setOperations) {
+        ObjectNode idOnly = objectMapper.createObjectNode().put("id", id);
+        applyWrite(container, partitionKey, idOnly, existing -> {
+            if (existing == null) {
+                throw new StoreException("Document not found: " + id, StoreException.NOT_FOUND);
+            }
+            ObjectNode patched = (ObjectNode) parse(existing.json);
+            for (Map.Entry<String, Object> operation : setOperations.entrySet()) {
+                setPath(patched, operation.getKey(), objectMapper.valueToTree(operation.getValue()));
+            }
+            return patched;
+        });
+    }
+
+    @Override
+    public ChangeFeedPage readChangeFeed(String container, String continuationToken, int maxItems) {
+        simulateRoundTrip();
+        reads.incrementAndGet();
+
+        ContainerData data = container(container);
+        long from = continuationToken == null ? 0L : Long.parseLong(continuationToken);
+        long last = from;
+        List<JsonNode> documents = new ArrayList<>(Math.min(maxItems, 1024));
+
+        // Wait out in-flight writers so every sequence up to the bound is indexed
+        long bound;
+        data.sequenceLock.writeLock().lock();
+        try {
+            bound = sequence.get();
+        } finally {
+            data.sequenceLock.writeLock().unlock();
+        }
+
+        ConcurrentNavigableMap<Long, String> changes = data.changeFeed.subMap(from, false, bound, true);
+        Iterator<Map.Entry<Long, String>> iterator = changes.entrySet().iterator();
+        while (documents.size() < maxItems && iterator.hasNext()) {
+            Map.Entry<Long, String> change = iterator.next();
+            StoredItem item = data.items.get(change.getValue());
+            // Skip entries superseded by a later write since the index was read
+            if (item != null && item.sequence == change.getKey()) {
+                documents.add(parse(item.json));
+            }
+            last = change.getKey();
+        }
+        return new ChangeFeedPage(documents, Long.toString(last));
+    }
+
+    // ---- Statistics ----
+
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * Number of documents currently stored in a container.
+     */
+    public int size(String container) {
+        return container(container).items.size();
+    }
+
+    // ---- Internals ----
+
+    private interface WriteFunction {
+        JsonNode apply(StoredItem existing);
+    }
+
+    private String write(String container, String partitionKey, JsonNode document, WriteFunction function) {
+        simulateRoundTrip();
+        return applyWrite(container, partitionKey, document, function);
+    }
+
+    /**
+     * Applies a write without simulating a round trip; bulk operations pay one round trip per batch.
+     */
+    private String applyWrite(String container, String partitionKey, JsonNode document, WriteFunction function) {
+        writes.incrementAndGet();
+
+        String id = document.path("id").asText(null);
+        if (id == null) {
+            throw new StoreException("Document is missing an id", 400);
+        }
+
+        ContainerData data = container(container);
+        StoredItem written = data.items.compute(key(partitionKey, id), (key, existing) -> {
+            JsonNode next = function.apply(existing);
+            ObjectNode copy = ((ObjectNode) next).deepCopy();
+
+            // Sequence assignment and index insertion happen under the shared lock so that a
+            // change feed reader never observes sequence N before every sequence below N is indexed
+            data.sequenceLock.readLock().lock();
+            try {
+                long sequenceNumber = sequence.incrementAndGet();
+                String eTag = "\"" + Long.toHexString(sequenceNumber) + "\"";
+                copy.put("_etag", eTag);
+                copy.put("_ts", Instant.now().getEpochSecond());
+
+                if (existing != null) {
+                    data.changeFeed.remove(existing.sequence);
+                }
+                data.changeFeed.put(sequenceNumber, key);
+                return new StoredItem(serialize(copy), eTag, sequenceNumber);
+            } finally {
+                data.sequenceLock.readLock().unlock();
+            }
+        });
+        return written.eTag;
+    }
+
+    private List<String> query(String container, Predicate<JsonNode> predicate) {
+        simulateRoundTrip();
+        queries.incrementAndGet();
+
+        List<String> results = new ArrayList<>();
+        for (StoredItem item : container(container).items.values()) {
+            JsonNode document = parse(item.json);
+            if (predicate.test(document)) {
+                results.add(document.toString());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Applies injected latency and throttling ahead of every operation.
+     */
+    private void simulateRoundTrip() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (throttleProbability > 0 && random.nextDouble() < throttleProbability) {
+            throttled.incrementAndGet();
+            throw new StoreException("Request rate is large (injected)", StoreException.TOO_MANY_REQUESTS,
+                    Duration.ofMillis(100), null);
+        }
+
+        if (maxOperationsPerSecond > 0) {
+            long second = System.nanoTime() / 1_000_000_000L;
+            RateWindow window = rateWindow.updateAndGet(current -> current.second == second ? current : new RateWindow(second));
+            if (window.count.incrementAndGet() > maxOperationsPerSecond) {
+                throttled.incrementAndGet();
+                long nanosToNextSecond = (second + 1) * 1_000_000_000L - System.nanoTime();
+                throw new StoreException("Request rate is large (injected)", StoreException.TOO_MANY_REQUESTS,
+                        Duration.ofNanos(Math.max(nanosToNextSecond, 0)), null);
+            }
+        }
+
+        long delay = latencyNanos;
+        if (latencyJitterNanos > 0) {
+            delay += random.nextLong(latencyJitterNanos);
+        }
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private ContainerData container(String name) {
+        return containers.computeIfAbsent(name, unused -> new ContainerData());
+    }
+
+    private static String key(String partitionKey, String id) {
+        return partitionKey + '\u0000' + id;
+    }
+
+    private static boolean isPresent(JsonNode node) {
+        return node != null && !node.isNull() && !node.isMissingNode();
+    }
+
+    /**
+     * Cosmos compares ISO-8601 strings lexically; parsing handles both strings and epoch numbers.
+     */
+    private static boolean isDue(JsonNode timestamp, Instant now) {
+        Instant scheduled = toInstant(timestamp);
+        return scheduled != null && !scheduled.isAfter(now);
+    }
+
+    private static Instant toInstant(JsonNode timestamp) {
+        if (!isPresent(timestamp)) {
+            return null;
+        }
+        try {
+            return timestamp.isNumber()
+                    ? Instant.ofEpochMilli((long) (timestamp.asDouble() * 1000))
+                    : Instant.parse(timestamp.asText());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isBefore(JsonNode timestamp, Instant cutoff) {
+        return isDue(timestamp, cutoff.minusNanos(1));
+    }
+
+    private static void setPath(ObjectNode root, String path, JsonNode value) {
+        String[] segments = path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
+        ObjectNode node = root;
+        for (int i = 0; i < segments.length - 1; i++) {
+            JsonNode child = node.get(segments[i]);
+            if (child == null || !child.isObject()) {
+                child = node.putObject(segments[i]);
+            }
+            node = (ObjectNode) child;
+        }
+        node.set(segments[segments.length - 1], value);
+    }
+
+    private JsonNode parse(byte[] json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new StoreException("Corrupt stored document: " + e.getMessage(), 500, null, e);
+        }
+    }
+
+    private byte[] serialize(JsonNode document) {
+        try {
+            return objectMapper.writeValueAsBytes(document);
+        } catch (IOException e) {
+            throw new StoreException("Failed to serialize document: " + e.getMessage(), 400, null, e);
+        }
+    }
+
+    private <T> T convert(JsonNode document, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(document, type);
+        } catch (IOException e) {
+            throw new StoreException("Failed to deserialize " + type.getSimpleName() + ": " + e.getMessage(), 500, null, e);
+        }
+    }
+
+    private static final class StoredItem {
+        private final byte[] json;
+        private final String eTag;
+        private final long sequence;
+
+        private StoredItem(byte[] json, String eTag, long sequence) {
+            this.json = json;
+            this.eTag = eTag;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class ContainerData {
+        private final ConcurrentMap<String, StoredItem> items = new ConcurrentHashMap<>();
+        // Change feed index: write sequence -> item key, latest write per item only
+        private final ConcurrentSkipListMap<Long, String> changeFeed = new ConcurrentSkipListMap<>();
+        private final ReentrantReadWriteLock sequenceLock = new ReentrantReadWriteLock();
+    }
+
+    private static final class RateWindow {
+        private final long second;
+        private final AtomicLong count = new AtomicLong();
+
+        private RateWindow(long second) {
+            this.second = second;
+        }
+    }
+
+    /**
+     * Builder for configuring injected latency and throttling.
+     */
+    public static class Builder {
+        private Duration latency = Duration.ZERO;
+        private Duration latencyJitter = Duration.ZERO;
+        private double throttleProbability;
+        private int maxOperationsPerSecond;
+
+        /**
+         * Fixed delay added to every operation.
+         */
+        public Builder latency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Upper bound of a uniformly random delay added on top of the fixed latency.
+         */
+        public Builder latencyJitter(Duration latencyJitter) {
+            this.latencyJitter = latencyJitter;
+            return this;
+        }
+
+        /**
+         * Probability (0..1) that any operation fails with a 429.
+         */
+        public Builder throttleProbability(double throttleProbability) {
+            this.throttleProbability = throttleProbability;
+            return this;
+        }
+
+        /**
+         * Operations allowed per wall-clock second before further operations get a 429,
+         * approximating a provisioned-throughput budget. Zero disables the limit.
+         */
+        public Builder maxOperationsPerSecond(int maxOperationsPerSecond) {
+            this.maxOperationsPerSecond = maxOperationsPerSecond;
+            return this;
+        }
+
+        public InMemoryOrchestratorStore build() {
+            return new InMemoryOrchestratorStore(this);
+        }
+    }
+}
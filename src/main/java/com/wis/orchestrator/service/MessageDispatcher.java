@@ -0,0 +1,211 @@
+package com.wis.orchestrator.service;
+
+import com.microsoft.azure.functions.OutputBinding;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.util.MessageFlushEvent;
+import com.wis.orchestrator.util.SentryHelper;
+import io.sentry.ISpan;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single exit point for messages bound for the send queues.
+ *
+ * By default messages go through the function's output binding. In session mode
+ * (SERVICE_BUS_SESSIONS_ENABLED=true) they are sent with the Service Bus SDK instead,
+ * because only the SDK can stamp the customer id as the session id - and a
+ * session-enabled queue rejects any message without one. With priority lanes
+ * (PRIORITY_LANES_ENABLED=true) HIGH messages go to their own queue, which also
+ * requires the SDK since a function has a single send-queue output binding.
+ *
+ * In every mode HIGH messages are queued ahead of NORMAL ones from the same batch, and
+ * scheduled messages are stamped with their enqueue time and counted in
+ * {@link SchedulingLateness}. Output-binding messages cannot carry application
+ * properties, so outside session and lane mode only the metrics see those stamps.
+ */
+public class MessageDispatcher {
+
+    public static final String MESSAGE_SEND_QUEUE = "message-send-queue";
+
+    // Messages dispatched by this instance, per lane
+    private static final Map<MessagePriority, AtomicLong> dispatched = new EnumMap<>(MessagePriority.class);
+
+    static {
+        for (MessagePriority priority : MessagePriority.values()) {
+            dispatched.put(priority, new AtomicLong());
+        }
+    }
+
+    private final Supplier<? extends MessageSender> senderSupplier;
+    private final boolean sessionsEnabled;
+    private final boolean lanesEnabled;
+    private final SchedulingLateness lateness = SchedulingLateness.getInstance();
+
+    /**
+     * @param senderSupplier Supplies the SDK sender lazily; used in session or lane mode and by {@link #send}
+     * @param sessionsEnabled Whether the send queues are session-enabled
+     * @param lanesEnabled Whether HIGH messages go to their own queue
+     */
+    public MessageDispatcher(Supplier<? extends MessageSender> senderSupplier,
+                             boolean sessionsEnabled, boolean lanesEnabled) {
+        this.senderSupplier = senderSupplier;
+        this.sessionsEnabled = sessionsEnabled;
+        this.lanesEnabled = lanesEnabled;
+    }
+
+    /**
+     * Creates a dispatcher configured from the SERVICE_BUS_SESSIONS_ENABLED and
+     * PRIORITY_LANES_ENABLED app settings.
+     */
+    public static MessageDispatcher fromEnvironment() {
+        return new MessageDispatcher(
+                ServiceBusMessageSender::getInstance,
+                Boolean.parseBoolean(System.getenv("SERVICE_BUS_SESSIONS_ENABLED")),
+                Boolean.parseBoolean(System.getenv("PRIORITY_LANES_ENABLED")));
+    }
+
+    public boolean isSessionsEnabled() {
+        return sessionsEnabled;
+    }
+
+    public boolean isLanesEnabled() {
+        return lanesEnabled;
+    }
+
+    /**
+     * Number of messages this instance has dispatched on a lane since startup.
+     */
+    public static long getDispatchedCount(MessagePriority priority) {
+        return dispatched.get(priority).get();
+    }
+
+    /**
+     * Queues messages on the send queues, HIGH lane first; order within a lane is preserved.
+     *
+     * @param messages Messages to queue; each must carry the customer id as session id in session mode
+     * @param outputBinding The function's message-send-queue output binding, used outside session and lane mode
+     */
+    public void dispatch(List<OutboundMessage> messages, OutputBinding<String[]> outputBinding) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        if (lanesEnabled || sessionsEnabled) {
+            send(messages);
+            return;
+        }
+
+        MessageFlushEvent event = new MessageFlushEvent();
+        event.begin();
+        lateness.recordEnqueued(messages, Instant.now());
+        Map<MessagePriority, List<OutboundMessage>> lanes = splitByLane(messages);
+        List<String> bodies = new ArrayList<>(messages.size());
+        for (List<OutboundMessage> lane : lanes.values()) {
+            for (OutboundMessage message : lane) {
+                bodies.add(message.getBody());
+            }
+        }
+        outputBinding.setValue(bodies.toArray(new String[0]));
+        countDispatched(lanes);
+        commitFlush(event, MESSAGE_SEND_QUEUE, "binding", messages);
+    }
+
+    /**
+     * Sends messages with the Service Bus SDK before returning, whatever the mode, for callers
+     * that must know the messages are queued before they continue (the outbox relay).
+     * Lanes, HIGH-first ordering and session ids apply as in {@link #dispatch}.
+     *
+     * @param messages Messages to queue
+     */
+    public void send(List<OutboundMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        lateness.recordEnqueued(messages, Instant.now());
+        Map<MessagePriority, List<OutboundMessage>> lanes = splitByLane(messages);
+
+        if (lanesEnabled) {
+            for (Map.Entry<MessagePriority, List<OutboundMessage>> lane : lanes.entrySet()) {
+                sendTraced(lane.getKey().getQueueName(), lane.getValue());
+                dispatched.get(lane.getKey()).addAndGet(lane.getValue().size());
+            }
+            return;
+        }
+
+        List<OutboundMessage> ordered = new ArrayList<>(messages.size());
+        for (List<OutboundMessage> lane : lanes.values()) {
+            ordered.addAll(lane);
+        }
+        sendTraced(MESSAGE_SEND_QUEUE, ordered);
+        countDispatched(lanes);
+    }
+
+    /**
+     * Sends messages with the Service Bus SDK to a queue other than the send queues, e.g.
+     * orchestration-retry-queue. Lanes and lateness stamps do not apply, and the messages
+     * are not counted as dispatched.
+     *
+     * @param queueName Destination queue
+     * @param messages Messages to queue, in order
+     */
+    public void sendTo(String queueName, List<OutboundMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        sendTraced(queueName, messages);
+    }
+
+    private void sendTraced(String queueName, List<OutboundMessage> messages) {
+        ISpan span = SentryHelper.startSpan("queue.publish", queueName);
+        MessageFlushEvent event = new MessageFlushEvent();
+        event.begin();
+        try {
+            span.setData("messaging.batch.message_count", messages.size());
+            senderSupplier.get().send(queueName, messages);
+        } finally {
+            span.finish();
+            commitFlush(event, queueName, "sdk", messages);
+        }
+    }
+
+    private static void commitFlush(MessageFlushEvent event, String queueName, String path,
+                                    List<OutboundMessage> messages) {
+        event.end();
+        if (event.shouldCommit()) {
+            long bytes = 0;
+            for (OutboundMessage message : messages) {
+                bytes += message.getBody() != null ? message.getBody().length() : 0;
+            }
+            event.queue = queueName;
+            event.path = path;
+            event.messages = messages.size();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private static void countDispatched(Map<MessagePriority, List<OutboundMessage>> lanes) {
+        for (Map.Entry<MessagePriority, List<OutboundMessage>> lane : lanes.entrySet()) {
+            dispatched.get(lane.getKey()).addAndGet(lane.getValue().size());
+        }
+    }
+
+    /**
+     * Groups messages by lane in priority order (EnumMap iterates in declaration order).
+     */
+    private static Map<MessagePriority, List<OutboundMessage>> splitByLane(List<OutboundMessage> messages) {
+        Map<MessagePriority, List<OutboundMessage>> lanes = new EnumMap<>(MessagePriority.class);
+        for (OutboundMessage message : messages) {
+            lanes.computeIfAbsent(MessagePriority.fromValue(message.getPriority()), lane -> new ArrayList<>())
+                    .add(message);
+        }
+        return lanes;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wis.orchestrator.service;
+
+/**
+ * Send-path priority lanes. Message DTOs carry the priority as "HIGH" or "NORMAL";
+ * with PRIORITY_LANES_ENABLED=true each lane has its own queue so a large scheduled
+ * burst on the NORMAL lane cannot delay onboarding messages on the HIGH lane.
+ *
+ * Declared in dispatch order: higher-priority lanes first.
+ */
+public enum MessagePriority {
+
+    HIGH("message-send-queue-high"),
+    NORMAL(MessageDispatcher.MESSAGE_SEND_QUEUE);
+
+    private final String queueName;
+
+    MessagePriority(String queueName) {
+        this.queueName = queueName;
+    }
+
+    /**
+     * Maps a DTO priority value to its lane; anything unrecognized goes to NORMAL.
+     */
+    public static MessagePriority fromValue(String value) {
+        return "HIGH".equalsIgnoreCase(value) ? HIGH : NORMAL;
+    }
+
+    /**
+     * Queue for this lane when priority lanes are enabled.
+     */
+    public String getQueueName() {
+        return queueName;
+    }
+}
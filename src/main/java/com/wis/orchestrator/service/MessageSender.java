@@ -0,0 +1,31 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.model.OutboundMessage;
+
+import java.util.List;
+
+/**
+ * Sends messages directly to Service Bus queues.
+ * Used instead of a function output binding whenever broker-level properties such as
+ * the session id have to be set. Implemented by {@link ServiceBusMessageSender} and,
+ * for load tests, {@link InMemoryMessageSender}.
+ */
+public interface MessageSender {
+
+    /**
+     * Sends the messages to a queue, in list order.
+     *
+     * @param queueName Target queue
+     * @param messages Messages to send
+     * @throws RuntimeException if any message could not be sent; messages before it may already be sent
+     */
+    void send(String queueName, List<OutboundMessage> messages);
+
+    /**
+     * Checks that messages could be sent to a queue right now, without sending any.
+     *
+     * @param queueName Target queue
+     * @throws RuntimeException if the queue cannot be reached
+     */
+    void probe(String queueName);
+}
@@ -0,0 +1,286 @@
+package com.wis.orchestrator.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-process metrics, rendered in the Prometheus text format by the Metrics function.
+ *
+ * Series are created on first use and kept for the life of the instance; labels are
+ * passed as name/value pairs. Counters and histograms are lock-free, so recording on
+ * the hot path costs a map lookup and a few atomic adds. Histograms are exposed as
+ * Prometheus histograms with cumulative {@code _bucket{le="..."}} counts, so scraping
+ * has no side effects and several scrapers see the same values. Every instance keeps
+ * its own values and labels each series with its WEBSITE_INSTANCE_ID as instance_id;
+ * aggregate across instances in Prometheus.
+ */
+public class MetricsRegistry {
+
+    public static final String FUNCTION_DURATION = "orchestrator_function_duration_seconds";
+    public static final String FUNCTION_FAILURES = "orchestrator_function_failures_total";
+    public static final String FUNCTION_DEFERRALS = "orchestrator_function_deferrals_total";
+    public static final String FUNCTION_ITEMS = "orchestrator_function_items";
+
+    /** Bucket bounds for latencies, in seconds. */
+    public static final double[] LATENCY_BUCKETS =
+            {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300, 600};
+
+    /** Bucket bounds for item counts. */
+    public static final double[] SIZE_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 5000, 10000};
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private static MetricsRegistry instance;
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+    private final String instanceLabel;
+
+    public MetricsRegistry() {
+        this(System.getenv("WEBSITE_INSTANCE_ID"));
+    }
+
+    /**
+     * @param instanceId Added to every series as the instance_id label; null or empty for none
+     */
+    public MetricsRegistry(String instanceId) {
+        this.instanceLabel = instanceId == null || instanceId.isEmpty()
+                ? "" : labelsOf(new String[]{"instance_id", instanceId});
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Counter that only goes up, e.g. requests or request units.
+     *
+     * @param labels Label names and values, alternating
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter", 1).series.computeIfAbsent(labelsOf(labels), key -> new Counter());
+    }
+
+    /**
+     * Gauge set by the caller, e.g. the last observed queue depth.
+     *
+     * @param labels Label names and values, alternating
+     */
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge) family(name, help, "gauge", 1).series.computeIfAbsent(labelsOf(labels), key -> new Gauge());
+    }
+
+    /**
+     * Histogram with cumulative buckets.
+     *
+     * @param unit Divisor applied to recorded values when rendered, e.g. 1e9 to record nanoseconds as seconds
+     * @param buckets Upper bounds of the buckets in rendered units, ascending; +Inf is added
+     * @param labels Label names and values, alternating
+     */
+    public Histogram histogram(String name, String help, double unit, double[] buckets, String... labels) {
+        Family family = family(name, help, "histogram", unit);
+        family.buckets = buckets;
+        return (Histogram) family.series.computeIfAbsent(labelsOf(labels), key -> new Histogram());
+    }
+
+    /**
+     * Gauge read from its source at scrape time, e.g. the current concurrency limit.
+     * Registering the same series again replaces the supplier.
+     */
+    public void registerGauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge", 1).series.put(labelsOf(labels), value);
+    }
+
+    /**
+     * Counter read from its source at scrape time, for counts a component already keeps.
+     */
+    public void registerCounter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "counter", 1).series.put(labelsOf(labels), value);
+    }
+
+    /**
+     * Records one function invocation's latency.
+     *
+     * @param function Function name as registered with the host
+     * @param startNanos System.nanoTime() at the start of the invocation
+     */
+    public void recordInvocation(String function, long startNanos) {
+        histogram(FUNCTION_DURATION, "Function invocation latency", NANOS_PER_SECOND, LATENCY_BUCKETS,
+                "function", function).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts a function invocation that ended in an exception.
+     */
+    public void recordFailure(String function) {
+        counter(FUNCTION_FAILURES, "Function invocations that threw", "function", function).increment();
+    }
+
+    /**
+     * Counts a function invocation that put its event back for later instead of handling it.
+     */
+    public void recordDeferral(String function) {
+        counter(FUNCTION_DEFERRALS, "Function invocations that deferred their event", "function", function).increment();
+    }
+
+    /**
+     * Records how many items (events, customers, messages) one invocation or tick handled.
+     */
+    public void recordItems(String function, long items) {
+        histogram(FUNCTION_ITEMS, "Items handled per invocation", 1, SIZE_BUCKETS, "function", function).record(items);
+    }
+
+    /**
+     * Renders every series in the Prometheus text exposition format (version 0.0.4).
+     * Reading has no side effects.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+                appendSeries(out, family, withInstance(series.getKey()), series.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private void appendSeries(StringBuilder out, Family family, String labels, Object metric) {
+        if (metric instanceof Histogram) {
+            Histogram histogram = (Histogram) metric;
+            Histogram.Snapshot snapshot = histogram.snapshot();
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            for (double bound : family.buckets) {
+                appendSample(out, family.name + "_bucket", prefix + "le=\"" + format(bound) + "\"",
+                        snapshot.countAtOrBelow((long) Math.floor(bound * family.unit)));
+            }
+            // +Inf and _count come from the same snapshot so they always agree
+            appendSample(out, family.name + "_bucket", prefix + "le=\"+Inf\"", snapshot.getTotal());
+            appendSample(out, family.name + "_sum", labels, histogram.getSum() / family.unit);
+            appendSample(out, family.name + "_count", labels, snapshot.getTotal());
+        } else if (metric instanceof Counter) {
+            appendSample(out, family.name, labels, ((Counter) metric).get());
+        } else if (metric instanceof Gauge) {
+            appendSample(out, family.name, labels, ((Gauge) metric).get());
+        } else {
+            appendSample(out, family.name, labels, ((DoubleSupplier) metric).getAsDouble());
+        }
+    }
+
+    private String withInstance(String labels) {
+        if (instanceLabel.isEmpty()) {
+            return labels;
+        }
+        return labels.isEmpty() ? instanceLabel : instanceLabel + "," + labels;
+    }
+
+    private static void appendSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private Family family(String name, String help, String type, double unit) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, unit));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String labelsOf(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder rendered = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                rendered.append(',');
+            }
+            rendered.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    rendered.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    rendered.append("\\n");
+                } else {
+                    rendered.append(ch);
+                }
+            }
+            rendered.append('"');
+        }
+        return rendered.toString();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Monotonic counter; fractional increments are allowed (request units).
+     */
+    public static class Counter {
+        private final DoubleAdder value = new DoubleAdder();
+
+        public void increment() {
+            value.add(1);
+        }
+
+        public void add(double amount) {
+            value.add(amount);
+        }
+
+        public double get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Last-value gauge.
+     */
+    public static class Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        public void set(long newValue) {
+            value.set(newValue);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final double unit;
+        private volatile double[] buckets = new double[0];
+        private final ConcurrentMap<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type, double unit) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.unit = unit;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.wis.orchestrator.entity.CustomerEntity;
+import com.wis.orchestrator.entity.PlanDayProjection;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Data-access surface used by the orchestrator functions.
+ * Implemented by {@link CosmosDBService} for production and by
+ * {@link InMemoryOrchestratorStore} for local load tests and benchmarks.
+ *
+ * Failures are reported as {@link StoreException} carrying the Cosmos status code.
+ */
+public interface OrchestratorStore {
+
+    String DATABASE_NAME = "WIS-Platform";
+    String CUSTOMERS_CONTAINER = "customers";
+    String PLANS_CONTAINER = "devotionalPlans";
+
+    // Cold storage for the full content of compacted plans, partitioned by /customerId
+    String PLANS_ARCHIVE_CONTAINER = "devotionalPlansArchive";
+
+    // Orchestrator-owned bookkeeping (checkpoints, processed markers), partitioned by /id
+    String STATE_CONTAINER = "orchestratorState";
+
+    // One conv-{customerId} document per customer, partitioned by /id
+    String CONVERSATIONS_CONTAINER = "conversationStates";
+
+    // ---- Typed customer and plan access ----
+
+    /**
+     * Find a customer by ID (point read).
+     *
+     * @param customerId Customer ID (also the partition key)
+     * @return Optional containing the customer if found
+     */
+    Optional<CustomerEntity> findCustomerById(String customerId);
+
+    /**
+     * Upsert a customer entity.
+     *
+     * @param customer Customer entity to write
+     */
+    void updateCustomer(CustomerEntity customer);
+
+    /**
+     * Fetch only status, currentDay and the current day element of a plan.
+     *
+     * @param planId Plan ID
+     * @param customerId Customer ID (partition key)
+     * @return Optional containing the projection if the plan exists
+     */
+    Optional<PlanDayProjection> findPlanDay(String planId, String customerId);
+
+    // ---- Query subset used by the timer functions (results are raw JSON, like the input bindings) ----
+
+    /**
+     * Active customers whose next devotional or check-in is due.
+     * Same predicate as the MessageScheduler input binding.
+     */
+    List<String> queryCustomersWithDueMessages(Instant now);
+
+    /**
+     * Active customers with an active plan whose next plan message is due.
+     * Same predicate as the ProcessDevotionalPlanDay input binding.
+     */
+    List<String> queryCustomersWithDuePlanMessages(Instant now);
+
+    /**
+     * Completed plans that finished before the cutoff and have not been compacted yet.
+     * Returned as full documents including their _etag.
+     *
+     * @param completedBefore Only plans with completedAt strictly before this instant
+     * @param maxItems Maximum number of plans to return
+     */
+    List<JsonNode> queryPlansToCompact(Instant completedBefore, int maxItems);
+
+    // ---- Health probes ----
+
+    /**
+     * Cheap metadata read of a container, to check that it is reachable.
+     *
+     * @throws StoreException if the container cannot be read
+     */
+    void probeContainer(String container);
+
+    /**
+     * Earliest due time of a message that is overdue, across the devotional, check-in and
+     * plan message schedules, using the timer functions' predicates, in one query. How far
+     * this is behind now is the scheduler's lag.
+     *
+     * @return Oldest overdue due time, or empty if nothing is overdue
+     */
+    Optional<Instant> findOldestDueSchedule(Instant now);
+
+    // ---- Raw document access ----
+
+    /**
+     * Point read of a raw document with its ETag.
+     *
+     * @return Optional containing the document, or empty if it does not exist
+     */
+    Optional<VersionedDocument> readDocument(String container, String id, String partitionKey);
+
+    /**
+     * Read many documents in one round trip from a container partitioned by /id
+     * (e.g. customers). Missing ids are simply absent from the result.
+     *
+     * @return Documents keyed by id
+     */
+    Map<String, VersionedDocument> readDocumentsById(String container, Collection<String> ids);
+
+    /**
+     * Create a document, failing with a 409 {@link StoreException} if it already exists.
+     *
+     * @return ETag of the created document
+     */
+    String createDocument(String container, String partitionKey, JsonNode document);
+
+    /**
+     * Create or replace a document unconditionally.
+     *
+     * @return ETag of the written document
+     */
+    String upsertDocument(String container, String partitionKey, JsonNode document);
+
+    /**
+     * Replace a document, optionally only if its current ETag matches.
+     * Fails with a 412 {@link StoreException} when the ETag does not match.
+     *
+     * @param ifMatchETag Expected ETag, or null for an unconditional replace
+     * @return ETag of the written document
+     */
+    String replaceDocument(String container, String partitionKey, JsonNode document, String ifMatchETag);
+
+    /**
+     * Apply set operations to a document without reading it first.
+     * Keys are JSON paths (e.g. "/messagingState/nextPlanMessageScheduledFor"), values are
+     * JSON-compatible (strings, numbers, booleans, lists, maps). Timestamps should be
+     * passed as ISO-8601 strings. Fails with a 404 {@link StoreException} if the document is missing.
+     */
+    void patchDocument(String container, String id, String partitionKey, Map<String, Object> setOperations);
+
+    /**
+     * Apply set operations to many documents of a container partitioned by /id using bulk
+     * execution. Each document succeeds or fails independently.
+     *
+     * @param setOperationsById Patch set operations keyed by document id (see {@link #patchDocument})
+     * @return Failures keyed by document id; empty if every patch succeeded
+     */
+    Map<String, StoreException> patchDocumentsById(String container, Map<String, Map<String, Object>> setOperationsById);
+
+    /**
+     * Create many documents of a container partitioned by /id using bulk execution.
+     * Each document succeeds or fails independently; one that already exists fails with a 409.
+     *
+     * @return Failures keyed by document id; empty if every create succeeded
+     */
+    Map<String, StoreException> createDocumentsById(String container, Collection<JsonNode> documents);
+
+    /**
+     * Create or replace many documents of a container partitioned by /id using bulk
+     * execution. Each document succeeds or fails independently.
+     *
+     * @return Failures keyed by document id; empty if every upsert succeeded
+     */
+    Map<String, StoreException> upsertDocumentsById(String container, Collection<JsonNode> documents);
+
+    /**
+     * Read the next page of a container's change feed.
+     *
+     * @param continuationToken Token from a previous page, or null to start from the beginning
+     * @param maxItems Maximum number of documents to return
+     */
+    ChangeFeedPage readChangeFeed(String container, String continuationToken, int maxItems);
+}
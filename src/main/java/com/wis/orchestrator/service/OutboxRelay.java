@@ -0,0 +1,127 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.model.OutboundMessage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains {@link CustomerOutbox} entries to the send queues.
+ *
+ * Follows the customers change feed from a checkpoint in orchestratorState, the same way
+ * {@link PlanCompletionCursor} follows devotionalPlans: every outbox write is a document
+ * change, so a tick only reads customers changed since the last one. Pending entries are
+ * sent in one batch, then removed from their documents, and only then is the checkpoint
+ * advanced. A failure anywhere leaves the checkpoint in place and the next tick resends
+ * with the same message ids.
+ */
+public class OutboxRelay {
+
+    private static final Logger logger = Logger.getLogger(OutboxRelay.class.getName());
+
+    private static final String CHECKPOINT_ID = "checkpoint-outbox-relay";
+    private static final int PAGE_SIZE = 500;
+
+    private final OrchestratorStore store;
+    private final CustomerOutbox outbox;
+    private final MessageDispatcher messageDispatcher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OutboxRelay(OrchestratorStore store, CustomerOutbox outbox, MessageDispatcher messageDispatcher) {
+        this.store = store;
+        this.outbox = outbox;
+        this.messageDispatcher = messageDispatcher;
+    }
+
+    /**
+     * Relays outbox entries written since the last checkpoint.
+     *
+     * @param maxMessages Soft limit on messages per run; feed pages are always consumed whole
+     * @return Number of messages sent
+     */
+    public int relay(int maxMessages) {
+        Optional<VersionedDocument> checkpoint = store.readDocument(
+                OrchestratorStore.STATE_CONTAINER, CHECKPOINT_ID, CHECKPOINT_ID);
+        String token = checkpoint
+                .map(document -> document.getDocument().path("continuationToken").asText(null))
+                .orElse(null);
+        String startToken = token;
+
+        // Latest version of each changed customer that still has pending entries
+        Map<String, List<OutboundMessage>> pending = new LinkedHashMap<>();
+        int pendingCount = 0;
+        int scanned = 0;
+
+        while (pendingCount < maxMessages) {
+            ChangeFeedPage page = store.readChangeFeed(OrchestratorStore.CUSTOMERS_CONTAINER, token, PAGE_SIZE);
+            token = page.getContinuationToken();
+
+            if (page.getDocuments().isEmpty()) {
+                break;
+            }
+
+            for (JsonNode customer : page.getDocuments()) {
+                scanned++;
+                List<OutboundMessage> messages = outbox.pendingMessages(customer);
+                String customerId = customer.path("id").asText();
+                List<OutboundMessage> previous = messages.isEmpty()
+                        ? pending.remove(customerId)
+                        : pending.put(customerId, messages);
+                pendingCount += messages.size() - (previous != null ? previous.size() : 0);
+            }
+        }
+
+        List<OutboundMessage> messages = new ArrayList<>(pendingCount);
+        for (List<OutboundMessage> customerMessages : pending.values()) {
+            messages.addAll(customerMessages);
+        }
+        messageDispatcher.send(messages);
+
+        for (Map.Entry<String, List<OutboundMessage>> entry : pending.entrySet()) {
+            List<String> messageIds = new ArrayList<>(entry.getValue().size());
+            for (OutboundMessage message : entry.getValue()) {
+                messageIds.add(message.getMessageId());
+            }
+            outbox.acknowledge(entry.getKey(), messageIds);
+        }
+
+        if (token != null && !token.equals(startToken)) {
+            saveCheckpoint(token, checkpoint);
+        }
+
+        logger.log(Level.INFO, "Outbox relay scanned {0} changed customers, sent {1} messages",
+                new Object[]{scanned, messages.size()});
+        return messages.size();
+    }
+
+    private void saveCheckpoint(String token, Optional<VersionedDocument> previous) {
+        ObjectNode checkpoint = objectMapper.createObjectNode();
+        checkpoint.put("id", CHECKPOINT_ID);
+        checkpoint.put("continuationToken", token);
+        checkpoint.put("updatedAt", Instant.now().toString());
+
+        try {
+            if (previous.isPresent()) {
+                store.replaceDocument(OrchestratorStore.STATE_CONTAINER, CHECKPOINT_ID, checkpoint,
+                        previous.get().getETag());
+            } else {
+                store.createDocument(OrchestratorStore.STATE_CONTAINER, CHECKPOINT_ID, checkpoint);
+            }
+        } catch (StoreException e) {
+            if (e.isPreconditionFailed() || e.isConflict()) {
+                logger.log(Level.WARNING, "Outbox relay checkpoint was advanced concurrently; keeping the newer checkpoint");
+                return;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compacts completed devotional plans so the hot devotionalPlans container stays small.
+ *
+ * After a grace period, each completed plan's full document is copied to the
+ * devotionalPlansArchive container and the hot document is replaced (ETag-guarded)
+ * with a summary that keeps ids, dates, themes and per-day delivery status but
+ * drops the verse, reflection and journal text.
+ */
+public class PlanCompactionService {
+
+    private static final Logger logger = Logger.getLogger(PlanCompactionService.class.getName());
+
+    // Per-day fields kept in the summary; everything else (verse, reflection, prompt) is archived
+    private static final Set<String> SUMMARY_DAY_FIELDS = Set.of("dayNumber", "status", "sentAt", "twilioSid");
+
+    // Cosmos system properties that must not be copied into another container
+    private static final Set<String> SYSTEM_PROPERTIES = Set.of("_rid", "_self", "_etag", "_attachments", "_ts", "_lsn");
+
+    private final OrchestratorStore store;
+    private final Duration gracePeriod;
+    private final Integer summaryTtlSeconds;
+
+    /**
+     * @param store Data store holding the hot and archive containers
+     * @param gracePeriod How long after completion a plan keeps its full content in the hot container
+     * @param summaryTtlSeconds TTL applied to summary documents, or null to keep them indefinitely
+     */
+    public PlanCompactionService(OrchestratorStore store, Duration gracePeriod, Integer summaryTtlSeconds) {
+        this.store = store;
+        this.gracePeriod = gracePeriod;
+        this.summaryTtlSeconds = summaryTtlSeconds;
+    }
+
+    /**
+     * Compacts up to maxPlans plans that completed more than the grace period ago.
+     * Stops early (without failing) when the store throttles, leaving capacity for
+     * the delivery path; remaining plans are picked up on the next run.
+     *
+     * @param now Current time
+     * @param maxPlans Maximum number of plans to compact in this run
+     * @return Number of plans compacted
+     */
+    public int compact(Instant now, int maxPlans) {
+        List<JsonNode> candidates = store.queryPlansToCompact(now.minus(gracePeriod), maxPlans);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        int compacted = 0;
+        for (JsonNode plan : candidates) {
+            try {
+                if (compactPlan(plan, now)) {
+                    compacted++;
+                }
+            } catch (StoreException e) {
+                if (e.isThrottled()) {
+                    logger.log(Level.WARNING, "Plan compaction throttled after {0} plans; resuming next run", compacted);
+                    break;
+                }
+                logger.log(Level.WARNING, "Failed to compact plan " + plan.path("id").asText() + ": " + e.getMessage(), e);
+            }
+        }
+
+        logger.log(Level.INFO, "Compacted {0} of {1} completed plans", new Object[]{compacted, candidates.size()});
+        return compacted;
+    }
+
+    /**
+     * Archives one plan and replaces it with its summary.
+     *
+     * @return false if the plan changed since it was queried and was left for the next run
+     */
+    private boolean compactPlan(JsonNode plan, Instant now) {
+        String planId = plan.path("id").asText();
+        String customerId = plan.path("customerId").asText();
+        String eTag = plan.path("_etag").asText(null);
+
+        // Archive first - an upsert, so a retry after a failed replace is harmless
+        ObjectNode archived = withoutSystemProperties(plan);
+        archived.put("archivedAt", now.toString());
+        store.upsertDocument(OrchestratorStore.PLANS_ARCHIVE_CONTAINER, customerId, archived);
+
+        try {
+            store.replaceDocument(OrchestratorStore.PLANS_CONTAINER, customerId, summarize(plan, now), eTag);
+            return true;
+        } catch (StoreException e) {
+            if (e.isPreconditionFailed()) {
+                logger.log(Level.INFO, "Plan {0} changed during compaction; will retry next run", planId);
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the compact summary: the original document minus per-day content.
+     * Unknown top-level fields are preserved so message-handler state is not lost.
+     */
+    private ObjectNode summarize(JsonNode plan, Instant now) {
+        ObjectNode summary = withoutSystemProperties(plan);
+
+        JsonNode days = summary.get("days");
+        if (days != null && days.isArray()) {
+            for (JsonNode day : days) {
+                if (day.isObject()) {
+                    Iterator<String> fields = day.fieldNames();
+                    while (fields.hasNext()) {
+                        if (!SUMMARY_DAY_FIELDS.contains(fields.next())) {
+                            fields.remove();
+                        }
+                    }
+                }
+            }
+        }
+
+        summary.put("compactedAt", now.toString());
+        summary.put("archiveContainer", OrchestratorStore.PLANS_ARCHIVE_CONTAINER);
+        if (summaryTtlSeconds != null) {
+            summary.put("ttl", summaryTtlSeconds);
+        }
+        return summary;
+    }
+
+    private static ObjectNode withoutSystemProperties(JsonNode document) {
+        ObjectNode copy = ((ObjectNode) document).deepCopy();
+        copy.remove(SYSTEM_PROPERTIES);
+        return copy;
+    }
+}
@@ -0,0 +1,262 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Incremental cursor over newly completed devotional plans.
+ *
+ * Reads the devotionalPlans change feed from a persisted continuation token instead of
+ * re-querying every completed plan each tick, so per-tick cost depends only on plans
+ * changed since the last checkpoint. Once a completion's check-in has been sent, a
+ * marker document in the orchestrator state container records it, so a plan that
+ * reappears in the feed (e.g. because it was modified again) is not handed out again.
+ * Nothing is recorded before the send: a run that fails part-way hands out the same
+ * completions next time, and the deterministic check-in message id lets Service Bus
+ * duplicate detection drop any that did go out. A completion whose check-in cannot be
+ * built holds the checkpoint back only for a limited number of attempts, counted in a
+ * failure marker; after that it gets a marker of its own so the checkpoint can move on.
+ */
+public class PlanCompletionCursor {
+
+    private static final Logger logger = Logger.getLogger(PlanCompletionCursor.class.getName());
+
+    private static final String CHECKPOINT_ID = "checkpoint-plan-completion";
+    private static final String MARKER_PREFIX = "plan-completion-";
+    private static final String FAILURE_MARKER_PREFIX = "plan-completion-failure-";
+    private static final int PAGE_SIZE = 500;
+
+    // Markers only need to outlive any realistic feed replay window
+    private static final int MARKER_TTL_SECONDS = 30 * 24 * 60 * 60;
+
+    private final OrchestratorStore store;
+    private final ObjectMapper objectMapper;
+
+    public PlanCompletionCursor(OrchestratorStore store, ObjectMapper objectMapper) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads changes since the last checkpoint and returns the plans that completed and
+     * whose check-in has not been sent. Once the check-ins are sent, call
+     * {@link #markSent(Collection)} and then {@link #commit(Batch)} to advance the checkpoint.
+     *
+     * @param maxCompletions Soft limit on completions per batch; feed pages are always consumed whole
+     * @return Batch of newly completed plan documents plus the continuation to commit
+     */
+    public Batch poll(int maxCompletions) {
+        Optional<VersionedDocument> checkpoint = store.readDocument(
+                OrchestratorStore.STATE_CONTAINER, CHECKPOINT_ID, CHECKPOINT_ID);
+
+        String startToken = checkpoint
+                .map(document -> document.getDocument().path("continuationToken").asText(null))
+                .orElse(null);
+        String checkpointETag = checkpoint.map(VersionedDocument::getETag).orElse(null);
+
+        List<JsonNode> completions = new ArrayList<>();
+        String token = startToken;
+        int scanned = 0;
+
+        while (completions.size() < maxCompletions) {
+            ChangeFeedPage page = store.readChangeFeed(OrchestratorStore.PLANS_CONTAINER, token, PAGE_SIZE);
+            token = page.getContinuationToken();
+
+            if (page.getDocuments().isEmpty()) {
+                break;
+            }
+
+            Map<String, JsonNode> awaiting = new LinkedHashMap<>();
+            for (JsonNode plan : page.getDocuments()) {
+                scanned++;
+                if (isAwaitingCheckIn(plan)) {
+                    awaiting.put(markerId(plan), plan);
+                }
+            }
+            if (!awaiting.isEmpty()) {
+                // One readMany per page for the markers of check-ins already sent
+                awaiting.keySet().removeAll(
+                        store.readDocumentsById(OrchestratorStore.STATE_CONTAINER, awaiting.keySet()).keySet());
+                completions.addAll(awaiting.values());
+            }
+        }
+
+        logger.log(Level.INFO, "Plan completion cursor scanned {0} changed plans, {1} new completions",
+                new Object[]{scanned, completions.size()});
+
+        return new Batch(completions, token, checkpointETag, checkpoint.isPresent());
+    }
+
+    /**
+     * Records that the check-ins for these plans have been sent, with one bulk upsert.
+     * A failed write is logged, not thrown: the plan may then be handed out again, and
+     * its resent check-in carries the same message id.
+     *
+     * @param plans Plan documents from {@link Batch#getCompletedPlans()} whose check-ins were sent
+     */
+    public void markSent(Collection<JsonNode> plans) {
+        if (plans.isEmpty()) {
+            return;
+        }
+
+        String sentAt = Instant.now().toString();
+        List<JsonNode> markers = new ArrayList<>(plans.size());
+        for (JsonNode plan : plans) {
+            ObjectNode marker = objectMapper.createObjectNode();
+            marker.put("id", markerId(plan));
+            marker.put("planId", plan.path("id").asText());
+            marker.put("customerId", plan.path("customerId").asText(null));
+            marker.put("sentAt", sentAt);
+            marker.put("ttl", MARKER_TTL_SECONDS);
+            markers.add(marker);
+        }
+
+        try {
+            Map<String, StoreException> failures = store.upsertDocumentsById(OrchestratorStore.STATE_CONTAINER, markers);
+            if (!failures.isEmpty()) {
+                logger.log(Level.WARNING, "Could not record {0} of {1} plan completion markers",
+                        new Object[]{failures.size(), markers.size()});
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not record {0} plan completion markers: {1}",
+                    new Object[]{markers.size(), e.getMessage()});
+        }
+    }
+
+    /**
+     * Counts a failed attempt for each of these plans. A plan that has now failed
+     * maxAttempts times is given up on: it is marked like a sent plan, so later polls skip
+     * it and the checkpoint can advance past it. Write failures are logged, not thrown; a
+     * lost count only means another attempt.
+     *
+     * @param plans Plan documents from {@link Batch#getCompletedPlans()} whose check-ins could not be queued
+     * @param maxAttempts Attempts after which a plan is given up on
+     * @return Plans given up on in this call
+     */
+    public List<JsonNode> recordFailures(Collection<JsonNode> plans, int maxAttempts) {
+        if (plans.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, JsonNode> plansByFailureId = new LinkedHashMap<>();
+        for (JsonNode plan : plans) {
+            plansByFailureId.put(FAILURE_MARKER_PREFIX + plan.path("id").asText(), plan);
+        }
+
+        String failedAt = Instant.now().toString();
+        List<JsonNode> givenUp = new ArrayList<>();
+        List<JsonNode> markers = new ArrayList<>(plansByFailureId.size());
+        try {
+            Map<String, VersionedDocument> previous =
+                    store.readDocumentsById(OrchestratorStore.STATE_CONTAINER, plansByFailureId.keySet());
+            for (Map.Entry<String, JsonNode> entry : plansByFailureId.entrySet()) {
+                JsonNode plan = entry.getValue();
+                VersionedDocument failure = previous.get(entry.getKey());
+                int attempts = 1 + (failure == null ? 0 : failure.getDocument().path("attempts").asInt(0));
+
+                ObjectNode marker = objectMapper.createObjectNode();
+                marker.put("planId", plan.path("id").asText());
+                marker.put("customerId", plan.path("customerId").asText(null));
+                marker.put("attempts", attempts);
+                marker.put("ttl", MARKER_TTL_SECONDS);
+                if (attempts >= maxAttempts) {
+                    marker.put("id", markerId(plan));
+                    marker.put("abandonedAt", failedAt);
+                    givenUp.add(plan);
+                } else {
+                    marker.put("id", entry.getKey());
+                    marker.put("failedAt", failedAt);
+                }
+                markers.add(marker);
+            }
+
+            Map<String, StoreException> failures = store.upsertDocumentsById(OrchestratorStore.STATE_CONTAINER, markers);
+            if (!failures.isEmpty()) {
+                logger.log(Level.WARNING, "Could not record {0} of {1} plan completion failures",
+                        new Object[]{failures.size(), markers.size()});
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not record {0} plan completion failures: {1}",
+                    new Object[]{plansByFailureId.size(), e.getMessage()});
+        }
+        return givenUp;
+    }
+
+    /**
+     * Persists the batch's continuation token as the new checkpoint. Call only after every
+     * completion in the batch has been sent and marked; completions behind a committed
+     * checkpoint are not read again unless their plan changes.
+     * A concurrent runner advancing the checkpoint first is logged and ignored; the
+     * markers keep that from producing duplicate check-ins.
+     *
+     * @param batch Batch returned by {@link #poll(int)}
+     */
+    public void commit(Batch batch) {
+        if (batch.continuationToken == null) {
+            return;
+        }
+
+        ObjectNode checkpoint = objectMapper.createObjectNode();
+        checkpoint.put("id", CHECKPOINT_ID);
+        checkpoint.put("continuationToken", batch.continuationToken);
+        checkpoint.put("updatedAt", Instant.now().toString());
+
+        try {
+            if (batch.checkpointExists) {
+                store.replaceDocument(OrchestratorStore.STATE_CONTAINER, CHECKPOINT_ID, checkpoint, batch.checkpointETag);
+            } else {
+                store.createDocument(OrchestratorStore.STATE_CONTAINER, CHECKPOINT_ID, checkpoint);
+            }
+        } catch (StoreException e) {
+            if (e.isPreconditionFailed() || e.isConflict()) {
+                logger.log(Level.WARNING, "Plan completion checkpoint was advanced concurrently; keeping the newer checkpoint");
+                return;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isAwaitingCheckIn(JsonNode plan) {
+        // Compaction rewrites old completed plans; those rewrites are not new completions
+        return "completed".equals(plan.path("status").asText(null))
+                && !plan.path("checkInSent").asBoolean(false)
+                && !plan.has("compactedAt");
+    }
+
+    private static String markerId(JsonNode plan) {
+        return MARKER_PREFIX + plan.path("id").asText();
+    }
+
+    /**
+     * Completions read in one poll together with the position to commit.
+     */
+    public static class Batch {
+        private final List<JsonNode> completedPlans;
+        private final String continuationToken;
+        private final String checkpointETag;
+        private final boolean checkpointExists;
+
+        private Batch(List<JsonNode> completedPlans, String continuationToken,
+                      String checkpointETag, boolean checkpointExists) {
+            this.completedPlans = completedPlans;
+            this.continuationToken = continuationToken;
+            this.checkpointETag = checkpointETag;
+            this.checkpointExists = checkpointExists;
+        }
+
+        public List<JsonNode> getCompletedPlans() {
+            return completedPlans;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.util.Settings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Idempotency guard for events that Service Bus may deliver more than once
+ * (lock loss, timeouts, replays from the dead-letter queue).
+ *
+ * Event ids are checked against a bounded, per-instance LRU first, so a redelivery to
+ * the same instance is dropped without any I/O. On a miss, a processed-event marker in
+ * orchestratorState is point-read; markers expire through the container TTL. Marking
+ * happens only after an event's side effects are done, so a failure part-way through
+ * is retried rather than skipped. Store errors other than throttling fail open: the
+ * event is processed, and the worst case is the duplicate this class exists to avoid.
+ */
+public class ProcessedEventRegistry {
+
+    private static final Logger logger = Logger.getLogger(ProcessedEventRegistry.class.getName());
+
+    private static final String MARKER_PREFIX = "processed-event-";
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final int DEFAULT_TTL_DAYS = 7; // Covers redeliveries and dead-letter replays
+
+    private static ProcessedEventRegistry instance;
+
+    private final Supplier<? extends OrchestratorStore> storeSupplier;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int markerTtlSeconds;
+    private final Map<String, Boolean> recent;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong durableHits = new AtomicLong();
+
+    /**
+     * @param storeSupplier Supplies the store holding the durable markers
+     * @param cacheSize Maximum number of event ids remembered in memory
+     * @param markerTtl How long a durable marker is kept
+     */
+    public ProcessedEventRegistry(Supplier<? extends OrchestratorStore> storeSupplier, int cacheSize, Duration markerTtl) {
+        this.storeSupplier = storeSupplier;
+        this.markerTtlSeconds = (int) markerTtl.toSeconds();
+        this.recent = new LinkedHashMap<>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a registry with the default cache size and marker TTL.
+     *
+     * @param storeSupplier Supplies the store holding the durable markers
+     */
+    public ProcessedEventRegistry(Supplier<? extends OrchestratorStore> storeSupplier) {
+        this(storeSupplier, DEFAULT_CACHE_SIZE, Duration.ofDays(DEFAULT_TTL_DAYS));
+    }
+
+    /**
+     * Registry shared by every handler in this instance, backed by Cosmos DB and configured
+     * from PROCESSED_EVENT_CACHE_SIZE and PROCESSED_EVENT_TTL_DAYS.
+     */
+    public static synchronized ProcessedEventRegistry getInstance() {
+        if (instance == null) {
+            instance = new ProcessedEventRegistry(
+                    CosmosDBService::getInstance,
+                    Settings.readInt("PROCESSED_EVENT_CACHE_SIZE", DEFAULT_CACHE_SIZE),
+                    Duration.ofDays(Settings.readInt("PROCESSED_EVENT_TTL_DAYS", DEFAULT_TTL_DAYS)));
+        }
+        return instance;
+    }
+
+    /**
+     * Whether an event has already been processed, by this or any other instance.
+     *
+     * @param eventType Event type, e.g. "SubscriptionActivated"
+     * @param eventId Publisher-assigned event id; events without one are never treated as duplicates
+     * @throws StoreException if the marker read is throttled
+     */
+    public boolean isProcessed(String eventType, String eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        if (isRecentlyProcessed(eventType, eventId)) {
+            return true;
+        }
+
+        String markerId = markerId(eventType, eventId);
+        try {
+            if (storeSupplier.get().readDocument(OrchestratorStore.STATE_CONTAINER, markerId, markerId).isPresent()) {
+                durableHits.incrementAndGet();
+                remember(markerId);
+                return true;
+            }
+        } catch (StoreException e) {
+            if (e.isThrottled()) {
+                throw e;
+            }
+            logger.log(Level.WARNING, "Could not read processed-event marker {0}: {1}",
+                    new Object[]{markerId, e.getMessage()});
+        }
+        return false;
+    }
+
+    /**
+     * Batch form of {@link #isProcessed}: one readMany for every id not found in memory.
+     *
+     * @return The subset of eventIds that were already processed
+     * @throws StoreException if the marker read is throttled
+     */
+    public Set<String> findProcessed(String eventType, Collection<String> eventIds) {
+        Set<String> processed = new HashSet<>();
+        Map<String, String> eventIdsByMarker = new HashMap<>();
+        for (String eventId : eventIds) {
+            if (eventId == null) {
+                continue;
+            }
+            if (isRecentlyProcessed(eventType, eventId)) {
+                processed.add(eventId);
+            } else {
+                eventIdsByMarker.put(markerId(eventType, eventId), eventId);
+            }
+        }
+
+        if (eventIdsByMarker.isEmpty()) {
+            return processed;
+        }
+        try {
+            for (String markerId : storeSupplier.get()
+                    .readDocumentsById(OrchestratorStore.STATE_CONTAINER, eventIdsByMarker.keySet()).keySet()) {
+                durableHits.incrementAndGet();
+                remember(markerId);
+                processed.add(eventIdsByMarker.get(markerId));
+            }
+        } catch (StoreException e) {
+            if (e.isThrottled()) {
+                throw e;
+            }
+            logger.log(Level.WARNING, "Could not read {0} processed-event markers: {1}",
+                    new Object[]{eventIdsByMarker.size(), e.getMessage()});
+        }
+        return processed;
+    }
+
+    /**
+     * Records that an event's side effects are complete. A failed write is logged, not
+     * thrown: the event is already handled, and the in-memory entry still covers
+     * redeliveries to this instance.
+     */
+    public void markProcessed(String eventType, String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        String markerId = markerId(eventType, eventId);
+        remember(markerId);
+        try {
+            storeSupplier.get().upsertDocument(OrchestratorStore.STATE_CONTAINER, markerId,
+                    marker(markerId, eventType, eventId, Instant.now()));
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not record processed-event marker {0}: {1}",
+                    new Object[]{markerId, e.getMessage()});
+        }
+    }
+
+    /**
+     * Batch form of {@link #markProcessed(String, String)}, written with one bulk upsert.
+     */
+    public void markProcessed(String eventType, Collection<String> eventIds) {
+        Instant now = Instant.now();
+        List<JsonNode> markers = new ArrayList<>(eventIds.size());
+        for (String eventId : eventIds) {
+            if (eventId != null) {
+                String markerId = markerId(eventType, eventId);
+                remember(markerId);
+                markers.add(marker(markerId, eventType, eventId, now));
+            }
+        }
+
+        if (markers.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, StoreException> failures =
+                    storeSupplier.get().upsertDocumentsById(OrchestratorStore.STATE_CONTAINER, markers);
+            if (!failures.isEmpty()) {
+                logger.log(Level.WARNING, "Could not record {0} of {1} processed-event markers",
+                        new Object[]{failures.size(), markers.size()});
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not record {0} processed-event markers: {1}",
+                    new Object[]{markers.size(), e.getMessage()});
+        }
+    }
+
+    /**
+     * In-memory check only, for handlers with no store side effects worth a durable marker.
+     */
+    public boolean isRecentlyProcessed(String eventType, String eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        boolean hit;
+        synchronized (recent) {
+            hit = recent.get(markerId(eventType, eventId)) != null;
+        }
+        if (hit) {
+            localHits.incrementAndGet();
+        }
+        return hit;
+    }
+
+    /**
+     * Remembers an event in memory only; see {@link #isRecentlyProcessed}.
+     */
+    public void rememberProcessed(String eventType, String eventId) {
+        if (eventId != null) {
+            remember(markerId(eventType, eventId));
+        }
+    }
+
+    /**
+     * Duplicates dropped by the in-memory cache since startup.
+     */
+    public long getLocalHitCount() {
+        return localHits.get();
+    }
+
+    /**
+     * Duplicates dropped because another instance (or an earlier process) had marked them.
+     */
+    public long getDurableHitCount() {
+        return durableHits.get();
+    }
+
+    private void remember(String markerId) {
+        synchronized (recent) {
+            recent.put(markerId, Boolean.TRUE);
+        }
+    }
+
+    private ObjectNode marker(String markerId, String eventType, String eventId, Instant processedAt) {
+        ObjectNode marker = objectMapper.createObjectNode();
+        marker.put("id", markerId);
+        marker.put("eventType", eventType);
+        marker.put("eventId", eventId);
+        marker.put("processedAt", processedAt.toString());
+        marker.put("ttl", markerTtlSeconds);
+        return marker;
+    }
+
+    private static String markerId(String eventType, String eventId) {
+        return MARKER_PREFIX + eventType + "-" + eventId;
+    }
+}
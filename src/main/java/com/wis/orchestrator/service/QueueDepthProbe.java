@@ -0,0 +1,14 @@
+package com.wis.orchestrator.service;
+
+/**
+ * Reads how many messages are waiting on a queue.
+ * Abstracted so the lane monitor can run against an in-memory sender in load tests.
+ */
+public interface QueueDepthProbe {
+
+    /**
+     * @param queueName Queue name
+     * @return Number of active (deliverable) messages on the queue
+     */
+    long getActiveMessageCount(String queueName);
+}
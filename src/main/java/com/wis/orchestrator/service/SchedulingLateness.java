@@ -0,0 +1,121 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.util.Settings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Measures how late scheduled messages leave the orchestrator.
+ *
+ * Messages built with {@link OutboundMessage.Builder#schedule} carry their intended
+ * delivery time and pickup time. When such a message is enqueued it is stamped with the
+ * enqueue time, and two latenesses are recorded per message type and delivery slot (UTC
+ * hour of the intended time): pickup (found due vs due) and enqueue (handed to Service
+ * Bus vs due). Messages that already carry an enqueue time are resends (outbox retries,
+ * dead-letter replays) and are not counted again. message-handler can add the send time
+ * from the same properties to get the full delivery lateness.
+ */
+public class SchedulingLateness {
+
+    public static final String LATENESS_METRIC = "orchestrator_schedule_lateness_seconds";
+    public static final String SLO_BREACHES_METRIC = "orchestrator_schedule_slo_breaches_total";
+
+    private static final double MILLIS_PER_SECOND = 1000d;
+    private static final int DEFAULT_SLO_SECONDS = 600; // Two timer ticks
+    // Seconds late; timer runs are minutes apart, so the bounds reach well past the SLO
+    private static final double[] LATENESS_BUCKETS = {1, 5, 15, 30, 60, 120, 300, 600, 900, 1800, 3600, 7200, 21600};
+    private static final String[] SLOTS = new String[24];
+
+    static {
+        for (int hour = 0; hour < SLOTS.length; hour++) {
+            SLOTS[hour] = String.format("%02d", hour);
+        }
+    }
+
+    private static SchedulingLateness instance;
+
+    private final MetricsRegistry metrics;
+    private final long sloMillis;
+
+    /**
+     * @param metrics Registry the lateness histograms are kept in
+     * @param slo Enqueue lateness above which a message counts as an SLO breach
+     */
+    public SchedulingLateness(MetricsRegistry metrics, Duration slo) {
+        this.metrics = metrics;
+        this.sloMillis = slo.toMillis();
+    }
+
+    /**
+     * Tracker backed by the shared registry, with the SLO from SCHEDULE_LATENESS_SLO_SECONDS.
+     */
+    public static synchronized SchedulingLateness getInstance() {
+        if (instance == null) {
+            instance = new SchedulingLateness(MetricsRegistry.getInstance(),
+                    Duration.ofSeconds(Settings.readInt("SCHEDULE_LATENESS_SLO_SECONDS", DEFAULT_SLO_SECONDS)));
+        }
+        return instance;
+    }
+
+    /**
+     * Stamps scheduled messages with the enqueue time and records their lateness.
+     * Messages without a scheduled time, or already stamped, are left alone.
+     *
+     * @param messages Messages about to be handed to Service Bus
+     * @param enqueuedAt Time they are handed over
+     */
+    public void recordEnqueued(List<OutboundMessage> messages, Instant enqueuedAt) {
+        for (OutboundMessage message : messages) {
+            Object scheduledFor = message.getApplicationProperties().get(OutboundMessage.SCHEDULED_FOR_PROPERTY);
+            if (scheduledFor == null
+                    || message.getApplicationProperties().containsKey(OutboundMessage.ENQUEUED_AT_PROPERTY)) {
+                continue;
+            }
+            message.getApplicationProperties().put(OutboundMessage.ENQUEUED_AT_PROPERTY, enqueuedAt.toString());
+
+            Instant scheduled = parse(scheduledFor);
+            if (scheduled == null) {
+                continue;
+            }
+            String messageType = String.valueOf(message.getApplicationProperties()
+                    .getOrDefault(OutboundMessage.MESSAGE_TYPE_PROPERTY, "unknown"));
+            String slot = SLOTS[scheduled.atOffset(ZoneOffset.UTC).getHour()];
+
+            Instant pickedUpAt = parse(message.getApplicationProperties().get(OutboundMessage.PICKED_UP_AT_PROPERTY));
+            if (pickedUpAt != null) {
+                lateness(messageType, slot, "pickup").record(latenessMillis(scheduled, pickedUpAt));
+            }
+            long enqueueLateness = latenessMillis(scheduled, enqueuedAt);
+            lateness(messageType, slot, "enqueue").record(enqueueLateness);
+            if (enqueueLateness > sloMillis) {
+                metrics.counter(SLO_BREACHES_METRIC, "Scheduled messages enqueued later than the lateness SLO",
+                        "message_type", messageType).increment();
+            }
+        }
+    }
+
+    private Histogram lateness(String messageType, String slot, String stage) {
+        return metrics.histogram(LATENESS_METRIC, "How long after its scheduled time a message reached a stage",
+                MILLIS_PER_SECOND, LATENESS_BUCKETS, "message_type", messageType, "slot", slot, "stage", stage);
+    }
+
+    // Early messages count as on time
+    private static long latenessMillis(Instant scheduled, Instant reached) {
+        return Math.max(0, Duration.between(scheduled, reached).toMillis());
+    }
+
+    private static Instant parse(Object timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(timestamp.toString());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.wis.orchestrator.service;
+
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.azure.messaging.servicebus.ServiceBusReceiverClient;
+import com.azure.messaging.servicebus.models.ServiceBusReceiveMode;
+import com.azure.messaging.servicebus.models.SubQueue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DeadLetterQueue} over a Service Bus dead-letter sub-queue, using a peek-lock receiver.
+ * Create one per drain run and close it when done.
+ */
+public class ServiceBusDeadLetterQueue implements DeadLetterQueue, AutoCloseable {
+
+    // How long a receive waits for the first message before treating the queue as drained
+    private static final Duration RECEIVE_WAIT = Duration.ofSeconds(5);
+
+    private final ServiceBusReceiverClient receiver;
+
+    public ServiceBusDeadLetterQueue(DeadLetterSource source) {
+        String connectionString = System.getenv("ServiceBusConnection");
+        if (connectionString == null) {
+            throw new IllegalStateException("ServiceBusConnection environment variable must be set");
+        }
+
+        ServiceBusClientBuilder.ServiceBusReceiverClientBuilder builder = new ServiceBusClientBuilder()
+                .connectionString(connectionString)
+                .receiver()
+                .subQueue(SubQueue.DEAD_LETTER_QUEUE)
+                .receiveMode(ServiceBusReceiveMode.PEEK_LOCK);
+
+        if (source.isSubscription()) {
+            builder.topicName(source.getTopicName()).subscriptionName(source.getSubscriptionName());
+        } else {
+            builder.queueName(source.getQueueName());
+        }
+
+        this.receiver = builder.buildClient();
+    }
+
+    @Override
+    public List<DeadLetteredMessage> receive(int maxMessages) {
+        List<DeadLetteredMessage> messages = new ArrayList<>(maxMessages);
+        for (ServiceBusReceivedMessage received : receiver.receiveMessages(maxMessages, RECEIVE_WAIT)) {
+            messages.add(new DeadLetteredMessage(
+                    received.getSequenceNumber(),
+                    received.getMessageId(),
+                    received.getSessionId(),
+                    received.getBody() != null ? received.getBody().toString() : null,
+                    received.getDeadLetterReason(),
+                    received.getDeadLetterErrorDescription(),
+                    received.getDeliveryCount(),
+                    received.getEnqueuedTime() != null ? received.getEnqueuedTime().toInstant() : null,
+                    received.getApplicationProperties(),
+                    received));
+        }
+        return messages;
+    }
+
+    @Override
+    public void complete(DeadLetteredMessage message) {
+        receiver.complete((ServiceBusReceivedMessage) message.getHandle());
+    }
+
+    @Override
+    public void abandon(DeadLetteredMessage message) {
+        receiver.abandon((ServiceBusReceivedMessage) message.getHandle());
+    }
+
+    @Override
+    public void close() {
+        receiver.close();
+    }
+}
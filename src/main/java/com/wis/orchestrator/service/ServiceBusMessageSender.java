@@ -0,0 +1,102 @@
+package com.wis.orchestrator.service;
+
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
+import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import com.wis.orchestrator.model.OutboundMessage;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service Bus SDK implementation of {@link MessageSender}.
+ * Singleton pattern for use in Azure Functions; one sender client is kept per queue
+ * and messages are packed into as few size-limited batches as possible.
+ */
+public class ServiceBusMessageSender implements MessageSender {
+
+    private static ServiceBusMessageSender instance;
+    private final String connectionString;
+    private final Map<String, ServiceBusSenderClient> senders = new ConcurrentHashMap<>();
+
+    private ServiceBusMessageSender() {
+        this.connectionString = System.getenv("ServiceBusConnection");
+
+        if (connectionString == null) {
+            throw new IllegalStateException("ServiceBusConnection environment variable must be set");
+        }
+    }
+
+    public static synchronized ServiceBusMessageSender getInstance() {
+        if (instance == null) {
+            instance = new ServiceBusMessageSender();
+        }
+        return instance;
+    }
+
+    @Override
+    public void send(String queueName, List<OutboundMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        ServiceBusSenderClient sender = senderFor(queueName);
+        ServiceBusMessageBatch batch = sender.createMessageBatch();
+        for (OutboundMessage message : messages) {
+            ServiceBusMessage serviceBusMessage = toServiceBusMessage(message);
+            if (batch.tryAddMessage(serviceBusMessage)) {
+                continue;
+            }
+
+            // Batch is full - send it and start a new one
+            sender.sendMessages(batch);
+            batch = sender.createMessageBatch();
+            if (!batch.tryAddMessage(serviceBusMessage)) {
+                throw new IllegalArgumentException(
+                        "Message " + message.getMessageId() + " is too large for a Service Bus batch");
+            }
+        }
+
+        if (batch.getCount() > 0) {
+            sender.sendMessages(batch);
+        }
+    }
+
+    /**
+     * Creating a batch needs the maximum message size from an open send link, so this
+     * opens the connection and link if they are down and fails if they cannot be opened.
+     */
+    @Override
+    public void probe(String queueName) {
+        senderFor(queueName).createMessageBatch();
+    }
+
+    private ServiceBusSenderClient senderFor(String queueName) {
+        return senders.computeIfAbsent(queueName, name -> new ServiceBusClientBuilder()
+                .connectionString(connectionString)
+                .sender()
+                .queueName(name)
+                .buildClient());
+    }
+
+    private static ServiceBusMessage toServiceBusMessage(OutboundMessage message) {
+        ServiceBusMessage serviceBusMessage = new ServiceBusMessage(message.getBody());
+        serviceBusMessage.setContentType("application/json");
+        if (message.getMessageId() != null) {
+            serviceBusMessage.setMessageId(message.getMessageId());
+        }
+        if (message.getSessionId() != null) {
+            serviceBusMessage.setSessionId(message.getSessionId());
+        }
+        if (message.getScheduledEnqueueTime() != null) {
+            serviceBusMessage.setScheduledEnqueueTime(
+                    OffsetDateTime.ofInstant(message.getScheduledEnqueueTime(), ZoneOffset.UTC));
+        }
+        serviceBusMessage.getApplicationProperties().putAll(message.getApplicationProperties());
+        return serviceBusMessage;
+    }
+}
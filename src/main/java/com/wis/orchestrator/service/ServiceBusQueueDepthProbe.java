@@ -0,0 +1,39 @@
+package com.wis.orchestrator.service;
+
+import com.azure.messaging.servicebus.administration.ServiceBusAdministrationClient;
+import com.azure.messaging.servicebus.administration.ServiceBusAdministrationClientBuilder;
+
+/**
+ * Service Bus implementation of {@link QueueDepthProbe}, backed by the administration client.
+ * Singleton pattern for use in Azure Functions. The connection needs Manage rights to read
+ * queue runtime properties.
+ */
+public class ServiceBusQueueDepthProbe implements QueueDepthProbe {
+
+    private static ServiceBusQueueDepthProbe instance;
+    private final ServiceBusAdministrationClient adminClient;
+
+    private ServiceBusQueueDepthProbe() {
+        String connectionString = System.getenv("ServiceBusConnection");
+
+        if (connectionString == null) {
+            throw new IllegalStateException("ServiceBusConnection environment variable must be set");
+        }
+
+        this.adminClient = new ServiceBusAdministrationClientBuilder()
+                .connectionString(connectionString)
+                .buildClient();
+    }
+
+    public static synchronized ServiceBusQueueDepthProbe getInstance() {
+        if (instance == null) {
+            instance = new ServiceBusQueueDepthProbe();
+        }
+        return instance;
+    }
+
+    @Override
+    public long getActiveMessageCount(String queueName) {
+        return adminClient.getQueueRuntimeProperties(queueName).getActiveMessageCount();
+    }
+}
@@ -0,0 +1,115 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.entity.ConversationStateEntity;
+import com.wis.orchestrator.entity.CustomerEntity;
+import com.wis.orchestrator.model.CustomerRegisteredEvent;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.model.ScheduledMessageRequest;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+import com.wis.orchestrator.model.WelcomeMessage;
+import com.wis.orchestrator.util.JsonMappers;
+import com.wis.orchestrator.util.SentryHelper;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves the one-off costs of a cold start off the first invocation: building the shared
+ * mapper's serializers for the trigger and message types, Sentry initialization, and the
+ * Cosmos DB client, whose build opens the connections and metadata for the hot containers.
+ *
+ * Started once per process by {@link com.wis.orchestrator.CachingFunctionInstanceInjector}
+ * when the host creates the first function instance. Each task runs on a daemon thread of
+ * its own, so they overlap each other and the host's startup; an invocation that arrives
+ * early blocks only on what it needs, e.g. on {@link CosmosDBService#getInstance()} while
+ * the client is being built. A failed task is logged and otherwise ignored, and the first
+ * invocation that needs it fails and reports as before. Cosmos DB is skipped when
+ * COSMOS_DB_URI is not set, and STARTUP_WARMUP_ENABLED=false turns the warmup off.
+ */
+public final class StartupWarmup {
+
+    private static final Logger logger = Logger.getLogger(StartupWarmup.class.getName());
+
+    private static final List<Class<?>> JSON_TYPES = List.of(
+            SubscriptionActivatedEvent.class, CustomerRegisteredEvent.class, OrchestrationRetryMessage.class,
+            OutboundMessage.class, ScheduledMessageRequest.class, WelcomeMessage.class,
+            CustomerEntity.class, ConversationStateEntity.class);
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+    private static volatile CountDownLatch remaining = new CountDownLatch(0);
+
+    private StartupWarmup() {
+    }
+
+    /**
+     * Starts the warmup tasks unless they were started before or are disabled; returns at once.
+     */
+    public static void start() {
+        String enabled = System.getenv("STARTUP_WARMUP_ENABLED");
+        if (enabled != null && !enabled.isEmpty() && !Boolean.parseBoolean(enabled)) {
+            return;
+        }
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        boolean cosmos = System.getenv("COSMOS_DB_URI") != null;
+        remaining = new CountDownLatch(cosmos ? 3 : 2);
+        run("json", StartupWarmup::warmJson);
+        run("sentry", SentryHelper::initializeSentry);
+        if (cosmos) {
+            // Building the client opens the hot containers' connections and caches
+            run("cosmos", CosmosDBService::getInstance);
+        }
+    }
+
+    /**
+     * Waits for the started tasks to finish, e.g. before a training run for the class data
+     * sharing archive exits.
+     *
+     * @param timeoutMillis Longest time to wait
+     * @return Whether every task finished in time
+     */
+    public static boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+        return remaining.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads an empty object into each type and writes the result, which builds and caches
+     * the type's deserializer and serializer on the shared mapper.
+     */
+    private static void warmJson() {
+        ObjectMapper objectMapper = JsonMappers.javaTime();
+        for (Class<?> type : JSON_TYPES) {
+            try {
+                objectMapper.writeValueAsString(objectMapper.readValue("{}", type));
+            } catch (Exception e) {
+                logger.log(Level.FINE, "JSON warmup skipped {0}: {1}", new Object[]{type.getSimpleName(), e.getMessage()});
+            }
+        }
+    }
+
+    private static void run(String name, Runnable task) {
+        CountDownLatch latch = remaining;
+        Thread thread = new Thread(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                task.run();
+                logger.log(Level.INFO, "Startup warmup {0} finished in {1} ms",
+                        new Object[]{name, (System.nanoTime() - startNanos) / 1_000_000});
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Startup warmup " + name + " failed", e);
+            } finally {
+                latch.countDown();
+            }
+        }, "startup-warmup-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
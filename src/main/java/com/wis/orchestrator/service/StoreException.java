@@ -0,0 +1,54 @@
+package com.wis.orchestrator.service;
+
+import java.time.Duration;
+
+/**
+ * Raised by {@link OrchestratorStore} implementations when a data-access call fails.
+ * Carries the Cosmos-style HTTP status code so callers can tell throttling (429),
+ * conflicts (409) and precondition failures (412) apart from hard errors.
+ */
+public class StoreException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int NOT_FOUND = 404;
+    public static final int CONFLICT = 409;
+    public static final int PRECONDITION_FAILED = 412;
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public StoreException(String message, int statusCode, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public StoreException(String message, int statusCode) {
+        this(message, statusCode, null, null);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Server-suggested backoff for throttled requests, or null if none was provided.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isThrottled() {
+        return statusCode == TOO_MANY_REQUESTS;
+    }
+
+    public boolean isConflict() {
+        return statusCode == CONFLICT;
+    }
+
+    public boolean isPreconditionFailed() {
+        return statusCode == PRECONDITION_FAILED;
+    }
+}
@@ -0,0 +1,26 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A raw JSON document read from the store together with its ETag,
+ * for optimistic-concurrency replaces.
+ */
+public class VersionedDocument {
+
+    private final JsonNode document;
+    private final String eTag;
+
+    public VersionedDocument(JsonNode document, String eTag) {
+        this.document = document;
+        this.eTag = eTag;
+    }
+
+    public JsonNode getDocument() {
+        return document;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+}
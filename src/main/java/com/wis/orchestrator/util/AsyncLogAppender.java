@@ -0,0 +1,125 @@
+package com.wis.orchestrator.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Hands structured log events to java.util.logging from a background thread.
+ *
+ * The calling thread only enqueues the event; building the message text and running
+ * the logging handlers (which forward to Application Insights) happen on the appender
+ * thread. The queue is bounded: when it is full new events are dropped and counted
+ * rather than blocking a function, and the count is logged once the queue drains.
+ * The queue is drained on JVM shutdown.
+ *
+ * With LOG_ASYNC_ENABLED=false events are written on the calling thread instead.
+ */
+final class AsyncLogAppender {
+
+    private static final Logger logger = Logger.getLogger(AsyncLogAppender.class.getName());
+
+    private static final int DEFAULT_QUEUE_SIZE = 8192;
+    private static final int DRAIN_BATCH = 256;
+
+    private static AsyncLogAppender instance;
+
+    private final BlockingQueue<StructuredLogger.LogEvent> queue;
+    private final boolean async;
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+
+    private AsyncLogAppender(int queueSize, boolean async) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.async = async;
+        if (async) {
+            Thread worker = new Thread(this::run, "structured-log-appender");
+            worker.setDaemon(true);
+            worker.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "structured-log-shutdown-drain"));
+        }
+    }
+
+    static synchronized AsyncLogAppender getInstance() {
+        if (instance == null) {
+            String enabled = System.getenv("LOG_ASYNC_ENABLED");
+            instance = new AsyncLogAppender(
+                    Settings.readInt("LOG_ASYNC_QUEUE_SIZE", DEFAULT_QUEUE_SIZE),
+                    enabled == null || enabled.isEmpty() || Boolean.parseBoolean(enabled));
+        }
+        return instance;
+    }
+
+    void append(StructuredLogger.LogEvent event) {
+        if (!async) {
+            write(event);
+        } else if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Events dropped because the queue was full, since startup.
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void run() {
+        List<StructuredLogger.LogEvent> batch = new ArrayList<>(DRAIN_BATCH);
+        while (true) {
+            try {
+                StructuredLogger.LogEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    write(first);
+                    queue.drainTo(batch, DRAIN_BATCH);
+                    for (StructuredLogger.LogEvent event : batch) {
+                        write(event);
+                    }
+                    batch.clear();
+                }
+                reportDropped();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // A failing handler must not kill the appender
+                batch.clear();
+            }
+        }
+    }
+
+    private synchronized void drain() {
+        StructuredLogger.LogEvent event;
+        while ((event = queue.poll()) != null) {
+            write(event);
+        }
+        reportDropped();
+    }
+
+    private synchronized void reportDropped() {
+        long total = dropped.get();
+        if (total > droppedReported) {
+            logger.log(Level.WARNING, "Dropped {0} log events; structured log queue was full",
+                    total - droppedReported);
+            droppedReported = total;
+        }
+    }
+
+    private static void write(StructuredLogger.LogEvent event) {
+        LogRecord record = new LogRecord(event.getLevel(), event.format());
+        record.setLoggerName(event.getLogger().getName());
+        // Set explicitly so the handler does not infer (and walk the stack for) this class
+        record.setSourceClassName(event.getLogger().getName());
+        record.setSourceMethodName(null);
+        record.setThrown(event.getThrown());
+        record.setInstant(event.getTimestamp());
+        event.getLogger().log(record);
+    }
+}
@@ -0,0 +1,25 @@
+package com.wis.orchestrator.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one Cosmos DB call, including every page of a query.
+ */
+@Name("com.wis.orchestrator.CosmosOperation")
+@Label("Cosmos DB Operation")
+@Category({"WIS Orchestrator", "Cosmos DB"})
+@StackTrace(false)
+public final class CosmosOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Container")
+    public String container;
+
+    @Label("Request Charge (RU)")
+    public double requestCharge;
+}
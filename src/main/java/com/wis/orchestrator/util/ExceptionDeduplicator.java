@@ -0,0 +1,90 @@
+package com.wis.orchestrator.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Suppresses repeats of the same exception within a time window.
+ *
+ * Exceptions are fingerprinted by the types in their cause chain and the top frames of
+ * the root cause, not by message, so the same failure for 5,000 different customers in
+ * one timer tick is one fingerprint. The first occurrence in a window is reported; the
+ * rest are counted, and the count rides along on the next report after the window ends.
+ */
+class ExceptionDeduplicator {
+
+    private static final int ROOT_CAUSE_FRAMES = 3;
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    private final long windowNanos;
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param window How long a reported fingerprint suppresses repeats
+     * @param maxFingerprints Fingerprints remembered; the least recently seen are forgotten first
+     */
+    ExceptionDeduplicator(Duration window, int maxFingerprints) {
+        this.windowNanos = window.toNanos();
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxFingerprints;
+            }
+        };
+    }
+
+    /**
+     * Decides whether an exception with this fingerprint should be reported now.
+     *
+     * @return -1 to suppress it, otherwise the number of repeats suppressed since the last report
+     */
+    synchronized long admit(String fingerprint) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            entries.put(fingerprint, new Entry(now));
+            return 0;
+        }
+        if (now - entry.reportedAt < windowNanos) {
+            entry.suppressed++;
+            return -1;
+        }
+        long suppressed = entry.suppressed;
+        entry.reportedAt = now;
+        entry.suppressed = 0;
+        return suppressed;
+    }
+
+    /**
+     * Fingerprint of an exception: the type of each exception in the cause chain, then
+     * the top frames of the root cause.
+     */
+    static String fingerprint(Throwable exception) {
+        StringBuilder fingerprint = new StringBuilder(256);
+        Throwable root = exception;
+        for (int depth = 0; root != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            fingerprint.append(root.getClass().getName()).append('|');
+            if (root.getCause() == null || root.getCause() == root) {
+                break;
+            }
+            root = root.getCause();
+        }
+
+        StackTraceElement[] frames = root.getStackTrace();
+        for (int i = 0; i < Math.min(ROOT_CAUSE_FRAMES, frames.length); i++) {
+            fingerprint.append(frames[i].getClassName()).append('.').append(frames[i].getMethodName())
+                    .append(':').append(frames[i].getLineNumber()).append('|');
+        }
+        return fingerprint.toString();
+    }
+
+    private static class Entry {
+        private long reportedAt;
+        private long suppressed;
+
+        Entry(long reportedAt) {
+            this.reportedAt = reportedAt;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.wis.orchestrator.util;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The on-demand Java Flight Recorder recording of this instance.
+ *
+ * At most one recording runs at a time. It uses one of the JDK's built-in settings
+ * ("default" for roughly 1% overhead, "profile" for more detailed CPU and allocation
+ * sampling), has the orchestrator's own events enabled, and keeps a bounded window so
+ * a recording left running cannot fill the disk. A dump copies the window so far to a
+ * file without stopping the recording; only the newest few dumps are kept.
+ */
+public final class FlightRecordings {
+
+    private static final Logger logger = Logger.getLogger(FlightRecordings.class.getName());
+
+    private static final String RECORDING_NAME = "wis-orchestrator";
+    private static final long MAX_SIZE_BYTES = 100L * 1024 * 1024;
+    private static final int MAX_DUMPS = 5;
+    private static final String[] EVENTS = {
+            "com.wis.orchestrator.FunctionInvocation",
+            "com.wis.orchestrator.CosmosOperation",
+            "com.wis.orchestrator.MessageFlush",
+            "com.wis.orchestrator.Serialization"
+    };
+
+    private static final FlightRecordings INSTANCE = new FlightRecordings();
+
+    private Recording recording;
+
+    private FlightRecordings() {
+    }
+
+    public static FlightRecordings getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts a recording, unless one is already running.
+     *
+     * @param settings Name of a JDK recording configuration, "default" or "profile"
+     * @param maxAge How much history the recording keeps
+     * @return true if a recording was started
+     */
+    public synchronized boolean start(String settings, Duration maxAge) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return false;
+        }
+        close();
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(MAX_SIZE_BYTES);
+        for (String event : EVENTS) {
+            started.enable(event);
+        }
+        started.start();
+        recording = started;
+        logger.log(Level.INFO, "Flight recording started with {0} settings, keeping {1}",
+                new Object[]{settings, maxAge});
+        return true;
+    }
+
+    /**
+     * Writes the current recording to a new .jfr file in a directory, then deletes all but
+     * the newest dumps there.
+     *
+     * @param directory Directory for the dump; created if missing
+     * @param instanceId Included in the file name, so dumps of several instances can share a directory
+     * @return The file written, or null if there is no recording
+     */
+    public synchronized Path dump(Path directory, String instanceId) throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Files.createDirectories(directory);
+        String timestamp = Instant.now().toString().replace(":", "").replace(".", "");
+        Path file = directory.resolve(RECORDING_NAME + "-" + instanceId + "-" + timestamp + ".jfr");
+        recording.dump(file);
+        logger.log(Level.INFO, "Flight recording dumped to {0} ({1} bytes)", new Object[]{file, Files.size(file)});
+        deleteOldDumps(directory);
+        return file;
+    }
+
+    /**
+     * Stops and discards the current recording.
+     *
+     * @return true if a recording was running
+     */
+    public synchronized boolean stop() {
+        boolean running = recording != null && recording.getState() == RecordingState.RUNNING;
+        close();
+        if (running) {
+            logger.log(Level.INFO, "Flight recording stopped");
+        }
+        return running;
+    }
+
+    /**
+     * State, start time, duration so far and size of the current recording.
+     */
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "none");
+            return status;
+        }
+        status.put("state", recording.getState().name().toLowerCase());
+        if (recording.getStartTime() != null) {
+            status.put("startedAt", recording.getStartTime().toString());
+        }
+        status.put("maxAgeSeconds", recording.getMaxAge() != null ? recording.getMaxAge().getSeconds() : null);
+        status.put("sizeBytes", recording.getSize());
+        return status;
+    }
+
+    private static void deleteOldDumps(Path directory) throws IOException {
+        List<Path> dumps = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(RECORDING_NAME + "-")
+                    && file.getFileName().toString().endsWith(".jfr")).forEach(dumps::add);
+        }
+        // Newest first; dumps of every instance sharing the directory count towards the limit
+        dumps.sort(Comparator.comparing((Path file) -> file.toFile().lastModified()).reversed());
+        for (int i = MAX_DUMPS; i < dumps.size(); i++) {
+            Files.deleteIfExists(dumps.get(i));
+        }
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
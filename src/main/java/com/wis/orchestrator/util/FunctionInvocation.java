@@ -0,0 +1,93 @@
+package com.wis.orchestrator.util;
+
+import com.wis.orchestrator.service.MetricsRegistry;
+import io.sentry.ITransaction;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures one function invocation: its latency and failures in the metrics registry,
+ * and a Sentry transaction that Cosmos DB and Service Bus spans nest under. Structured
+ * log events on the invoking thread are tagged with the function and an invocation id,
+ * and a {@link FunctionInvocationEvent} is emitted while a flight recording is running.
+ *
+ * <pre>
+ * FunctionInvocation invocation = FunctionInvocation.start("MessageScheduler");
+ * try {
+ *     ...
+ * } catch (RuntimeException e) {
+ *     invocation.failed(e);
+ *     throw e;
+ * } finally {
+ *     invocation.finish();
+ * }
+ * </pre>
+ */
+public final class FunctionInvocation {
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private final String function;
+    private final long startNanos;
+    private final ITransaction transaction;
+    private final FunctionInvocationEvent event = new FunctionInvocationEvent();
+    private Throwable error;
+    private long items;
+
+    private FunctionInvocation(String function, long startNanos, ITransaction transaction) {
+        this.function = function;
+        this.startNanos = startNanos;
+        this.transaction = transaction;
+        event.begin();
+    }
+
+    /**
+     * @param function Function name as registered with the host
+     */
+    public static FunctionInvocation start(String function) {
+        StructuredLogger.setContext(function,
+                Integer.toHexString(ThreadLocalRandom.current().nextInt() | 0x10000000));
+        return new FunctionInvocation(function, System.nanoTime(), SentryHelper.startTransaction(function));
+    }
+
+    /**
+     * Records how many items (events, customers, messages) the invocation handled.
+     */
+    public void recordItems(long items) {
+        this.items = items;
+        metrics.recordItems(function, items);
+    }
+
+    /**
+     * Marks the invocation as failed; call before rethrowing.
+     */
+    public void failed(Throwable error) {
+        this.error = error;
+        metrics.recordFailure(function);
+    }
+
+    /**
+     * Marks the invocation as deferred: it completed without handling its event, which
+     * was rescheduled. Deferrals are counted apart from failures.
+     */
+    public void deferred() {
+        metrics.recordDeferral(function);
+    }
+
+    /**
+     * Records the latency, finishes the transaction and clears the log context; call from
+     * a finally block.
+     */
+    public void finish() {
+        metrics.recordInvocation(function, startNanos);
+        SentryHelper.finishTransaction(transaction, error);
+        StructuredLogger.clearContext();
+        event.end();
+        if (event.shouldCommit()) {
+            event.function = function;
+            event.items = items;
+            event.failed = error != null;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wis.orchestrator.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one function invocation; see {@link FunctionInvocation}.
+ */
+@Name("com.wis.orchestrator.FunctionInvocation")
+@Label("Function Invocation")
+@Category({"WIS Orchestrator", "Functions"})
+@StackTrace(false)
+public final class FunctionInvocationEvent extends jdk.jfr.Event {
+
+    @Label("Function")
+    public String function;
+
+    @Label("Items")
+    @Description("Events, customers or messages handled, if the function reports them")
+    public long items;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,28 @@
+package com.wis.orchestrator.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Shared Jackson mapper for the functions and the Cosmos DB service.
+ *
+ * An ObjectMapper is thread-safe once configured and caches the serializers and
+ * deserializers it builds per type, so one shared instance builds each of them once per
+ * process instead of once per function instance, and {@link com.wis.orchestrator.service.StartupWarmup}
+ * can build them before the first invocation. Do not reconfigure the returned mapper; a
+ * caller that needs other settings creates its own.
+ */
+public final class JsonMappers {
+
+    private static final ObjectMapper JAVA_TIME = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private JsonMappers() {
+    }
+
+    /**
+     * Default settings plus java.time support.
+     */
+    public static ObjectMapper javaTime() {
+        return JAVA_TIME;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wis.orchestrator.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one batch of messages handed to a send queue. For the output binding
+ * the host sends after the function returns, so the duration covers only the hand-off.
+ */
+@Name("com.wis.orchestrator.MessageFlush")
+@Label("Message Flush")
+@Category({"WIS Orchestrator", "Service Bus"})
+@StackTrace(false)
+public final class MessageFlushEvent extends jdk.jfr.Event {
+
+    @Label("Queue")
+    public String queue;
+
+    @Label("Path")
+    @Description("\"binding\" for the function output binding, \"sdk\" for a direct send")
+    public String path;
+
+    @Label("Messages")
+    public int messages;
+
+    @Label("Body Size")
+    @Description("Total body length in characters")
+    @DataAmount
+    public long bytes;
+}
@@ -1,18 +1,42 @@
 package com.wis.orchestrator.util;
 
+import io.sentry.ISpan;
+import io.sentry.ITransaction;
+import io.sentry.NoOpSpan;
 import io.sentry.Sentry;
-import io.sentry.SentryOptions;
+import io.sentry.SpanStatus;
+import io.sentry.TransactionContext;
+import io.sentry.TransactionOptions;
 
+import java.time.Duration;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Utility class for Sentry error tracking and monitoring.
  * Provides initialization and exception capture helpers for Azure Functions.
+ *
+ * Tracing is sampled per function by {@link SentryTraceSampler}: a low base rate, a
+ * higher rate for functions that failed recently, and a per-minute cap. Repeats of the
+ * same exception are suppressed for a window by {@link ExceptionDeduplicator}. Events
+ * are handed to the SDK's asynchronous transport, whose queue is bounded, so a capture
+ * never waits on the network.
  */
 public class SentryHelper {
 
     private static final Logger logger = Logger.getLogger(SentryHelper.class.getName());
+
+    private static final String FUNCTION_OPERATION = "function";
+
+    private static final ExceptionDeduplicator deduplicator = new ExceptionDeduplicator(
+            Duration.ofSeconds(Settings.readInt("SENTRY_DEDUP_WINDOW_SECONDS", 60)), 1000);
+    private static final SentryTraceSampler traceSampler = new SentryTraceSampler(
+            function -> Settings.readDouble("SENTRY_TRACES_SAMPLE_RATE_" + function,
+                    Settings.readDouble("SENTRY_TRACES_SAMPLE_RATE", 0.05)),
+            Settings.readDouble("SENTRY_TRACES_ERROR_SAMPLE_RATE", 1.0),
+            Duration.ofSeconds(Settings.readInt("SENTRY_TRACES_ERROR_BOOST_SECONDS", 300)),
+            Settings.readInt("SENTRY_TRACES_PER_MINUTE", 30));
+
     private static boolean initialized = false;
 
     /**
@@ -38,13 +62,16 @@ public class SentryHelper {
             Sentry.init(options -> {
                 options.setDsn(dsn);
                 options.setEnvironment(environment != null ? environment : "production");
-                options.setTracesSampleRate(1.0);
+                options.setTracesSampler(traceSampler);
                 options.setEnableTracing(true);
                 options.setSendDefaultPii(false);
-                options.setAttachStacktrace(true);
-                options.setAttachThreads(true);
+                // Exceptions carry their own stack trace; snapshotting every thread per event is not worth it
+                options.setAttachStacktrace(false);
+                options.setAttachThreads(false);
                 options.setDebug(false);
                 options.setMaxBreadcrumbs(100);
+                options.setMaxQueueSize(Settings.readInt("SENTRY_MAX_QUEUE_SIZE", 100));
+                options.setFlushTimeoutMillis(2000);
             });
 
             initialized = true;
@@ -58,6 +85,8 @@ public class SentryHelper {
     /**
      * Capture an exception to Sentry.
      * Automatically initializes Sentry if not already done.
+     * Repeats of the same failure within SENTRY_DEDUP_WINDOW_SECONDS are dropped and
+     * counted on the next report as the "suppressedDuplicates" extra.
      *
      * @param exception The exception to capture
      */
@@ -65,7 +94,16 @@ public class SentryHelper {
         ensureInitialized();
 
         try {
-            Sentry.captureException(exception);
+            long suppressed = deduplicator.admit(ExceptionDeduplicator.fingerprint(exception));
+            if (suppressed < 0) {
+                return;
+            }
+            if (suppressed == 0) {
+                Sentry.captureException(exception);
+            } else {
+                Sentry.captureException(exception,
+                        scope -> scope.setExtra("suppressedDuplicates", Long.toString(suppressed)));
+            }
         } catch (Exception e) {
             logger.log(Level.WARNING, "Failed to capture exception to Sentry", e);
         }
@@ -87,6 +125,54 @@ public class SentryHelper {
         }
     }
 
+    /**
+     * Start the transaction for one function invocation and bind it to the current scope,
+     * so {@link #startSpan} nests under it. Whether it is recorded is up to the sampler.
+     *
+     * @param function Function name as registered with the host
+     * @return The transaction; finish it with {@link #finishTransaction}
+     */
+    public static ITransaction startTransaction(String function) {
+        ensureInitialized();
+
+        TransactionOptions options = new TransactionOptions();
+        options.setBindToScope(true);
+        return Sentry.startTransaction(new TransactionContext(function, FUNCTION_OPERATION), options);
+    }
+
+    /**
+     * Finish an invocation's transaction. A failure is attached to it and raises the
+     * function's sample rate for SENTRY_TRACES_ERROR_BOOST_SECONDS.
+     *
+     * @param transaction Transaction from {@link #startTransaction}
+     * @param error What the invocation threw, or null if it succeeded
+     */
+    public static void finishTransaction(ITransaction transaction, Throwable error) {
+        if (error != null) {
+            traceSampler.recordFailure(transaction.getName());
+            transaction.setThrowable(error);
+            transaction.finish(SpanStatus.INTERNAL_ERROR);
+        } else {
+            transaction.finish(SpanStatus.OK);
+        }
+    }
+
+    /**
+     * Start a child span of the active transaction, e.g. around a Cosmos DB call or a
+     * queue send. Outside a sampled transaction this returns a no-op span and allocates nothing.
+     *
+     * @param operation Span operation, e.g. "db.cosmos.read"
+     * @param description Target of the operation, e.g. the container or queue name
+     * @return The span; always finish it
+     */
+    public static ISpan startSpan(String operation, String description) {
+        ISpan parent = initialized ? Sentry.getSpan() : null;
+        if (parent == null || !Boolean.TRUE.equals(parent.getSpanContext().getSampled())) {
+            return NoOpSpan.getInstance();
+        }
+        return parent.startChild(operation, description);
+    }
+
     /**
      * Ensure Sentry is initialized before attempting to use it.
      */
@@ -0,0 +1,92 @@
+package com.wis.orchestrator.util;
+
+import io.sentry.SamplingContext;
+import io.sentry.SentryOptions;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Decides which function invocations are traced.
+ *
+ * Each function is sampled at its own base rate. A function that failed recently is
+ * sampled at the error rate instead, so traces are there when something is going
+ * wrong. Every function is also capped at a number of traces per minute, so a busy
+ * timer loop or a burst of failures cannot flood Sentry.
+ */
+class SentryTraceSampler implements SentryOptions.TracesSamplerCallback {
+
+    private static final long MINUTE_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final Function<String, Double> baseRates;
+    private final double errorRate;
+    private final long errorBoostNanos;
+    private final int maxPerMinute;
+    private final ConcurrentMap<String, FunctionState> functions = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseRates Sample rate for a function name, looked up once per function
+     * @param errorRate Sample rate while a function has failed within errorBoost
+     * @param errorBoost How long a failure keeps a function at the error rate
+     * @param maxPerMinute Traces kept per function per minute, whatever the rate
+     */
+    SentryTraceSampler(Function<String, Double> baseRates, double errorRate, Duration errorBoost, int maxPerMinute) {
+        this.baseRates = baseRates;
+        this.errorRate = errorRate;
+        this.errorBoostNanos = errorBoost.toNanos();
+        this.maxPerMinute = maxPerMinute;
+    }
+
+    @Override
+    public Double sample(SamplingContext context) {
+        String function = context.getTransactionContext().getName();
+        FunctionState state = stateOf(function);
+        long now = System.nanoTime();
+
+        double rate = state.hasFailedSince(now - errorBoostNanos) ? errorRate : state.baseRate;
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return 0.0;
+        }
+        return state.tryAcquire(now, maxPerMinute) ? 1.0 : 0.0;
+    }
+
+    /**
+     * Raises a function to the error rate for the boost window.
+     */
+    void recordFailure(String function) {
+        stateOf(function).lastFailure.set(System.nanoTime());
+    }
+
+    private FunctionState stateOf(String function) {
+        return functions.computeIfAbsent(function, name -> new FunctionState(baseRates.apply(name)));
+    }
+
+    private static class FunctionState {
+        private final double baseRate;
+        private final AtomicLong lastFailure = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final AtomicInteger windowCount = new AtomicInteger();
+
+        FunctionState(double baseRate) {
+            this.baseRate = baseRate;
+        }
+
+        boolean hasFailedSince(long since) {
+            long failedAt = lastFailure.get();
+            return failedAt != Long.MIN_VALUE && failedAt - since > 0;
+        }
+
+        boolean tryAcquire(long now, int maxPerMinute) {
+            long start = windowStart.get();
+            if (now - start >= MINUTE_NANOS && windowStart.compareAndSet(start, now)) {
+                windowCount.set(0);
+            }
+            return windowCount.incrementAndGet() <= maxPerMinute;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.wis.orchestrator.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one JSON read or write on a hot path; see {@link TracedJson}.
+ */
+@Name("com.wis.orchestrator.Serialization")
+@Label("JSON Serialization")
+@Category({"WIS Orchestrator", "Serialization"})
+@StackTrace(false)
+public final class SerializationEvent extends jdk.jfr.Event {
+
+    @Label("Type")
+    public String type;
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Size")
+    @Description("JSON length in characters, which is the byte size for ASCII content")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,76 @@
+package com.wis.orchestrator.util;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads numeric app settings from environment variables. An unset or empty setting gives
+ * the default; an unparseable one gives the default and logs a warning naming the setting.
+ */
+public final class Settings {
+
+    private static final Logger logger = Logger.getLogger(Settings.class.getName());
+
+    private Settings() {
+    }
+
+    public static int readInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            warnInvalid(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long readLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            warnInvalid(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static double readDouble(String name, double defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            warnInvalid(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parses a value from elsewhere, e.g. a query parameter, without logging.
+     *
+     * @param value Value to parse; null or empty gives the default
+     * @param defaultValue Value used when the value is missing or not a number
+     */
+    public static int parseInt(String value, int defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static void warnInvalid(String name, String value, Object defaultValue) {
+        logger.log(Level.WARNING, "Invalid value for {0}: {1}, using {2}", new Object[]{name, value, defaultValue});
+    }
+}
@@ -0,0 +1,184 @@
+package com.wis.orchestrator.util;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Structured logging over java.util.logging, for hot paths.
+ *
+ * <pre>
+ * log.atInfo().with("customerId", customerId).with("planId", planId).log("Queued day message");
+ * </pre>
+ *
+ * A disabled level returns a shared no-op event, so the call allocates nothing beyond
+ * autoboxing. An enabled event keeps its raw fields; the text ("message key=value ...")
+ * is built on the {@link AsyncLogAppender} thread, and {@link #with(String, Supplier)}
+ * values are only computed then. Every event also carries the function name and
+ * invocation id of the invocation it was logged from.
+ */
+public final class StructuredLogger {
+
+    private static final int MAX_FIELDS = 16;
+    private static final int INITIAL_FIELDS = 6;
+    private static final ThreadLocal<String[]> context = new ThreadLocal<>();
+
+    private final Logger logger;
+
+    private StructuredLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static StructuredLogger getLogger(Class<?> type) {
+        return new StructuredLogger(Logger.getLogger(type.getName()));
+    }
+
+    public boolean isLoggable(Level level) {
+        return logger.isLoggable(level);
+    }
+
+    public LogEvent atInfo() {
+        return at(Level.INFO);
+    }
+
+    public LogEvent atWarning() {
+        return at(Level.WARNING);
+    }
+
+    public LogEvent atSevere() {
+        return at(Level.SEVERE);
+    }
+
+    public LogEvent at(Level level) {
+        if (!logger.isLoggable(level)) {
+            return LogEvent.DISABLED;
+        }
+        String[] invocation = context.get();
+        LogEvent event = new LogEvent(logger, level);
+        if (invocation != null) {
+            event.with("function", invocation[0]).with("invocationId", invocation[1]);
+        }
+        return event;
+    }
+
+    /**
+     * Events dropped since startup because the appender queue was full.
+     */
+    public static long getDroppedCount() {
+        return AsyncLogAppender.getInstance().getDroppedCount();
+    }
+
+    /**
+     * Tags events logged on this thread with the current invocation; see {@link FunctionInvocation}.
+     */
+    static void setContext(String function, String invocationId) {
+        context.set(new String[]{function, invocationId});
+    }
+
+    static void clearContext() {
+        context.remove();
+    }
+
+    /**
+     * One log event under construction. Not thread-safe; build and log it on one thread.
+     */
+    public static class LogEvent {
+
+        static final LogEvent DISABLED = new LogEvent(null, Level.OFF);
+
+        private final Logger logger;
+        private final Level level;
+        private Object[] fields;
+        private int fieldCount;
+        private Throwable thrown;
+        private String message;
+        private Instant timestamp;
+
+        private LogEvent(Logger logger, Level level) {
+            this.logger = logger;
+            this.level = level;
+            this.fields = logger == null ? null : new Object[INITIAL_FIELDS * 2];
+        }
+
+        /**
+         * Adds a key-value field; fields beyond the sixteenth are ignored.
+         */
+        public LogEvent with(String key, Object value) {
+            if (fields != null && fieldCount < MAX_FIELDS) {
+                if (fieldCount * 2 == fields.length) {
+                    fields = Arrays.copyOf(fields, MAX_FIELDS * 2);
+                }
+                fields[fieldCount * 2] = key;
+                fields[fieldCount * 2 + 1] = value;
+                fieldCount++;
+            }
+            return this;
+        }
+
+        /**
+         * Adds a field whose value is computed only if the event is written.
+         */
+        public LogEvent with(String key, Supplier<?> value) {
+            return with(key, (Object) value);
+        }
+
+        public LogEvent cause(Throwable thrown) {
+            if (logger != null) {
+                this.thrown = thrown;
+            }
+            return this;
+        }
+
+        public void log(String message) {
+            if (logger == null) {
+                return;
+            }
+            this.message = message;
+            this.timestamp = Instant.now();
+            AsyncLogAppender.getInstance().append(this);
+        }
+
+        Logger getLogger() {
+            return logger;
+        }
+
+        Level getLevel() {
+            return level;
+        }
+
+        Throwable getThrown() {
+            return thrown;
+        }
+
+        Instant getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Renders "message key=value ...", quoting values that contain spaces.
+         */
+        String format() {
+            StringBuilder text = new StringBuilder(message.length() + fieldCount * 24);
+            text.append(message);
+            for (int i = 0; i < fieldCount; i++) {
+                Object value = fields[i * 2 + 1];
+                if (value instanceof Supplier) {
+                    value = ((Supplier<?>) value).get();
+                }
+                String rendered = String.valueOf(value);
+                text.append(' ').append(fields[i * 2]).append('=');
+                if (rendered.indexOf(' ') >= 0 || rendered.isEmpty()) {
+                    text.append('"').append(rendered.replace("\"", "\\\"")).append('"');
+                } else {
+                    text.append(rendered);
+                }
+            }
+            if (thrown != null) {
+                text.append(" error=\"").append(String.valueOf(thrown.getMessage()).replace("\"", "\\\"")).append('"');
+            }
+            return text.toString();
+        }
+    }
+}
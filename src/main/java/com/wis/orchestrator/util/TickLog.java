@@ -0,0 +1,123 @@
+package com.wis.orchestrator.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Logging for one pass of a timer function over many customers.
+ *
+ * Instead of a few lines per customer, a tick counts what happened and logs one summary
+ * when it finishes. Per-customer detail is kept for a sample of customers: a customer is
+ * either always or never sampled (by hash of the id), so a sampled customer can be
+ * followed across ticks, and the number of detail lines per tick is capped. Problems
+ * (skipped or failed customers) are always counted and logged up to their own cap.
+ *
+ * <pre>
+ * TickLog tick = new TickLog(log, "MessageScheduler");
+ * for (...) {
+ *     tick.count("devotionalQueued");
+ *     tick.detail(customerId).with("planId", planId).log("Queued day message");
+ * }
+ * tick.finish();
+ * </pre>
+ *
+ * Not thread-safe; use one per invocation.
+ */
+public final class TickLog {
+
+    private static final int SAMPLE_BUCKETS = 10_000;
+    private static final int SAMPLED_BUCKETS =
+            (int) Math.round(Settings.readDouble("LOG_CUSTOMER_SAMPLE_RATE", 0.01) * SAMPLE_BUCKETS);
+    private static final int MAX_DETAIL_PER_TICK = Settings.readInt("LOG_DETAIL_MAX_PER_TICK", 20);
+    private static final int MAX_PROBLEMS_PER_TICK = Settings.readInt("LOG_PROBLEMS_MAX_PER_TICK", 20);
+
+    private final StructuredLogger log;
+    private final String tick;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, long[]> counts = new LinkedHashMap<>();
+    private int detailLogged;
+    private int detailSuppressed;
+    private int problemsLogged;
+    private int problemsSuppressed;
+
+    /**
+     * @param log Logger the detail lines and summary are written to
+     * @param tick Name of the pass, e.g. the function name
+     */
+    public TickLog(StructuredLogger log, String tick) {
+        this.log = log;
+        this.tick = tick;
+    }
+
+    public void count(String key) {
+        count(key, 1);
+    }
+
+    public void count(String key, long amount) {
+        long[] count = counts.get(key);
+        if (count == null) {
+            counts.put(key, new long[]{amount});
+        } else {
+            count[0] += amount;
+        }
+    }
+
+    /**
+     * An INFO event for a customer, or a no-op event if the customer is not sampled or the
+     * tick has already logged its share of detail.
+     */
+    public StructuredLogger.LogEvent detail(String customerId) {
+        if (!isSampled(customerId) || !log.isLoggable(Level.INFO)) {
+            return StructuredLogger.LogEvent.DISABLED;
+        }
+        if (detailLogged >= MAX_DETAIL_PER_TICK) {
+            detailSuppressed++;
+            return StructuredLogger.LogEvent.DISABLED;
+        }
+        detailLogged++;
+        return log.atInfo().with("customerId", customerId);
+    }
+
+    /**
+     * A WARNING event for a customer that was skipped or failed. Every problem is counted;
+     * past the per-tick cap the event is a no-op.
+     */
+    public StructuredLogger.LogEvent problem(String customerId) {
+        count("problems");
+        if (problemsLogged >= MAX_PROBLEMS_PER_TICK) {
+            problemsSuppressed++;
+            return StructuredLogger.LogEvent.DISABLED;
+        }
+        problemsLogged++;
+        return log.atWarning().with("customerId", customerId);
+    }
+
+    /**
+     * Logs the summary: duration, every counter, and how many lines were held back.
+     */
+    public void finish() {
+        StructuredLogger.LogEvent summary = log.atInfo()
+                .with("tick", tick)
+                .with("durationMs", (System.nanoTime() - startNanos) / 1_000_000);
+        for (Map.Entry<String, long[]> count : counts.entrySet()) {
+            summary.with(count.getKey(), count.getValue()[0]);
+        }
+        if (detailSuppressed > 0) {
+            summary.with("detailSuppressed", detailSuppressed);
+        }
+        if (problemsSuppressed > 0) {
+            summary.with("problemsSuppressed", problemsSuppressed);
+        }
+        summary.log("Tick summary");
+    }
+
+    private static boolean isSampled(String customerId) {
+        if (customerId == null || SAMPLED_BUCKETS <= 0) {
+            return false;
+        }
+        // Spread the String hash so sequential ids do not land in neighbouring buckets
+        int hash = customerId.hashCode() * 0x9E3779B9;
+        return Integer.remainderUnsigned(hash ^ (hash >>> 16), SAMPLE_BUCKETS) < SAMPLED_BUCKETS;
+    }
+}
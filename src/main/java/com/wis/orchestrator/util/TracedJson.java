@@ -0,0 +1,49 @@
+package com.wis.orchestrator.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON reads and writes that emit a {@link SerializationEvent} while a flight recording
+ * is running. Without one the event is never begun, and the call is the plain
+ * ObjectMapper call.
+ */
+public final class TracedJson {
+
+    private TracedJson() {
+    }
+
+    public static String write(ObjectMapper objectMapper, Object value) throws JsonProcessingException {
+        SerializationEvent event = new SerializationEvent();
+        if (!event.isEnabled()) {
+            return objectMapper.writeValueAsString(value);
+        }
+        event.begin();
+        String json = objectMapper.writeValueAsString(value);
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = value.getClass().getSimpleName();
+            event.direction = "write";
+            event.bytes = json.length();
+            event.commit();
+        }
+        return json;
+    }
+
+    public static <T> T read(ObjectMapper objectMapper, String json, Class<T> type) throws JsonProcessingException {
+        SerializationEvent event = new SerializationEvent();
+        if (!event.isEnabled()) {
+            return objectMapper.readValue(json, type);
+        }
+        event.begin();
+        T value = objectMapper.readValue(json, type);
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type.getSimpleName();
+            event.direction = "read";
+            event.bytes = json.length();
+            event.commit();
+        }
+        return value;
+    }
+}
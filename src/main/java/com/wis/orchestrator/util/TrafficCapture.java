@@ -0,0 +1,280 @@
+package com.wis.orchestrator.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records trigger payloads to gzip-compressed newline-delimited JSON so production traffic
+ * can be replayed locally (see TrafficReplayer in the benchmarks module).
+ *
+ * Off unless TRAFFIC_CAPTURE_DIR is set. Each line is one trigger invocation:
+ * {"at":..., "function":..., "source":..., "messageIds":[...], "payloads":[...]}, where
+ * the payloads are the Service Bus message bodies or Cosmos DB input documents exactly as
+ * the host passed them. The calling thread only enqueues; compression and file I/O run on
+ * a background thread, and invocations are dropped and counted when the queue is full.
+ * Capture stops by itself after TRAFFIC_CAPTURE_MINUTES or TRAFFIC_CAPTURE_MAX_MB of
+ * uncompressed payload, whichever comes first. Files roll every TRAFFIC_CAPTURE_FILE_MB
+ * and are flushed after each batch, so a file cut off by a restart is readable up to the
+ * last flush.
+ *
+ * The files contain customer data (names, phone numbers); capture to storage only the
+ * team can read and delete the files after use.
+ */
+public final class TrafficCapture {
+
+    private static final Logger logger = Logger.getLogger(TrafficCapture.class.getName());
+
+    private static final int DEFAULT_QUEUE_SIZE = 4096;
+    private static final int DEFAULT_MINUTES = 60;
+    private static final int DEFAULT_MAX_MB = 1024;
+    private static final int DEFAULT_FILE_MB = 64;
+    private static final int DRAIN_BATCH = 256;
+    private static final DateTimeFormatter FILE_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss").withZone(ZoneOffset.UTC);
+
+    private static TrafficCapture instance;
+
+    private final Path directory;
+    private final long stopAtNanos;
+    private final long maxBytes;
+    private final long fileBytes;
+    private final BlockingQueue<Invocation> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    // Keeps files from several instances writing to one share apart
+    private final String instanceTag = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean capturing;
+    private long written;
+    private long writtenToFile;
+    private int fileNumber;
+    private boolean closed;
+    private JsonGenerator generator;
+
+    private TrafficCapture(Path directory, int minutes, int maxMegabytes, int fileMegabytes, int queueSize) {
+        this.directory = directory;
+        this.stopAtNanos = System.nanoTime() + TimeUnit.MINUTES.toNanos(minutes);
+        this.maxBytes = maxMegabytes * 1024L * 1024L;
+        this.fileBytes = Math.max(1, fileMegabytes) * 1024L * 1024L;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.capturing = directory != null;
+        if (capturing) {
+            Thread worker = new Thread(this::run, "traffic-capture-writer");
+            worker.setDaemon(true);
+            worker.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "traffic-capture-shutdown"));
+            logger.log(Level.INFO, "Capturing trigger payloads to {0} for up to {1} minutes",
+                    new Object[]{directory, minutes});
+        }
+    }
+
+    public static synchronized TrafficCapture getInstance() {
+        if (instance == null) {
+            String directory = System.getenv("TRAFFIC_CAPTURE_DIR");
+            instance = new TrafficCapture(
+                    directory == null || directory.isEmpty() ? null : Paths.get(directory),
+                    Settings.readInt("TRAFFIC_CAPTURE_MINUTES", DEFAULT_MINUTES),
+                    Settings.readInt("TRAFFIC_CAPTURE_MAX_MB", DEFAULT_MAX_MB),
+                    Settings.readInt("TRAFFIC_CAPTURE_FILE_MB", DEFAULT_FILE_MB),
+                    Settings.readInt("TRAFFIC_CAPTURE_QUEUE_SIZE", DEFAULT_QUEUE_SIZE));
+        }
+        return instance;
+    }
+
+    /**
+     * Records one Service Bus message.
+     *
+     * @param function Name of the receiving function
+     * @param source Topic or queue the message came from
+     * @param messageId Service Bus message id
+     * @param body Message body
+     */
+    public void recordMessage(String function, String source, String messageId, String body) {
+        if (capturing) {
+            enqueue(new Invocation(function, source, new String[]{messageId}, new String[]{body}));
+        }
+    }
+
+    /**
+     * Records a batch of Service Bus messages delivered to one invocation.
+     *
+     * @param messageIds Service Bus message ids, aligned with bodies
+     */
+    public void recordMessages(String function, String source, String[] messageIds, String[] bodies) {
+        if (capturing && bodies != null) {
+            enqueue(new Invocation(function, source, messageIds, bodies));
+        }
+    }
+
+    /**
+     * Records the documents a Cosmos DB input binding passed to a timer invocation.
+     * An empty result is recorded too, so replays keep the timer's cadence.
+     *
+     * @param source Container the documents were read from
+     */
+    public void recordDocuments(String function, String source, String[] documents) {
+        if (capturing) {
+            enqueue(new Invocation(function, source, null, documents == null ? new String[0] : documents));
+        }
+    }
+
+    public boolean isCapturing() {
+        return capturing;
+    }
+
+    private void enqueue(Invocation invocation) {
+        if (System.nanoTime() - stopAtNanos > 0) {
+            capturing = false;
+            return;
+        }
+        if (!queue.offer(invocation)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        List<Invocation> batch = new ArrayList<>(DRAIN_BATCH);
+        while (true) {
+            try {
+                Invocation first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    if (!capturing || System.nanoTime() - stopAtNanos > 0) {
+                        stop();
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Never let capture affect the functions; give up on it instead
+                logger.log(Level.WARNING, "Traffic capture failed and was stopped: " + e.getMessage(), e);
+                capturing = false;
+                batch.clear();
+                queue.clear();
+                stop();
+                return;
+            }
+        }
+    }
+
+    private synchronized void write(List<Invocation> batch) throws IOException {
+        if (closed) {
+            return;
+        }
+        for (Invocation invocation : batch) {
+            if (written >= maxBytes) {
+                capturing = false;
+                break;
+            }
+            if (generator == null || writtenToFile >= fileBytes) {
+                roll();
+            }
+            generator.writeStartObject();
+            generator.writeStringField("at", invocation.at.toString());
+            generator.writeStringField("function", invocation.function);
+            generator.writeStringField("source", invocation.source);
+            if (invocation.messageIds != null) {
+                generator.writeArrayFieldStart("messageIds");
+                for (String messageId : invocation.messageIds) {
+                    generator.writeString(messageId);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeArrayFieldStart("payloads");
+            for (String payload : invocation.payloads) {
+                generator.writeString(payload);
+                written += payload == null ? 0 : payload.length();
+                writtenToFile += payload == null ? 0 : payload.length();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        if (generator != null) {
+            generator.flush();
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        fileNumber++;
+        Path path = directory.resolve(String.format("capture-%s-%s-%03d.ndjson.gz",
+                FILE_TIME.format(Instant.now()), instanceTag, fileNumber));
+        // Sync flush makes every flushed batch decodable even if the file is never finished
+        OutputStream file = new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024, true);
+        generator = jsonFactory.createGenerator(file);
+        generator.setRootValueSeparator(null);
+        writtenToFile = 0;
+        logger.log(Level.INFO, "Capturing trigger payloads to {0}", path);
+    }
+
+    private synchronized void stop() {
+        capturing = false;
+        List<Invocation> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        try {
+            if (!remaining.isEmpty()) {
+                write(remaining);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not write the last captured invocations: " + e.getMessage(), e);
+        }
+        close();
+        closed = true;
+    }
+
+    private synchronized void close() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.close();
+            logger.log(Level.INFO, "Traffic capture file closed; {0} payload characters captured, {1} invocations dropped",
+                    new Object[]{written, dropped.get()});
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not close traffic capture file: " + e.getMessage(), e);
+        }
+        generator = null;
+    }
+
+    private static final class Invocation {
+        private final Instant at = Instant.now();
+        private final String function;
+        private final String source;
+        private final String[] messageIds;
+        private final String[] payloads;
+
+        Invocation(String function, String source, String[] messageIds, String[] payloads) {
+            this.function = function;
+            this.source = source;
+            this.messageIds = messageIds;
+            this.payloads = payloads;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DevotionalPlanFunctionTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+    private static final StructuredLogger log = StructuredLogger.getLogger(DevotionalPlanFunctionTest.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final InMemoryMessageSender sender = new InMemoryMessageSender();
+    private final DevotionalPlanFunction function = new DevotionalPlanFunction(() -> store,
+            new MessageDispatcher(() -> sender, false, false), new CustomerOutbox(() -> store, false));
+
+    @Test
+    void planDayKeepsTheCustomersOtherSchedules() {
+        saveCustomer();
+        savePlan(3);
+
+        List<OutboundMessage> messages = processCustomerPlan();
+
+        assertEquals(1, messages.size());
+        JsonNode messagingState = readCustomer().path("messagingState");
+        assertEquals(NOW.plus(Duration.ofHours(24)).toString(),
+                messagingState.path("nextPlanMessageScheduledFor").asText());
+        assertEquals("2025-03-11T13:00:00Z", messagingState.path("nextDevotionalScheduledFor").asText());
+        assertEquals("2025-03-14T13:00:00Z", messagingState.path("nextCheckInScheduledFor").asText());
+        assertEquals("active", messagingState.path("conversationState").asText());
+    }
+
+    @Test
+    void day7SurveyFlagKeepsTheRestOfTheCustomer() {
+        saveCustomer();
+        savePlan(7);
+
+        List<OutboundMessage> messages = processCustomerPlan();
+
+        assertEquals(2, messages.size());
+        JsonNode customer = readCustomer();
+        assertTrue(customer.path("betaProgram").hasNonNull("day7SurveySentAt"));
+        assertEquals("BETA-1", customer.path("betaProgram").path("betaCode").asText());
+        assertEquals("2025-03-11T13:00:00Z",
+                customer.path("messagingState").path("nextDevotionalScheduledFor").asText());
+    }
+
+    @Test
+    void unqueueableCheckInStopsHoldingTheCheckpointAfterFiveRuns() {
+        saveCompletedPlan("plan-1", NOW.toString());
+        saveCompletedPlan("plan-2", "not a timestamp");
+
+        for (int run = 0; run < 4; run++) {
+            function.processPlanCompletion(null, null);
+        }
+        assertFalse(hasCompletionCheckpoint());
+
+        function.processPlanCompletion(null, null);
+        assertTrue(hasCompletionCheckpoint());
+        function.processPlanCompletion(null, null);
+
+        List<OutboundMessage> checkIns = sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE);
+        assertEquals(1, checkIns.size());
+        assertEquals("weekly_check_in-plan-1", checkIns.get(0).getMessageId());
+    }
+
+    private List<OutboundMessage> processCustomerPlan() {
+        TickLog tick = new TickLog(log, "ProcessDevotionalPlanDay");
+        List<OutboundMessage> messages = new ArrayList<>();
+        function.processCustomerPlan(readCustomer().toString(), NOW, messages, tick);
+        tick.finish();
+        return messages;
+    }
+
+    private void saveCustomer() {
+        ObjectNode customer = objectMapper.createObjectNode();
+        customer.put("id", "cus_1");
+        customer.put("currentPhone", "+15555550100");
+        customer.put("status", "active");
+        customer.put("activePlanId", "plan-1");
+        ObjectNode messagingState = customer.putObject("messagingState");
+        messagingState.put("conversationState", "active");
+        messagingState.put("nextPlanMessageScheduledFor", NOW.minus(Duration.ofMinutes(3)).toString());
+        messagingState.put("nextDevotionalScheduledFor", "2025-03-11T13:00:00Z");
+        messagingState.put("nextCheckInScheduledFor", "2025-03-14T13:00:00Z");
+        ObjectNode betaProgram = customer.putObject("betaProgram");
+        betaProgram.put("betaCode", "BETA-1");
+        betaProgram.put("day7SurveyUrl", "https://example.com/survey");
+        store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, "cus_1", customer);
+    }
+
+    private void savePlan(int currentDay) {
+        ObjectNode plan = objectMapper.createObjectNode();
+        plan.put("id", "plan-1");
+        plan.put("customerId", "cus_1");
+        plan.put("status", "active");
+        plan.put("currentDay", currentDay);
+        ObjectNode day = plan.putArray("days").addObject();
+        day.put("dayNumber", currentDay);
+        day.put("verseReference", "Psalm 46:10");
+        day.put("verseText", "Be still, and know that I am God.");
+        day.put("reflection", "Be still.");
+        day.put("journalPrompt", "Where can you rest today?");
+        store.createDocument(OrchestratorStore.PLANS_CONTAINER, "cus_1", plan);
+    }
+
+    private void saveCompletedPlan(String id, String completedAt) {
+        ObjectNode plan = objectMapper.createObjectNode();
+        plan.put("id", id);
+        plan.put("customerId", "cus_1");
+        plan.put("status", "completed");
+        plan.put("completedAt", completedAt);
+        store.createDocument(OrchestratorStore.PLANS_CONTAINER, "cus_1", plan);
+    }
+
+    private boolean hasCompletionCheckpoint() {
+        return store.readDocument(OrchestratorStore.STATE_CONTAINER, "checkpoint-plan-completion",
+                "checkpoint-plan-completion").isPresent();
+    }
+
+    private JsonNode readCustomer() {
+        return store.readDocument(OrchestratorStore.CUSTOMERS_CONTAINER, "cus_1", "cus_1").orElseThrow().getDocument();
+    }
+}
@@ -0,0 +1,22 @@
+package com.wis.orchestrator;
+
+import com.microsoft.azure.functions.OutputBinding;
+
+/**
+ * Output binding that holds the last value set on it, in place of the host's Service Bus
+ * binding.
+ */
+final class DiscardingBinding<T> implements OutputBinding<T> {
+
+    private T value;
+
+    @Override
+    public T getValue() {
+        return value;
+    }
+
+    @Override
+    public void setValue(T value) {
+        this.value = value;
+    }
+}
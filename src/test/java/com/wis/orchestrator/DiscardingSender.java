@@ -0,0 +1,47 @@
+package com.wis.orchestrator;
+
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.service.MessageSender;
+
+import java.util.List;
+
+/**
+ * Message sender that drops what it is given, in place of the Service Bus SDK sender.
+ * It counts the messages each thread sent, so a caller can attribute SDK sends to the
+ * invocation it just ran on that thread.
+ */
+final class DiscardingSender implements MessageSender {
+
+    private final ThreadLocal<long[]> sent = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Override
+    public void send(String queueName, List<OutboundMessage> messages) {
+        sent.get()[OrchestrationRetryMessage.QUEUE_NAME.equals(queueName) ? 1 : 0] += messages.size();
+    }
+
+    @Override
+    public void probe(String queueName) {
+        // Always reachable
+    }
+
+    /**
+     * Messages this thread sent to the send queues since the last call, then resets the count.
+     */
+    long takeSent() {
+        long[] counts = sent.get();
+        long messages = counts[0];
+        counts[0] = 0;
+        return messages;
+    }
+
+    /**
+     * Messages this thread sent to orchestration-retry-queue since the last call, then resets the count.
+     */
+    long takeRetries() {
+        long[] counts = sent.get();
+        long retries = counts[1];
+        counts[1] = 0;
+        return retries;
+    }
+}
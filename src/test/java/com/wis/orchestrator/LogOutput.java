@@ -0,0 +1,35 @@
+package com.wis.orchestrator;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Drops log output while keeping the loggers enabled, so log events are still built
+ * and their cost is measured, but nothing is written to the console.
+ */
+final class LogOutput {
+
+    private LogOutput() {
+    }
+
+    static void discard() {
+        Logger root = Logger.getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            root.removeHandler(handler);
+        }
+        root.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+}
@@ -0,0 +1,304 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wis.orchestrator.entity.DevotionalPlanEntity;
+import com.wis.orchestrator.model.CustomerRegisteredEvent;
+import com.wis.orchestrator.model.DailyDevotion;
+import com.wis.orchestrator.model.ScheduledMessageRequest;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+import com.wis.orchestrator.model.WelcomeMessage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payloads shaped like production traffic for the performance gate and the benchmarks
+ * module, which gets them from this module's test jar.
+ *
+ * Events and messages carry the fields the functions set. Documents carry the Cosmos DB
+ * system properties and the fields message-handler writes that the orchestrator ignores.
+ * Plans have seven days whose reflections are padded to a given length; 600 characters
+ * is a typical reflection and 2400 the longest seen.
+ */
+final class Payloads {
+
+    static final Instant NOW = Instant.parse("2025-03-10T13:05:00Z");
+    static final String CUSTOMER_ID = "cus_9f2c41d7e0b84a6c";
+    static final String PHONE = "+15555550142";
+    static final String PLAN_ID = "plan-" + CUSTOMER_ID + "-3";
+
+    private static final String REFLECTION_TEXT =
+            "Waiting is rarely passive. In the quiet between asking and receiving, God is shaping "
+                    + "the one who waits as much as the answer that is coming. Notice today where you "
+                    + "feel hurried, and offer that place back to Him with an open hand. ";
+
+    private Payloads() {
+    }
+
+    /**
+     * Mapper configured like the functions' own.
+     */
+    static ObjectMapper functionMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        return objectMapper;
+    }
+
+    /**
+     * Mapper configured like the store's, which skips the Cosmos DB system properties.
+     */
+    static ObjectMapper storeMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return objectMapper;
+    }
+
+    static CustomerRegisteredEvent customerRegisteredEvent() {
+        CustomerRegisteredEvent.CustomerData data = new CustomerRegisteredEvent.CustomerData();
+        data.setCustomerId(CUSTOMER_ID);
+        data.setPhone(PHONE);
+        data.setRegistrationStage("phone_verified");
+        data.setCreatedAt(NOW);
+
+        CustomerRegisteredEvent event = new CustomerRegisteredEvent();
+        event.setEventId("5b0d8c5e-7a7e-4f0b-9a55-2b6f3c1d9e41");
+        event.setEventType("CustomerRegistered");
+        event.setEventTime(NOW);
+        event.setSubject("customers/" + CUSTOMER_ID);
+        event.setData(data);
+        return event;
+    }
+
+    static SubscriptionActivatedEvent subscriptionActivatedEvent() {
+        SubscriptionActivatedEvent.SubscriptionData data = new SubscriptionActivatedEvent.SubscriptionData();
+        data.setCustomerId(CUSTOMER_ID);
+        data.setPhoneNumber(PHONE);
+        data.setSubscriptionId("sub_1OqXyZ2eZvKYlo2C8h3kQm4T");
+        data.setStripePriceId("price_1OqXw12eZvKYlo2CkB9aLr7N");
+        data.setStatus("active");
+        data.setActivatedAt(NOW);
+
+        SubscriptionActivatedEvent event = new SubscriptionActivatedEvent();
+        event.setEventId("c3a9e1f4-0d2b-4b8e-8f61-7e5d2a9c4b13");
+        event.setEventType("SubscriptionActivated");
+        event.setEventTime(NOW);
+        event.setSubject("subscriptions/sub_1OqXyZ2eZvKYlo2C8h3kQm4T");
+        event.setData(data);
+        return event;
+    }
+
+    /**
+     * A customer document as read from the customers container.
+     */
+    static Map<String, Object> customerDocument() {
+        return customerDocument(CUSTOMER_ID, PLAN_ID);
+    }
+
+    static Map<String, Object> customerDocument(String customerId, String planId) {
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("firstName", "Grace");
+        profile.put("lastName", "Okafor");
+        profile.put("preferences", Map.of(
+                "timezone", "America/Chicago",
+                "preferredTimeOfDay", "morning",
+                "checkInIntervalDays", 14,
+                "devotionalIntervalDays", 1));
+
+        Map<String, Object> messagingState = new LinkedHashMap<>();
+        messagingState.put("conversationState", "active");
+        messagingState.put("currentLifeSeason", "waiting");
+        messagingState.put("extractedThemes", List.of("patience", "trust", "career change", "family"));
+        messagingState.put("lastSeasonUpdateAt", NOW.minus(Duration.ofDays(9)).toString());
+        messagingState.put("nextCheckInScheduledFor", NOW.plus(Duration.ofDays(5)).toString());
+        messagingState.put("lastDevotionalSentAt", NOW.minus(Duration.ofDays(1)).toString());
+        messagingState.put("nextDevotionalScheduledFor", NOW.plus(Duration.ofHours(20)).toString());
+        messagingState.put("nextPlanMessageScheduledFor", NOW.minus(Duration.ofMinutes(5)).toString());
+        messagingState.put("timezone", "America/Chicago");
+        messagingState.put("preferredTimeOfDay", "morning");
+
+        Map<String, Object> betaProgram = new LinkedHashMap<>();
+        betaProgram.put("betaCode", "SEASONS25");
+        betaProgram.put("enrolledAt", NOW.minus(Duration.ofDays(20)).toString());
+        betaProgram.put("checkoutSurveySentAt", NOW.minus(Duration.ofDays(19)).toString());
+        betaProgram.put("checkoutSurveyUrl", "https://forms.example.com/checkout?c=" + customerId);
+        betaProgram.put("day7SurveyUrl", "https://forms.example.com/day7?c=" + customerId);
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", customerId);
+        document.put("currentPhone", PHONE);
+        document.put("activePlanId", planId);
+        document.put("status", "active");
+        document.put("profile", profile);
+        document.put("messagingState", messagingState);
+        document.put("betaProgram", betaProgram);
+        document.put("outbox", List.of());
+        document.put("_rid", "q0Z9AKr3HQEBAAAAAAAAAA==");
+        document.put("_self", "dbs/q0Z9AA==/colls/q0Z9AKr3HQE=/docs/q0Z9AKr3HQEBAAAAAAAAAA==/");
+        document.put("_etag", "\"0a00c3d1-0000-0200-0000-65edb2a40000\"");
+        document.put("_attachments", "attachments/");
+        document.put("_ts", NOW.getEpochSecond());
+        return document;
+    }
+
+    /**
+     * A seven-day plan on its third day, as stored in the devotionalPlans container.
+     */
+    static DevotionalPlanEntity plan(int reflectionChars) {
+        return plan(CUSTOMER_ID, PLAN_ID, 3, reflectionChars);
+    }
+
+    static DevotionalPlanEntity plan(String customerId, String planId, int currentDay, int reflectionChars) {
+        List<DailyDevotion> days = new ArrayList<>(7);
+        for (int day = 1; day <= 7; day++) {
+            days.add(day(day, reflectionChars));
+        }
+
+        DevotionalPlanEntity plan = new DevotionalPlanEntity();
+        plan.setId(planId);
+        plan.setCustomerId(customerId);
+        plan.setPlanNumber(3);
+        plan.setStatus("active");
+        plan.setStartedAt(NOW.minus(Duration.ofDays(currentDay - 1)));
+        plan.setLifeSeason("waiting");
+        plan.setThemes(List.of("patience", "trust", "career change"));
+        plan.setCurrentDay(currentDay);
+        plan.setDays(days);
+        plan.setTimezone("America/Chicago");
+        plan.setPreferredTimeOfDay("morning");
+        plan.setCreatedAt(NOW.minus(Duration.ofDays(3)));
+        plan.setUpdatedAt(NOW.minus(Duration.ofDays(1)));
+        plan.setCheckInSent(false);
+        return plan;
+    }
+
+    /**
+     * The single-day projection of {@link #plan(int)} that DevotionalPlanFunction reads.
+     */
+    static Map<String, Object> planDayDocument(int reflectionChars) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", PLAN_ID);
+        document.put("customerId", CUSTOMER_ID);
+        document.put("status", "active");
+        document.put("currentDay", 3);
+        document.put("currentDays", List.of(day(3, reflectionChars)));
+        return document;
+    }
+
+    static DailyDevotion day(int dayNumber, int reflectionChars) {
+        DailyDevotion devotion = new DailyDevotion();
+        devotion.setDayNumber(dayNumber);
+        devotion.setVerseReference("Isaiah 40:31");
+        devotion.setVerseText("But they that wait upon the LORD shall renew their strength; they shall mount up "
+                + "with wings as eagles; they shall run, and not be weary; and they shall walk, and not faint.");
+        devotion.setReflection(reflection(reflectionChars));
+        devotion.setJournalPrompt("Where are you being asked to wait right now, and what would trusting God "
+                + "in that place look like this week?");
+        devotion.setStatus(dayNumber < 3 ? "sent" : "pending");
+        if (dayNumber < 3) {
+            devotion.setSentAt(NOW.minus(Duration.ofDays(3 - dayNumber)));
+            devotion.setTwilioSid("SM" + "0123456789abcdef0123456789abcdef".substring(dayNumber));
+        }
+        return devotion;
+    }
+
+    static WelcomeMessage welcomeMessage() {
+        return WelcomeMessage.builder()
+                .messageId("1f0e2d3c-4b5a-3968-8776-5a4b3c2d1e0f")
+                .customerId(CUSTOMER_ID)
+                .conversationId("conv-" + CUSTOMER_ID)
+                .phoneNumber(PHONE)
+                .messageType("onboarding_welcome")
+                .priority("HIGH")
+                .message("Hi Grace! Welcome to Words in Season! We're here to walk with you through life's "
+                        + "seasons.\n\nTell us: What season of life are you in right now? (For example: facing "
+                        + "a challenge, celebrating a victory, seeking direction, etc.)")
+                .metadata(WelcomeMessage.Metadata.builder()
+                        .registrationEventId("c3a9e1f4-0d2b-4b8e-8f61-7e5d2a9c4b13")
+                        .registrationStage("subscription_activated")
+                        .attempt(1)
+                        .maxRetries(3)
+                        .build())
+                .build();
+    }
+
+    static ScheduledMessageRequest scheduledDevotional() {
+        return ScheduledMessageRequest.builder()
+                .messageId("7d6c5b4a-3928-4716-a5f4-e3d2c1b0a998")
+                .customerId(CUSTOMER_ID)
+                .phoneNumber(PHONE)
+                .messageType("daily_devotional")
+                .priority("NORMAL")
+                .themes(List.of("patience", "trust", "career change", "family"))
+                .lifeSeason("waiting")
+                .build();
+    }
+
+    static DevotionalPlanFunction.DevotionalPlanMessage planDayMessage(int reflectionChars) {
+        DailyDevotion devotion = day(3, reflectionChars);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("planId", PLAN_ID);
+        metadata.put("dayNumber", 3);
+        metadata.put("messageType", "daily_plan_devotion");
+
+        return DevotionalPlanFunction.DevotionalPlanMessage.builder()
+                .messageId("0b1c2d3e-4f50-4617-8293-a4b5c6d7e8f9")
+                .customerId(CUSTOMER_ID)
+                .phoneNumber(PHONE)
+                .messageType("daily_plan_devotion")
+                .priority("NORMAL")
+                .message("📖 Day 3 of 7\n\n\"" + devotion.getVerseText() + "\"\n— " + devotion.getVerseReference()
+                        + "\n\n" + devotion.getReflection() + "\n\n📝 Journal Prompt: " + devotion.getJournalPrompt())
+                .metadata(metadata)
+                .build();
+    }
+
+    static DevotionalPlanFunction.WeeklyCheckInRequest weeklyCheckIn() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("completedPlanId", PLAN_ID);
+        metadata.put("expectsResponse", true);
+
+        return DevotionalPlanFunction.WeeklyCheckInRequest.builder()
+                .messageId("9a8b7c6d-5e4f-4a3b-8c2d-1e0f9a8b7c6d")
+                .customerId(CUSTOMER_ID)
+                .messageType("weekly_check_in")
+                .priority("NORMAL")
+                .metadata(metadata)
+                .build();
+    }
+
+    static DevotionalPlanFunction.Day7SurveyMessage day7Survey() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("messageType", "day_7_survey");
+        metadata.put("betaCode", "SEASONS25");
+
+        return DevotionalPlanFunction.Day7SurveyMessage.builder()
+                .messageId("3e4f5a6b-7c8d-4e9f-a0b1-c2d3e4f5a6b7")
+                .customerId(CUSTOMER_ID)
+                .phoneNumber(PHONE)
+                .messageType("day_7_survey")
+                .priority("NORMAL")
+                .message("🙏 You completed 7 days of devotionals! We hope they've been meaningful. "
+                        + "Share your experience to help us improve: https://forms.example.com/day7?c=" + CUSTOMER_ID)
+                .metadata(metadata)
+                .build();
+    }
+
+    private static String reflection(int chars) {
+        StringBuilder text = new StringBuilder(chars + REFLECTION_TEXT.length());
+        while (text.length() < chars) {
+            text.append(REFLECTION_TEXT);
+        }
+        text.setLength(chars);
+        return text.toString().trim();
+    }
+}
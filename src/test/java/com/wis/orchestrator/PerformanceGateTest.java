@@ -0,0 +1,277 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.DailyDevotion;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation and latency gate for the hot paths, run with the other tests by mvn test.
+ *
+ * Each case runs a warm-up, then measured passes in which the bytes allocated by this
+ * thread are summed and items are timed in samples of about 20 microseconds, so the
+ * cheapest items are not lost in timer resolution; p99 is over the samples' mean time
+ * per item. The build fails if bytes per item exceeds the budget in
+ * performance-budgets.properties. Allocation is close to deterministic, so its budgets are
+ * tight and always checked. Timing depends on the machine and on whatever else it runs,
+ * so the p99 budgets are checked only with -Dperformance.gate.latency=true; the case is
+ * then measured in several passes and the median pass's p99 is compared, so one pause
+ * does not fail the build. -Dperformance.gate.timeFactor scales the p99 budgets for slower
+ * machines, and -Dperformance.gate.skip=true skips the gate. Work handed to other threads
+ * is not counted.
+ */
+class PerformanceGateTest {
+
+    private static final StructuredLogger log = StructuredLogger.getLogger(PerformanceGateTest.class);
+    private static final String BUDGETS = "/performance-budgets.properties";
+
+    private static final int WARMUP_ITEMS = 20_000;
+    private static final int MEASURED_ITEMS = 10_000;
+    private static final int DISTINCT_CUSTOMERS = 1_000;
+    private static final long SAMPLE_NANOS = 20_000;
+    private static final int LATENCY_PASSES = 5;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final boolean checkLatency = Boolean.getBoolean("performance.gate.latency");
+    private final int passes = checkLatency ? LATENCY_PASSES : 1;
+
+    @Test
+    @DisabledIfSystemProperty(named = "performance.gate.skip", matches = "true")
+    void hotPathsStayWithinBudget() throws Exception {
+        Properties budgets = readBudgets();
+        double timeFactor = Double.parseDouble(System.getProperty("performance.gate.timeFactor", "1"));
+
+        LogOutput.discard();
+        List<Result> results = measure();
+        assertTrue(report(results, budgets, checkLatency, timeFactor), "Performance budget exceeded; see the table above");
+    }
+
+    private static Properties readBudgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = PerformanceGateTest.class.getResourceAsStream(BUDGETS)) {
+            assertNotNull(in, BUDGETS + " is missing from the test resources");
+            budgets.load(in);
+        }
+        return budgets;
+    }
+
+    // ---- Cases ----
+
+    List<Result> measure() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.add(measure("subscriptionActivated", subscriptionActivated()));
+        results.add(measure("schedulerCustomer", schedulerCustomer()));
+        results.add(measure("planDayText", planDayText()));
+        results.add(measure("welcomeMessage", welcomeMessage()));
+        return results;
+    }
+
+    /**
+     * The ProcessSubscriptionActivated handler for one event, from the message body to the
+     * SDK send. Every event is for a new customer, as in production.
+     */
+    private Item subscriptionActivated() throws Exception {
+        InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+        DiscardingSender sender = new DiscardingSender();
+        MessageDispatcher dispatcher = new MessageDispatcher(() -> sender, false, false);
+        SubscriptionActivatedFunction function = new SubscriptionActivatedFunction(() -> store, dispatcher,
+                AdaptiveConcurrencyLimiter.getInstance(), new ProcessedEventRegistry(() -> store),
+                new CustomerOutbox(() -> store, false));
+
+        ObjectMapper functionMapper = Payloads.functionMapper();
+        ObjectMapper storeMapper = Payloads.storeMapper();
+        String[] bodies = new String[WARMUP_ITEMS + MEASURED_ITEMS * passes];
+        for (int i = 0; i < bodies.length; i++) {
+            String customerId = String.format("cus_%016x", i);
+            store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId,
+                    storeMapper.valueToTree(Payloads.customerDocument(customerId, null)));
+            SubscriptionActivatedEvent event = Payloads.subscriptionActivatedEvent();
+            event.setEventId("evt-" + i);
+            event.getData().setCustomerId(customerId);
+            bodies[i] = functionMapper.writeValueAsString(event);
+        }
+        String enqueuedTime = Payloads.NOW.toString();
+
+        return i -> function.processSubscriptionActivated(bodies[i], "msg-" + i, enqueuedTime, null);
+    }
+
+    /**
+     * MessageScheduler's work for one due customer. Every customer has a devotional due and
+     * every fifth a check-in as well.
+     */
+    private Item schedulerCustomer() throws Exception {
+        SchedulerFunction function = new SchedulerFunction(
+                new MessageDispatcher(InMemoryMessageSender::new, false, false));
+        ObjectMapper storeMapper = Payloads.storeMapper();
+        Instant now = Payloads.NOW;
+
+        String[] customers = new String[DISTINCT_CUSTOMERS];
+        for (int i = 0; i < customers.length; i++) {
+            Map<String, Object> customer = Payloads.customerDocument(String.format("cus_%016x", i), null);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> messagingState = (Map<String, Object>) customer.get("messagingState");
+            messagingState.put("nextDevotionalScheduledFor", now.minus(Duration.ofMinutes(4)).toString());
+            if (i % 5 == 0) {
+                messagingState.put("nextCheckInScheduledFor", now.minus(Duration.ofMinutes(2)).toString());
+            }
+            customers[i] = storeMapper.writeValueAsString(customer);
+        }
+
+        TickLog tick = new TickLog(log, "MessageScheduler");
+        List<OutboundMessage> messages = new ArrayList<>();
+        return i -> {
+            messages.clear();
+            function.processCustomerSchedule(customers[i % customers.length], now, messages, tick);
+        };
+    }
+
+    /**
+     * The text of one plan day message.
+     */
+    private Item planDayText() {
+        InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+        DevotionalPlanFunction function = new DevotionalPlanFunction(() -> store,
+                new MessageDispatcher(InMemoryMessageSender::new, false, false), new CustomerOutbox(() -> store, false));
+        DailyDevotion day = Payloads.day(3, 600);
+
+        return i -> function.formatDailyDevotionMessage(day.getVerseReference(), day.getVerseText(),
+                day.getReflection(), day.getJournalPrompt(), day.getDayNumber());
+    }
+
+    /**
+     * One complete welcome message, text and JSON body.
+     */
+    private Item welcomeMessage() {
+        InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+        SubscriptionActivatedFunction function = new SubscriptionActivatedFunction(() -> store,
+                new MessageDispatcher(InMemoryMessageSender::new, false, false),
+                AdaptiveConcurrencyLimiter.getInstance(), new ProcessedEventRegistry(() -> store),
+                new CustomerOutbox(() -> store, false));
+        SubscriptionActivatedEvent event = Payloads.subscriptionActivatedEvent();
+
+        return i -> function.buildWelcomeMessage(event, "Grace");
+    }
+
+    // ---- Measurement ----
+
+    private Result measure(String name, Item item) throws Exception {
+        long warmupStarted = System.nanoTime();
+        for (int i = 0; i < WARMUP_ITEMS; i++) {
+            item.run(i);
+        }
+        // The warm-up mean overstates a compiled item's cost, which only makes samples smaller
+        long meanNanos = Math.max(1, (System.nanoTime() - warmupStarted) / WARMUP_ITEMS);
+        int itemsPerSample = (int) Math.max(1, Math.min(MEASURED_ITEMS / 100, SAMPLE_NANOS / meanNanos));
+        int samples = MEASURED_ITEMS / itemsPerSample;
+
+        long[] bytesPerItem = new long[passes];
+        double[] p99Micros = new double[passes];
+        double[] p50Micros = new double[passes];
+        int index = WARMUP_ITEMS;
+        for (int pass = 0; pass < passes; pass++) {
+            System.gc();
+            double[] nanosPerItem = new double[samples];
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            for (int sample = 0; sample < samples; sample++) {
+                long started = System.nanoTime();
+                for (int i = 0; i < itemsPerSample; i++) {
+                    item.run(index++);
+                }
+                nanosPerItem[sample] = (double) (System.nanoTime() - started) / itemsPerSample;
+            }
+            allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+            Arrays.sort(nanosPerItem);
+            bytesPerItem[pass] = allocated / ((long) samples * itemsPerSample);
+            p99Micros[pass] = nanosPerItem[(int) Math.ceil(0.99 * samples) - 1] / 1e3;
+            p50Micros[pass] = nanosPerItem[samples / 2] / 1e3;
+        }
+
+        Arrays.sort(bytesPerItem);
+        Arrays.sort(p99Micros);
+        Arrays.sort(p50Micros);
+        return new Result(name, bytesPerItem[passes / 2], p99Micros[passes / 2], p50Micros[passes / 2]);
+    }
+
+    private static boolean report(List<Result> results, Properties budgets, boolean checkLatency,
+                                  double timeFactor) {
+        boolean passed = true;
+        System.out.printf("%-24s %14s %14s %12s %12s %12s  %s%n",
+                "Case", "Bytes/item", "Budget", "p50 us", "p99 us", "Budget", "Result");
+        for (Result result : results) {
+            String bytesBudget = budgets.getProperty(result.name + ".bytesPerItem");
+            String p99Budget = budgets.getProperty(result.name + ".p99Micros");
+            String verdict;
+            if (bytesBudget == null || p99Budget == null) {
+                verdict = "FAIL: no budget for " + result.name;
+            } else {
+                List<String> breaches = new ArrayList<>();
+                if (result.bytesPerItem > Long.parseLong(bytesBudget.trim())) {
+                    breaches.add("bytes/item");
+                }
+                if (checkLatency && result.p99Micros > Double.parseDouble(p99Budget.trim()) * timeFactor) {
+                    breaches.add("p99");
+                }
+                verdict = breaches.isEmpty() ? "ok" : "FAIL: " + String.join(", ", breaches) + " over budget";
+            }
+            passed &= "ok".equals(verdict);
+            System.out.printf("%-24s %,14d %14s %12.1f %12.1f %12s  %s%n", result.name, result.bytesPerItem,
+                    bytesBudget == null ? "-" : bytesBudget, result.p50Micros, result.p99Micros,
+                    p99Budget == null ? "-" : checkLatency ? p99Budget : "(" + p99Budget + ")", verdict);
+        }
+        if (!checkLatency) {
+            System.out.println("p99 budgets in parentheses are not checked; pass -Dperformance.gate.latency=true "
+                    + "to check them.");
+        }
+        if (!passed) {
+            System.out.println();
+            System.out.println("Performance budget exceeded. If the increase is intended, raise the budget in "
+                    + "src/test/resources/performance-budgets.properties in the same change and say why.");
+        }
+        return passed;
+    }
+
+    private interface Item {
+        void run(int index) throws Exception;
+    }
+
+    private static final class Result {
+        private final String name;
+        private final long bytesPerItem;
+        private final double p99Micros;
+        private final double p50Micros;
+
+        Result(String name, long bytesPerItem, double p99Micros, double p50Micros) {
+            this.name = name;
+            this.bytesPerItem = bytesPerItem;
+            this.p99Micros = p99Micros;
+            this.p50Micros = p50Micros;
+        }
+    }
+}
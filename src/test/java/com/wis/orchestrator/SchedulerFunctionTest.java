@@ -0,0 +1,59 @@
+package com.wis.orchestrator;
+
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.util.StructuredLogger;
+import com.wis.orchestrator.util.TickLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchedulerFunctionTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+    private static final StructuredLogger log = StructuredLogger.getLogger(SchedulerFunctionTest.class);
+
+    private final InMemoryMessageSender sender = new InMemoryMessageSender();
+    private final SchedulerFunction scheduler =
+            new SchedulerFunction(new MessageDispatcher(() -> sender, false, false));
+
+    @Test
+    void fullCustomerDocumentIsParsed() {
+        // As returned by the input binding: system properties and fields the scheduler does not map
+        String customerJson = "{"
+                + "\"id\":\"cus_1\",\"currentPhone\":\"+15555550100\",\"status\":\"active\","
+                + "\"activePlanId\":\"plan-1\",\"_rid\":\"abc==\",\"_etag\":\"\\\"0000\\\"\",\"_ts\":1741600000,"
+                + "\"profile\":{\"firstName\":\"Ada\",\"preferences\":{\"timezone\":\"America/Chicago\",\"language\":\"en\"}},"
+                + "\"messagingState\":{\"conversationState\":\"active\","
+                + "\"nextDevotionalScheduledFor\":\"2025-03-10T11:55:00Z\","
+                + "\"nextPlanMessageScheduledFor\":\"2025-03-11T11:55:00Z\"}"
+                + "}";
+
+        List<OutboundMessage> messages = schedule(customerJson);
+
+        assertEquals(1, messages.size());
+        assertEquals("cus_1", messages.get(0).getSessionId());
+    }
+
+    @Test
+    void customerDueExactlyNowIsQueued() {
+        String customerJson = "{\"id\":\"cus_1\",\"currentPhone\":\"+15555550100\","
+                + "\"messagingState\":{\"conversationState\":\"active\","
+                + "\"nextDevotionalScheduledFor\":\"" + NOW + "\",\"nextCheckInScheduledFor\":\"" + NOW + "\"}}";
+
+        assertEquals(2, schedule(customerJson).size());
+    }
+
+    private List<OutboundMessage> schedule(String customerJson) {
+        TickLog tick = new TickLog(log, "MessageScheduler");
+        List<OutboundMessage> messages = new ArrayList<>();
+        scheduler.processCustomerSchedule(customerJson, NOW, messages, tick);
+        tick.finish();
+        return messages;
+    }
+}
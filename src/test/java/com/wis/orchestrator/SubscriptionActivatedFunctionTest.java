@@ -0,0 +1,129 @@
+package com.wis.orchestrator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.model.SubscriptionActivatedEvent;
+import com.wis.orchestrator.service.AdaptiveConcurrencyLimiter;
+import com.wis.orchestrator.service.CustomerOutbox;
+import com.wis.orchestrator.service.InMemoryMessageSender;
+import com.wis.orchestrator.service.InMemoryOrchestratorStore;
+import com.wis.orchestrator.service.MessageDispatcher;
+import com.wis.orchestrator.service.OrchestratorStore;
+import com.wis.orchestrator.service.ProcessedEventRegistry;
+import com.wis.orchestrator.service.StoreException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("unchecked")
+class SubscriptionActivatedFunctionTest {
+
+    private final ObjectMapper objectMapper = Payloads.functionMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final InMemoryMessageSender sender = new InMemoryMessageSender();
+    private final ProcessedEventRegistry processedEvents = new ProcessedEventRegistry(() -> store);
+
+    @Test
+    void batchRetriesEventsWhoseCustomerPatchFailed() throws Exception {
+        saveCustomers("cus_1", "cus_2");
+        OrchestratorStore failing = failing("patchDocumentsById", args -> {
+            Map<String, Map<String, Object>> updates = new HashMap<>((Map<String, Map<String, Object>>) args[1]);
+            updates.remove("cus_2");
+            Map<String, StoreException> failures = new HashMap<>(store.patchDocumentsById((String) args[0], updates));
+            failures.put("cus_2", throttle());
+            return failures;
+        });
+
+        String[] retries = processBatch(failing, "cus_1", "cus_2");
+
+        List<OutboundMessage> welcomes = sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE);
+        assertEquals(1, welcomes.size());
+        assertEquals("cus_1", welcomes.get(0).getSessionId());
+        assertEquals(1, retries.length);
+        OrchestrationRetryMessage retry = objectMapper.readValue(retries[0], OrchestrationRetryMessage.class);
+        assertEquals("msg-cus_2", retry.getOriginalMessageId());
+        assertTrue(processedEvents.isProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, "evt-cus_1"));
+        assertFalse(processedEvents.isProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, "evt-cus_2"));
+    }
+
+    @Test
+    void batchRetriesEveryEventWhenTheCustomerReadIsThrottled() throws Exception {
+        saveCustomers("cus_1", "cus_2");
+        OrchestratorStore failing = failing("readDocumentsById", args -> {
+            throw throttle();
+        });
+
+        String[] retries = processBatch(failing, "cus_1", "cus_2");
+
+        assertTrue(sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE).isEmpty());
+        assertEquals(2, retries.length);
+        assertFalse(processedEvents.isProcessed(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, "evt-cus_1"));
+        JsonNode customer = store.readDocument(OrchestratorStore.CUSTOMERS_CONTAINER, "cus_1", "cus_1")
+                .orElseThrow().getDocument();
+        assertFalse(customer.has("onboardingStep"));
+    }
+
+    private String[] processBatch(OrchestratorStore functionStore, String... customerIds) throws Exception {
+        SubscriptionActivatedFunction function = new SubscriptionActivatedFunction(() -> functionStore,
+                new MessageDispatcher(() -> sender, false, false), AdaptiveConcurrencyLimiter.getInstance(),
+                processedEvents, new CustomerOutbox(() -> store, false));
+        String[] messages = new String[customerIds.length];
+        String[] messageIds = new String[customerIds.length];
+        String[] enqueuedTimes = new String[customerIds.length];
+        for (int i = 0; i < customerIds.length; i++) {
+            SubscriptionActivatedEvent event = Payloads.subscriptionActivatedEvent();
+            event.setEventId("evt-" + customerIds[i]);
+            event.getData().setCustomerId(customerIds[i]);
+            messages[i] = objectMapper.writeValueAsString(event);
+            messageIds[i] = "msg-" + customerIds[i];
+            enqueuedTimes[i] = Payloads.NOW.toString();
+        }
+        DiscardingBinding<String[]> retries = new DiscardingBinding<>();
+        function.processSubscriptionActivatedBatch(messages, messageIds, enqueuedTimes, retries, null);
+        return retries.getValue() == null ? new String[0] : retries.getValue();
+    }
+
+    /**
+     * The in-memory store with one operation replaced.
+     */
+    private OrchestratorStore failing(String methodName, Operation operation) {
+        return (OrchestratorStore) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{OrchestratorStore.class}, (proxy, method, args) -> {
+                    if (method.getName().equals(methodName)) {
+                        return operation.apply(args);
+                    }
+                    try {
+                        return method.invoke(store, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private void saveCustomers(String... customerIds) {
+        ObjectMapper storeMapper = Payloads.storeMapper();
+        for (String customerId : customerIds) {
+            store.createDocument(OrchestratorStore.CUSTOMERS_CONTAINER, customerId,
+                    storeMapper.valueToTree(Payloads.customerDocument(customerId, null)));
+        }
+    }
+
+    private static StoreException throttle() {
+        return new StoreException("Request rate is large", StoreException.TOO_MANY_REQUESTS, Duration.ofSeconds(1), null);
+    }
+
+    private interface Operation {
+        Object apply(Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,154 @@
+package com.wis.orchestrator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void limitGrowsAdditivelyOnlyWhileItIsUsed() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+                .initialLimit(2)
+                .latencyTolerance(Double.MAX_VALUE)
+                .build();
+
+        // One call at a time uses half of a limit of 3 but not of 4, so growth stops at 4
+        for (int i = 0; i < 50; i++) {
+            limiter.execute(() -> null);
+        }
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void throttleHalvesTheLimitAndPausesNewWork() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+                .initialLimit(16)
+                .maxWait(Duration.ofMillis(50))
+                .build();
+        StoreException throttle = new StoreException("Request rate is large", StoreException.TOO_MANY_REQUESTS,
+                Duration.ofSeconds(5), null);
+
+        StoreException thrown = assertThrows(StoreException.class, () -> limiter.execute(() -> {
+            throw throttle;
+        }));
+
+        assertSame(throttle, thrown);
+        assertEquals(8, limiter.getLimit());
+        assertEquals(1, limiter.getThrottledCount());
+        // Slots are free, but the retry-after pause outlasts the maximum wait
+        assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.execute(() -> null));
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void limitNeverDropsBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+                .initialLimit(2)
+                .minLimit(2)
+                .build();
+
+        assertThrows(StoreException.class, () -> limiter.execute(() -> {
+            throw new StoreException("Request rate is large", StoreException.TOO_MANY_REQUESTS, Duration.ofMillis(1), null);
+        }));
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void slowCompletionShrinksTheLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+                .initialLimit(10)
+                .latencyTolerance(2.0)
+                .build();
+
+        limiter.execute(() -> null);
+        limiter.execute(() -> {
+            TimeUnit.MILLISECONDS.sleep(50);
+            return null;
+        });
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void otherFailuresReleaseTheSlotWithoutChangingTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().initialLimit(4).build();
+
+        assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+            throw new IllegalStateException("Customer has no profile");
+        }));
+        assertThrows(StoreException.class, () -> limiter.execute(() -> {
+            throw new StoreException("Document not found", StoreException.NOT_FOUND);
+        }));
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getThrottledCount());
+    }
+
+    @Test
+    void callerIsRejectedWhenNoSlotFreesUpInTime() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+                .initialLimit(1)
+                .maxLimit(1)
+                .maxWait(Duration.ofMillis(50))
+                .build();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> holder = executor.submit(() -> limiter.execute(() -> {
+                holding.countDown();
+                release.await();
+                return null;
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+            assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.execute(() -> null));
+            assertEquals(1, limiter.getRejectedCount());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            assertEquals("done", limiter.execute(() -> "done"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitingCallerGetsTheNextFreeSlot() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+                .initialLimit(1)
+                .maxLimit(1)
+                .maxWait(Duration.ofSeconds(5))
+                .build();
+        CountDownLatch holding = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> limiter.execute(() -> {
+                holding.countDown();
+                TimeUnit.MILLISECONDS.sleep(50);
+                return null;
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+            assertEquals("done", limiter.execute(() -> "done"));
+            assertEquals(0, limiter.getRejectedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.model.OutboundMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerOutboxTest {
+
+    private static final String CUSTOMERS = OrchestratorStore.CUSTOMERS_CONTAINER;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final CustomerOutbox outbox = new CustomerOutbox(() -> store, true);
+
+    @Test
+    void commitWritesTheChangeAndItsMessagesTogether() throws Exception {
+        store.createDocument(CUSTOMERS, "cus_1", customer("cus_1"));
+
+        boolean written = outbox.commit("cus_1", customer -> {
+            customer.put("status", "active");
+            return List.of(message("msg-1"));
+        });
+
+        assertTrue(written);
+        JsonNode customer = read("cus_1");
+        assertEquals("active", customer.get("status").asText());
+        List<OutboundMessage> pending = outbox.pendingMessages(customer);
+        assertEquals(1, pending.size());
+        assertEquals("msg-1", pending.get(0).getMessageId());
+        assertEquals("{\"customerId\":\"cus_1\"}", pending.get(0).getBody());
+        assertEquals("welcome", pending.get(0).getApplicationProperties().get("messageType"));
+    }
+
+    @Test
+    void commitReappliesTheChangeAfterAnETagConflict() throws Exception {
+        store.createDocument(CUSTOMERS, "cus_1", customer("cus_1"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        boolean written = outbox.commit("cus_1", customer -> {
+            if (attempts.incrementAndGet() == 1) {
+                // Another writer updates the customer between our read and replace
+                store.patchDocument(CUSTOMERS, "cus_1", "cus_1", Map.of("/currentPhone", "+15555550199"));
+            }
+            customer.put("status", "active");
+            return List.of(message("msg-1"));
+        });
+
+        assertTrue(written);
+        assertEquals(2, attempts.get());
+        JsonNode customer = read("cus_1");
+        assertEquals("+15555550199", customer.get("currentPhone").asText());
+        assertEquals("active", customer.get("status").asText());
+        assertEquals(1, customer.get(CustomerOutbox.OUTBOX_FIELD).size());
+    }
+
+    @Test
+    void commitGivesUpWhenTheDocumentStaysContended() {
+        store.createDocument(CUSTOMERS, "cus_1", customer("cus_1"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        StoreException e = assertThrows(StoreException.class, () -> outbox.commit("cus_1", customer -> {
+            store.patchDocument(CUSTOMERS, "cus_1", "cus_1", Map.of("/touched", attempts.incrementAndGet()));
+            return List.of(message("msg-1"));
+        }));
+
+        assertTrue(e.isPreconditionFailed());
+        assertEquals(5, attempts.get());
+        assertFalse(read("cus_1").has(CustomerOutbox.OUTBOX_FIELD));
+    }
+
+    @Test
+    void commitWritesNothingForAMissingCustomerOrADeclinedChange() throws Exception {
+        assertFalse(outbox.commit("cus_missing", customer -> List.of(message("msg-1"))));
+
+        store.createDocument(CUSTOMERS, "cus_1", customer("cus_1"));
+        long writes = store.getWriteCount();
+        assertFalse(outbox.commit("cus_1", customer -> null));
+        assertEquals(writes, store.getWriteCount());
+    }
+
+    @Test
+    void acknowledgeRemovesOnlyTheSentEntries() throws Exception {
+        store.createDocument(CUSTOMERS, "cus_1", customer("cus_1"));
+        outbox.commit("cus_1", customer -> List.of(message("msg-1"), message("msg-2")));
+        outbox.commit("cus_1", customer -> List.of(message("msg-3")));
+
+        outbox.acknowledge("cus_1", List.of("msg-1", "msg-3"));
+
+        List<OutboundMessage> pending = outbox.pendingMessages(read("cus_1"));
+        assertEquals(1, pending.size());
+        assertEquals("msg-2", pending.get(0).getMessageId());
+    }
+
+    @Test
+    void acknowledgeWithNothingToRemoveDoesNotWrite() throws Exception {
+        store.createDocument(CUSTOMERS, "cus_1", customer("cus_1"));
+        outbox.commit("cus_1", customer -> List.of(message("msg-1")));
+        long writes = store.getWriteCount();
+
+        outbox.acknowledge("cus_1", List.of("msg-unknown"));
+        outbox.acknowledge("cus_missing", List.of("msg-1"));
+
+        assertEquals(writes, store.getWriteCount());
+    }
+
+    private ObjectNode customer(String id) {
+        ObjectNode customer = objectMapper.createObjectNode();
+        customer.put("id", id);
+        customer.put("currentPhone", "+15555550142");
+        customer.put("status", "pending");
+        return customer;
+    }
+
+    private JsonNode read(String id) {
+        return store.readDocument(CUSTOMERS, id, id).orElseThrow().getDocument();
+    }
+
+    static OutboundMessage message(String messageId) {
+        return OutboundMessage.builder()
+                .body("{\"customerId\":\"cus_1\"}")
+                .messageId(messageId)
+                .applicationProperty("messageType", "welcome")
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.wis.orchestrator.service;
+
+import com.wis.orchestrator.util.JsonMappers;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeadLetterClassifierTest {
+
+    private static final String SUBSCRIPTION_ACTIVATED = "{\"eventId\":\"evt-1\",\"eventType\":\"SubscriptionActivated\","
+            + "\"data\":{\"customerId\":\"cus_1\",\"phoneNumber\":\"+15555550142\"}}";
+
+    private final DeadLetterClassifier classifier = new DeadLetterClassifier(JsonMappers.javaTime());
+
+    @Test
+    void emptyOrMalformedBodyIsDeserialization() {
+        assertEquals(DeadLetterCategory.DESERIALIZATION, classify(DeadLetterSource.SUBSCRIPTION_EVENTS, "",
+                "MaxDeliveryCountExceeded", null));
+        assertEquals(DeadLetterCategory.DESERIALIZATION, classify(DeadLetterSource.SUBSCRIPTION_EVENTS, "{not json",
+                "MaxDeliveryCountExceeded", null));
+        assertEquals(DeadLetterCategory.DESERIALIZATION, classify(DeadLetterSource.ORCHESTRATION_RETRY, "[1, 2]",
+                "MaxDeliveryCountExceeded", null));
+    }
+
+    @Test
+    void missingRequiredFieldsIsValidation() {
+        assertEquals(DeadLetterCategory.VALIDATION, classify(DeadLetterSource.SUBSCRIPTION_EVENTS,
+                "{\"eventId\":\"evt-1\",\"data\":{\"customerId\":\"cus_1\"}}", "MaxDeliveryCountExceeded", null));
+        assertEquals(DeadLetterCategory.VALIDATION, classify(DeadLetterSource.CUSTOMER_EVENTS,
+                "{\"eventId\":\"evt-1\",\"data\":{\"phone\":\"+15555550142\"}}", "MaxDeliveryCountExceeded", null));
+        assertEquals(DeadLetterCategory.VALIDATION, classify(DeadLetterSource.MESSAGE_SEND,
+                "{\"customerId\":\"cus_1\"}", "MaxDeliveryCountExceeded", null));
+        assertEquals(DeadLetterCategory.VALIDATION, classify(DeadLetterSource.ORCHESTRATION_RETRY,
+                "{\"eventType\":\"SubscriptionActivated\"}", "MaxDeliveryCountExceeded", null));
+    }
+
+    @Test
+    void validPayloadIsClassifiedByDeadLetterReason() {
+        assertEquals(DeadLetterCategory.TRANSIENT, classify(DeadLetterSource.SUBSCRIPTION_EVENTS, SUBSCRIPTION_ACTIVATED,
+                "MaxDeliveryCountExceeded", null));
+        assertEquals(DeadLetterCategory.TRANSIENT, classify(DeadLetterSource.SUBSCRIPTION_EVENTS, SUBSCRIPTION_ACTIVATED,
+                "TTLExpiredException", "Message expired"));
+        assertEquals(DeadLetterCategory.THROTTLING, classify(DeadLetterSource.SUBSCRIPTION_EVENTS, SUBSCRIPTION_ACTIVATED,
+                "HandlerFailed", "Request rate is large (429)"));
+        assertEquals(DeadLetterCategory.UNKNOWN, classify(DeadLetterSource.SUBSCRIPTION_EVENTS, SUBSCRIPTION_ACTIVATED,
+                "HandlerFailed", "Customer has no profile"));
+    }
+
+    @Test
+    void throttlingWinsOverTransientMarkers() {
+        // Retry exhaustion caused by 429s is throttling, which the operator may want to see separately
+        assertEquals(DeadLetterCategory.THROTTLING, classify(DeadLetterSource.MESSAGE_SEND,
+                "{\"customerId\":\"cus_1\",\"messageType\":\"devotional\"}", "MaxDeliveryCountExceeded",
+                "TooManyRequests"));
+    }
+
+    @Test
+    void retryEnvelopeIsClassifiedByItsPayload() {
+        String envelope = "{\"eventType\":\"SubscriptionActivated\",\"payload\":"
+                + JsonMappers.javaTime().valueToTree(SUBSCRIPTION_ACTIVATED) + "}";
+        assertEquals(DeadLetterCategory.TRANSIENT, classify(DeadLetterSource.ORCHESTRATION_RETRY, envelope,
+                "MaxDeliveryCountExceeded", null));
+
+        String unknownType = "{\"eventType\":\"PlanCancelled\",\"payload\":\"{}\"}";
+        assertEquals(DeadLetterCategory.VALIDATION, classify(DeadLetterSource.ORCHESTRATION_RETRY, unknownType,
+                "MaxDeliveryCountExceeded", null));
+    }
+
+    @Test
+    void onlyTransientAndThrottlingAreRecoverable() {
+        for (DeadLetterCategory category : DeadLetterCategory.values()) {
+            boolean expected = category == DeadLetterCategory.TRANSIENT || category == DeadLetterCategory.THROTTLING;
+            assertEquals(expected, category.isRecoverable(), category.name());
+        }
+    }
+
+    private DeadLetterCategory classify(DeadLetterSource source, String body, String reason, String description) {
+        DeadLetteredMessage message = new DeadLetteredMessage(1, "msg-1", null, body, reason, description, 10,
+                Instant.now(), Map.of(), null);
+        return classifier.classify(source, message).getCategory();
+    }
+}
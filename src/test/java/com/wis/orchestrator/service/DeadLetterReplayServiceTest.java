@@ -0,0 +1,201 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.DeadLetterReplayReport;
+import com.wis.orchestrator.model.OrchestrationRetryMessage;
+import com.wis.orchestrator.model.OutboundMessage;
+import com.wis.orchestrator.util.JsonMappers;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadLetterReplayServiceTest {
+
+    private static final String RETRY_QUEUE = OrchestrationRetryMessage.QUEUE_NAME;
+    private static final Duration NO_LIMIT = Duration.ofMinutes(1);
+
+    private final ObjectMapper objectMapper = JsonMappers.javaTime();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final InMemoryMessageSender sender = new InMemoryMessageSender();
+    private final InMemoryDeadLetterQueue queue = new InMemoryDeadLetterQueue();
+
+    @Test
+    void replaysRecoverableMessagesAndArchivesTheRest() throws Exception {
+        queue.add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null)
+                .add("msg-2", event("cus_2"), "HandlerFailed", "Request rate is large (429)")
+                .add("msg-3", "{not json", "MaxDeliveryCountExceeded", null)
+                .add("msg-4", "{\"data\":{\"customerId\":\"cus_4\"}}", "MaxDeliveryCountExceeded", null)
+                .add("msg-5", event("cus_5"), "HandlerFailed", "Customer has no profile");
+
+        DeadLetterReplayReport report = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                NO_LIMIT, false);
+
+        assertEquals(5, report.getReceived());
+        assertEquals(2, report.getReplayed());
+        assertEquals(3, report.getArchived());
+        assertEquals(0, report.getFailed());
+        assertEquals(1, report.getCategories().get("TRANSIENT"));
+        assertEquals(1, report.getCategories().get("THROTTLING"));
+        assertEquals(1, report.getCategories().get("DESERIALIZATION"));
+        assertEquals(1, report.getCategories().get("VALIDATION"));
+        assertEquals(1, report.getCategories().get("UNKNOWN"));
+        assertEquals(0, queue.depth());
+
+        // Topic events go to the retry queue in an envelope, not back to the topic
+        List<OutboundMessage> replays = sender.drain(RETRY_QUEUE);
+        assertEquals(2, replays.size());
+        OrchestrationRetryMessage retry = objectMapper.readValue(replays.get(0).getBody(), OrchestrationRetryMessage.class);
+        assertEquals(OrchestrationRetryMessage.SUBSCRIPTION_ACTIVATED, retry.getEventType());
+        assertEquals("msg-1", retry.getOriginalMessageId());
+        assertEquals(event("cus_1"), retry.getPayload());
+
+        JsonNode archived = store.readDocument(OrchestratorStore.STATE_CONTAINER,
+                "dlq-archive-subscription-events-msg-5", "dlq-archive-subscription-events-msg-5")
+                .orElseThrow().getDocument();
+        assertEquals("UNKNOWN", archived.get("category").asText());
+        assertEquals(event("cus_5"), archived.get("body").asText());
+    }
+
+    @Test
+    void replayMarkerPreventsSecondReplay() {
+        queue.add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null);
+        DeadLetterReplayReport first = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                NO_LIMIT, false);
+        assertEquals(1, first.getReplayed());
+
+        // The replayed message fails again, or the first run's completion was lost
+        queue.add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null);
+        DeadLetterReplayReport second = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                NO_LIMIT, false);
+
+        assertEquals(0, second.getReplayed());
+        assertEquals(1, second.getDuplicates());
+        assertEquals(0, queue.depth());
+        assertEquals(1, sender.depth(RETRY_QUEUE));
+    }
+
+    @Test
+    void sameMessageTwiceInOneBatchIsReplayedOnce() {
+        queue.add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null)
+                .add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null);
+
+        DeadLetterReplayReport report = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                NO_LIMIT, false);
+
+        assertEquals(1, report.getReplayed());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(0, queue.depth());
+        assertEquals(1, sender.depth(RETRY_QUEUE));
+    }
+
+    @Test
+    void queueMessagesAreReplayedUnchangedToTheirQueue() {
+        String request = "{\"customerId\":\"cus_1\",\"messageType\":\"devotional\"}";
+        queue.add("msg-1", request, "MaxDeliveryCountExceeded", null);
+
+        service(1000).drain(DeadLetterSource.MESSAGE_SEND, queue, 100, NO_LIMIT, false);
+
+        List<OutboundMessage> replays = sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE);
+        assertEquals(1, replays.size());
+        assertEquals(request, replays.get(0).getBody());
+        assertEquals("msg-1", replays.get(0).getMessageId());
+    }
+
+    @Test
+    void replaysArePacedToTheRateCap() {
+        for (int i = 0; i < 10; i++) {
+            queue.add("msg-" + i, event("cus_" + i), "MaxDeliveryCountExceeded", null);
+        }
+
+        long started = System.nanoTime();
+        DeadLetterReplayReport report = service(20).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                NO_LIMIT, false);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(10, report.getReplayed());
+        // 10 replays at 20 a second take at least half a second
+        assertTrue(elapsedMillis >= 500, "Drain took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void dryRunClassifiesButLeavesEverythingInPlace() {
+        queue.add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null)
+                .add("msg-2", "{not json", "MaxDeliveryCountExceeded", null);
+
+        DeadLetterReplayReport report = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                NO_LIMIT, true);
+
+        assertTrue(report.isDryRun());
+        assertEquals(2, report.getReceived());
+        assertEquals(0, report.getReplayed());
+        assertEquals(0, report.getArchived());
+        assertEquals(1, report.getCategories().get("TRANSIENT"));
+        assertEquals(1, report.getCategories().get("DESERIALIZATION"));
+        assertEquals(2, queue.depth());
+        assertEquals(0, sender.getSentCount());
+        assertEquals(0, store.size(OrchestratorStore.STATE_CONTAINER));
+
+        // Abandoned, not completed: the messages are received again with their delivery count bumped
+        List<DeadLetteredMessage> again = queue.receive(10);
+        assertEquals(2, again.size());
+        assertEquals(11, again.get(0).getDeliveryCount());
+    }
+
+    @Test
+    void stopsAtMaxMessagesAndLeavesTheRest() {
+        for (int i = 0; i < 5; i++) {
+            queue.add("msg-" + i, event("cus_" + i), "MaxDeliveryCountExceeded", null);
+        }
+
+        DeadLetterReplayReport report = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 3,
+                NO_LIMIT, false);
+
+        assertEquals(3, report.getReceived());
+        assertEquals(3, report.getReplayed());
+        assertEquals(2, queue.depth());
+        List<DeadLetteredMessage> rest = queue.receive(10);
+        assertEquals("msg-3", rest.get(0).getMessageId());
+        assertEquals(10, rest.get(0).getDeliveryCount());
+    }
+
+    @Test
+    void stopsReceivingAfterTheTimeLimit() {
+        // More than one receive batch; pacing the first batch outlasts the time limit
+        for (int i = 0; i < 150; i++) {
+            queue.add("msg-" + i, event("cus_" + i), "MaxDeliveryCountExceeded", null);
+        }
+
+        DeadLetterReplayReport report = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 1000,
+                Duration.ofMillis(50), false);
+
+        assertEquals(100, report.getReceived());
+        assertEquals(100, report.getReplayed());
+        assertEquals(50, queue.depth());
+    }
+
+    @Test
+    void nothingIsReceivedOnceTheTimeLimitHasPassed() {
+        queue.add("msg-1", event("cus_1"), "MaxDeliveryCountExceeded", null);
+
+        DeadLetterReplayReport report = service(1000).drain(DeadLetterSource.SUBSCRIPTION_EVENTS, queue, 100,
+                Duration.ZERO, false);
+
+        assertEquals(0, report.getReceived());
+        assertEquals(1, queue.depth());
+    }
+
+    private DeadLetterReplayService service(int maxReplaysPerSecond) {
+        return new DeadLetterReplayService(store, sender, objectMapper, maxReplaysPerSecond);
+    }
+
+    private static String event(String customerId) {
+        return "{\"eventId\":\"evt-" + customerId + "\",\"eventType\":\"SubscriptionActivated\","
+                + "\"data\":{\"customerId\":\"" + customerId + "\",\"phoneNumber\":\"+15555550142\"}}";
+    }
+}
@@ -0,0 +1,87 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wis.orchestrator.model.HealthReport;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HealthMonitorTest {
+
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final InMemoryMessageSender sender = new InMemoryMessageSender();
+
+    @Test
+    void reachableDependenciesWithNothingOverdueAreHealthy() {
+        HealthReport report = monitor(store).check();
+
+        assertEquals(HealthReport.HEALTHY, report.getStatus());
+        assertEquals(0L, report.getSchedulerLagSeconds());
+    }
+
+    @Test
+    void slowLagQueryOnlyDegrades() {
+        HealthReport report = monitor(replacing("findOldestDueSchedule", () -> {
+            TimeUnit.SECONDS.sleep(5);
+            return null;
+        })).check();
+
+        assertEquals(HealthReport.DEGRADED, report.getStatus());
+        assertEquals(HealthReport.Probe.TIMEOUT, report.getProbes().get("scheduler").getStatus());
+        assertNull(report.getSchedulerLagSeconds());
+    }
+
+    @Test
+    void failedLagQueryOnlyDegrades() {
+        HealthReport report = monitor(replacing("findOldestDueSchedule", () -> {
+            throw new StoreException("Request timed out", 408);
+        })).check();
+
+        assertEquals(HealthReport.DEGRADED, report.getStatus());
+        assertEquals(HealthReport.Probe.DOWN, report.getProbes().get("scheduler").getStatus());
+    }
+
+    @Test
+    void unreachableContainerIsUnhealthyWithoutExposingTheError() throws Exception {
+        HealthReport report = monitor(replacing("probeContainer", () -> {
+            throw new StoreException("Service unavailable at https://wis-cosmos.documents.azure.com", 503);
+        })).check();
+
+        assertEquals(HealthReport.UNHEALTHY, report.getStatus());
+        assertFalse(new ObjectMapper().writeValueAsString(report).contains("documents.azure.com"));
+    }
+
+    private HealthMonitor monitor(OrchestratorStore probed) {
+        return new HealthMonitor(() -> probed, () -> sender, List.of(MessageDispatcher.MESSAGE_SEND_QUEUE),
+                Duration.ZERO, Duration.ofMillis(200), Duration.ofMinutes(15));
+    }
+
+    /**
+     * The in-memory store with one operation replaced.
+     */
+    private OrchestratorStore replacing(String methodName, Operation operation) {
+        return (OrchestratorStore) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{OrchestratorStore.class}, (proxy, method, args) -> {
+                    if (method.getName().equals(methodName)) {
+                        return operation.call();
+                    }
+                    try {
+                        return method.invoke(store, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private interface Operation {
+        Object call() throws Exception;
+    }
+}
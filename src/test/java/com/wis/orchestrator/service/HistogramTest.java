@@ -0,0 +1,111 @@
+package com.wis.orchestrator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 16;
+
+    @Test
+    void emptyHistogramReportsZero() {
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+
+        assertEquals(0, snapshot.getTotal());
+        assertEquals(0, snapshot.valueAtQuantile(0.99));
+        assertEquals(0, snapshot.countAtOrBelow(Long.MAX_VALUE));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (long value = 0; value < 16; value++) {
+            histogram.record(value);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(7, snapshot.valueAtQuantile(0.5));
+        assertEquals(15, snapshot.valueAtQuantile(1.0));
+        assertEquals(8, snapshot.countAtOrBelow(7));
+    }
+
+    @Test
+    void quantilesAreWithinOneSixteenthOfTheExactValue() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal latencies in nanoseconds, spread over several orders of magnitude
+            values[i] = (long) Math.exp(7 + random.nextGaussian() * 3);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long reported = snapshot.valueAtQuantile(quantile);
+            assertTrue(reported >= exact, "p" + quantile + " reported " + reported + " below exact " + exact);
+            assertTrue(reported <= exact * (1 + MAX_RELATIVE_ERROR) + 1,
+                    "p" + quantile + " reported " + reported + " too far above exact " + exact);
+        }
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertEquals(values[values.length - 1], snapshot.valueAtQuantile(1.0));
+    }
+
+    @Test
+    void countAtOrBelowNeverOvercounts() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        for (long bound : new long[]{100, 1_000, 2_500, 5_000, 9_999}) {
+            long counted = snapshot.countAtOrBelow(bound);
+            assertTrue(counted <= bound, "counted " + counted + " values at or below " + bound);
+            assertTrue(counted >= bound * (1 - MAX_RELATIVE_ERROR), "counted only " + counted + " at or below " + bound);
+        }
+        assertEquals(10_000, snapshot.countAtOrBelow(Long.MAX_VALUE));
+    }
+
+    @Test
+    void snapshotsAreCumulativeAndDoNotReset() {
+        Histogram histogram = new Histogram();
+        histogram.record(100);
+        histogram.record(200);
+
+        assertEquals(2, histogram.snapshot().getTotal());
+        assertEquals(2, histogram.snapshot().getTotal());
+
+        histogram.record(300);
+        assertEquals(3, histogram.snapshot().getTotal());
+        assertEquals(3, histogram.getCount());
+        assertEquals(600, histogram.getSum());
+    }
+
+    @Test
+    void negativeValuesAreRecordedAsZero() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.snapshot().countAtOrBelow(0));
+        assertEquals(0, histogram.getSum());
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucket() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(value <= Histogram.upperBoundOf(bucket), value + " above its bucket");
+            assertTrue(bucket == 0 || value > Histogram.upperBoundOf(bucket - 1), value + " below its bucket");
+        }
+    }
+}
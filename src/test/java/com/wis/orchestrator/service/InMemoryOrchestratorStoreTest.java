@@ -0,0 +1,127 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryOrchestratorStoreTest {
+
+    private static final String STATE = OrchestratorStore.STATE_CONTAINER;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+
+    @Test
+    void replaceSucceedsOnlyWithTheCurrentETag() {
+        String first = store.createDocument(STATE, "doc-1", document("doc-1", 1));
+        String second = store.replaceDocument(STATE, "doc-1", document("doc-1", 2), first);
+        assertNotEquals(first, second);
+
+        StoreException stale = assertThrows(StoreException.class,
+                () -> store.replaceDocument(STATE, "doc-1", document("doc-1", 3), first));
+        assertTrue(stale.isPreconditionFailed());
+
+        VersionedDocument current = store.readDocument(STATE, "doc-1", "doc-1").orElseThrow();
+        assertEquals(2, current.getDocument().get("value").asInt());
+        assertEquals(second, current.getETag());
+        assertEquals(second, current.getDocument().get("_etag").asText());
+    }
+
+    @Test
+    void createFailsWhenTheDocumentExists() {
+        store.createDocument(STATE, "doc-1", document("doc-1", 1));
+
+        StoreException conflict = assertThrows(StoreException.class,
+                () -> store.createDocument(STATE, "doc-1", document("doc-1", 2)));
+        assertTrue(conflict.isConflict());
+    }
+
+    @Test
+    void bulkWritesReportFailuresPerDocument() {
+        store.createDocument(STATE, "doc-1", document("doc-1", 1));
+
+        Map<String, StoreException> failures = store.createDocumentsById(STATE,
+                List.of(document("doc-1", 2), document("doc-2", 2)));
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.get("doc-1").isConflict());
+        assertEquals(2, store.readDocumentsById(STATE, List.of("doc-1", "doc-2", "doc-3")).size());
+    }
+
+    @Test
+    void patchSetsNestedFields() {
+        store.createDocument(STATE, "doc-1", document("doc-1", 1));
+
+        store.patchDocument(STATE, "doc-1", "doc-1", Map.of("/messagingState/conversationState", "paused"));
+
+        JsonNode patched = store.readDocument(STATE, "doc-1", "doc-1").orElseThrow().getDocument();
+        assertEquals("paused", patched.path("messagingState").path("conversationState").asText());
+        assertEquals(1, patched.get("value").asInt());
+    }
+
+    @Test
+    void changeFeedReturnsEachDocumentsLatestVersionOnce() {
+        store.createDocument(STATE, "doc-1", document("doc-1", 1));
+        store.createDocument(STATE, "doc-2", document("doc-2", 1));
+        store.upsertDocument(STATE, "doc-1", document("doc-1", 2));
+
+        ChangeFeedPage first = store.readChangeFeed(STATE, null, 100);
+        assertEquals(List.of("doc-2:1", "doc-1:2"), versions(first));
+
+        // Nothing new since the continuation
+        ChangeFeedPage empty = store.readChangeFeed(STATE, first.getContinuationToken(), 100);
+        assertTrue(empty.getDocuments().isEmpty());
+
+        store.upsertDocument(STATE, "doc-2", document("doc-2", 2));
+        ChangeFeedPage next = store.readChangeFeed(STATE, first.getContinuationToken(), 100);
+        assertEquals(List.of("doc-2:2"), versions(next));
+    }
+
+    @Test
+    void changeFeedPagesByMaxItems() {
+        for (int i = 0; i < 5; i++) {
+            store.createDocument(STATE, "doc-" + i, document("doc-" + i, i));
+        }
+
+        ChangeFeedPage first = store.readChangeFeed(STATE, null, 3);
+        ChangeFeedPage second = store.readChangeFeed(STATE, first.getContinuationToken(), 3);
+
+        assertEquals(3, first.getDocuments().size());
+        assertEquals(2, second.getDocuments().size());
+    }
+
+    @Test
+    void injectedThrottlingFailsOperationsWith429() {
+        InMemoryOrchestratorStore throttled = InMemoryOrchestratorStore.builder().throttleProbability(1.0).build();
+
+        StoreException e = assertThrows(StoreException.class,
+                () -> throttled.readDocument(STATE, "doc-1", "doc-1"));
+        assertTrue(e.isThrottled());
+        assertEquals(1, throttled.getThrottledCount());
+    }
+
+    private ObjectNode document(String id, int value) {
+        ObjectNode document = objectMapper.createObjectNode();
+        document.put("id", id);
+        document.put("value", value);
+        return document;
+    }
+
+    private static List<String> versions(ChangeFeedPage page) {
+        List<String> versions = new ArrayList<>();
+        for (JsonNode document : page.getDocuments()) {
+            versions.add(document.get("id").asText() + ":" + document.get("value").asInt());
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,86 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wis.orchestrator.model.OutboundMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxRelayTest {
+
+    private static final String CUSTOMERS = OrchestratorStore.CUSTOMERS_CONTAINER;
+
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final InMemoryMessageSender sender = new InMemoryMessageSender();
+    private final CustomerOutbox outbox = new CustomerOutbox(() -> store, true);
+    private final OutboxRelay relay = new OutboxRelay(store, outbox, new MessageDispatcher(() -> sender, false, false));
+
+    @Test
+    void sendsPendingEntriesAndRemovesThem() throws Exception {
+        createCustomer("cus_1");
+        createCustomer("cus_2");
+        outbox.commit("cus_1", customer -> List.of(CustomerOutboxTest.message("msg-1")));
+        outbox.commit("cus_2", customer -> List.of(CustomerOutboxTest.message("msg-2"),
+                CustomerOutboxTest.message("msg-3")));
+
+        assertEquals(3, relay.relay(100));
+
+        List<OutboundMessage> sent = sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE);
+        assertEquals(3, sent.size());
+        assertTrue(outbox.pendingMessages(read("cus_1")).isEmpty());
+        assertTrue(outbox.pendingMessages(read("cus_2")).isEmpty());
+    }
+
+    @Test
+    void nextRunReadsOnlyCustomersChangedSinceTheCheckpoint() throws Exception {
+        createCustomer("cus_1");
+        outbox.commit("cus_1", customer -> List.of(CustomerOutboxTest.message("msg-1")));
+        relay.relay(100);
+        sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE);
+
+        assertEquals(0, relay.relay(100));
+
+        outbox.commit("cus_1", customer -> List.of(CustomerOutboxTest.message("msg-2")));
+        assertEquals(1, relay.relay(100));
+        assertEquals("msg-2", sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE).get(0).getMessageId());
+    }
+
+    @Test
+    void failedSendLeavesEntriesAndCheckpointForTheNextRun() throws Exception {
+        createCustomer("cus_1");
+        outbox.commit("cus_1", customer -> List.of(CustomerOutboxTest.message("msg-1")));
+        MessageSender failing = new MessageSender() {
+            @Override
+            public void send(String queueName, List<OutboundMessage> messages) {
+                throw new IllegalStateException("Service Bus unavailable");
+            }
+
+            @Override
+            public void probe(String queueName) {
+            }
+        };
+        OutboxRelay failingRelay = new OutboxRelay(store, outbox, new MessageDispatcher(() -> failing, false, false));
+
+        assertThrows(IllegalStateException.class, () -> failingRelay.relay(100));
+
+        assertEquals(1, outbox.pendingMessages(read("cus_1")).size());
+        assertEquals(1, relay.relay(100));
+        assertEquals("msg-1", sender.drain(MessageDispatcher.MESSAGE_SEND_QUEUE).get(0).getMessageId());
+    }
+
+    private void createCustomer(String id) {
+        ObjectNode customer = new ObjectMapper().createObjectNode();
+        customer.put("id", id);
+        store.createDocument(CUSTOMERS, id, customer);
+    }
+
+    private JsonNode read(String id) {
+        return store.readDocument(CUSTOMERS, id, id).orElseThrow().getDocument();
+    }
+}
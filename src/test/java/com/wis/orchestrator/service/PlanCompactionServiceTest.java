@@ -0,0 +1,114 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanCompactionServiceTest {
+
+    private static final String PLANS = OrchestratorStore.PLANS_CONTAINER;
+    private static final String ARCHIVE = OrchestratorStore.PLANS_ARCHIVE_CONTAINER;
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+
+    @Test
+    void archivesTheFullPlanAndKeepsASummary() {
+        savePlan("plan-1", NOW.minus(Duration.ofDays(10)));
+
+        int compacted = new PlanCompactionService(store, Duration.ofDays(7), 3600).compact(NOW, 100);
+
+        assertEquals(1, compacted);
+        JsonNode archived = store.readDocument(ARCHIVE, "plan-1", "cus_1").orElseThrow().getDocument();
+        assertEquals("Be still.", archived.path("days").get(0).get("reflection").asText());
+        assertEquals(NOW.toString(), archived.get("archivedAt").asText());
+
+        JsonNode summary = read("plan-1");
+        JsonNode day = summary.path("days").get(0);
+        assertEquals("sent", day.get("status").asText());
+        assertFalse(day.has("reflection"));
+        assertFalse(day.has("verseText"));
+        assertEquals("handler-state", summary.get("messageHandlerField").asText());
+        assertEquals(NOW.toString(), summary.get("compactedAt").asText());
+        assertEquals(3600, summary.get("ttl").asInt());
+    }
+
+    @Test
+    void plansWithinTheGracePeriodAreLeftAlone() {
+        savePlan("plan-1", NOW.minus(Duration.ofDays(2)));
+
+        assertEquals(0, new PlanCompactionService(store, Duration.ofDays(7), null).compact(NOW, 100));
+        assertTrue(read("plan-1").path("days").get(0).has("reflection"));
+    }
+
+    @Test
+    void planChangedDuringCompactionIsRetriedNextRun() {
+        savePlan("plan-1", NOW.minus(Duration.ofDays(10)));
+        boolean[] changed = {false};
+        // message-handler updates the plan after it was queried, before the summary replaces it
+        OrchestratorStore racing = (OrchestratorStore) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{OrchestratorStore.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("upsertDocument") && ARCHIVE.equals(args[0]) && !changed[0]) {
+                        changed[0] = true;
+                        store.patchDocument(PLANS, "plan-1", "cus_1", Map.of("/lastReplyAt", NOW.toString()));
+                    }
+                    try {
+                        return method.invoke(store, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        PlanCompactionService service = new PlanCompactionService(racing, Duration.ofDays(7), null);
+
+        assertEquals(0, service.compact(NOW, 100));
+        JsonNode unchanged = read("plan-1");
+        assertFalse(unchanged.has("compactedAt"));
+        assertTrue(unchanged.path("days").get(0).has("reflection"));
+
+        assertEquals(1, service.compact(NOW, 100));
+        JsonNode summary = read("plan-1");
+        assertTrue(summary.has("compactedAt"));
+        assertEquals(NOW.toString(), summary.get("lastReplyAt").asText());
+    }
+
+    @Test
+    void compactedPlansAreNotCompactedAgain() {
+        savePlan("plan-1", NOW.minus(Duration.ofDays(10)));
+        PlanCompactionService service = new PlanCompactionService(store, Duration.ofDays(7), null);
+
+        assertEquals(1, service.compact(NOW, 100));
+        assertEquals(0, service.compact(NOW.plus(Duration.ofDays(1)), 100));
+    }
+
+    private void savePlan(String id, Instant completedAt) {
+        ObjectNode plan = objectMapper.createObjectNode();
+        plan.put("id", id);
+        plan.put("customerId", "cus_1");
+        plan.put("status", "completed");
+        plan.put("completedAt", completedAt.toString());
+        plan.put("messageHandlerField", "handler-state");
+        ObjectNode day = plan.putArray("days").addObject();
+        day.put("dayNumber", 1);
+        day.put("status", "sent");
+        day.put("verseReference", "Psalm 46:10");
+        day.put("verseText", "Be still, and know that I am God.");
+        day.put("reflection", "Be still.");
+        store.upsertDocument(PLANS, "cus_1", plan);
+    }
+
+    private JsonNode read(String id) {
+        return store.readDocument(PLANS, id, "cus_1").orElseThrow().getDocument();
+    }
+}
@@ -0,0 +1,146 @@
+package com.wis.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanCompletionCursorTest {
+
+    private static final String PLANS = OrchestratorStore.PLANS_CONTAINER;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+    private final PlanCompletionCursor cursor = new PlanCompletionCursor(store, objectMapper);
+
+    @Test
+    void returnsOnlyCompletedPlansAwaitingCheckIn() {
+        savePlan("plan-1", "completed", false);
+        savePlan("plan-2", "active", false);
+        savePlan("plan-3", "completed", true);
+
+        assertEquals(List.of("plan-1"), ids(cursor.poll(100)));
+    }
+
+    @Test
+    void pollWritesNothingSoAnUnsentBatchIsReturnedAgain() {
+        savePlan("plan-1", "completed", false);
+        long writes = store.getWriteCount();
+
+        cursor.poll(100);
+
+        assertEquals(writes, store.getWriteCount());
+        assertEquals(List.of("plan-1"), ids(cursor.poll(100)));
+    }
+
+    @Test
+    void sentPlansAreSkippedEvenBeforeTheCheckpointMoves() {
+        savePlan("plan-1", "completed", false);
+        savePlan("plan-2", "completed", false);
+        PlanCompletionCursor.Batch batch = cursor.poll(100);
+
+        // The run sent plan-1's check-in, then failed before committing
+        cursor.markSent(List.of(batch.getCompletedPlans().get(0)));
+
+        assertEquals(List.of("plan-2"), ids(cursor.poll(100)));
+    }
+
+    @Test
+    void commitAdvancesPastTheBatch() {
+        savePlan("plan-1", "completed", false);
+        PlanCompletionCursor.Batch batch = cursor.poll(100);
+        cursor.markSent(batch.getCompletedPlans());
+        cursor.commit(batch);
+
+        assertTrue(cursor.poll(100).getCompletedPlans().isEmpty());
+
+        savePlan("plan-2", "completed", false);
+        PlanCompletionCursor.Batch next = cursor.poll(100);
+        assertEquals(List.of("plan-2"), ids(next));
+        cursor.markSent(next.getCompletedPlans());
+        cursor.commit(next);
+        assertTrue(cursor.poll(100).getCompletedPlans().isEmpty());
+    }
+
+    @Test
+    void staleCommitKeepsTheNewerCheckpoint() {
+        savePlan("plan-1", "completed", false);
+        PlanCompletionCursor.Batch stale = cursor.poll(100);
+        PlanCompletionCursor.Batch current = cursor.poll(100);
+        cursor.markSent(current.getCompletedPlans());
+        cursor.commit(current);
+
+        // A second runner that polled at the same time commits afterwards
+        cursor.commit(stale);
+
+        assertTrue(cursor.poll(100).getCompletedPlans().isEmpty());
+    }
+
+    @Test
+    void failingPlanIsRetriedUntilItIsGivenUpOn() {
+        savePlan("plan-1", "completed", false);
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            PlanCompletionCursor.Batch batch = cursor.poll(100);
+            assertEquals(List.of("plan-1"), ids(batch));
+            assertTrue(cursor.recordFailures(batch.getCompletedPlans(), 3).isEmpty());
+        }
+
+        PlanCompletionCursor.Batch last = cursor.poll(100);
+        assertEquals(List.of("plan-1"), ids(cursor.recordFailures(last.getCompletedPlans(), 3)));
+        cursor.commit(last);
+
+        assertTrue(cursor.poll(100).getCompletedPlans().isEmpty());
+    }
+
+    @Test
+    void givenUpPlanIsSkippedEvenBeforeTheCheckpointMoves() {
+        savePlan("plan-1", "completed", false);
+        savePlan("plan-2", "completed", false);
+        PlanCompletionCursor.Batch batch = cursor.poll(100);
+
+        cursor.recordFailures(List.of(batch.getCompletedPlans().get(0)), 1);
+
+        assertEquals(List.of("plan-2"), ids(cursor.poll(100)));
+    }
+
+    @Test
+    void compactedPlansAreNotNewCompletions() {
+        ObjectNode plan = plan("plan-1", "completed", false);
+        plan.put("compactedAt", "2025-03-10T00:00:00Z");
+        store.upsertDocument(PLANS, "cus_1", plan);
+
+        assertTrue(cursor.poll(100).getCompletedPlans().isEmpty());
+    }
+
+    private void savePlan(String id, String status, boolean checkInSent) {
+        store.upsertDocument(PLANS, "cus_1", plan(id, status, checkInSent));
+    }
+
+    private ObjectNode plan(String id, String status, boolean checkInSent) {
+        ObjectNode plan = objectMapper.createObjectNode();
+        plan.put("id", id);
+        plan.put("customerId", "cus_1");
+        plan.put("status", status);
+        plan.put("checkInSent", checkInSent);
+        return plan;
+    }
+
+    private static List<String> ids(PlanCompletionCursor.Batch batch) {
+        return ids(batch.getCompletedPlans());
+    }
+
+    private static List<String> ids(List<JsonNode> plans) {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode plan : plans) {
+            ids.add(plan.get("id").asText());
+        }
+        return ids;
+    }
+}
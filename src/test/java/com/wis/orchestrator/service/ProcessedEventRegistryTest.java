@@ -0,0 +1,95 @@
+package com.wis.orchestrator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessedEventRegistryTest {
+
+    private static final String EVENT_TYPE = "SubscriptionActivated";
+
+    private final InMemoryOrchestratorStore store = InMemoryOrchestratorStore.builder().build();
+
+    @Test
+    void markedEventIsProcessedWithoutAStoreRead() {
+        ProcessedEventRegistry registry = new ProcessedEventRegistry(() -> store);
+        assertFalse(registry.isProcessed(EVENT_TYPE, "evt-1"));
+
+        registry.markProcessed(EVENT_TYPE, "evt-1");
+        long reads = store.getReadCount();
+
+        assertTrue(registry.isProcessed(EVENT_TYPE, "evt-1"));
+        assertEquals(reads, store.getReadCount());
+        assertEquals(1, registry.getLocalHitCount());
+    }
+
+    @Test
+    void markerIsSeenByAnotherInstance() {
+        new ProcessedEventRegistry(() -> store).markProcessed(EVENT_TYPE, "evt-1");
+        ProcessedEventRegistry other = new ProcessedEventRegistry(() -> store);
+
+        assertTrue(other.isProcessed(EVENT_TYPE, "evt-1"));
+        assertEquals(1, other.getDurableHitCount());
+        // Remembered after the durable hit
+        assertTrue(other.isRecentlyProcessed(EVENT_TYPE, "evt-1"));
+    }
+
+    @Test
+    void evictedIdsFallBackToTheMarker() {
+        ProcessedEventRegistry registry = new ProcessedEventRegistry(() -> store, 2, Duration.ofDays(1));
+        registry.markProcessed(EVENT_TYPE, "evt-1");
+        registry.markProcessed(EVENT_TYPE, "evt-2");
+        registry.markProcessed(EVENT_TYPE, "evt-3");
+
+        assertFalse(registry.isRecentlyProcessed(EVENT_TYPE, "evt-1"));
+        assertTrue(registry.isProcessed(EVENT_TYPE, "evt-1"));
+        assertEquals(1, registry.getDurableHitCount());
+    }
+
+    @Test
+    void eventTypesDoNotShareIds() {
+        ProcessedEventRegistry registry = new ProcessedEventRegistry(() -> store);
+        registry.markProcessed(EVENT_TYPE, "evt-1");
+
+        assertFalse(registry.isProcessed("CustomerRegistered", "evt-1"));
+    }
+
+    @Test
+    void eventsWithoutAnIdAreNeverDuplicates() {
+        ProcessedEventRegistry registry = new ProcessedEventRegistry(() -> store);
+        registry.markProcessed(EVENT_TYPE, (String) null);
+
+        assertFalse(registry.isProcessed(EVENT_TYPE, null));
+        assertEquals(0, store.size(OrchestratorStore.STATE_CONTAINER));
+    }
+
+    @Test
+    void batchFormsMatchTheSingleForms() {
+        ProcessedEventRegistry writer = new ProcessedEventRegistry(() -> store);
+        writer.markProcessed(EVENT_TYPE, List.of("evt-1", "evt-2"));
+        ProcessedEventRegistry reader = new ProcessedEventRegistry(() -> store);
+        reader.markProcessed(EVENT_TYPE, "evt-3");
+
+        Set<String> processed = reader.findProcessed(EVENT_TYPE, Arrays.asList("evt-1", "evt-3", "evt-4", null));
+
+        assertEquals(Set.of("evt-1", "evt-3"), processed);
+        assertEquals(3, store.size(OrchestratorStore.STATE_CONTAINER));
+    }
+
+    @Test
+    void failedMarkerWriteStillCoversThisInstance() {
+        InMemoryOrchestratorStore throttled = InMemoryOrchestratorStore.builder().throttleProbability(1.0).build();
+        ProcessedEventRegistry registry = new ProcessedEventRegistry(() -> throttled);
+
+        registry.markProcessed(EVENT_TYPE, "evt-1");
+
+        assertTrue(registry.isRecentlyProcessed(EVENT_TYPE, "evt-1"));
+    }
+}
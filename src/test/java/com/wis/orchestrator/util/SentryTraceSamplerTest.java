@@ -0,0 +1,73 @@
+package com.wis.orchestrator.util;
+
+import io.sentry.CustomSamplingContext;
+import io.sentry.SamplingContext;
+import io.sentry.TransactionContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SentryTraceSamplerTest {
+
+    @Test
+    void eachFunctionIsSampledAtItsOwnRate() {
+        SentryTraceSampler sampler = new SentryTraceSampler(
+                Map.of("ProcessSubscriptionActivated", 1.0, "MessageScheduler", 0.0)::get, 1.0, Duration.ofMinutes(5), 1000);
+
+        assertEquals(100, sampled(sampler, "ProcessSubscriptionActivated", 100));
+        assertEquals(0, sampled(sampler, "MessageScheduler", 100));
+    }
+
+    @Test
+    void tracesPerMinuteAreCappedPerFunction() {
+        SentryTraceSampler sampler = new SentryTraceSampler(name -> 1.0, 1.0, Duration.ofMinutes(5), 10);
+
+        assertEquals(10, sampled(sampler, "MessageScheduler", 100));
+        // Another function has its own budget
+        assertEquals(10, sampled(sampler, "ProcessSubscriptionActivated", 100));
+        assertEquals(0, sampled(sampler, "MessageScheduler", 100));
+    }
+
+    @Test
+    void failureRaisesAFunctionToTheErrorRate() {
+        SentryTraceSampler sampler = new SentryTraceSampler(name -> 0.0, 1.0, Duration.ofMinutes(5), 1000);
+        assertEquals(0, sampled(sampler, "ProcessSubscriptionActivated", 100));
+
+        sampler.recordFailure("ProcessSubscriptionActivated");
+
+        assertEquals(100, sampled(sampler, "ProcessSubscriptionActivated", 100));
+        assertEquals(0, sampled(sampler, "MessageScheduler", 100));
+    }
+
+    @Test
+    void errorRateIsStillCapped() {
+        SentryTraceSampler sampler = new SentryTraceSampler(name -> 0.0, 1.0, Duration.ofMinutes(5), 10);
+        sampler.recordFailure("ProcessSubscriptionActivated");
+
+        assertEquals(10, sampled(sampler, "ProcessSubscriptionActivated", 100));
+    }
+
+    @Test
+    void errorBoostExpires() throws InterruptedException {
+        SentryTraceSampler sampler = new SentryTraceSampler(name -> 0.0, 1.0, Duration.ofMillis(20), 1000);
+        sampler.recordFailure("ProcessSubscriptionActivated");
+
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        assertEquals(0, sampled(sampler, "ProcessSubscriptionActivated", 100));
+    }
+
+    private static int sampled(SentryTraceSampler sampler, String function, int invocations) {
+        SamplingContext context = new SamplingContext(new TransactionContext(function, "function"),
+                new CustomSamplingContext());
+        int sampled = 0;
+        for (int i = 0; i < invocations; i++) {
+            sampled += sampler.sample(context) > 0 ? 1 : 0;
+        }
+        return sampled;
+    }
+}